@@ -43,11 +43,32 @@ public enum STExceptionID {
      * failed to write weight list to XML file
      */
     XMLSTORAGE_STORE_WEIGHT_LIST,
+    /**
+     * failed to sync the directory of the written XML files
+     */
+    XMLSTORAGE_SYNC_DIRECTORY,
+    /**
+     * failed to compact the journal of a XML file
+     */
+    XMLSTORAGE_COMPACT_JOURNAL,
+
+    /**
+     * failed to read a list from the SQLite storage database
+     */
+    SQLITESTORAGE_READ,
+    /**
+     * failed to store a list to the SQLite storage database
+     */
+    SQLITESTORAGE_STORE,
 
     /**
      * failed to create application directory
      */
     DOCUMENT_CREATE_APP_DIRECTORY,
+    /**
+     * failed to read the application data (unexpected error or interruption)
+     */
+    DOCUMENT_READ_APPLICATION_DATA,
 
     /**
      * failed to export application data to SQLite
@@ -0,0 +1,176 @@
+package de.saring.sportstracker.data;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import de.saring.util.StringUtils;
+
+/**
+ * This class contains the compiled form of an EntryFilter. All the values needed for filtering are prepared once
+ * on creation (e.g. the regular expression pattern, the lowercase comment substring, the date range and the
+ * sport type, subtype, equipment IDs and intensity), so the evaluation for each entry does not need to allocate
+ * any objects. The compiled filter is not thread safe and must not be used anymore after the EntryFilter has been modified.
+ *
+ * @author Stefan Saring
+ */
+public final class CompiledEntryFilter {
+
+    /** Constant for undefined IDs when the sport type, subtype or equipment is not filtered. */
+    private static final int ID_UNDEFINED = Integer.MIN_VALUE;
+
+    private final EntryFilter filter;
+
+    /** The entry datetime needs to be same or after this start datetime. */
+    private final LocalDateTime dateTimeStart;
+
+    /** The entry datetime needs to be same or before this end datetime. */
+    private final LocalDateTime dateTimeEnd;
+
+    /** The trimmed comment substring in lowercase for the normal mode, null when comments are not filtered. */
+    private final String commentSubStringLowerCase;
+
+    /** The reusable matcher for the comment substring in regular expression mode, null when not used. */
+    private final Matcher commentMatcher;
+
+    private final int sportTypeId;
+    private final int sportSubTypeId;
+    private final int equipmentId;
+    private final Exercise.IntensityType intensity;
+
+    /**
+     * Creates the compiled form of the specified entry filter.
+     *
+     * @param filter the entry filter
+     * @throws PatternSyntaxException thrown on parsing problems of the regular expression for comment searching
+     */
+    public CompiledEntryFilter(final EntryFilter filter) throws PatternSyntaxException {
+        this.filter = filter;
+        dateTimeStart = filter.getDateStart().atStartOfDay();
+        dateTimeEnd = LocalDateTime.of(filter.getDateEnd(), LocalTime.MAX);
+
+        // a comment substring of whitespaces only means no comment filtering, so entries without comment still match
+        if (StringUtils.isNullOrEmpty(filter.getCommentSubString())) {
+            commentSubStringLowerCase = null;
+            commentMatcher = null;
+        } else if (filter.isRegularExpressionMode()) {
+            commentSubStringLowerCase = null;
+            commentMatcher = Pattern.compile(filter.getCommentSubString().trim()).matcher("");
+        } else {
+            commentSubStringLowerCase = filter.getCommentSubString().trim().toLowerCase();
+            commentMatcher = null;
+        }
+
+        sportTypeId = filter.getSportType() == null ? ID_UNDEFINED : filter.getSportType().getId();
+        sportSubTypeId = filter.getSportSubType() == null ? ID_UNDEFINED : filter.getSportSubType().getId();
+        equipmentId = filter.getEquipment() == null ? ID_UNDEFINED : filter.getEquipment().getId();
+        intensity = filter.getIntensity();
+    }
+
+    /**
+     * Returns the EntryFilter of this compiled filter.
+     *
+     * @return the EntryFilter
+     */
+    public EntryFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Checks whether the specified datetime is in the date range of the filter.
+     *
+     * @param dateTime datetime to check
+     * @return true if the datetime is in the date range
+     */
+    public boolean matchesDateTime(final LocalDateTime dateTime) {
+        return !dateTime.isBefore(dateTimeStart) && !dateTime.isAfter(dateTimeEnd);
+    }
+
+    /**
+     * Returns true when the filter contains a comment substring which needs to be checked.
+     *
+     * @return true when comments needs to be filtered
+     */
+    public boolean isCommentFiltered() {
+        return commentSubStringLowerCase != null || commentMatcher != null;
+    }
+
+    /**
+     * Checks whether the specified comment matches the comment substring of the filter. The search for a
+     * comment substring is only case sensitive in regular expression mode.
+     *
+     * @param comment comment to check (can be null)
+     * @return true if the comment contains the substring or when comments are not filtered
+     */
+    public boolean matchesComment(final String comment) {
+
+        if (!isCommentFiltered()) {
+            return true;
+        }
+
+        // ignore this entry when no comment present
+        if (StringUtils.isNullOrEmpty(comment)) {
+            return false;
+        }
+
+        if (commentMatcher != null) {
+            // regular expression searching for substring (is case sensitive !)
+            return commentMatcher.reset(comment).find();
+        } else {
+            // normal searching for substring (is not case sensitive !)
+            return containsIgnoreCase(comment, commentSubStringLowerCase);
+        }
+    }
+
+    /**
+     * Checks whether the specified sport type matches the filter.
+     *
+     * @param sportType sport type to check (can be null)
+     * @return true if the filter accepts this sport type
+     */
+    public boolean matchesSportType(final SportType sportType) {
+        return sportTypeId == ID_UNDEFINED || (sportType != null && sportTypeId == sportType.getId());
+    }
+
+    /**
+     * Checks whether the specified sport subtype matches the filter.
+     *
+     * @param sportSubType sport subtype to check (can be null)
+     * @return true if the filter accepts this sport subtype
+     */
+    public boolean matchesSportSubType(final SportSubType sportSubType) {
+        return sportSubTypeId == ID_UNDEFINED || (sportSubType != null && sportSubTypeId == sportSubType.getId());
+    }
+
+    /**
+     * Checks whether the specified intensity matches the filter.
+     *
+     * @param intensity intensity to check
+     * @return true if the filter accepts this intensity
+     */
+    public boolean matchesIntensity(final Exercise.IntensityType intensity) {
+        return this.intensity == null || this.intensity == intensity;
+    }
+
+    /**
+     * Checks whether the specified equipment matches the filter.
+     *
+     * @param equipment equipment to check (can be null)
+     * @return true if the filter accepts this equipment
+     */
+    public boolean matchesEquipment(final Equipment equipment) {
+        return equipmentId == ID_UNDEFINED || (equipment != null && equipmentId == equipment.getId());
+    }
+
+    private static boolean containsIgnoreCase(final String text, final String subStringLowerCase) {
+        final int maxOffset = text.length() - subStringLowerCase.length();
+        for (int offset = 0; offset <= maxOffset; offset++) {
+            if (text.regionMatches(true, offset, subStringLowerCase, 0, subStringLowerCase.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
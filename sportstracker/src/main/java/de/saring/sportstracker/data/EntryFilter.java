@@ -3,6 +3,7 @@ package de.saring.sportstracker.data;
 import de.saring.sportstracker.data.Exercise.IntensityType;
 
 import java.time.LocalDate;
+import java.util.Objects;
 import java.time.temporal.TemporalAdjusters;
 
 /**
@@ -11,7 +12,7 @@ import java.time.temporal.TemporalAdjusters;
  *
  * @author Stefan Saring
  */
-public final class EntryFilter {
+public final class EntryFilter implements Cloneable {
 
     /**
      * Enumeration with all possible entry types to be filtered.
@@ -207,6 +208,48 @@ public final class EntryFilter {
         }
     }
 
+    /**
+     * Returns a copy of this EntryFilter object. The referenced sport type, subtype and equipment
+     * objects are not cloned, the filter criteria only depend on their IDs.
+     *
+     * @return clone of this object
+     */
+    @Override
+    public EntryFilter clone() {
+        try {
+            return (EntryFilter) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new AssertionError();
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        final EntryFilter that = (EntryFilter) o;
+        return regularExpressionMode == that.regularExpressionMode
+                && Objects.equals(dateStart, that.dateStart)
+                && Objects.equals(dateEnd, that.dateEnd)
+                && entryType == that.entryType
+                && Objects.equals(sportType, that.sportType)
+                && Objects.equals(sportSubType, that.sportSubType)
+                && intensity == that.intensity
+                && Objects.equals(equipment, that.equipment)
+                && Objects.equals(commentSubString, that.commentSubString);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dateStart, dateEnd, entryType, sportType, sportSubType, intensity, equipment,
+                commentSubString, regularExpressionMode);
+    }
+
     @Override
     public String toString() {
 
@@ -1,11 +1,8 @@
 package de.saring.sportstracker.data;
 
-import java.time.LocalDate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
 
-import de.saring.util.StringUtils;
 import de.saring.util.data.IdDateObjectList;
 
 /**
@@ -41,63 +38,30 @@ public class EntryList<T extends Entry> extends IdDateObjectList<T> {
         }
 
         final EntryList<T> foundEntries = new EntryList<>();
-        stream().filter(note -> filterEntry(note, filter))
-                .forEach(foundEntries::set);
+        if (filter.getDateStart().isAfter(filter.getDateEnd())) {
+            return foundEntries;
+        }
+
+        // the filter is compiled once, only the entries of the filter date range needs to be checked
+        // (this list is already sorted, so the found entries can be added in one step)
+        final CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+        foundEntries.addAllSorted(getEntriesInDateRange(filter.getDateStart(), filter.getDateEnd()).stream()
+                .filter(entry -> filterEntry(entry, compiledFilter))
+                .collect(Collectors.toList()));
         return foundEntries;
     }
 
     /**
-     * Checks whether the specified entry matches the comment of the filter. It filters the entry date
+     * Checks whether the specified entry matches the compiled filter. It filters the entry date
      * and the entry comment (if present).
      *
      * @param entry entry to check
-     * @param filter entry filter
+     * @param filter compiled entry filter
      * @return true if the filter matches
      */
-    protected boolean filterEntry(T entry, EntryFilter filter) {
-
-        // make sure that the entry is in the specified time period
-        LocalDate entryDate = entry.getDateTime().toLocalDate();
-        if (filter.getDateStart().isAfter(entryDate) || filter.getDateEnd().isBefore(entryDate)) {
-            return false;
-        }
-
-        // do we need to search in comments ?
-        if (!StringUtils.isNullOrEmpty(filter.getCommentSubString())) {
-            if (!filterEntryByComment(entry, filter)) {
-                return false;
-            }
-        }
-
-        // all filter criteria are fulfilled
-        return true;
-    }
-
-    private boolean filterEntryByComment(Entry entry, EntryFilter filter) {
-
-        // ignore this entry when no comment present
-        if (StringUtils.isNullOrEmpty(entry.getComment())) {
-            return false;
-        }
-
-        String strCommentSubString = filter.getCommentSubString().trim();
-
-        if (!filter.isRegularExpressionMode()) {
-            // normal searching for substring (is not case sensitive !)
-            strCommentSubString = strCommentSubString.toLowerCase();
-            String strEntryComment = entry.getComment().toLowerCase();
-            if (!strEntryComment.contains(strCommentSubString)) {
-                return false;
-            }
-        } else {
-            // regular expression searching for substring (is case sensitive !)
-            Pattern ptnCommentSubString = Pattern.compile(strCommentSubString);
-            Matcher matcher = ptnCommentSubString.matcher(entry.getComment());
-            if (!matcher.find()) {
-                return false;
-            }
-        }
+    protected boolean filterEntry(T entry, CompiledEntryFilter filter) {
 
-        return true;
+        // make sure that the entry is in the specified time period and contains the comment substring (if specified)
+        return filter.matchesDateTime(entry.getDateTime()) && filter.matchesComment(entry.getComment());
     }
 }
@@ -1,6 +1,7 @@
 package de.saring.sportstracker.data;
 
-import java.util.regex.PatternSyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class contains a list of all exercises of the user and provides access
@@ -17,68 +18,59 @@ public final class ExerciseList extends EntryList<Exercise> {
      * been edited, e.g. the name of a sport type has changed. The new sport
      * type will be a new object and the exercise object which uses it needs to
      * get the reference to this new object (references the old object before).
+     * All updated exercises are stored in the list again, so the list change
+     * listeners get notified about them.
      *
      * @param sportTypeList the sport type list to be used for update
      */
     public void updateSportTypes(SportTypeList sportTypeList) {
 
-        // process all exercises
+        // process all exercises, the updated exercises can't be stored while iterating
+        List<Exercise> updatedExercises = new ArrayList<>();
         this.forEach(exercise -> {
 
             // get and store the new SportType object with the same ID
             SportType newSportType = sportTypeList.getByID(exercise.getSportType().getId());
-            exercise.setSportType(newSportType);
 
             // get and store the new SportSubType object with the same ID
             SportSubType newSportSubType = newSportType.getSportSubTypeList().getByID(exercise.getSportSubType().getId());
-            exercise.setSportSubType(newSportSubType);
 
             // get and store the new Equipment object with the same ID (is optional)
-            if (exercise.getEquipment() != null) {
-                Equipment newEquipment = newSportType.getEquipmentList().getByID(exercise.getEquipment().getId());
+            Equipment newEquipment = exercise.getEquipment() == null ? null :
+                    newSportType.getEquipmentList().getByID(exercise.getEquipment().getId());
+
+            if (newSportType != exercise.getSportType() || newSportSubType != exercise.getSportSubType()
+                    || newEquipment != exercise.getEquipment()) {
+                exercise.setSportType(newSportType);
+                exercise.setSportSubType(newSportSubType);
                 exercise.setEquipment(newEquipment);
+                updatedExercises.add(exercise);
             }
         });
+
+        updatedExercises.forEach(this::set);
     }
 
     /**
-     * This method checks whether the specified exercise entry matches the specified entry filter criteria.
+     * This method checks whether the specified exercise entry matches the specified compiled entry filter criteria.
      * It extends the default filter (date time and comment) by sport type, subtype, intensity and equipment criteria.
      *
      * @param exercise the exercise to check
-     * @param filter the entry filter criterias
+     * @param filter the compiled entry filter criterias
      * @return true if the exercise matches the filter criteria
-     * @throws PatternSyntaxException thrown on parsing problems of the regular expression for comment searching
      */
     @Override
-    protected boolean filterEntry(Exercise exercise, EntryFilter filter) {
+    protected boolean filterEntry(Exercise exercise, CompiledEntryFilter filter) {
 
         // entry datetime and comment are filtered by the base class
         if (!super.filterEntry(exercise, filter)) {
             return false;
         }
 
-        // if a sport type filter is specified => make sure that exercise has the same sport type
-        if (filter.getSportType() != null && !filter.getSportType().equals(exercise.getSportType())) {
-            return false;
-        }
-
-        // if a sport subtype filter is specified => make sure that exercise has the same sport subtype
-        if (filter.getSportSubType() != null && !filter.getSportSubType().equals(exercise.getSportSubType())) {
-            return false;
-        }
-
-        // if an intensity is specified => make sure that exercise has the same intensity
-        if (filter.getIntensity() != null && filter.getIntensity() != exercise.getIntensity()) {
-            return false;
-        }
-
-        // if an equipment filter is specified => make sure that exercise has the same equipment (is optional)
-        if (filter.getEquipment() != null && !filter.getEquipment().equals(exercise.getEquipment())) {
-            return false;
-        }
-
-        // all filter criteria are fulfilled
-        return true;
+        // make sure that the exercise has the same sport type, subtype, intensity and equipment (when specified)
+        return filter.matchesSportType(exercise.getSportType())
+                && filter.matchesSportSubType(exercise.getSportSubType())
+                && filter.matchesIntensity(exercise.getIntensity())
+                && filter.matchesEquipment(exercise.getEquipment());
     }
 }
@@ -0,0 +1,225 @@
+package de.saring.sportstracker.data.statistic;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import de.saring.sportstracker.data.Exercise;
+
+/**
+ * This class aggregates the values of exercises into time buckets (e.g. all weeks or months of a year)
+ * and series (e.g. one series per sport type). The aggregation is done in a single pass over the passed
+ * exercises or over the pre-aggregated ExerciseRollups, the sums of distance, duration, ascent, descent and
+ * calories and the number of exercises are stored in primitive arrays for each combination of series and
+ * time bucket.
+ *
+ * @author Stefan Saring
+ */
+public final class ExerciseAggregation {
+
+    /**
+     * Series index to be returned by the series mapper for exercises which must not be aggregated.
+     */
+    public static final int NO_SERIES = -1;
+
+    /** Epoch days of the first day of all time buckets, sorted ascending. */
+    private final long[] bucketStartDays;
+
+    /** Epoch days of the last day of all time buckets. */
+    private final long[] bucketEndDays;
+
+    private final int seriesCount;
+
+    private final double[] distances;
+    private final double[] durations;
+    private final double[] ascents;
+    private final double[] descents;
+    private final double[] calories;
+    private final int[] counts;
+
+    /**
+     * Creates a new ExerciseAggregation instance. The aggregation will be done immediately for the specified
+     * exercises, the results can be retrieved by the getter methods.
+     *
+     * @param exercises the exercises to aggregate (order does not matter)
+     * @param bucketStarts first days of all time buckets, must be sorted ascending, buckets must not overlap
+     * @param bucketEnds last days of all time buckets (same size as bucketStarts)
+     * @param seriesCount number of series
+     * @param seriesMapper function which returns the series index (0 to seriesCount - 1) of an exercise or
+     * NO_SERIES when the exercise must be ignored
+     */
+    public ExerciseAggregation(final Iterable<Exercise> exercises, final LocalDate[] bucketStarts,
+            final LocalDate[] bucketEnds, final int seriesCount, final ToIntFunction<Exercise> seriesMapper) {
+        this(bucketStarts, bucketEnds, seriesCount);
+
+        for (Exercise exercise : exercises) {
+            final int series = seriesMapper.applyAsInt(exercise);
+            if (series == NO_SERIES) {
+                continue;
+            }
+
+            final int bucket = findBucket(exercise.getDateTime().toLocalDate().toEpochDay());
+            if (bucket < 0) {
+                continue;
+            }
+
+            final int index = getIndex(series, bucket);
+            distances[index] += exercise.getDistance();
+            durations[index] += exercise.getDuration();
+            ascents[index] += exercise.getAscent();
+            descents[index] += exercise.getDescent();
+            calories[index] += exercise.getCalories();
+            counts[index]++;
+        }
+    }
+
+    /**
+     * Creates a new ExerciseAggregation instance from the pre-aggregated sums of the specified rollups.
+     * No exercises need to be processed, the values of each time bucket are summed up from the day and
+     * month sums of the rollups.
+     *
+     * @param rollups the exercise rollups
+     * @param bucketStarts first days of all time buckets, must be sorted ascending, buckets must not overlap
+     * @param bucketEnds last days of all time buckets (same size as bucketStarts)
+     * @param seriesCount number of series
+     * @param seriesMapper function which returns the series index (0 to seriesCount - 1) of a rollup key or
+     * NO_SERIES when the rollup values must be ignored
+     * @return the created ExerciseAggregation
+     */
+    public static ExerciseAggregation fromRollups(final ExerciseRollups rollups, final LocalDate[] bucketStarts,
+            final LocalDate[] bucketEnds, final int seriesCount, final ToIntFunction<ExerciseRollups.Key> seriesMapper) {
+
+        final ExerciseAggregation aggregation = new ExerciseAggregation(bucketStarts, bucketEnds, seriesCount);
+
+        for (int bucket = 0; bucket < bucketStarts.length; bucket++) {
+            final int currentBucket = bucket;
+            rollups.forEachInDateRange(bucketStarts[bucket], bucketEnds[bucket], (key, values) -> {
+                final int series = seriesMapper.applyAsInt(key);
+                if (series != NO_SERIES) {
+                    final int index = aggregation.getIndex(series, currentBucket);
+                    aggregation.distances[index] += values.getDistance();
+                    aggregation.durations[index] += values.getDuration();
+                    aggregation.ascents[index] += values.getAscent();
+                    aggregation.descents[index] += values.getDescent();
+                    aggregation.calories[index] += values.getCalories();
+                    aggregation.counts[index] += values.getCount();
+                }
+            });
+        }
+        return aggregation;
+    }
+
+    private ExerciseAggregation(final LocalDate[] bucketStarts, final LocalDate[] bucketEnds, final int seriesCount) {
+        if (bucketStarts.length != bucketEnds.length) {
+            throw new IllegalArgumentException("The bucket start and end dates must have the same size!");
+        }
+
+        this.bucketStartDays = Arrays.stream(bucketStarts).mapToLong(LocalDate::toEpochDay).toArray();
+        this.bucketEndDays = Arrays.stream(bucketEnds).mapToLong(LocalDate::toEpochDay).toArray();
+        this.seriesCount = seriesCount;
+
+        final int size = seriesCount * bucketStartDays.length;
+        distances = new double[size];
+        durations = new double[size];
+        ascents = new double[size];
+        descents = new double[size];
+        calories = new double[size];
+        counts = new int[size];
+    }
+
+    /**
+     * @return number of time buckets
+     */
+    public int getBucketCount() {
+        return bucketStartDays.length;
+    }
+
+    /**
+     * @return number of series
+     */
+    public int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /**
+     * Returns the distance sum of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return distance sum in kilometers
+     */
+    public double getDistance(final int series, final int bucket) {
+        return distances[getIndex(series, bucket)];
+    }
+
+    /**
+     * Returns the duration sum of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return duration sum in seconds
+     */
+    public double getDuration(final int series, final int bucket) {
+        return durations[getIndex(series, bucket)];
+    }
+
+    /**
+     * Returns the ascent sum of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return ascent sum in meters
+     */
+    public double getAscent(final int series, final int bucket) {
+        return ascents[getIndex(series, bucket)];
+    }
+
+    /**
+     * Returns the descent sum of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return descent sum in meters
+     */
+    public double getDescent(final int series, final int bucket) {
+        return descents[getIndex(series, bucket)];
+    }
+
+    /**
+     * Returns the calorie consumption sum of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return calorie sum in kCal
+     */
+    public double getCalories(final int series, final int bucket) {
+        return calories[getIndex(series, bucket)];
+    }
+
+    /**
+     * Returns the number of exercises of the specified series and time bucket.
+     *
+     * @param series series index
+     * @param bucket time bucket index
+     * @return number of exercises
+     */
+    public int getCount(final int series, final int bucket) {
+        return counts[getIndex(series, bucket)];
+    }
+
+    private int getIndex(final int series, final int bucket) {
+        return series * bucketStartDays.length + bucket;
+    }
+
+    /**
+     * Returns the index of the time bucket which contains the specified day or -1 when there is none.
+     */
+    private int findBucket(final long epochDay) {
+        int index = Arrays.binarySearch(bucketStartDays, epochDay);
+        if (index < 0) {
+            // not the first day of a bucket => use the bucket starting before
+            index = -index - 2;
+        }
+        return index >= 0 && epochDay <= bucketEndDays[index] ? index : -1;
+    }
+}
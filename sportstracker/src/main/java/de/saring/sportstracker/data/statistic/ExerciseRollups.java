@@ -0,0 +1,373 @@
+package de.saring.sportstracker.data.statistic;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.util.data.IdObject;
+import de.saring.util.data.IdObjectListChangeListener;
+import de.saring.util.data.IdObjectListRemoveListener;
+
+/**
+ * This class contains the pre-aggregated sums of all exercises per day and per month, each grouped by the
+ * sport type, sport subtype and equipment of the exercises (the rollup key). The sums of any date range can
+ * be queried by using the month sums for all complete months and the day sums for the rest (e.g. a week is
+ * composed of its day sums, because the week start depends on the user options).<br/>
+ * The rollups are created once for the specified exercise list and are then updated incrementally on each
+ * change of the list, so only the sums of the added, edited or removed exercises need to be updated. The
+ * exercises can be modified in place before they are stored in the list again, so the previous values of
+ * each exercise are remembered for the update.
+ *
+ * @author Stefan Saring
+ */
+public final class ExerciseRollups implements IdObjectListChangeListener, IdObjectListRemoveListener {
+
+    /** Constant for the sport subtype or equipment ID of exercises without sport subtype or equipment. */
+    public static final int ID_NONE = -1;
+
+    private final ExerciseList exerciseList;
+
+    /** The sums of all days with exercises, key is the epoch day. */
+    private final TreeMap<Long, Map<Key, Values>> dayRollups = new TreeMap<>();
+
+    /** The sums of all months with exercises, key is the month index (year * 12 + month - 1). */
+    private final TreeMap<Integer, Map<Key, Values>> monthRollups = new TreeMap<>();
+
+    /** The values of all exercises which are currently included in the rollups, key is the exercise ID. */
+    private final Map<Integer, ExerciseSnapshot> includedExercises = new HashMap<>();
+
+    /** Flag for a removed exercise which has been subtracted already, the following list change can be ignored. */
+    private boolean removalProcessed;
+
+    /**
+     * Creates the rollups for all exercises of the specified list and registers itself as a listener
+     * for incremental updates on all list changes. The rollups must be disposed when not used anymore.
+     *
+     * @param exerciseList the exercise list
+     */
+    public ExerciseRollups(final ExerciseList exerciseList) {
+        this.exerciseList = exerciseList;
+        exerciseList.forEach(this::addExercise);
+        exerciseList.addListChangeListener(this);
+        exerciseList.addRemoveListener(this);
+    }
+
+    /**
+     * Unregisters the listeners from the exercise list, the rollups will not be updated anymore.
+     */
+    public void dispose() {
+        exerciseList.removeListChangeListener(this);
+        exerciseList.removeRemoveListener(this);
+    }
+
+    /**
+     * @return the exercise list of these rollups
+     */
+    public ExerciseList getExerciseList() {
+        return exerciseList;
+    }
+
+    @Override
+    public void objectRemoved(final IdObject removedObject) {
+        final ExerciseSnapshot snapshot = includedExercises.remove(removedObject.getId());
+        if (snapshot != null) {
+            subtractSnapshot(snapshot);
+        }
+        removalProcessed = true;
+    }
+
+    @Override
+    public void listChanged(final IdObject changedObject) {
+        if (removalProcessed) {
+            // the removed exercise has already been subtracted in objectRemoved()
+            removalProcessed = false;
+        } else if (changedObject instanceof Exercise) {
+            updateExercise((Exercise) changedObject);
+        } else if (changedObject == null) {
+            // all exercises have been changed => update all changed exercises only
+            final Iterator<ExerciseSnapshot> iterator = includedExercises.values().iterator();
+            while (iterator.hasNext()) {
+                final ExerciseSnapshot snapshot = iterator.next();
+                if (exerciseList.getByID(snapshot.exerciseId) == null) {
+                    iterator.remove();
+                    subtractSnapshot(snapshot);
+                }
+            }
+            exerciseList.forEach(this::updateExercise);
+        }
+    }
+
+    /**
+     * Calls the consumer for the sums of each rollup key of all exercises in the specified date range.
+     * The consumer can be called multiple times for the same key (e.g. for each month and day of the
+     * date range), so the caller needs to sum up the values.
+     *
+     * @param dateStart first day of the date range
+     * @param dateEnd last day of the date range
+     * @param consumer consumer for the rollup key and the sums (the values must not be modified)
+     */
+    public void forEachInDateRange(final LocalDate dateStart, final LocalDate dateEnd,
+            final BiConsumer<Key, Values> consumer) {
+
+        LocalDate current = dateStart;
+        while (!current.isAfter(dateEnd)) {
+            final LocalDate monthEnd = current.withDayOfMonth(current.lengthOfMonth());
+
+            if (current.getDayOfMonth() == 1 && !monthEnd.isAfter(dateEnd)) {
+                // the complete month is in the date range => use the month sums
+                final Map<Key, Values> monthValues = monthRollups.get(getMonthIndex(current));
+                if (monthValues != null) {
+                    monthValues.forEach(consumer);
+                }
+            } else {
+                final LocalDate rangeEnd = monthEnd.isAfter(dateEnd) ? dateEnd : monthEnd;
+                dayRollups.subMap(current.toEpochDay(), true, rangeEnd.toEpochDay(), true).values()
+                        .forEach(dayValues -> dayValues.forEach(consumer));
+            }
+            current = monthEnd.plusDays(1);
+        }
+    }
+
+    /**
+     * Returns the sums of all exercises in the specified date range.
+     *
+     * @param dateStart first day of the date range
+     * @param dateEnd last day of the date range
+     * @return the summed values
+     */
+    public Values getTotalInDateRange(final LocalDate dateStart, final LocalDate dateEnd) {
+        final Values total = new Values();
+        forEachInDateRange(dateStart, dateEnd, (key, values) -> total.add(values));
+        return total;
+    }
+
+    private void updateExercise(final Exercise exercise) {
+        final ExerciseSnapshot snapshot = includedExercises.get(exercise.getId());
+        if (snapshot == null || !snapshot.matches(exercise)) {
+            if (snapshot != null) {
+                subtractSnapshot(snapshot);
+            }
+            addExercise(exercise);
+        }
+    }
+
+    private void addExercise(final Exercise exercise) {
+        final ExerciseSnapshot snapshot = new ExerciseSnapshot(exercise);
+        includedExercises.put(snapshot.exerciseId, snapshot);
+
+        dayRollups.computeIfAbsent(snapshot.epochDay, day -> new HashMap<>())
+                .computeIfAbsent(snapshot.key, key -> new Values()).add(snapshot, 1);
+        monthRollups.computeIfAbsent(snapshot.monthIndex, month -> new HashMap<>())
+                .computeIfAbsent(snapshot.key, key -> new Values()).add(snapshot, 1);
+    }
+
+    private void subtractSnapshot(final ExerciseSnapshot snapshot) {
+        subtractFromRollup(dayRollups, snapshot.epochDay, snapshot);
+        subtractFromRollup(monthRollups, snapshot.monthIndex, snapshot);
+    }
+
+    private static <K> void subtractFromRollup(final NavigableMap<K, Map<Key, Values>> rollups, final K rollupKey,
+            final ExerciseSnapshot snapshot) {
+
+        final Map<Key, Values> rollupValues = rollups.get(rollupKey);
+        final Values values = rollupValues.get(snapshot.key);
+        values.add(snapshot, -1);
+
+        // remove empty sums, this also removes all rounding residues of the subtraction
+        if (values.count == 0) {
+            rollupValues.remove(snapshot.key);
+            if (rollupValues.isEmpty()) {
+                rollups.remove(rollupKey);
+            }
+        }
+    }
+
+    private static int getMonthIndex(final LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * The rollup key of an exercise, it consists of the IDs of the sport type, sport subtype and equipment.
+     * The sport subtype and equipment ID is ID_NONE when not specified.
+     */
+    public static final class Key {
+
+        private final int sportTypeId;
+        private final int sportSubTypeId;
+        private final int equipmentId;
+
+        /**
+         * Creates the rollup key for the specified IDs.
+         *
+         * @param sportTypeId ID of the sport type
+         * @param sportSubTypeId ID of the sport subtype or ID_NONE
+         * @param equipmentId ID of the equipment or ID_NONE
+         */
+        public Key(final int sportTypeId, final int sportSubTypeId, final int equipmentId) {
+            this.sportTypeId = sportTypeId;
+            this.sportSubTypeId = sportSubTypeId;
+            this.equipmentId = equipmentId;
+        }
+
+        /**
+         * Creates the rollup key for the specified exercise.
+         *
+         * @param exercise the exercise
+         * @return the rollup key
+         */
+        public static Key of(final Exercise exercise) {
+            return new Key(exercise.getSportType().getId(),
+                    exercise.getSportSubType() == null ? ID_NONE : exercise.getSportSubType().getId(),
+                    exercise.getEquipment() == null ? ID_NONE : exercise.getEquipment().getId());
+        }
+
+        public int getSportTypeId() {
+            return sportTypeId;
+        }
+
+        public int getSportSubTypeId() {
+            return sportSubTypeId;
+        }
+
+        public int getEquipmentId() {
+            return equipmentId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return sportTypeId == other.sportTypeId && sportSubTypeId == other.sportSubTypeId
+                    && equipmentId == other.equipmentId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sportTypeId, sportSubTypeId, equipmentId);
+        }
+    }
+
+    /**
+     * The summed values of exercises.
+     */
+    public static final class Values {
+
+        private double distance;
+        private double duration;
+        private double ascent;
+        private double descent;
+        private double calories;
+        private int count;
+
+        /**
+         * @return distance sum in kilometers
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return duration sum in seconds
+         */
+        public double getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return ascent sum in meters
+         */
+        public double getAscent() {
+            return ascent;
+        }
+
+        /**
+         * @return descent sum in meters
+         */
+        public double getDescent() {
+            return descent;
+        }
+
+        /**
+         * @return calorie sum in kCal
+         */
+        public double getCalories() {
+            return calories;
+        }
+
+        /**
+         * @return number of exercises
+         */
+        public int getCount() {
+            return count;
+        }
+
+        private void add(final Values values) {
+            distance += values.distance;
+            duration += values.duration;
+            ascent += values.ascent;
+            descent += values.descent;
+            calories += values.calories;
+            count += values.count;
+        }
+
+        private void add(final ExerciseSnapshot snapshot, final int sign) {
+            distance += sign * snapshot.distance;
+            duration += sign * snapshot.duration;
+            ascent += sign * snapshot.ascent;
+            descent += sign * snapshot.descent;
+            calories += sign * snapshot.calories;
+            count += sign;
+        }
+    }
+
+    /**
+     * The values of an exercise at the time it was added to the rollups.
+     */
+    private static final class ExerciseSnapshot {
+
+        private final int exerciseId;
+        private final long epochDay;
+        private final int monthIndex;
+        private final Key key;
+        private final float distance;
+        private final int duration;
+        private final int ascent;
+        private final int descent;
+        private final int calories;
+
+        private ExerciseSnapshot(final Exercise exercise) {
+            final LocalDate date = exercise.getDateTime().toLocalDate();
+            exerciseId = exercise.getId();
+            epochDay = date.toEpochDay();
+            monthIndex = getMonthIndex(date);
+            key = Key.of(exercise);
+            distance = exercise.getDistance();
+            duration = exercise.getDuration();
+            ascent = exercise.getAscent();
+            descent = exercise.getDescent();
+            calories = exercise.getCalories();
+        }
+
+        private boolean matches(final Exercise exercise) {
+            return epochDay == exercise.getDateTime().toLocalDate().toEpochDay()
+                    && key.equals(Key.of(exercise))
+                    && distance == exercise.getDistance()
+                    && duration == exercise.getDuration()
+                    && ascent == exercise.getAscent()
+                    && descent == exercise.getDescent()
+                    && calories == exercise.getCalories();
+        }
+    }
+}
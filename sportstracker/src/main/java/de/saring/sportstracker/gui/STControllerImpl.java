@@ -8,12 +8,18 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.saring.sportstracker.data.Entry;
 import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.storage.SQLiteExporter;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.concurrent.Task;
@@ -34,6 +40,7 @@ import javafx.stage.Stage;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.core.STOptions;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Note;
@@ -70,6 +77,9 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     private static final String URL_PROJECT_WEBSITE = "https://www.saring.de/sportstracker";
 
+    /** Maximum time in seconds to wait for a cancelled SQLite export on application exit. */
+    private static final int EXPORT_EXIT_TIMEOUT_SECONDS = 60;
+
     private final STContext context;
     private final STDocument document;
     private final SQLiteExporter exporter;
@@ -88,6 +98,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     @FXML
     private MenuItem miSave;
     @FXML
+    private MenuItem miExportSqlite;
+    @FXML
     private MenuItem miQuit;
     @FXML
     private MenuItem miEditEntry;
@@ -163,9 +175,31 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     /** Property for the disabled status of the 'Disable Exercise Filter' action. */
     private final BooleanProperty actionFilterDisableDisabled = new SimpleBooleanProperty(true);
 
+    /** Property for the disabled status of the 'Export to SQLite' action (while a cancelled export is finishing). */
+    private final BooleanProperty actionExportSqliteDisabled = new SimpleBooleanProperty(false);
+
     /** The date to be set initially when the next entry will be added. */
     private LocalDate dateForNewEntries;
 
+    /** Executor for the SQLite exports, they are executed one after the other in a background thread. */
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "SQLite-Export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The currently running SQLite export task, null when no export is running. It's reset when the
+     * export thread has finished the task, a cancelled task can still be running until then.
+     */
+    private ExportSqliteTask exportSqliteTask;
+
+    /**
+     * This flag is true while the complete application data is loaded after the current month has been
+     * displayed, the entries can't be modified until then.
+     */
+    private boolean loadingCompleteData;
+
     /**
      * Standard c'tor for DI.
      *
@@ -273,8 +307,41 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onExportSqlite(final ActionEvent event) {
-        context.blockMainWindow(true);
-        new Thread(new ExportSqliteTask()).start();
+        if (!checkForCompleteData()) {
+            return;
+        }
+
+        if (exportSqliteTask != null) {
+            // the export is still running, the user can cancel it
+            final ExportSqliteTask runningTask = exportSqliteTask;
+            final Optional<ButtonType> result = context.showConfirmationDialog(context.getPrimaryStage(), //
+                    "st.main.confirm.cancel_export_sqlite.title", "st.main.confirm.cancel_export_sqlite.text");
+            if (result.isPresent() && result.get() == ButtonType.OK && exportSqliteTask == runningTask) {
+                // the export checks the cancellation itself, it must not be interrupted while writing,
+                // so the action stays disabled until the export thread has finished the task
+                runningTask.cancel(false);
+                updateActionsAndStatusBar();
+            }
+            return;
+        }
+
+        // the export uses a snapshot of the document, so the user can continue editing
+        final ExportSqliteTask task = new ExportSqliteTask(exporter.createSnapshot());
+        task.messageProperty().addListener((observable, oldValue, newValue) -> {
+            if (!task.isCancelled() && newValue != null && !newValue.isEmpty()) {
+                statusBarController.showMessage(newValue);
+            }
+        });
+        exportSqliteTask = task;
+        updateActionsAndStatusBar();
+
+        exportExecutor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                Platform.runLater(() -> exportFinished(task));
+            }
+        });
     }
 
     @Override
@@ -289,7 +356,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onAddExercise(final ActionEvent event) {
-        if (!checkForExistingSportTypes()) {
+        if (!checkForCompleteData() || !checkForExistingSportTypes()) {
             return;
         }
 
@@ -300,6 +367,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onAddNote(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         // start Note dialog for a new created Note
         final Note newNote = new Note(document.getNoteList().getNewId());
         newNote.setDateTime(Date310Utils.getNoonDateTimeForDate(dateForNewEntries));
@@ -309,6 +380,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onAddWeight(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         // start Weight dialog for a new created Weight
         final Weight newWeight = new Weight(document.getWeightList().getNewId());
         newWeight.setDateTime(Date310Utils.getNoonDateTimeForDate(dateForNewEntries));
@@ -330,6 +405,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onEditEntry(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         // start edit action depending on entry type
         if (currentViewController.getSelectedExerciseCount() == 1) {
             editExercise(currentViewController.getSelectedExerciseIDs()[0]);
@@ -342,6 +421,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onCopyEntry(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         // start copy action depending on entry type
         if (currentViewController.getSelectedExerciseCount() == 1) {
             copyExercise(currentViewController.getSelectedExerciseIDs()[0]);
@@ -354,6 +437,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onDeleteEntry(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         int[] selectedEntryIDs = null;
         EntryList<? extends Entry> entryList = null;
 
@@ -445,6 +532,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onSportTypeEditor(final ActionEvent event) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         dialogProvider.prSportTypeListDialogController.get().show(context.getPrimaryStage());
 
         // sport type and subtype objects may have been changed => these will be new objects
@@ -458,7 +549,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onStatistics(final ActionEvent event) {
-        if (!checkForExistingExercises()) {
+        if (!checkForCompleteData() || !checkForExistingExercises()) {
             return;
         }
 
@@ -467,7 +558,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onOverviewDiagram(final ActionEvent event) {
-        if (!checkForExistingExercises()) {
+        if (!checkForCompleteData() || !checkForExistingExercises()) {
             return;
         }
 
@@ -476,7 +567,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onEquipmentUsage(final ActionEvent event) {
-        if (!checkForExistingExercises()) {
+        if (!checkForCompleteData() || !checkForExistingExercises()) {
             return;
         }
 
@@ -495,7 +586,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onAddExerciseForDroppedHrmFile(final String hrmFilePath) {
-        if (checkForExistingSportTypes()) {
+        if (checkForCompleteData() && checkForExistingSportTypes()) {
 
             // create a new exercise and assign the HRM file
             Exercise newExercise = createNewExercise(null);
@@ -508,6 +599,10 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     @Override
     public void onAssignDroppedHrmFileToExercise(final String hrmFilePath, final Exercise exercise) {
+        if (!checkForCompleteData()) {
+            return;
+        }
+
         exercise.setHrmFile(hrmFilePath);
         document.getExerciseList().set(exercise);
         context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
@@ -580,6 +675,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         btWeightListView.disableProperty().bind(actionWeightListViewDisabled);
 
         miFilterDisable.disableProperty().bind(actionFilterDisableDisabled);
+
+        miExportSqlite.disableProperty().bind(actionExportSqliteDisabled);
         btFilterDisable.disableProperty().bind(actionFilterDisableDisabled);
     }
 
@@ -616,6 +713,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         actionViewHrmDisabled.set(!fHRMEnabled);
 
         actionFilterDisableDisabled.set(!document.isFilterEnabled());
+        actionExportSqliteDisabled.set(exportSqliteTask != null && exportSqliteTask.isCancelled());
 
         // update status of view actions depending on the current view type
         final EntryViewController.ViewType currentViewType = currentViewController.getViewType();
@@ -625,6 +723,21 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         actionWeightListViewDisabled.set(currentViewType == EntryViewController.ViewType.WEIGHT_LIST);
     }
 
+    /**
+     * Checks whether the complete application data has been loaded. Otherwise an information message
+     * will be displayed, the entries must not be modified while only the current month is loaded.
+     *
+     * @return true when the complete application data is available
+     */
+    private boolean checkForCompleteData() {
+        if (loadingCompleteData) {
+            context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
+                    "common.info", "st.main.info.loading_complete_data");
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Checks for existing sport types. When the list is empty, create a list of initial sport types
      * and display an information message (easier so new application users).
@@ -707,9 +820,34 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
      * Exits the SportsTracker application and releases the resources before.
      */
     private void exitApplication() {
+        // a running SQLite export gets cancelled, the exit must wait until it's finished
+        if (exportSqliteTask != null) {
+            exportSqliteTask.cancel(false);
+        }
+        exportExecutor.shutdown();
+        try {
+            if (!exportExecutor.awaitTermination(EXPORT_EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warning("The export to SQLite has not been finished on application exit!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
         context.getPrimaryStage().close();
     }
 
+    /**
+     * Must be called when the export thread has finished the specified SQLite export task.
+     *
+     * @param task the finished export task
+     */
+    private void exportFinished(final ExportSqliteTask task) {
+        if (exportSqliteTask == task) {
+            exportSqliteTask = null;
+        }
+        updateActionsAndStatusBar();
+    }
+
     /**
      * Registers a listener which updates the view after each data change and selects the changed
      * object in the current view, if specified.
@@ -861,7 +999,8 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
 
     /**
      * This class executes the loading action inside a background task without blocking the UI thread.
-     * It also checks the existence of all attached exercise files.
+     * The entries of the current month are loaded and displayed first, so the user can view them while
+     * the complete application data is loaded. It also checks the existence of all attached exercise files.
      */
     private class LoadTask extends Task<Void> {
 
@@ -870,14 +1009,66 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         @Override
         protected Void call() throws Exception {
             LOGGER.info("Loading application data...");
-            document.readApplicationData();
+            loadAndDisplayCurrentMonth();
+            applyInApplicationThread(document.readApplicationData());
             corruptExercises = document.checkExerciseFiles();
             return null;
         }
 
+        /**
+         * Loads the entries of the current month and displays them in the UI thread. Read problems
+         * are ignored here, they will be reported when the complete application data is loaded.
+         */
+        private void loadAndDisplayCurrentMonth() {
+            final LocalDate today = LocalDate.now();
+            final STDocument.DataUpdate previewUpdate;
+            try {
+                previewUpdate = document.readApplicationDataPreview(today.withDayOfMonth(1),
+                        today.withDayOfMonth(today.lengthOfMonth()));
+            } catch (STException e) {
+                LOGGER.log(Level.WARNING, "Failed to load the application data of the current month!", e);
+                return;
+            }
+
+            // the document lists are replaced in the UI thread only, the final update in succeeded()
+            // or failed() is always executed after this update
+            Platform.runLater(() -> {
+                try {
+                    previewUpdate.apply();
+                } catch (STException e) {
+                    LOGGER.log(Level.WARNING, "Failed to load the application data of the current month!", e);
+                    return;
+                }
+                loadingCompleteData = true;
+                context.blockMainWindow(false);
+                updateView();
+                statusBarController.showMessage(context.getResources().getString(
+                        "st.main.info.loading_complete_data"));
+            });
+        }
+
+        /**
+         * Applies the specified update of the document in the UI thread and waits for it. The exception
+         * of the update will be thrown in the calling thread.
+         */
+        private void applyInApplicationThread(final STDocument.DataUpdate dataUpdate) throws Exception {
+            final FutureTask<Void> updateTask = new FutureTask<>(() -> {
+                dataUpdate.apply();
+                return null;
+            });
+            Platform.runLater(updateTask);
+
+            try {
+                updateTask.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
         @Override
         protected void succeeded() {
             super.succeeded();
+            loadingCompleteData = false;
             context.blockMainWindow(false);
 
             updateFinally();
@@ -888,6 +1079,7 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
         @Override
         protected void failed() {
             super.failed();
+            loadingCompleteData = false;
             context.blockMainWindow(false);
 
             LOGGER.log(Level.SEVERE, "Failed to load application data!", getException());
@@ -970,30 +1162,56 @@ public class STControllerImpl implements STController, EntryViewEventHandler {
     }
 
     /**
-     * This class executes the Export to SQLite action inside a background task without blocking the UI thread.
+     * This class executes the Export to SQLite action inside a background task without blocking the UI. The
+     * progress of the export is displayed in the status bar, the export can be cancelled.
      */
-    private class ExportSqliteTask extends Task<Void> {
+    private class ExportSqliteTask extends Task<Boolean> implements SQLiteExporter.ProgressMonitor {
+
+        private final SQLiteExporter.Snapshot snapshot;
+
+        /**
+         * Standard c'tor.
+         *
+         * @param snapshot snapshot of the document to export
+         */
+        public ExportSqliteTask(final SQLiteExporter.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
 
         @Override
-        protected Void call() throws Exception {
+        protected Boolean call() throws Exception {
             LOGGER.info("Exporting application data to SQLite...");
-            exporter.exportToSqlite();
-            return null;
+            return exporter.exportChangesToSqlite(snapshot, this);
+        }
+
+        @Override
+        public void progress(final SQLiteExporter.EntityType entityType, final int exportedCount,
+                             final int totalCount) {
+            final String entityTypeName = context.getResources().getString( //
+                    "st.main.export_sqlite." + entityType.name().toLowerCase());
+            updateMessage(context.getResources().getString("st.main.info.export_sqlite_progress", //
+                    entityTypeName, exportedCount, totalCount));
         }
 
         @Override
         protected void succeeded() {
             super.succeeded();
-            context.blockMainWindow(false);
 
-            context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
-                    "common.info", "st.main.info.export_sqlite_success", exporter.getDatabasePath().toString());
+            if (getValue()) {
+                context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.INFORMATION, //
+                        "common.info", "st.main.info.export_sqlite_success", exporter.getDatabasePath().toString());
+            }
+        }
+
+        @Override
+        protected void cancelled() {
+            super.cancelled();
+            LOGGER.info("The export of application data to SQLite has been cancelled.");
         }
 
         @Override
         protected void failed() {
             super.failed();
-            context.blockMainWindow(false);
 
             LOGGER.log(Level.SEVERE, "Failed to export application data to SQLite!", getException());
             context.showMessageDialog(context.getPrimaryStage(), Alert.AlertType.ERROR, //
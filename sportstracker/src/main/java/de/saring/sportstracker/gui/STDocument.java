@@ -1,5 +1,6 @@
 package de.saring.sportstracker.gui;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import de.saring.sportstracker.core.STException;
@@ -13,6 +14,7 @@ import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseRollups;
 import de.saring.util.data.IdObjectListChangeListener;
 import de.saring.util.unitcalc.SpeedMode;
 
@@ -105,21 +107,54 @@ public interface STDocument extends IdObjectListChangeListener {
     EntryList<Weight> getFilterableWeightList();
 
     /**
-     * This method reads both the exercise and the sport-type list from the
-     * storage (e.g. XML files). On read problems empty lists will be created.
+     * Returns the pre-aggregated exercise sums per day and month of the current exercise list.
+     * The rollups are updated automatically on all exercise list changes.
      *
+     * @return the ExerciseRollups of the current exercise list
+     */
+    ExerciseRollups getExerciseRollups();
+
+    /**
+     * This method reads all data lists from the storage (e.g. XML files). The lists are read in
+     * the calling thread (e.g. a background thread), but they are not used by the document until
+     * the returned update has been applied in the thread using the document (the JavaFX application
+     * thread). On read problems the update uses empty lists for the lists which could not be read,
+     * these lists will never be stored. The problems are thrown when applying the update.
+     *
+     * @return the update for using the read lists
+     */
+    DataUpdate readApplicationData();
+
+    /**
+     * This method reads the complete sport type list, but only the exercises, notes and weights
+     * of the specified date range from the storage. So they can be displayed quickly (e.g. for the
+     * current month), the complete data needs to be read by readApplicationData() afterwards.
+     * The entries must not be modified and stored before. Like in readApplicationData() the read
+     * lists are used after the returned update has been applied.
+     *
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the update for using the read lists
      * @throws STException thrown on read problems
      */
-    void readApplicationData() throws STException;
+    DataUpdate readApplicationDataPreview(LocalDate dateStart, LocalDate dateEnd) throws STException;
 
     /**
-     * This method stores both the exercise and the sport-type list in the storage
-     * (e.g. XML files). On success the dirty data flag will be set to false.
+     * This method stores all modified data lists in the storage (e.g. XML files),
+     * unchanged lists will not be stored again. On success the dirty data flag
+     * will be set to false.
      *
      * @throws STException thrown on store problems
      */
     void storeApplicationData() throws STException;
 
+    /**
+     * This method closes the storage on application exit, so all stored data is contained
+     * completely in the storage files (e.g. XML files) afterwards. Unsaved changes are not
+     * stored. Errors will be logged only.
+     */
+    void closeStorage();
+
     /**
      * Checks all exercises for the existence of the attached exercise files
      * (if there is one).
@@ -145,4 +180,19 @@ public interface STDocument extends IdObjectListChangeListener {
      * @return speed mode to use for them
      */
     SpeedMode getSpeedModeForExercises(final int[] exerciseIds);
+
+    /**
+     * Update of the document with the data lists read from the storage, see readApplicationData().
+     */
+    @FunctionalInterface
+    interface DataUpdate {
+
+        /**
+         * Replaces the data lists of the document by the read lists. Must be called in the thread
+         * using the document (the JavaFX application thread).
+         *
+         * @throws STException the problems which occurred while reading the lists
+         */
+        void apply() throws STException;
+    }
 }
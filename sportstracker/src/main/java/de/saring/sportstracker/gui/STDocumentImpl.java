@@ -3,7 +3,13 @@ package de.saring.sportstracker.gui;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -15,6 +21,7 @@ import javax.inject.Singleton;
 import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.core.STExceptionID;
 import de.saring.sportstracker.core.STOptions;
+import de.saring.sportstracker.data.Entry;
 import de.saring.sportstracker.data.EntryFilter;
 import de.saring.sportstracker.data.EntryList;
 import de.saring.sportstracker.data.Exercise;
@@ -24,6 +31,7 @@ import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseRollups;
 import de.saring.sportstracker.storage.IStorage;
 import de.saring.util.XmlBeanStorage;
 import de.saring.util.data.IdObject;
@@ -79,8 +87,13 @@ public class STDocumentImpl implements STDocument {
      */
     private String dataDirectory;
 
-    /** This flag is true when data has been modified but not saved yet. */
-    private boolean dirtyData;
+    /**
+     * The dirty data flags of each data list, they are true when the list has been modified but not saved yet.
+     */
+    private final DirtyListFlag dirtySportTypeList = new DirtyListFlag();
+    private final DirtyListFlag dirtyExerciseList = new DirtyListFlag();
+    private final DirtyListFlag dirtyNoteList = new DirtyListFlag();
+    private final DirtyListFlag dirtyWeightList = new DirtyListFlag();
 
     /**
      * The application settings.
@@ -96,6 +109,18 @@ public class STDocumentImpl implements STDocument {
      */
     private EntryFilter currentFilter;
 
+    /**
+     * Caches of the filtered entry lists for the current filter.
+     */
+    private final FilteredListCache<Exercise> filteredExerciseListCache = new FilteredListCache<>();
+    private final FilteredListCache<Note> filteredNoteListCache = new FilteredListCache<>();
+    private final FilteredListCache<Weight> filteredWeightListCache = new FilteredListCache<>();
+
+    /**
+     * The pre-aggregated exercise sums, created lazily for the current exercise list.
+     */
+    private ExerciseRollups exerciseRollups;
+
     /**
      * Standard c'tor.
      *
@@ -115,7 +140,7 @@ public class STDocumentImpl implements STDocument {
         exerciseList = new ExerciseList();
         noteList = new NoteList();
         weightList = new WeightList();
-        dirtyData = false;
+        registerDirtyListFlags();
 
         // create default filter for current month, but it is disabled
         filterEnabled = false;
@@ -149,7 +174,7 @@ public class STDocumentImpl implements STDocument {
 
     @Override
     public boolean isDirtyData() {
-        return dirtyData;
+        return dirtySportTypeList.dirty || dirtyExerciseList.dirty || dirtyNoteList.dirty || dirtyWeightList.dirty;
     }
 
     @Override
@@ -239,8 +264,8 @@ public class STDocumentImpl implements STDocument {
     public EntryList<Exercise> getFilterableExerciseList() {
 
         if ((filterEnabled) && (currentFilter != null)) {
-            // use current filter to get list
-            return exerciseList.getEntriesForFilter(currentFilter);
+            // use current filter to get list (the result is cached until the list or filter changes)
+            return filteredExerciseListCache.getFilteredList(exerciseList, currentFilter);
         } else {
             // no filter: return list of all exercises
             return exerciseList;
@@ -251,8 +276,8 @@ public class STDocumentImpl implements STDocument {
     public EntryList<Note> getFilterableNoteList() {
 
         if ((filterEnabled) && (currentFilter != null)) {
-            // use current filter to get list
-            return noteList.getEntriesForFilter(currentFilter);
+            // use current filter to get list (the result is cached until the list or filter changes)
+            return filteredNoteListCache.getFilteredList(noteList, currentFilter);
         } else {
             // no filter: return list of all notes
             return noteList;
@@ -263,8 +288,8 @@ public class STDocumentImpl implements STDocument {
     public EntryList<Weight> getFilterableWeightList() {
 
         if ((filterEnabled) && (currentFilter != null)) {
-            // use current filter to get list
-            return weightList.getEntriesForFilter(currentFilter);
+            // use current filter to get list (the result is cached until the list or filter changes)
+            return filteredWeightListCache.getFilteredList(weightList, currentFilter);
         } else {
             // no filter: return list of all weights
             return weightList;
@@ -272,30 +297,173 @@ public class STDocumentImpl implements STDocument {
     }
 
     @Override
-    public void readApplicationData() throws STException {
+    public ExerciseRollups getExerciseRollups() {
+        // the exercise list is replaced when reading the application data => rollups needs to be recreated
+        if (exerciseRollups == null || exerciseRollups.getExerciseList() != exerciseList) {
+            if (exerciseRollups != null) {
+                exerciseRollups.dispose();
+            }
+            exerciseRollups = new ExerciseRollups(exerciseList);
+        }
+        return exerciseRollups;
+    }
+
+    @Override
+    public DataUpdate readApplicationData() {
+
+        // only the exercises depend on the sport types, so the notes and weights are read in
+        // parallel to the sport types and exercises, the reading takes as long as the slowest file
+        final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            final Thread thread = new Thread(runnable, "STDocument-ReadData");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         try {
-            // read application data from XML files
-            sportTypeList = storage.readSportTypeList(dataDirectory + "/" + FILENAME_SPORT_TYPE_LIST,
-                    options.getPreferredSpeedMode());
-            exerciseList = storage.readExerciseList(dataDirectory + "/" + FILENAME_EXERCISE_LIST, sportTypeList);
-            noteList = storage.readNoteList(dataDirectory + "/" + FILENAME_NOTE_LIST);
-            weightList = storage.readWeightList(dataDirectory + "/" + FILENAME_WEIGHT_LIST);
+            final Future<NoteList> futureNoteList = executor.submit(() ->
+                    storage.readNoteList(dataDirectory + "/" + FILENAME_NOTE_LIST));
+            final Future<WeightList> futureWeightList = executor.submit(() ->
+                    storage.readWeightList(dataDirectory + "/" + FILENAME_WEIGHT_LIST));
+
+            // all lists which could be read are used, the failures of all lists are reported
+            final List<STException> readExceptions = new ArrayList<>();
+            SportTypeList readSportTypeList = null;
+            ExerciseList readExerciseList = null;
+            try {
+                readSportTypeList = storage.readSportTypeList(dataDirectory + "/" + FILENAME_SPORT_TYPE_LIST,
+                        options.getPreferredSpeedMode());
+                readExerciseList = storage.readExerciseList(dataDirectory + "/" + FILENAME_EXERCISE_LIST,
+                        readSportTypeList);
+            } catch (STException e) {
+                readExceptions.add(e);
+            }
+
+            return createDataUpdate(readSportTypeList, readExerciseList,
+                    getReadList(futureNoteList, readExceptions), getReadList(futureWeightList, readExceptions),
+                    readExceptions);
         } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public DataUpdate readApplicationDataPreview(final LocalDate dateStart, final LocalDate dateEnd)
+            throws STException {
+
+        final SportTypeList previewSportTypeList = storage.readSportTypeList(
+                dataDirectory + "/" + FILENAME_SPORT_TYPE_LIST, options.getPreferredSpeedMode());
+        return createDataUpdate(previewSportTypeList,
+                storage.readExerciseListInDateRange(dataDirectory + "/" + FILENAME_EXERCISE_LIST,
+                        previewSportTypeList, dateStart, dateEnd),
+                storage.readNoteListInDateRange(dataDirectory + "/" + FILENAME_NOTE_LIST, dateStart, dateEnd),
+                storage.readWeightListInDateRange(dataDirectory + "/" + FILENAME_WEIGHT_LIST, dateStart, dateEnd),
+                List.of());
+    }
+
+    /**
+     * Creates the update which replaces the data lists by the specified read lists. The lists which could not
+     * be read (null) are replaced by empty lists, which will never be stored. Otherwise the previously displayed
+     * lists (e.g. the preview of the current month) could overwrite the complete data files when saving. The
+     * update throws the read exceptions (if any) afterwards.
+     */
+    private DataUpdate createDataUpdate(final SportTypeList readSportTypeList, final ExerciseList readExerciseList,
+            final NoteList readNoteList, final WeightList readWeightList, final List<STException> readExceptions) {
+
+        return () -> {
+            invalidateFilteredListCaches();
+            unregisterListChangeListeners();
+            sportTypeList = readSportTypeList != null ? readSportTypeList : new SportTypeList();
+            exerciseList = readExerciseList != null ? readExerciseList : new ExerciseList();
+            noteList = readNoteList != null ? readNoteList : new NoteList();
+            weightList = readWeightList != null ? readWeightList : new WeightList();
+            dirtySportTypeList.storable = readSportTypeList != null;
+            dirtyExerciseList.storable = readExerciseList != null;
+            dirtyNoteList.storable = readNoteList != null;
+            dirtyWeightList.storable = readWeightList != null;
+
             // register this document as a listener for list content changes
             // (also when reading data has failed)
             registerListChangeListener(this);
-            dirtyData = false;
+            registerDirtyListFlags();
+
+            if (!readExceptions.isEmpty()) {
+                final STException firstException = readExceptions.get(0);
+                readExceptions.subList(1, readExceptions.size()).forEach(firstException::addSuppressed);
+                throw firstException;
+            }
+        };
+    }
+
+    /**
+     * Removes this document and the dirty data flags as listeners from the current data lists, before the
+     * lists get replaced.
+     */
+    private void unregisterListChangeListeners() {
+        sportTypeList.removeListChangeListener(this);
+        exerciseList.removeListChangeListener(this);
+        noteList.removeListChangeListener(this);
+        weightList.removeListChangeListener(this);
+
+        sportTypeList.removeListChangeListener(dirtySportTypeList);
+        exerciseList.removeListChangeListener(dirtyExerciseList);
+        noteList.removeListChangeListener(dirtyNoteList);
+        weightList.removeListChangeListener(dirtyWeightList);
+    }
+
+    /**
+     * Waits for the list read in the background and returns it. When reading has failed, the
+     * exception is added to the passed exception list and null will be returned.
+     */
+    private static <T> T getReadList(final Future<T> futureList, final List<STException> readExceptions) {
+        try {
+            return futureList.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            readExceptions.add(e.getCause() instanceof STException ? (STException) e.getCause() :
+                    new STException(STExceptionID.DOCUMENT_READ_APPLICATION_DATA,
+                            "Failed to read the application data!", (Exception) e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readExceptions.add(new STException(STExceptionID.DOCUMENT_READ_APPLICATION_DATA,
+                    "Reading of the application data has been interrupted!", e));
         }
+        return null;
     }
 
     @Override
     public void storeApplicationData() throws STException {
-        // store application data in XML files
-        storage.storeSportTypeList(sportTypeList, dataDirectory + "/" + FILENAME_SPORT_TYPE_LIST);
-        storage.storeExerciseList(exerciseList, dataDirectory + "/" + FILENAME_EXERCISE_LIST);
-        storage.storeNoteList(noteList, dataDirectory + "/" + FILENAME_NOTE_LIST);
-        storage.storeWeightList(weightList, dataDirectory + "/" + FILENAME_WEIGHT_LIST);
-        dirtyData = false;
+        // store only the modified lists in XML files, all lists are committed in one batch,
+        // the dirty flag of a list will be reset directly after it has been stored successfully
+        storage.storeBatch(batchStorage -> {
+            if (dirtySportTypeList.dirty) {
+                batchStorage.storeSportTypeList(sportTypeList, dataDirectory + "/" + FILENAME_SPORT_TYPE_LIST);
+                dirtySportTypeList.dirty = false;
+            }
+            if (dirtyExerciseList.dirty) {
+                batchStorage.storeExerciseList(exerciseList, dataDirectory + "/" + FILENAME_EXERCISE_LIST);
+                dirtyExerciseList.dirty = false;
+            }
+            if (dirtyNoteList.dirty) {
+                batchStorage.storeNoteList(noteList, dataDirectory + "/" + FILENAME_NOTE_LIST);
+                dirtyNoteList.dirty = false;
+            }
+            if (dirtyWeightList.dirty) {
+                batchStorage.storeWeightList(weightList, dataDirectory + "/" + FILENAME_WEIGHT_LIST);
+                dirtyWeightList.dirty = false;
+            }
+        });
+    }
+
+    @Override
+    public void closeStorage() {
+        LOGGER.info("Closing storage...");
+        try {
+            storage.close();
+        } catch (STException e) {
+            LOGGER.log(Level.SEVERE, "Failed to close the storage ...", e);
+        }
     }
 
     @Override
@@ -307,8 +475,9 @@ public class STDocumentImpl implements STDocument {
 
     @Override
     public void listChanged(IdObject changedObject) {
-        // one of the data lists has been changed => set dirty data flag
-        dirtyData = true;
+        // one of the data lists has been changed => the filtered lists are outdated
+        // (the dirty data flags are set by the listeners of each list)
+        invalidateFilteredListCaches();
     }
 
     @Override
@@ -334,4 +503,82 @@ public class STDocumentImpl implements STDocument {
 
         return speedModes.size() == 1 ? speedModes.get(0) : getOptions().getPreferredSpeedMode();
     }
+
+    /**
+     * Resets all dirty data flags and registers them as listeners for the current data lists.
+     */
+    private void registerDirtyListFlags() {
+        dirtySportTypeList.dirty = false;
+        dirtyExerciseList.dirty = false;
+        dirtyNoteList.dirty = false;
+        dirtyWeightList.dirty = false;
+
+        sportTypeList.addListChangeListener(dirtySportTypeList);
+        exerciseList.addListChangeListener(dirtyExerciseList);
+        noteList.addListChangeListener(dirtyNoteList);
+        weightList.addListChangeListener(dirtyWeightList);
+    }
+
+    private void invalidateFilteredListCaches() {
+        filteredExerciseListCache.invalidate();
+        filteredNoteListCache.invalidate();
+        filteredWeightListCache.invalidate();
+    }
+
+    /**
+     * Dirty data flag of a single data list, it will be set on each change of the list it is registered for.
+     * The flag is never set for lists which are not storable, e.g. when reading the list has failed.
+     */
+    private static final class DirtyListFlag implements IdObjectListChangeListener {
+
+        private boolean dirty;
+        private boolean storable = true;
+
+        @Override
+        public void listChanged(IdObject changedObject) {
+            dirty = storable;
+        }
+    }
+
+    /**
+     * Cache for the filtered list of an entry list. The cached list is valid as long as the source list, its
+     * modification count and the filter are the same. The modification count is checked too, because other
+     * list change listeners may request the filtered list before this document has been notified.
+     *
+     * @param <T> the entry type
+     */
+    private static final class FilteredListCache<T extends Entry> {
+
+        private EntryList<T> sourceList;
+        private EntryFilter filter;
+        private long modificationCount;
+        private EntryList<T> filteredList;
+
+        /**
+         * Returns the filtered list for the specified source list and filter, it will be created when the cached
+         * list is not valid anymore.
+         *
+         * @param sourceList list to filter
+         * @param filter entry filter to use
+         * @return the filtered list
+         */
+        EntryList<T> getFilteredList(final EntryList<T> sourceList, final EntryFilter filter) {
+            // the filter is compared by value, it can be modified in place (e.g. on sport type updates)
+            if (filteredList == null || this.sourceList != sourceList || !filter.equals(this.filter)
+                    || modificationCount != sourceList.getModificationCount()) {
+
+                filteredList = sourceList.getEntriesForFilter(filter);
+                this.sourceList = sourceList;
+                this.filter = filter.clone();
+                modificationCount = sourceList.getModificationCount();
+            }
+            return filteredList;
+        }
+
+        void invalidate() {
+            sourceList = null;
+            filter = null;
+            filteredList = null;
+        }
+    }
 }
@@ -7,7 +7,10 @@ import java.time.temporal.TemporalAdjusters;
 import java.time.temporal.WeekFields;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
 
 import javax.inject.Inject;
 
@@ -40,10 +43,13 @@ import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.SportSubType;
 import de.saring.sportstracker.data.SportType;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.ExerciseAggregation;
+import de.saring.sportstracker.data.statistic.ExerciseRollups;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.AppResources;
 import de.saring.util.Date310Utils;
+import de.saring.util.data.IdObject;
 import de.saring.util.gui.javafx.ColorUtils;
 import de.saring.util.gui.javafx.NameableStringConverter;
 import de.saring.util.gui.jfreechart.ChartUtils;
@@ -278,10 +284,7 @@ public class OverviewDialogController extends AbstractDialogController {
             lGraphColors = new ArrayList<>();
 
             // create a separate graph for each sport type
-            for (SportType sportType : document.getSportTypeList()) {
-                addExerciseTimeSeries(dataset, timeType, year, vType, sportType);
-                lGraphColors.add(ColorUtils.toAwtColor(sportType.getColor()));
-            }
+            addExerciseTimeSeriesForEachSportType(dataset, lGraphColors, timeType, year, vType);
             plot.setDataset(1, dataset);
 
             // actual stacked renderer
@@ -388,35 +391,56 @@ public class OverviewDialogController extends AbstractDialogController {
         // which sport type mode is selected by user ?
         if (overviewType != OverviewType.EACH_SPLITTED) {
             // create one graph for sum of all sport types
-            addExerciseTimeSeries(dataset, timeType, year, vType, null);
+            ExerciseAggregation aggregation = createExerciseAggregation(timeType, year, null, 1, key -> 0);
+            addExerciseTimeSeries(dataset, timeType, year, vType, aggregation, 0,
+                    context.getResources().getString("st.dlg.overview.graph.all_types"));
             graphColors.add(new java.awt.Color(0xff0000));
         } else {
             // create a separate graph for each sport type
-            for (SportType sportType : document.getSportTypeList()) {
-                addExerciseTimeSeries(dataset, timeType, year, vType, sportType);
-                graphColors.add(ColorUtils.toAwtColor(sportType.getColor()));
-            }
+            addExerciseTimeSeriesForEachSportType(dataset, graphColors, timeType, year, vType);
         }
     }
 
     /**
-     * This method calculates the specified exercise values (distance, duration, ascent, descent
-     * avarage speed or calories concumption) and adds them to a TimeTableXYDataset.
-     * The calculation can be done for the exercises of all sport types (sum) or for a
-     * single sport type.
+     * Adds a separate exercise time series for each sport type to the dataset, all series are calculated
+     * by a single exercise aggregation.
      *
      * @param dataset the timetable dataset
+     * @param graphColors list of graph colors, the sport type colors will be added
      * @param timeType time range for calculated values
      * @param year the year for calculation
      * @param valueType the type of values needs to be calculated
-     * @param sportType the specific sport type to be calculated or null for the sum of all sport types
      */
-    private void addExerciseTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            ValueType valueType, SportType sportType) {
+    private void addExerciseTimeSeriesForEachSportType(TimeTableXYDataset dataset,
+            java.util.List<java.awt.Color> graphColors, TimeRangeType timeType, int year, ValueType valueType) {
+
+        Map<Integer, Integer> sportTypeSeries = createSeriesIndexMap(document.getSportTypeList());
+        ExerciseAggregation aggregation = createExerciseAggregation(timeType, year, null, sportTypeSeries.size(),
+                key -> sportTypeSeries.getOrDefault(key.getSportTypeId(), ExerciseAggregation.NO_SERIES));
+
+        int series = 0;
+        for (SportType sportType : document.getSportTypeList()) {
+            addExerciseTimeSeries(dataset, timeType, year, valueType, aggregation, series++, sportType.getName());
+            graphColors.add(ColorUtils.toAwtColor(sportType.getColor()));
+        }
+    }
 
-        // create the time series for specified time range and sport type
-        String seriesName = sportType != null ? sportType.getName() : context.getResources().getString(
-                "st.dlg.overview.graph.all_types");
+    /**
+     * This method adds the specified exercise values (distance, duration, ascent, descent
+     * avarage speed or calories concumption) of one series of the exercise aggregation to a
+     * TimeTableXYDataset. The series can contain the exercises of all sport types (sum) or
+     * of a single sport type.
+     *
+     * @param dataset the timetable dataset
+     * @param timeType time range for calculated values
+     * @param year the year for calculation
+     * @param valueType the type of values needs to be calculated
+     * @param aggregation the aggregated exercise values for all time steps
+     * @param series the series index in the aggregation
+     * @param seriesName the name of the series to be shown
+     */
+    private void addExerciseTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
+            ValueType valueType, ExerciseAggregation aggregation, int series, String seriesName) {
 
         // process value calculation for each step of time range
         int timeStepCount = getTimeStepCount(timeType, year);
@@ -425,33 +449,19 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            // (add value 0 and skip to next time step when no exercises found)
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-            if (lExercises.size() == 0) {
+            // add value 0 and skip to next time step when no exercises found
+            int exerciseCount = aggregation.getCount(series, timeStep);
+            if (exerciseCount == 0) {
                 dataset.add(timePeriod, 0, seriesName);
                 continue;
             }
 
-            // create sums of all exercises
-            double sumDistance = 0d;
-            double sumDuration = 0d;
-            double sumAscent = 0d;
-            double sumDescent = 0d;
-            double sumCalories = 0d;
-
-            for (Exercise tempExercise : lExercises) {
-                sumDistance += tempExercise.getDistance();
-                sumDuration += tempExercise.getDuration();
-                sumAscent += tempExercise.getAscent();
-                sumDescent += tempExercise.getDescent();
-                sumCalories += tempExercise.getCalories();
-            }
+            // get sums of all exercises
+            double sumDistance = aggregation.getDistance(series, timeStep);
+            double sumDuration = aggregation.getDuration(series, timeStep);
+            double sumAscent = aggregation.getAscent(series, timeStep);
+            double sumDescent = aggregation.getDescent(series, timeStep);
+            double sumCalories = aggregation.getCalories(series, timeStep);
 
             // set value of time step depending on value type
             // (convert to english unit mode when enabled)
@@ -491,7 +501,7 @@ public class OverviewDialogController extends AbstractDialogController {
 
                 case EXERCISES:
                     // set number of exercises
-                    dataset.add(timePeriod, lExercises.size(), seriesName);
+                    dataset.add(timePeriod, exerciseCount, seriesName);
                     break;
 
                 case AVG_SPEED:
@@ -535,28 +545,34 @@ public class OverviewDialogController extends AbstractDialogController {
         // get selected sport type
         SportType sportType = cbSportTypeList.getValue();
 
+        // aggregate the exercises of the sport type for each sport subtype
+        Map<Integer, Integer> sportSubTypeSeries = createSeriesIndexMap(sportType.getSportSubTypeList());
+        ExerciseAggregation aggregation = createExerciseAggregation(timeType, year, sportType,
+                sportSubTypeSeries.size(), key -> key.getSportTypeId() != sportType.getId() ? ExerciseAggregation.NO_SERIES
+                        : sportSubTypeSeries.getOrDefault(key.getSportSubTypeId(), ExerciseAggregation.NO_SERIES));
+
         // display a graph for each sport subtype
+        int series = 0;
         for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
-            addSportSubTypeTimeSeries(dataset, timeType, year, sportType, sportSubType);
+            addDistanceTimeSeries(dataset, timeType, year, aggregation, series++, sportSubType.getName());
         }
 
         addCustomGraphColors(graphColors);
     }
 
     /**
-     * This method calculates the distance per sport subtype values and adds them to a TimeTableXYDataset.
-     * The calculation is always done for the sport type selected by the user.
+     * This method adds the distance values of one series of the exercise aggregation to a
+     * TimeTableXYDataset (e.g. the distance per sport subtype or per equipment).
      *
      * @param dataset the timetable dataset
      * @param timeType time range for calculated values
      * @param year the year for calculation
-     * @param sportType the sport type to be shown
-     * @param sportSubType the sport subtype to be shown in this series
+     * @param aggregation the aggregated exercise values for all time steps
+     * @param series the series index in the aggregation
+     * @param seriesName the name of the series to be shown
      */
-    private void addSportSubTypeTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            SportType sportType, SportSubType sportSubType) {
-
-        String seriesName = sportSubType.getName();
+    private void addDistanceTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
+            ExerciseAggregation aggregation, int series, String seriesName) {
 
         // process value calculation for each step of time range
         int timeStepCount = getTimeStepCount(timeType, year);
@@ -565,26 +581,8 @@ public class OverviewDialogController extends AbstractDialogController {
             // create time period for current time step
             RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
 
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setSportSubType(sportSubType);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // sum only exercises with same sport subtype (otherwise conflicts with the merged filter set in the
-                // view)
-                if (sportSubType.equals(tempExercise.getSportSubType())) {
-                    sumDistance += tempExercise.getDistance();
-                }
-            }
-
             // convert to english unit mode when enabled
+            double sumDistance = aggregation.getDistance(series, timeStep);
             if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
                 sumDistance = ConvertUtils.convertKilometer2Miles(sumDistance, false);
             }
@@ -609,68 +607,26 @@ public class OverviewDialogController extends AbstractDialogController {
         // get selected sport type
         SportType sportType = cbSportTypeList.getValue();
 
+        // aggregate the exercises of the sport type for each equipment, the last series
+        // contains the exercises with no equipment assigned
+        Map<Integer, Integer> equipmentSeries = createSeriesIndexMap(sportType.getEquipmentList());
+        int notSpecifiedSeries = equipmentSeries.size();
+        ExerciseAggregation aggregation = createExerciseAggregation(timeType, year, sportType,
+                notSpecifiedSeries + 1, key -> key.getSportTypeId() != sportType.getId() ? ExerciseAggregation.NO_SERIES
+                        : key.getEquipmentId() == ExerciseRollups.ID_NONE ? notSpecifiedSeries
+                        : equipmentSeries.getOrDefault(key.getEquipmentId(), ExerciseAggregation.NO_SERIES));
+
         // display a graph for each equipment and one for not specified equipment
+        int series = 0;
         for (Equipment equipment : sportType.getEquipmentList()) {
-            addEquipmentTimeSeries(dataset, timeType, year, sportType, equipment);
+            addDistanceTimeSeries(dataset, timeType, year, aggregation, series++, equipment.getName());
         }
-        addEquipmentTimeSeries(dataset, timeType, year, sportType, null);
+        addDistanceTimeSeries(dataset, timeType, year, aggregation, notSpecifiedSeries,
+                context.getResources().getString("st.dlg.overview.equipment.not_specified"));
 
         addCustomGraphColors(graphColors);
     }
 
-    /**
-     * This method calculates the distance per equipment values and adds them to a TimeTableXYDataset.
-     * The calculation is always done for the sport type selected by the user.
-     *
-     * @param dataset the timetable dataset
-     * @param timeType time range for calculated values
-     * @param year the year for calculation
-     * @param sportType the sport type to be shown
-     * @param equipment the equipment to be shown in this series (when null, then calculate exercises with no equipment
-     *            assigned only)
-     */
-    private void addEquipmentTimeSeries(TimeTableXYDataset dataset, TimeRangeType timeType, int year,
-            SportType sportType, Equipment equipment) {
-
-        String seriesName = equipment != null ? equipment.getName() : context.getResources().getString(
-                "st.dlg.overview.equipment.not_specified");
-
-        // process value calculation for each step of time range
-        int timeStepCount = getTimeStepCount(timeType, year);
-        for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
-
-            // create time period for current time step
-            RegularTimePeriod timePeriod = createTimePeriodForTimeStep(timeType, year, timeStep);
-
-            // create the EntryFilter for the time range of the current time step
-            EntryFilter filter = createExerciseFilterForTimeStep(timeType, year, timeStep);
-            filter.setSportType(sportType);
-            filter.setEquipment(equipment);
-            mergeExerciseFilterIfEnabled(filter);
-
-            // get exercises for defined filter
-            EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
-
-            // create distance sum of all found exercises
-            double sumDistance = 0d;
-            for (Exercise tempExercise : lExercises) {
-                // when displaying series for no equipment assigned then skip exercises with assigned equipment
-                if (equipment == null && tempExercise.getEquipment() != null) {
-                    continue;
-                }
-                sumDistance += tempExercise.getDistance();
-            }
-
-            // convert to english unit mode when enabled
-            if (document.getOptions().getUnitSystem() != UnitSystem.METRIC) {
-                sumDistance = ConvertUtils.convertKilometer2Miles(sumDistance, false);
-            }
-
-            // set distance value of time step
-            dataset.add(timePeriod, sumDistance, seriesName);
-        }
-    }
-
     /**
      * Sets up the diagram for weight data.
      *
@@ -844,6 +800,59 @@ public class OverviewDialogController extends AbstractDialogController {
         return filter;
     }
 
+    /**
+     * Creates the aggregation of all exercises in the displayed time range, each time step is a time bucket.
+     * When the filter in the SportsTracker view is disabled, the aggregation is created from the pre-aggregated
+     * exercise rollups. Otherwise the exercises of the full time range are filtered only once, the view filter
+     * will be merged.
+     *
+     * @param timeType the time range type to be displayed
+     * @param year the year to be displayed
+     * @param sportType the sport type of all aggregated exercises or null for all sport types (the series mapper
+     * needs to ignore other sport types too)
+     * @param seriesCount number of series in the aggregation
+     * @param seriesMapper function which returns the series index for the rollup key of an exercise
+     * @return the created ExerciseAggregation
+     */
+    private ExerciseAggregation createExerciseAggregation(TimeRangeType timeType, int year, SportType sportType,
+            int seriesCount, ToIntFunction<ExerciseRollups.Key> seriesMapper) {
+
+        int timeStepCount = getTimeStepCount(timeType, year);
+        LocalDate[] bucketStarts = new LocalDate[timeStepCount];
+        LocalDate[] bucketEnds = new LocalDate[timeStepCount];
+        for (int timeStep = 0; timeStep < timeStepCount; timeStep++) {
+            EntryFilter timeStepFilter = createExerciseFilterForTimeStep(timeType, year, timeStep);
+            bucketStarts[timeStep] = timeStepFilter.getDateStart();
+            bucketEnds[timeStep] = timeStepFilter.getDateEnd();
+        }
+
+        if (!isExerciseFilterEnabled()) {
+            return ExerciseAggregation.fromRollups(document.getExerciseRollups(), bucketStarts, bucketEnds,
+                    seriesCount, seriesMapper);
+        }
+
+        EntryFilter filter = new EntryFilter();
+        filter.setDateStart(bucketStarts[0]);
+        filter.setDateEnd(bucketEnds[timeStepCount - 1]);
+        filter.setSportType(sportType);
+        mergeExerciseFilterIfEnabled(filter);
+
+        EntryList<Exercise> lExercises = document.getExerciseList().getEntriesForFilter(filter);
+        return new ExerciseAggregation(lExercises, bucketStarts, bucketEnds, seriesCount,
+                exercise -> seriesMapper.applyAsInt(ExerciseRollups.Key.of(exercise)));
+    }
+
+    /**
+     * Creates a map of the IDs of the specified objects to their series index (position in the list).
+     */
+    private Map<Integer, Integer> createSeriesIndexMap(Iterable<? extends IdObject> idObjects) {
+        Map<Integer, Integer> seriesIndexMap = new HashMap<>();
+        for (IdObject idObject : idObjects) {
+            seriesIndexMap.put(idObject.getId(), seriesIndexMap.size());
+        }
+        return seriesIndexMap;
+    }
+
     /**
      * Adds custom colors for all the diagram graphs, because some color presets are not usable or
      * readable (if more colors are needed, then presets will be used).
@@ -398,8 +398,12 @@ public class SportTypeDialogController extends AbstractDialogController {
                 return;
             }
 
-            // delete equipment in all exercises which use it
-            lRefExercises.forEach(exercise -> exercise.setEquipment(null));
+            // delete equipment in all exercises which use it, they need to be stored again for
+            // notifying all list listeners (the exercises will be saved with the next storage update)
+            lRefExercises.forEach(exercise -> {
+                exercise.setEquipment(null);
+                document.getExerciseList().set(exercise);
+            });
         }
 
         // finally delete the equipment
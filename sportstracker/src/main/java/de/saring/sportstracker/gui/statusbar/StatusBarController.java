@@ -46,6 +46,16 @@ public class StatusBarController {
         this.laStatusBar = laStatusBar;
     }
 
+    /**
+     * Displays the specified message in the status bar (e.g. the progress of a background task).
+     * It will be replaced on the next update of the exercise selection.
+     *
+     * @param message the message to display
+     */
+    public void showMessage(final String message) {
+        laStatusBar.setText(message);
+    }
+
     /**
      * Updates the content of the status bar depending on the current exercise selection.
      *
@@ -8,12 +8,14 @@ import java.util.stream.Collectors;
 import de.saring.sportstracker.data.Exercise;
 import de.saring.sportstracker.data.Note;
 import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.statistic.ExerciseRollups;
 import de.saring.sportstracker.gui.STContext;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.AppResources;
 import de.saring.util.StringUtils;
 import de.saring.util.gui.javafx.control.calendar.CalendarDataProvider;
 import de.saring.util.gui.javafx.control.calendar.CalendarEntry;
+import de.saring.util.gui.javafx.control.calendar.CalendarRangeData;
 import de.saring.util.unitcalc.FormatUtils;
 import de.saring.util.unitcalc.TimeUtils;
 
@@ -69,6 +71,15 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
     public List<String> getSummaryForDateRange(final LocalDate dateStart, final LocalDate dateEnd) {
         final List<String> summaryLines = new ArrayList<>();
 
+        // use the pre-aggregated sums when all exercises are displayed (no exercise filter)
+        if (document.getFilterableExerciseList() == document.getExerciseList()) {
+            final ExerciseRollups.Values total = document.getExerciseRollups().getTotalInDateRange(dateStart, dateEnd);
+            if (total.getCount() > 0) {
+                summaryLines.addAll(createSummaryLines((float) total.getDistance(), (int) total.getDuration()));
+            }
+            return summaryLines;
+        }
+
         // calculate summary distance and duration for all exercises in range
         final List<Exercise> exersisesInRange = document.getFilterableExerciseList().getEntriesInDateRange( //
                 dateStart, dateEnd);
@@ -82,15 +93,70 @@ public class CalendarDataProviderImpl implements CalendarDataProvider {
                 summaryDuration += exercise.getDuration();
             }
 
-            // add formatted distance and duration strings
-            final FormatUtils formatUtils = context.getFormatUtils();
-            summaryLines.add(formatUtils.distanceToString(summaryDistance, 2));
-            summaryLines.add(TimeUtils.seconds2TimeString(summaryDuration));
+            summaryLines.addAll(createSummaryLines(summaryDistance, summaryDuration));
         }
 
         return summaryLines;
     }
 
+    private List<String> createSummaryLines(final float summaryDistance, final int summaryDuration) {
+
+        // create formatted distance and duration strings
+        final FormatUtils formatUtils = context.getFormatUtils();
+        return List.of(
+                formatUtils.distanceToString(summaryDistance, 2),
+                TimeUtils.seconds2TimeString(summaryDuration));
+    }
+
+    /**
+     * Provides the note, weight and exercise entries and the weekly summaries for all days in the specified
+     * date range. Each entry list is processed in one ordered pass, the entries of the date range are found by
+     * binary search. The weekly summaries are taken from the exercise rollups when all exercises are displayed,
+     * otherwise they are calculated for the filtered exercises in the same pass.
+     *
+     * @param dateStart start of date range (first day of a week)
+     * @param weekCount number of weeks in the date range
+     * @return the calendar data of the date range
+     */
+    @Override
+    public CalendarRangeData getCalendarDataForDateRange(final LocalDate dateStart, final int weekCount) {
+        final CalendarRangeData rangeData = new CalendarRangeData(dateStart, weekCount);
+        final LocalDate dateEnd = rangeData.getDateEnd();
+
+        document.getFilterableNoteList().getEntriesInDateRange(dateStart, dateEnd).forEach(note -> //
+                rangeData.getEntriesForDate(note.getDateTime().toLocalDate()).add(createCalendarEntryForNote(note)));
+
+        document.getFilterableWeightList().getEntriesInDateRange(dateStart, dateEnd).forEach(weight -> //
+                rangeData.getEntriesForDate(weight.getDateTime().toLocalDate()).add(createCalendarEntryForWeight(weight)));
+
+        final boolean useRollups = document.getFilterableExerciseList() == document.getExerciseList();
+        final float[] weekDistances = new float[weekCount];
+        final int[] weekDurations = new int[weekCount];
+        final int[] weekExerciseCounts = new int[weekCount];
+
+        for (Exercise exercise : document.getFilterableExerciseList().getEntriesInDateRange(dateStart, dateEnd)) {
+            final LocalDate exerciseDate = exercise.getDateTime().toLocalDate();
+            rangeData.getEntriesForDate(exerciseDate).add(createCalendarEntryForExercise(exercise));
+
+            if (!useRollups) {
+                final int week = rangeData.getDayIndex(exerciseDate) / 7;
+                weekDistances[week] += exercise.getDistance();
+                weekDurations[week] += exercise.getDuration();
+                weekExerciseCounts[week]++;
+            }
+        }
+
+        for (int week = 0; week < weekCount; week++) {
+            if (useRollups) {
+                final LocalDate weekStart = dateStart.plusWeeks(week);
+                rangeData.setSummaryForWeek(week, getSummaryForDateRange(weekStart, weekStart.plusDays(6)));
+            } else if (weekExerciseCounts[week] > 0) {
+                rangeData.setSummaryForWeek(week, createSummaryLines(weekDistances[week], weekDurations[week]));
+            }
+        }
+        return rangeData;
+    }
+
     private CalendarEntry createCalendarEntryForNote(final Note note) {
         final StringBuilder sbText = new StringBuilder();
         sbText.append(context.getResources().getString("st.calview.note_short")) //
@@ -0,0 +1,359 @@
+package de.saring.sportstracker.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import de.saring.sportstracker.data.Entry;
+import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.data.Equipment;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+
+/**
+ * This class is a binary cache of the exercise, note and weight XML files. The cache file is stored
+ * next to each XML file, it contains the same entries in a compact binary record format, so they can
+ * be read by a memory mapped read without parsing and validating the XML file.<br/>
+ * The XML file is the source of truth, the cache contains the size and the modification time of
+ * the XML file it has been created for. It's used only when they are still matching, otherwise
+ * the XML file has to be read and the cache needs to be written again.
+ * <p/>
+ * Cache file format: header (magic number, format version, size and modification time of the
+ * XML file, entry count), one record per entry and the CRC32 checksum of all previous bytes.
+ * The format version must be increased on each change of the record format.
+ *
+ * @author Stefan Saring
+ */
+final class BinarySnapshotCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BinarySnapshotCache.class.getName());
+
+    /** Suffix of the cache file name. */
+    static final String CACHE_FILE_SUFFIX = ".cache";
+
+    /** Magic number at the start of each cache file ("STSC"). */
+    private static final int MAGIC_NUMBER = 0x53545343;
+
+    /** Version of the cache file format. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** Size of the header: magic number, format version, XML file size and modification time, entry count. */
+    private static final int HEADER_SIZE = 28;
+
+    /** Value for undefined IDs and strings in the records. */
+    private static final int UNDEFINED = -1;
+
+    /**
+     * Reads the exercise list of the specified XML file from its cache and maps the sport types
+     * by using the specified sport type list.
+     *
+     * @param xmlFile name of the XML file
+     * @param sportTypeList the sport type list for assigning sport types to exercises.
+     * @return the created ExerciseList or null when there is no valid cache for the XML file
+     */
+    ExerciseList readExerciseList(String xmlFile, SportTypeList sportTypeList) {
+        return readList(xmlFile, ExerciseList::new, buffer -> readExercise(buffer, sportTypeList));
+    }
+
+    /**
+     * Reads the note list of the specified XML file from its cache.
+     *
+     * @param xmlFile name of the XML file
+     * @return the created NoteList or null when there is no valid cache for the XML file
+     */
+    NoteList readNoteList(String xmlFile) {
+        return readList(xmlFile, NoteList::new, BinarySnapshotCache::readNote);
+    }
+
+    /**
+     * Reads the weight list of the specified XML file from its cache.
+     *
+     * @param xmlFile name of the XML file
+     * @return the created WeightList or null when there is no valid cache for the XML file
+     */
+    WeightList readWeightList(String xmlFile) {
+        return readList(xmlFile, WeightList::new, BinarySnapshotCache::readWeight);
+    }
+
+    /**
+     * Writes the cache of the exercise list, which has been read from or written to the specified
+     * XML file before. Write problems are logged only, the XML file is read on next time then.
+     *
+     * @param exerciseList the exercise list of the XML file
+     * @param xmlFile name of the XML file
+     */
+    void storeExerciseList(ExerciseList exerciseList, String xmlFile) {
+        storeList(exerciseList, xmlFile, BinarySnapshotCache::writeExercise);
+    }
+
+    /**
+     * Writes the cache of the note list, see storeExerciseList() for details.
+     *
+     * @param noteList the note list of the XML file
+     * @param xmlFile name of the XML file
+     */
+    void storeNoteList(NoteList noteList, String xmlFile) {
+        storeList(noteList, xmlFile, BinarySnapshotCache::writeNote);
+    }
+
+    /**
+     * Writes the cache of the weight list, see storeExerciseList() for details.
+     *
+     * @param weightList the weight list of the XML file
+     * @param xmlFile name of the XML file
+     */
+    void storeWeightList(WeightList weightList, String xmlFile) {
+        storeList(weightList, xmlFile, BinarySnapshotCache::writeWeight);
+    }
+
+    /**
+     * Returns the cache file of the specified XML file.
+     *
+     * @param xmlFile name of the XML file
+     * @return the cache file
+     */
+    static Path getCacheFile(String xmlFile) {
+        Path path = Paths.get(xmlFile).toAbsolutePath();
+        return path.resolveSibling(path.getFileName() + CACHE_FILE_SUFFIX);
+    }
+
+    private static <T extends Entry, L extends EntryList<T>> L readList(String xmlFile, Supplier<L> listFactory,
+            RecordReader<T> recordReader) {
+
+        Path cacheFile = getCacheFile(xmlFile);
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            BasicFileAttributes xmlAttributes = Files.readAttributes(Paths.get(xmlFile), BasicFileAttributes.class);
+
+            long cacheSize = channel.size();
+            if (cacheSize < HEADER_SIZE + Integer.BYTES || cacheSize > Integer.MAX_VALUE) {
+                LOGGER.warning("Ignoring the invalid cache file '" + cacheFile + "' ...");
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, cacheSize);
+            int checksumPosition = (int) cacheSize - Integer.BYTES;
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.duplicate().limit(checksumPosition));
+            if ((int) crc32.getValue() != buffer.getInt(checksumPosition)) {
+                LOGGER.warning("Ignoring the corrupt cache file '" + cacheFile + "' ...");
+                return null;
+            }
+
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != xmlAttributes.size()
+                    || buffer.getLong() != xmlAttributes.lastModifiedTime().toMillis()) {
+                // the XML file has been modified or the cache has an other format
+                return null;
+            }
+
+            int entryCount = buffer.getInt();
+            List<T> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(recordReader.read(buffer));
+            }
+
+            L list = listFactory.get();
+            list.clearAndAddAll(entries);
+            return list;
+        } catch (NoSuchFileException e) {
+            // there is no cache file or XML file yet
+            return null;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to read the cache file '" + cacheFile + "' ...", e);
+            return null;
+        }
+    }
+
+    private static <T extends Entry> void storeList(EntryList<T> list, String xmlFile,
+            RecordWriter<T> recordWriter) {
+
+        Path cacheFile = getCacheFile(xmlFile);
+        if (!Files.exists(Paths.get(xmlFile))) {
+            // there is nothing to cache yet (e.g. on first application start)
+            return;
+        }
+
+        try {
+            BasicFileAttributes xmlAttributes = Files.readAttributes(Paths.get(xmlFile), BasicFileAttributes.class);
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream(HEADER_SIZE + list.size() * 64);
+            DataOutputStream output = new DataOutputStream(content);
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(xmlAttributes.size());
+            output.writeLong(xmlAttributes.lastModifiedTime().toMillis());
+            output.writeInt(list.size());
+            for (T entry : list) {
+                recordWriter.write(output, entry);
+            }
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(content.toByteArray());
+            output.writeInt((int) crc32.getValue());
+
+            XMLUtils.writeFileAtomically(cacheFile.toString(), content::writeTo);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write the cache file '" + cacheFile + "' ...", e);
+        }
+    }
+
+    private static Exercise readExercise(ByteBuffer buffer, SportTypeList sportTypeList) {
+        Exercise exercise = new Exercise(buffer.getInt());
+
+        // the sport type list could have been changed after writing the cache (e.g. by the journal)
+        SportType sportType = sportTypeList.getByID(buffer.getInt());
+        SportSubType sportSubType = sportType == null ? null : sportType.getSportSubTypeList().getByID(buffer.getInt());
+        if (sportSubType == null) {
+            throw new IllegalArgumentException("The sport type or subtype of the exercise with ID '"
+                    + exercise.getId() + "' is unknown!");
+        }
+        exercise.setSportType(sportType);
+        exercise.setSportSubType(sportSubType);
+
+        exercise.setDateTime(readDateTime(buffer));
+        exercise.setDuration(buffer.getInt());
+        exercise.setIntensity(Exercise.IntensityType.valueOf(readString(buffer)));
+        exercise.setDistance(buffer.getFloat());
+        exercise.setAvgSpeed(buffer.getFloat());
+        exercise.setAvgHeartRate(buffer.getInt());
+        exercise.setAscent(buffer.getInt());
+        exercise.setDescent(buffer.getInt());
+        exercise.setCalories(buffer.getInt());
+        exercise.setHrmFile(readString(buffer));
+        exercise.setComment(readString(buffer));
+
+        int equipmentId = buffer.getInt();
+        if (equipmentId != UNDEFINED) {
+            Equipment equipment = sportType.getEquipmentList().getByID(equipmentId);
+            if (equipment == null) {
+                throw new IllegalArgumentException("The equipment of the exercise with ID '"
+                        + exercise.getId() + "' is unknown!");
+            }
+            exercise.setEquipment(equipment);
+        }
+        return exercise;
+    }
+
+    private static void writeExercise(DataOutputStream output, Exercise exercise) throws IOException {
+        output.writeInt(exercise.getId());
+        output.writeInt(exercise.getSportType().getId());
+        output.writeInt(exercise.getSportSubType().getId());
+        writeDateTime(output, exercise.getDateTime());
+        output.writeInt(exercise.getDuration());
+        writeString(output, exercise.getIntensity().name());
+        output.writeFloat(exercise.getDistance());
+        output.writeFloat(exercise.getAvgSpeed());
+        output.writeInt(exercise.getAvgHeartRate());
+        output.writeInt(exercise.getAscent());
+        output.writeInt(exercise.getDescent());
+        output.writeInt(exercise.getCalories());
+        writeString(output, exercise.getHrmFile());
+        writeString(output, exercise.getComment());
+        output.writeInt(exercise.getEquipment() == null ? UNDEFINED : exercise.getEquipment().getId());
+    }
+
+    private static Note readNote(ByteBuffer buffer) {
+        Note note = new Note(buffer.getInt());
+        note.setDateTime(readDateTime(buffer));
+        note.setComment(readString(buffer));
+        return note;
+    }
+
+    private static void writeNote(DataOutputStream output, Note note) throws IOException {
+        output.writeInt(note.getId());
+        writeDateTime(output, note.getDateTime());
+        writeString(output, note.getComment());
+    }
+
+    private static Weight readWeight(ByteBuffer buffer) {
+        Weight weight = new Weight(buffer.getInt());
+        weight.setDateTime(readDateTime(buffer));
+        weight.setValue(buffer.getFloat());
+        weight.setComment(readString(buffer));
+        return weight;
+    }
+
+    private static void writeWeight(DataOutputStream output, Weight weight) throws IOException {
+        output.writeInt(weight.getId());
+        writeDateTime(output, weight.getDateTime());
+        output.writeFloat(weight.getValue());
+        writeString(output, weight.getComment());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer buffer) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeDateTime(DataOutputStream output, LocalDateTime dateTime) throws IOException {
+        output.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        output.writeInt(dateTime.getNano());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == UNDEFINED) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(UNDEFINED);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Reader of a single entry record.
+     *
+     * @param <T> type of the entry
+     */
+    @FunctionalInterface
+    private interface RecordReader<T> {
+
+        T read(ByteBuffer buffer);
+    }
+
+    /**
+     * Writer of a single entry record.
+     *
+     * @param <T> type of the entry
+     */
+    @FunctionalInterface
+    private interface RecordWriter<T> {
+
+        void write(DataOutputStream output, T entry) throws IOException;
+    }
+}
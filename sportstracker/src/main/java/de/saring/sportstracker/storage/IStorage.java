@@ -7,9 +7,12 @@ import de.saring.sportstracker.data.SportTypeList;
 import de.saring.sportstracker.data.WeightList;
 import de.saring.util.unitcalc.SpeedMode;
 
+import java.time.LocalDate;
+
 /**
  * This interface defines methods for reading / storing of the application
  * data from / to different data sources (files, database, ...).
+ * Implementations must support the parallel reading of different lists.
  *
  * @author Stefan Saring
  * @version 1.0
@@ -90,4 +93,98 @@ public interface IStorage {
      * @throws STException thrown on store problems
      */
     void storeWeightList(WeightList weightList, String destination) throws STException;
+
+    /**
+     * Reads only the exercises of the specified date range from the data source, e.g. for displaying
+     * the current month before the complete list has been read. The returned list must not be stored,
+     * the complete list needs to be read by readExerciseList() for this. The default implementation
+     * reads the complete list and removes all exercises outside of the date range.
+     *
+     * @param source name of data source
+     * @param sportTypeList the sport type list for assigning sport types to exercises.
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created ExerciseList with the exercises of the date range
+     * @throws STException thrown on read problems
+     */
+    default ExerciseList readExerciseListInDateRange(String source, SportTypeList sportTypeList,
+            LocalDate dateStart, LocalDate dateEnd) throws STException {
+
+        ExerciseList exerciseList = readExerciseList(source, sportTypeList);
+        exerciseList.clearAndAddAll(exerciseList.getEntriesInDateRange(dateStart, dateEnd));
+        return exerciseList;
+    }
+
+    /**
+     * Reads only the notes of the specified date range from the data source, see
+     * readExerciseListInDateRange() for details.
+     *
+     * @param source name of data source
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created NoteList with the notes of the date range
+     * @throws STException thrown on read problems
+     */
+    default NoteList readNoteListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+
+        NoteList noteList = readNoteList(source);
+        noteList.clearAndAddAll(noteList.getEntriesInDateRange(dateStart, dateEnd));
+        return noteList;
+    }
+
+    /**
+     * Reads only the weights of the specified date range from the data source, see
+     * readExerciseListInDateRange() for details.
+     *
+     * @param source name of data source
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created WeightList with the weights of the date range
+     * @throws STException thrown on read problems
+     */
+    default WeightList readWeightListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+
+        WeightList weightList = readWeightList(source);
+        weightList.clearAndAddAll(weightList.getEntriesInDateRange(dateStart, dateEnd));
+        return weightList;
+    }
+
+    /**
+     * Stores multiple lists in one batch, the passed batch calls the store methods of this
+     * storage for all lists to be stored. Implementations can use this for committing all
+     * stored lists together. The default implementation just executes the batch.
+     *
+     * @param batch the batch to execute
+     * @throws STException thrown on store problems
+     */
+    default void storeBatch(StoreBatch batch) throws STException {
+        batch.store(this);
+    }
+
+    /**
+     * Closes the storage on application exit, all stored data must be contained completely in the
+     * data source files afterwards. The storage must not be used after closing. The default
+     * implementation does nothing.
+     *
+     * @throws STException thrown on store problems
+     */
+    default void close() throws STException {
+    }
+
+    /**
+     * Batch of store operations, see storeBatch().
+     */
+    @FunctionalInterface
+    interface StoreBatch {
+
+        /**
+         * Stores all lists of this batch by using the specified storage.
+         *
+         * @param storage the storage to use
+         * @throws STException thrown on store problems
+         */
+        void store(IStorage storage) throws STException;
+    }
 }
@@ -0,0 +1,49 @@
+package de.saring.sportstracker.storage;
+
+import org.jdom2.Element;
+
+/**
+ * XMLElementWriter implementation which creates a JDOM element tree.
+ *
+ * @author Stefan Saring
+ */
+final class JDOMElementWriter implements XMLElementWriter {
+
+    private Element rootElement;
+    private Element currentElement;
+
+    /**
+     * Returns the root element of the created element tree.
+     *
+     * @return the root element (null when nothing was written yet)
+     */
+    Element getRootElement() {
+        return rootElement;
+    }
+
+    @Override
+    public void startElement(String name) {
+        Element element = new Element(name);
+        if (currentElement == null) {
+            rootElement = element;
+        } else {
+            currentElement.addContent(element);
+        }
+        currentElement = element;
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        currentElement.setAttribute(name, value);
+    }
+
+    @Override
+    public void endElement() {
+        currentElement = currentElement.getParentElement();
+    }
+
+    @Override
+    public void text(String text) {
+        currentElement.setText(text);
+    }
+}
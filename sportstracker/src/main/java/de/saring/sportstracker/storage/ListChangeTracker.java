@@ -0,0 +1,158 @@
+package de.saring.sportstracker.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.saring.util.data.IdObject;
+import de.saring.util.data.IdObjectList;
+
+/**
+ * Tracks the changes of an IdObjectList since they have been stored the last time, so storages
+ * can store the changed entries only. The changes are tracked by a list change listener. When
+ * the list does not tell the changed entry (e.g. on removal), all entries will be compared with
+ * the stored entry instances. So it's required that modified entries are stored in the list again,
+ * which is done by all parts of the application.
+ *
+ * @param <T> the entry type of the list
+ * @author Stefan Saring
+ */
+final class ListChangeTracker<T extends IdObject> {
+
+    private final IdObjectList<T> list;
+
+    /** The entry instances of the list at the time of the last commit. */
+    private final Map<Integer, T> storedEntries = new HashMap<>();
+
+    /** IDs of the entries which have been added, updated or removed since the last commit. */
+    private final Set<Integer> changedIds = new LinkedHashSet<>();
+
+    /** Flag for comparing all entries with the stored entries, needed when the changed entry is unknown. */
+    private boolean checkAllEntries;
+
+    /** Number of list changes with unknown changed entries, needed for detecting them during a store. */
+    private int unknownChangeCount;
+
+    /**
+     * Creates the tracker for the specified list, the current list content is considered as stored.
+     *
+     * @param list the list to track
+     */
+    ListChangeTracker(IdObjectList<T> list) {
+        this.list = list;
+        list.forEach(entry -> storedEntries.put(entry.getId(), entry));
+        list.addListChangeListener(this::listChanged);
+    }
+
+    /**
+     * Returns the tracked list.
+     *
+     * @return the list
+     */
+    IdObjectList<T> getList() {
+        return list;
+    }
+
+    /**
+     * Returns all changes of the list since the last commit.
+     *
+     * @return the changes (can be empty)
+     */
+    synchronized Changes<T> getChanges() {
+        Set<Integer> ids = new LinkedHashSet<>(changedIds);
+        if (checkAllEntries) {
+            storedEntries.keySet().stream()
+                    .filter(id -> list.getByID(id) == null)
+                    .forEach(ids::add);
+            list.stream()
+                    .filter(entry -> storedEntries.get(entry.getId()) != entry)
+                    .forEach(entry -> ids.add(entry.getId()));
+        }
+
+        Changes<T> changes = new Changes<>(unknownChangeCount);
+        for (Integer id : ids) {
+            T entry = list.getByID(id);
+            if (entry != null) {
+                changes.updatedEntries.add(entry);
+            } else if (storedEntries.containsKey(id)) {
+                changes.removedIds.add(id);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Marks the specified changes as stored, they will not be returned by getChanges() anymore.
+     * Must be called after the changes have been stored successfully.
+     *
+     * @param changes the stored changes
+     */
+    synchronized void commit(Changes<T> changes) {
+        for (T entry : changes.updatedEntries) {
+            storedEntries.put(entry.getId(), entry);
+            if (list.getByID(entry.getId()) == entry) {
+                changedIds.remove(entry.getId());
+            }
+        }
+        for (Integer id : changes.removedIds) {
+            storedEntries.remove(id);
+            changedIds.remove(id);
+        }
+
+        // the IDs of added and then removed entries are not part of the changes
+        changedIds.removeIf(id -> list.getByID(id) == null && !storedEntries.containsKey(id));
+        if (unknownChangeCount == changes.unknownChangeCount) {
+            checkAllEntries = false;
+        }
+    }
+
+    private synchronized void listChanged(IdObject changedObject) {
+        if (changedObject != null) {
+            changedIds.add(changedObject.getId());
+        } else {
+            // entries have been removed or replaced, but the list does not tell which ones
+            checkAllEntries = true;
+            unknownChangeCount++;
+        }
+    }
+
+    /**
+     * The changes of the tracked list.
+     *
+     * @param <T> the entry type of the list
+     */
+    static final class Changes<T> {
+
+        private final List<T> updatedEntries = new ArrayList<>();
+        private final List<Integer> removedIds = new ArrayList<>();
+        private final int unknownChangeCount;
+
+        private Changes(int unknownChangeCount) {
+            this.unknownChangeCount = unknownChangeCount;
+        }
+
+        /**
+         * @return the added or updated entries
+         */
+        List<T> getUpdatedEntries() {
+            return updatedEntries;
+        }
+
+        /**
+         * @return the IDs of the removed entries
+         */
+        List<Integer> getRemovedIds() {
+            return removedIds;
+        }
+
+        /**
+         * @return true when there are no changes
+         */
+        boolean isEmpty() {
+            return updatedEntries.isEmpty() && removedIds.isEmpty();
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package de.saring.sportstracker.storage;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
@@ -25,11 +34,16 @@ import de.saring.sportstracker.data.Weight;
 import de.saring.sportstracker.gui.STDocument;
 import de.saring.util.Date310Utils;
 import de.saring.util.StringUtils;
+import de.saring.util.data.IdObject;
 import de.saring.util.gui.javafx.ColorUtils;
 
 /**
  * Exporter for the SportsTracker application data to a SQLite database. The exporter uses the plain
- * JDBC API (no ORM) and the xerial/sqlite-jdbc library (contains the native SQLite libraries).
+ * JDBC API (no ORM) and the xerial/sqlite-jdbc library (contains the native SQLite libraries).<br/>
+ * The database contains the content hash of each exported row (table EXPORT_ROW_HASH), so an
+ * incremental export only needs to write the rows of the added, modified or removed entries.<br/>
+ * The export can be executed for a snapshot of the document in a background thread, the progress is
+ * reported to a ProgressMonitor, which can also cancel the export.
  *
  * @author Stefan Saring
  */
@@ -39,6 +53,15 @@ public class SQLiteExporter {
     private static final String SCHEMA_FILE = "/sql/st-export.sql";
     private static final String DATABASE_FILE = System.getProperty("user.home") + "/st-export.sqlite";
 
+    /** Temporary database file of a full export, it replaces the database file on success only. */
+    private static final String TEMP_DATABASE_FILE = DATABASE_FILE + ".tmp";
+
+    /** Name of the table containing the content hashes of all exported rows. */
+    private static final String ROW_HASH_TABLE = "EXPORT_ROW_HASH";
+
+    /** Maximum number of rows in a statement batch. */
+    private static final int BATCH_SIZE = 1000;
+
     private STDocument document;
 
     /**
@@ -59,178 +82,578 @@ public class SQLiteExporter {
         return Paths.get(DATABASE_FILE).toAbsolutePath();
     }
 
+    /**
+     * Creates a snapshot of the current document content for the export. It must be created in the thread
+     * which modifies the document (the JavaFX application thread), the export itself can be executed in any
+     * thread then. The entries are copied, because they can be modified in place after the snapshot has been
+     * created (e.g. the exercises after editing the sport types). The copied exercises are still referencing
+     * the sport type objects of the document, but only their IDs are exported, which are never modified.
+     *
+     * @return the snapshot
+     */
+    public Snapshot createSnapshot() {
+        return new Snapshot(document);
+    }
+
     /**
      * Exports the application data to a new SQLite database, an already existing database will be overwritten.
+     * All data is inserted in one transaction by using batches of reused prepared statements. The new database
+     * is created in a temporary file, which replaces the existing database when the export has been completed.
+     * So the database journal and the disk syncs can be disabled during the export, an interrupted export just
+     * leaves the temporary file, which is deleted.
      *
      * @throws STException on export errors
      */
     public void exportToSqlite() throws STException {
+        exportToSqlite(createSnapshot(), ProgressMonitor.NONE);
+    }
 
-        deleteExistingDatabase();
+    /**
+     * Exports the specified document snapshot to a new SQLite database, see exportToSqlite(). When the export
+     * gets cancelled or fails, the existing database (if there is one) remains unchanged.
+     *
+     * @param snapshot the document snapshot to export
+     * @param progressMonitor monitor for the export progress
+     * @return true when the export has been completed, false when it was cancelled
+     * @throws STException on export errors
+     */
+    public boolean exportToSqlite(final Snapshot snapshot, final ProgressMonitor progressMonitor)
+            throws STException {
 
-        // create database connection
-        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + DATABASE_FILE)) {
+        final String dbSchema = readDatabaseSchema();
+        deleteTempDatabase();
 
-            // create database schema
-            final String dbSchema = readDatabaseSchema();
-            final Statement statement = connection.createStatement();
-            statement.setQueryTimeout(10);
-            statement.executeUpdate(dbSchema);
-
-            // export data
-            exportSportTypes(connection);
-            exportExercises(connection);
-            exportNotes(connection);
-            exportWeights(connection);
+        boolean completed = false;
+        try {
+            // create database connection
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + TEMP_DATABASE_FILE)) {
+
+                // create database schema (the PRAGMAs can't be changed inside a transaction)
+                try (Statement statement = connection.createStatement()) {
+                    statement.setQueryTimeout(10);
+                    statement.execute("PRAGMA journal_mode = OFF");
+                    statement.execute("PRAGMA synchronous = OFF");
+                    statement.executeUpdate(dbSchema);
+                }
+
+                completed = exportData(connection, snapshot, progressMonitor);
+            } catch (SQLException e) {
+                throw new STException(STExceptionID.SQLITE_EXPORT, "Failed to export application data to SQLite!", e);
+            }
+
+            if (completed) {
+                replaceDatabase();
+            }
+            return completed;
+        } finally {
+            if (!completed) {
+                deleteTempDatabase();
+            }
+        }
+    }
+
+    /**
+     * Exports the changes of the application data since the previous export to the existing SQLite database.
+     * The content hash of each entry is compared with the hash stored on the previous export, only the rows
+     * of added or modified entries are written, the rows of removed entries are deleted. All changes are
+     * written in one transaction. A full export is executed when the database does not exist yet or when
+     * it was created by a previous version without row hashes.
+     *
+     * @throws STException on export errors
+     */
+    public void exportChangesToSqlite() throws STException {
+        exportChangesToSqlite(createSnapshot(), ProgressMonitor.NONE);
+    }
+
+    /**
+     * Exports the changes of the specified document snapshot to the existing SQLite database, see
+     * exportChangesToSqlite(). When the export gets cancelled, the database will not be modified.
+     *
+     * @param snapshot the document snapshot to export
+     * @param progressMonitor monitor for the export progress
+     * @return true when the export has been completed, false when it was cancelled
+     * @throws STException on export errors
+     */
+    public boolean exportChangesToSqlite(final Snapshot snapshot, final ProgressMonitor progressMonitor)
+            throws STException {
+
+        if (!Files.exists(Paths.get(DATABASE_FILE)) || !hasRowHashTable()) {
+            return exportToSqlite(snapshot, progressMonitor);
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + DATABASE_FILE)) {
+            return exportData(connection, snapshot, progressMonitor);
         } catch (SQLException e) {
             throw new STException(STExceptionID.SQLITE_EXPORT, "Failed to export application data to SQLite!", e);
         }
     }
 
-    private void deleteExistingDatabase() throws STException {
+    private boolean hasRowHashTable() throws STException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + DATABASE_FILE);
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, ROW_HASH_TABLE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.getInt(1) > 0;
+            }
+        } catch (SQLException e) {
+            throw new STException(STExceptionID.SQLITE_EXPORT, //
+                    "Failed to read the schema of the existing database '" + DATABASE_FILE + "'!", e);
+        }
+    }
+
+    private void deleteTempDatabase() throws STException {
         try {
-            Files.deleteIfExists(Paths.get(DATABASE_FILE));
+            Files.deleteIfExists(Paths.get(TEMP_DATABASE_FILE));
         } catch (IOException e) {
             throw new STException(STExceptionID.SQLITE_EXPORT, //
-                    "Failed to delete the already existing database '" + DATABASE_FILE + "'!", e);
+                    "Failed to delete the temporary database '" + TEMP_DATABASE_FILE + "'!", e);
         }
     }
 
-    private String readDatabaseSchema() throws STException {
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                this.getClass().getResourceAsStream(SCHEMA_FILE)))) {
-
-            StringBuffer fileContent = new StringBuffer();
-            String line;
-            while((line = reader.readLine()) != null) {
-                fileContent.append(line).append('\n');
-            }
+    /**
+     * Replaces the existing database by the completely exported temporary database.
+     */
+    private void replaceDatabase() throws STException {
+        try {
+            Files.move(Paths.get(TEMP_DATABASE_FILE), Paths.get(DATABASE_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.SQLITE_EXPORT, //
+                    "Failed to replace the database '" + DATABASE_FILE + "' by the exported database!", e);
+        }
+    }
 
-            return fileContent.toString();
+    private String readDatabaseSchema() throws STException {
+        try {
+            return SQLiteUtils.readSqlScript(SCHEMA_FILE);
         } catch (IOException e) {
             throw new STException(STExceptionID.SQLITE_EXPORT, //
                     "Failed to read the database schema file '" + SCHEMA_FILE + "'!", e);
         }
     }
 
-    private void exportSportTypes(final Connection connection) throws SQLException {
+    /**
+     * Exports the rows of all changed entries in one transaction. The transaction is rolled back when
+     * the export gets cancelled (the temporary database of a full export has no rollback journal, it's
+     * deleted afterwards).
+     *
+     * @return true when the export has been completed, false when it was cancelled
+     */
+    private boolean exportData(final Connection connection, final Snapshot snapshot,
+            final ProgressMonitor progressMonitor) throws SQLException {
+
+        connection.setAutoCommit(false);
+        try (RowHashes rowHashes = new RowHashes(connection)) {
+            final ProgressReporter progress = new ProgressReporter(progressMonitor);
+            exportSportTypes(connection, rowHashes, snapshot.sportTypes, progress);
+            exportRows(connection, rowHashes, progress, EntityType.EXERCISES, "EXERCISE", new String[] {"ID", "DATE_TIME", "SPORT_TYPE_ID",
+                    "SPORT_SUBTYPE_ID", "INTENSITY", "DURATION", "DISTANCE", "AVG_SPEED", "AVG_HEARTRATE", "ASCENT",
+                    "DESCENT", "CALORIES", "HRM_FILE", "EQUIPMENT_ID", "COMMENT"},
+                    snapshot.exercises, SQLiteExporter::getExerciseValues);
+            exportRows(connection, rowHashes, progress, EntityType.NOTES, "NOTE",
+                    new String[] {"ID", "DATE_TIME", "COMMENT"}, snapshot.notes, note -> new Object[] {note.getId(),
+                            Date310Utils.localDateTimeToUnixTime(note.getDateTime()), note.getComment()});
+            exportRows(connection, rowHashes, progress, EntityType.WEIGHTS, "WEIGHT",
+                    new String[] {"ID", "DATE_TIME", "VALUE", "COMMENT"}, snapshot.weights, weight -> new Object[] {weight.getId(),
+                            Date310Utils.localDateTimeToUnixTime(weight.getDateTime()), weight.getValue(),
+                            nullIfEmpty(weight.getComment())});
+            rowHashes.executeBatches();
+            connection.commit();
+            return true;
+        } catch (CancellationException e) {
+            connection.rollback();
+            return false;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO SPORT_TYPE (ID, NAME, RECORD_DISTANCE, COLOR, ICON) VALUES (?, ?, ?, ?, ?)");
+    /**
+     * Exports the sport types including their sport subtypes and equipment. The row hash of a sport type
+     * contains the values of the subtypes and equipment too. The subtype and equipment rows are updated
+     * in place, because they have generated IDs which are referenced by the exercises.
+     */
+    private void exportSportTypes(final Connection connection, final RowHashes rowHashes,
+            final List<SportType> sportTypes, final ProgressReporter progress) throws SQLException {
+
+        final Map<Integer, Long> storedHashes = rowHashes.read("SPORT_TYPE");
+
+        try (PreparedStatement sportTypeStatement = connection.prepareStatement( //
+                "INSERT OR REPLACE INTO SPORT_TYPE (ID, NAME, RECORD_DISTANCE, COLOR, ICON) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement deleteSportTypeStatement = connection.prepareStatement( //
+                "DELETE FROM SPORT_TYPE WHERE ID = ?");
+             ChildRowWriter subTypeWriter = new ChildRowWriter(connection, "SPORT_SUBTYPE", "SPORT_SUBTYPE_ID");
+             ChildRowWriter equipmentWriter = new ChildRowWriter(connection, "EQUIPMENT", "EQUIPMENT_ID")) {
+
+            progress.report(EntityType.SPORT_TYPES, 0, sportTypes.size());
+            for (SportType sportType : sportTypes) {
+                final Object[] values = {sportType.getId(), sportType.getName(), sportType.isRecordDistance() ? 1 : 0,
+                        sportType.getColor() == null ? null : ColorUtils.toRGBCode(sportType.getColor()),
+                        nullIfEmpty(sportType.getIcon())};
+
+                final RowHash hash = new RowHash().add(values);
+                sportType.getSportSubTypeList().forEach(subType -> hash.add(subType.getId(), subType.getName()));
+                sportType.getEquipmentList().forEach(equipment -> hash.add(equipment.getId(), equipment.getName()));
+
+                final Long storedHash = storedHashes.remove(sportType.getId());
+                if (storedHash == null || storedHash != hash.getValue()) {
+                    setValues(sportTypeStatement, values);
+                    sportTypeStatement.executeUpdate();
+
+                    for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
+                        subTypeWriter.write(sportSubType.getId(), sportType.getId(), sportSubType.getName());
+                    }
+                    subTypeWriter.deleteOthers(sportType.getId());
+                    for (Equipment equipment : sportType.getEquipmentList()) {
+                        equipmentWriter.write(equipment.getId(), sportType.getId(), equipment.getName());
+                    }
+                    equipmentWriter.deleteOthers(sportType.getId());
+                    rowHashes.store("SPORT_TYPE", sportType.getId(), hash.getValue());
+                }
+            }
 
-        for (SportType sportType : document.getSportTypeList()) {
-            statement.clearParameters();
+            for (Integer removedId : storedHashes.keySet()) {
+                subTypeWriter.deleteOthers(removedId);
+                equipmentWriter.deleteOthers(removedId);
+                deleteSportTypeStatement.setInt(1, removedId);
+                deleteSportTypeStatement.executeUpdate();
+                rowHashes.delete("SPORT_TYPE", removedId);
+            }
+            progress.report(EntityType.SPORT_TYPES, sportTypes.size(), sportTypes.size());
+        }
+    }
 
-            statement.setInt(1, sportType.getId());
-            statement.setString(2, sportType.getName());
-            statement.setInt(3, sportType.isRecordDistance() ? 1 : 0);
-            statement.setString(4, sportType.getColor() == null ? null : ColorUtils.toRGBCode(sportType.getColor()));
-            if (!StringUtils.isNullOrEmpty(sportType.getIcon())) {
-                statement.setString(5, sportType.getIcon());
+    /**
+     * Exports the rows of all added or modified entries of the specified table in batches and deletes
+     * the rows of the removed entries.
+     */
+    private <T extends IdObject> void exportRows(final Connection connection, final RowHashes rowHashes,
+            final ProgressReporter progress, final EntityType entityType, final String table, final String[] columns,
+            final List<T> entries, final Function<T, Object[]> rowValues) throws SQLException {
+
+        final Map<Integer, Long> storedHashes = rowHashes.read(table);
+
+        try (PreparedStatement statement = connection.prepareStatement( //
+                "INSERT OR REPLACE INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + //
+                        "?, ".repeat(columns.length - 1) + "?)");
+             PreparedStatement deleteStatement = connection.prepareStatement( //
+                "DELETE FROM " + table + " WHERE ID = ?")) {
+
+            progress.report(entityType, 0, entries.size());
+            int batchCount = 0;
+            int entryCount = 0;
+            for (T entry : entries) {
+                if (++entryCount % BATCH_SIZE == 0) {
+                    progress.report(entityType, entryCount, entries.size());
+                }
+
+                final Object[] values = rowValues.apply(entry);
+                final long hash = new RowHash().add(values).getValue();
+
+                final Long storedHash = storedHashes.remove(entry.getId());
+                if (storedHash == null || storedHash != hash) {
+                    setValues(statement, values);
+                    batchCount = addBatch(statement, batchCount);
+                    rowHashes.store(table, entry.getId(), hash);
+                }
             }
-            statement.executeUpdate();
+            statement.executeBatch();
 
-            exportSportSubTypes(connection, sportType);
-            exportEquipments(connection, sportType);
+            for (Integer removedId : storedHashes.keySet()) {
+                deleteStatement.setInt(1, removedId);
+                deleteStatement.addBatch();
+                rowHashes.delete(table, removedId);
+            }
+            deleteStatement.executeBatch();
+            progress.report(entityType, entries.size(), entries.size());
         }
     }
 
-    private void exportSportSubTypes(final Connection connection, final SportType sportType) throws SQLException {
+    private static Object[] getExerciseValues(final Exercise exercise) {
+        return new Object[] {
+                exercise.getId(),
+                Date310Utils.localDateTimeToUnixTime(exercise.getDateTime()),
+                exercise.getSportType().getId(),
+                exercise.getSportSubType().getId(),
+                String.valueOf(exercise.getIntensity()),
+                exercise.getDuration(),
+                exercise.getDistance(),
+                exercise.getAvgSpeed(),
+                exercise.getAvgHeartRate(),
+                exercise.getAscent(),
+                exercise.getDescent(),
+                exercise.getCalories(),
+                nullIfEmpty(exercise.getHrmFile()),
+                exercise.getEquipment() == null ? null : exercise.getEquipment().getId(),
+                nullIfEmpty(exercise.getComment())};
+    }
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO SPORT_SUBTYPE (SPORT_SUBTYPE_ID, SPORT_TYPE_ID, NAME) VALUES (?, ?, ?)");
+    private static void setValues(final PreparedStatement statement, final Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+    }
 
-        for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
-            statement.clearParameters();
+    /**
+     * Adds the current parameters to the batch of the statement. The batch is executed when it
+     * contains BATCH_SIZE rows, so the memory usage is limited on large exports.
+     *
+     * @return the new number of rows in the batch
+     */
+    private static int addBatch(final PreparedStatement statement, final int batchCount) throws SQLException {
+        statement.addBatch();
+        if (batchCount + 1 < BATCH_SIZE) {
+            return batchCount + 1;
+        }
+        statement.executeBatch();
+        return 0;
+    }
+
+    private static String nullIfEmpty(final String value) {
+        return StringUtils.isNullOrEmpty(value) ? null : value;
+    }
 
-            statement.setInt(1, sportSubType.getId());
-            statement.setInt(2, sportType.getId());
-            statement.setString(3, sportSubType.getName());
-            statement.executeUpdate();
+    /**
+     * Snapshot of the document content to be exported.
+     */
+    public static final class Snapshot {
+
+        private final List<SportType> sportTypes;
+        private final List<Exercise> exercises;
+        private final List<Note> notes;
+        private final List<Weight> weights;
+
+        private Snapshot(final STDocument document) {
+            sportTypes = document.getSportTypeList().stream()
+                    .map(SportType::clone)
+                    .collect(Collectors.toList());
+            exercises = document.getExerciseList().stream()
+                    .map(exercise -> exercise.clone(exercise.getId()))
+                    .collect(Collectors.toList());
+            notes = document.getNoteList().stream()
+                    .map(note -> note.clone(note.getId()))
+                    .collect(Collectors.toList());
+            weights = document.getWeightList().stream()
+                    .map(weight -> weight.clone(weight.getId()))
+                    .collect(Collectors.toList());
         }
     }
 
-    private void exportEquipments(final Connection connection, final SportType sportType) throws SQLException {
+    /**
+     * The entity types of the exported data, in the order of the export.
+     */
+    public enum EntityType {
+        SPORT_TYPES, EXERCISES, NOTES, WEIGHTS
+    }
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO EQUIPMENT (EQUIPMENT_ID, SPORT_TYPE_ID, NAME) VALUES (?, ?, ?)");
+    /**
+     * Monitor for the export progress, it will be called by the export thread.
+     */
+    public interface ProgressMonitor {
 
-        for (Equipment equipment : sportType.getEquipmentList()) {
-            statement.clearParameters();
+        /** Monitor which ignores the progress and never cancels the export. */
+        ProgressMonitor NONE = new ProgressMonitor() {
+            @Override
+            public void progress(final EntityType entityType, final int exportedCount, final int totalCount) {
+            }
 
-            statement.setInt(1, equipment.getId());
-            statement.setInt(2, sportType.getId());
-            statement.setString(3, equipment.getName());
-            statement.executeUpdate();
-        }
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+
+        /**
+         * Reports the progress of the export for the specified entity type. It's called at the start and at
+         * the end of each entity type and after each batch of entries.
+         *
+         * @param entityType the currently exported entity type
+         * @param exportedCount number of processed entries of this entity type
+         * @param totalCount number of all entries of this entity type
+         */
+        void progress(EntityType entityType, int exportedCount, int totalCount);
+
+        /**
+         * Returns true when the export needs to be cancelled, it's checked on each progress report.
+         *
+         * @return true for cancelling the export
+         */
+        boolean isCancelled();
     }
 
-    private void exportExercises(final Connection connection) throws SQLException {
+    /**
+     * Reports the progress to the monitor and cancels the export by throwing a CancellationException.
+     */
+    private static final class ProgressReporter {
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO EXERCISE (ID, DATE_TIME, SPORT_TYPE_ID, SPORT_SUBTYPE_ID, INTENSITY, DURATION, DISTANCE, " +
-                        "AVG_SPEED, AVG_HEARTRATE, ASCENT, DESCENT, CALORIES, HRM_FILE, EQUIPMENT_ID, COMMENT) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        private final ProgressMonitor monitor;
 
-        for (Exercise exercise : document.getExerciseList()) {
-            statement.clearParameters();
+        ProgressReporter(final ProgressMonitor monitor) {
+            this.monitor = monitor;
+        }
 
-            statement.setInt(1, exercise.getId());
-            statement.setLong(2, Date310Utils.localDateTimeToUnixTime(exercise.getDateTime()));
-            statement.setInt(3, exercise.getSportType().getId());
-            statement.setInt(4, exercise.getSportSubType().getId());
-            statement.setString(5, String.valueOf(exercise.getIntensity()));
-            statement.setInt(6, exercise.getDuration());
-            statement.setFloat(7, exercise.getDistance());
-            statement.setFloat(8, exercise.getAvgSpeed());
-            statement.setInt(9, exercise.getAvgHeartRate());
-            statement.setInt(10, exercise.getAscent());
-            statement.setInt(11, exercise.getDescent());
-            statement.setInt(12, exercise.getCalories());
-            if (!StringUtils.isNullOrEmpty(exercise.getHrmFile())) {
-                statement.setString(13, exercise.getHrmFile());
-            }
-            if (exercise.getEquipment() != null) {
-                statement.setInt(14, exercise.getEquipment().getId());
+        void report(final EntityType entityType, final int exportedCount, final int totalCount) {
+            if (monitor.isCancelled()) {
+                throw new CancellationException("The SQLite export has been cancelled!");
             }
-            if (!StringUtils.isNullOrEmpty(exercise.getComment())) {
-                statement.setString(15, exercise.getComment());
+            monitor.progress(entityType, exportedCount, totalCount);
+        }
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the values of a database row.
+     */
+    private static final class RowHash {
+
+        private long value = 0xcbf29ce484222325L;
+
+        RowHash add(final Object... values) {
+            for (Object rowValue : values) {
+                // null values and the separators can't be part of the string values
+                final String string = rowValue == null ? "\u0000" : rowValue.toString();
+                for (int i = 0; i < string.length(); i++) {
+                    addChar(string.charAt(i));
+                }
+                addChar('\u001f');
             }
-            statement.executeUpdate();
+            return this;
+        }
+
+        long getValue() {
+            return value;
+        }
+
+        private void addChar(final char c) {
+            value = (value ^ c) * 0x100000001b3L;
         }
     }
 
-    private void exportNotes(final Connection connection) throws SQLException {
+    /**
+     * Reads and stores the content hashes of the exported rows in the table EXPORT_ROW_HASH.
+     * The modifications are written in batches, they need to be executed before the commit.
+     */
+    private static final class RowHashes implements AutoCloseable {
+
+        private final Connection connection;
+        private final PreparedStatement storeStatement;
+        private final PreparedStatement deleteStatement;
+        private int storeCount;
+        private int deleteCount;
+
+        RowHashes(final Connection connection) throws SQLException {
+            this.connection = connection;
+            storeStatement = connection.prepareStatement( //
+                    "INSERT OR REPLACE INTO " + ROW_HASH_TABLE + " (TABLE_NAME, ROW_ID, HASH) VALUES (?, ?, ?)");
+            deleteStatement = connection.prepareStatement( //
+                    "DELETE FROM " + ROW_HASH_TABLE + " WHERE TABLE_NAME = ? AND ROW_ID = ?");
+        }
+
+        Map<Integer, Long> read(final String table) throws SQLException {
+            final Map<Integer, Long> hashes = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement( //
+                    "SELECT ROW_ID, HASH FROM " + ROW_HASH_TABLE + " WHERE TABLE_NAME = ?")) {
+                statement.setString(1, table);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        hashes.put(resultSet.getInt(1), resultSet.getLong(2));
+                    }
+                }
+            }
+            return hashes;
+        }
+
+        void store(final String table, final int rowId, final long hash) throws SQLException {
+            storeStatement.setString(1, table);
+            storeStatement.setInt(2, rowId);
+            storeStatement.setLong(3, hash);
+            storeCount = addBatch(storeStatement, storeCount);
+        }
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO NOTE (ID, DATE_TIME, COMMENT) VALUES (?, ?, ?)");
+        void delete(final String table, final int rowId) throws SQLException {
+            deleteStatement.setString(1, table);
+            deleteStatement.setInt(2, rowId);
+            deleteCount = addBatch(deleteStatement, deleteCount);
+        }
 
-        for (Note note : document.getNoteList()) {
-            statement.clearParameters();
+        void executeBatches() throws SQLException {
+            storeStatement.executeBatch();
+            deleteStatement.executeBatch();
+        }
 
-            statement.setInt(1, note.getId());
-            statement.setLong(2, Date310Utils.localDateTimeToUnixTime(note.getDateTime()));
-            statement.setString(3, note.getComment());
-            statement.executeUpdate();
+        @Override
+        public void close() throws SQLException {
+            storeStatement.close();
+            deleteStatement.close();
         }
     }
 
-    private void exportWeights(final Connection connection) throws SQLException {
+    /**
+     * Writer for the rows of the sport subtypes or equipment of a sport type. The rows are updated in
+     * place when they exist already, so their generated IDs will not change.
+     */
+    private static final class ChildRowWriter implements AutoCloseable {
+
+        private final Connection connection;
+        private final String selectSql;
+        private final PreparedStatement updateStatement;
+        private final PreparedStatement insertStatement;
+        private final PreparedStatement deleteStatement;
+        private final Set<Integer> writtenIds = new HashSet<>();
+
+        ChildRowWriter(final Connection connection, final String table, final String idColumn) throws SQLException {
+            this.connection = connection;
+            this.selectSql = "SELECT " + idColumn + " FROM " + table + " WHERE SPORT_TYPE_ID = ?";
+            updateStatement = connection.prepareStatement( //
+                    "UPDATE " + table + " SET NAME = ? WHERE " + idColumn + " = ? AND SPORT_TYPE_ID = ?");
+            insertStatement = connection.prepareStatement( //
+                    "INSERT INTO " + table + " (NAME, " + idColumn + ", SPORT_TYPE_ID) VALUES (?, ?, ?)");
+            deleteStatement = connection.prepareStatement( //
+                    "DELETE FROM " + table + " WHERE SPORT_TYPE_ID = ? AND " + idColumn + " = ?");
+        }
 
-        final PreparedStatement statement = connection.prepareStatement( //
-                "INSERT INTO WEIGHT (ID, DATE_TIME, VALUE, COMMENT) VALUES (?, ?, ?, ?)");
+        void write(final int id, final int sportTypeId, final String name) throws SQLException {
+            for (PreparedStatement statement : List.of(updateStatement, insertStatement)) {
+                statement.setString(1, name);
+                statement.setInt(2, id);
+                statement.setInt(3, sportTypeId);
+            }
+            if (updateStatement.executeUpdate() == 0) {
+                insertStatement.executeUpdate();
+            }
+            writtenIds.add(id);
+        }
 
-        for (Weight weight : document.getWeightList()) {
-            statement.clearParameters();
+        /**
+         * Deletes all rows of the sport type which have not been written since the previous call.
+         */
+        void deleteOthers(final int sportTypeId) throws SQLException {
+            final List<Integer> removedIds = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                statement.setInt(1, sportTypeId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (!writtenIds.contains(resultSet.getInt(1))) {
+                            removedIds.add(resultSet.getInt(1));
+                        }
+                    }
+                }
+            }
 
-            statement.setInt(1, weight.getId());
-            statement.setLong(2, Date310Utils.localDateTimeToUnixTime(weight.getDateTime()));
-            statement.setFloat(3, weight.getValue());
-            if (!StringUtils.isNullOrEmpty(weight.getComment())) {
-                statement.setString(4, weight.getComment());
+            for (Integer removedId : removedIds) {
+                deleteStatement.setInt(1, sportTypeId);
+                deleteStatement.setInt(2, removedId);
+                deleteStatement.executeUpdate();
             }
-            statement.executeUpdate();
+            writtenIds.clear();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            updateStatement.close();
+            insertStatement.close();
+            deleteStatement.close();
         }
     }
 }
@@ -0,0 +1,691 @@
+package de.saring.sportstracker.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.Entry;
+import de.saring.sportstracker.data.EntryFilter;
+import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.data.Equipment;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.util.StringUtils;
+import de.saring.util.data.IdObject;
+import de.saring.util.data.IdObjectList;
+import de.saring.util.gui.javafx.ColorUtils;
+import de.saring.util.unitcalc.SpeedMode;
+import javafx.scene.paint.Color;
+
+/**
+ * This class is for reading / storing of the application data from / to a SQLite database. All
+ * lists are stored in the database 'sportstracker.sqlite', which is located in the directory of
+ * the passed source / destination files (the file names are used for the location only). The
+ * database schema is defined in 'st-storage.sql', it contains indexes for the date, sport type
+ * and equipment columns. The schema is created only for new databases, the schema version is
+ * stored in the 'user_version' of the database.<br/>
+ * The changes of all lists read or stored by this storage are tracked, so storing a list updates,
+ * inserts or deletes the rows of the changed entries only (in one transaction). So the modified
+ * entries must be stored in the lists again, also when they have been modified in place (see
+ * ListChangeTracker). Lists which have not been read or stored by this storage are replaced
+ * completely.<br/>
+ * The readXxxForFilter() methods are reading only the rows matching the date range, the sport type
+ * and the comment of the entry filter, so the complete lists don't need to be loaded for filtering.
+ *
+ * @author Stefan Saring
+ */
+@Singleton
+public class SQLiteStorage implements IStorage {
+
+    /** The file name of the SQLite database. */
+    static final String DATABASE_FILE_NAME = "sportstracker.sqlite";
+
+    private static final String SCHEMA_FILE = "/sql/st-storage.sql";
+
+    /** The version of the database schema, it's stored in the 'user_version' of the database. */
+    static final int SCHEMA_VERSION = 1;
+
+    private static final String[] SPORT_TYPE_COLUMNS =
+            {"NAME", "RECORD_DISTANCE", "SPEED_MODE", "COLOR", "ICON"};
+    private static final String[] EXERCISE_COLUMNS =
+            {"DATE_TIME", "SPORT_TYPE_ID", "SPORT_SUBTYPE_ID", "INTENSITY", "DURATION", "DISTANCE", "AVG_SPEED",
+                    "AVG_HEARTRATE", "ASCENT", "DESCENT", "CALORIES", "HRM_FILE", "EQUIPMENT_ID", "COMMENT"};
+    private static final String[] NOTE_COLUMNS = {"DATE_TIME", "COMMENT"};
+    private static final String[] WEIGHT_COLUMNS = {"DATE_TIME", "VALUE", "COMMENT"};
+
+    /** The content of the database schema script, it's read on first database access. */
+    private String databaseSchema;
+
+    /** The change trackers of all read or stored lists, the key is the database path and the table name. */
+    private final Map<String, ListChangeTracker<?>> changeTrackers = new HashMap<>();
+
+    /**
+     * Returns the absolute path of the SQLite database for the specified source or destination file.
+     *
+     * @param filename name of a data file in the directory of the database
+     * @return absolute database path
+     */
+    public Path getDatabasePath(String filename) {
+        return Paths.get(filename).toAbsolutePath().resolveSibling(DATABASE_FILE_NAME);
+    }
+
+    @Override
+    public SportTypeList readSportTypeList(String source, SpeedMode defaultSpeedMode) throws STException {
+
+        try (Connection connection = openConnection(source)) {
+            List<SportType> sportTypes = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT ID, " + String.join(", ", SPORT_TYPE_COLUMNS) + " FROM SPORT_TYPE ORDER BY ID")) {
+                while (resultSet.next()) {
+                    sportTypes.add(readSportType(resultSet, defaultSpeedMode));
+                }
+            }
+
+            Map<Integer, SportType> sportTypesById = new HashMap<>();
+            sportTypes.forEach(sportType -> sportTypesById.put(sportType.getId(), sportType));
+            readSportSubTypes(connection, sportTypesById);
+            readEquipments(connection, sportTypesById);
+
+            SportTypeList sportTypeList = new SportTypeList();
+            sportTypeList.clearAndAddAll(sportTypes);
+            trackChanges(sportTypeList, source, "SPORT_TYPE");
+            return sportTypeList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.SQLITESTORAGE_READ,
+                    "Failed to read sport type list from SQLite database '" + getDatabasePath(source) + "' ...", e);
+        }
+    }
+
+    @Override
+    public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
+        storeList(sportTypeList, destination, "SPORT_TYPE", SPORT_TYPE_COLUMNS,
+                SQLiteStorage::bindSportType, "sport type list");
+    }
+
+    @Override
+    public ExerciseList readExerciseList(String source, SportTypeList sportTypeList) throws STException {
+        ExerciseList exerciseList = new ExerciseList();
+        readEntries(exerciseList, source, "EXERCISE", EXERCISE_COLUMNS, null,
+                resultSet -> readExercise(resultSet, sportTypeList), "exercise list");
+        trackChanges(exerciseList, source, "EXERCISE");
+        return exerciseList;
+    }
+
+    @Override
+    public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
+        storeList(exerciseList, destination, "EXERCISE", EXERCISE_COLUMNS,
+                SQLiteStorage::bindExercise, "exercise list");
+    }
+
+    @Override
+    public NoteList readNoteList(String source) throws STException {
+        NoteList noteList = new NoteList();
+        readEntries(noteList, source, "NOTE", NOTE_COLUMNS, null, SQLiteStorage::readNote, "note list");
+        trackChanges(noteList, source, "NOTE");
+        return noteList;
+    }
+
+    @Override
+    public void storeNoteList(NoteList noteList, String destination) throws STException {
+        storeList(noteList, destination, "NOTE", NOTE_COLUMNS, SQLiteStorage::bindNote, "note list");
+    }
+
+    @Override
+    public WeightList readWeightList(String source) throws STException {
+        WeightList weightList = new WeightList();
+        readEntries(weightList, source, "WEIGHT", WEIGHT_COLUMNS, null, SQLiteStorage::readWeight, "weight list");
+        trackChanges(weightList, source, "WEIGHT");
+        return weightList;
+    }
+
+    @Override
+    public void storeWeightList(WeightList weightList, String destination) throws STException {
+        storeList(weightList, destination, "WEIGHT", WEIGHT_COLUMNS, SQLiteStorage::bindWeight, "weight list");
+    }
+
+    /**
+     * Reads all exercises which are matching the specified exercise filter. The date range, the sport
+     * type and the comment substring (when possible) are filtered by the database query, all other
+     * criteria are checked afterwards. The returned list is not connected to this storage, so it
+     * must not be stored.
+     *
+     * @param source name of a data file in the directory of the database
+     * @param sportTypeList the sport type list for assigning sport types to exercises
+     * @param filter the exercise filter criteria (entry type must be EXERCISE)
+     * @return list of the matching exercises
+     * @throws STException thrown on read problems
+     */
+    public EntryList<Exercise> readExercisesForFilter(String source, SportTypeList sportTypeList,
+            EntryFilter filter) throws STException {
+
+        ExerciseList exerciseList = new ExerciseList();
+        readEntries(exerciseList, source, "EXERCISE", EXERCISE_COLUMNS, filter,
+                resultSet -> readExercise(resultSet, sportTypeList), "exercise list");
+        return exerciseList.getEntriesForFilter(filter);
+    }
+
+    /**
+     * Reads all notes which are matching the specified note filter. The date range and the comment
+     * substring (when possible) are filtered by the database query. The returned list is not
+     * connected to this storage, so it must not be stored.
+     *
+     * @param source name of a data file in the directory of the database
+     * @param filter the note filter criteria (entry type must be NOTE)
+     * @return list of the matching notes
+     * @throws STException thrown on read problems
+     */
+    public EntryList<Note> readNotesForFilter(String source, EntryFilter filter) throws STException {
+        NoteList noteList = new NoteList();
+        readEntries(noteList, source, "NOTE", NOTE_COLUMNS, filter, SQLiteStorage::readNote, "note list");
+        return noteList.getEntriesForFilter(filter);
+    }
+
+    /**
+     * Reads all weights which are matching the specified weight filter. The date range and the comment
+     * substring (when possible) are filtered by the database query. The returned list is not
+     * connected to this storage, so it must not be stored.
+     *
+     * @param source name of a data file in the directory of the database
+     * @param filter the weight filter criteria (entry type must be WEIGHT)
+     * @return list of the matching weights
+     * @throws STException thrown on read problems
+     */
+    public EntryList<Weight> readWeightsForFilter(String source, EntryFilter filter) throws STException {
+        WeightList weightList = new WeightList();
+        readEntries(weightList, source, "WEIGHT", WEIGHT_COLUMNS, filter, SQLiteStorage::readWeight, "weight list");
+        return weightList.getEntriesForFilter(filter);
+    }
+
+    /**
+     * Opens a connection to the database of the specified file. The schema will be created only
+     * when the database is new (schema version 0), the schema version is stored afterwards.
+     */
+    private Connection openConnection(String filename) throws SQLException, IOException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + getDatabasePath(filename));
+        try {
+            if (getSchemaVersion(connection) == 0) {
+                createSchema(connection);
+            }
+        } catch (SQLException | IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private static int getSchemaVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Creates the schema and stores its version in one transaction. The schema script can be
+     * executed on an existing schema too, e.g. when the database has been created concurrently.
+     */
+    private void createSchema(Connection connection) throws SQLException, IOException {
+        String schema = getDatabaseSchema();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(schema);
+            statement.executeUpdate("PRAGMA user_version = " + SCHEMA_VERSION);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private synchronized String getDatabaseSchema() throws IOException {
+        if (databaseSchema == null) {
+            databaseSchema = SQLiteUtils.readSqlScript(SCHEMA_FILE);
+        }
+        return databaseSchema;
+    }
+
+    /**
+     * Reads the entries of the specified table into the passed list. When a filter is passed, only
+     * the rows matching the date range, the sport type and the comment substring are read.
+     */
+    private <T extends Entry> void readEntries(EntryList<T> list, String source, String table, String[] columns,
+            EntryFilter filter, RowReader<T> rowReader, String listName) throws STException {
+
+        StringBuilder sql = new StringBuilder("SELECT ID, ").append(String.join(", ", columns))
+                .append(" FROM ").append(table);
+        List<Object> parameters = new ArrayList<>();
+        if (filter != null) {
+            appendFilterConditions(sql, parameters, filter, table.equals("EXERCISE"));
+        }
+
+        try (Connection connection = openConnection(source);
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+
+            List<T> entries = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    entries.add(rowReader.read(resultSet));
+                }
+            }
+            list.clearAndAddAll(entries);
+        } catch (Exception e) {
+            throw new STException(STExceptionID.SQLITESTORAGE_READ, "Failed to read " + listName
+                    + " from SQLite database '" + getDatabasePath(source) + "' ...", e);
+        }
+    }
+
+    /**
+     * Appends the WHERE conditions for the specified entry filter. The comment substring is only
+     * filtered in normal mode and when it contains ASCII characters only, because the LIKE operator
+     * of SQLite is case insensitive for ASCII characters only. The query result can contain more
+     * entries than matching the filter, but never less.
+     */
+    private static void appendFilterConditions(StringBuilder sql, List<Object> parameters, EntryFilter filter,
+            boolean hasSportType) {
+
+        sql.append(" WHERE DATE_TIME BETWEEN ? AND ?");
+        parameters.add(toDatabaseTime(filter.getDateStart().atStartOfDay()));
+        parameters.add(toDatabaseTime(LocalDateTime.of(filter.getDateEnd(), LocalTime.MAX)));
+
+        if (hasSportType && filter.getSportType() != null) {
+            sql.append(" AND SPORT_TYPE_ID = ?");
+            parameters.add(filter.getSportType().getId());
+        }
+
+        String commentSubString = filter.getCommentSubString() == null ? null : filter.getCommentSubString().trim();
+        if (!StringUtils.isNullOrEmpty(commentSubString) && !filter.isRegularExpressionMode()
+                && commentSubString.chars().allMatch(c -> c < 128)) {
+            sql.append(" AND COMMENT LIKE ? ESCAPE '\\'");
+            parameters.add("%" + commentSubString.replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+    }
+
+    /**
+     * Stores the specified list in one transaction. When the list has been read or stored by this
+     * storage, only the rows of the changed entries are updated, inserted or deleted. Otherwise
+     * all rows of the table are replaced.
+     */
+    private <T extends IdObject> void storeList(IdObjectList<T> list, String destination, String table,
+            String[] columns, RowBinder<T> rowBinder, String listName) throws STException {
+
+        ListChangeTracker<T> changeTracker = getChangeTracker(destination, table);
+        boolean listTracked = changeTracker != null && changeTracker.getList() == list;
+
+        try (Connection connection = openConnection(destination)) {
+            connection.setAutoCommit(false);
+            try (TableWriter<T> writer = new TableWriter<>(connection, table, columns, rowBinder)) {
+
+                if (listTracked) {
+                    ListChangeTracker.Changes<T> changes = changeTracker.getChanges();
+                    if (changes.isEmpty()) {
+                        return;
+                    }
+                    for (T entry : changes.getUpdatedEntries()) {
+                        writer.upsert(entry);
+                    }
+                    for (Integer id : changes.getRemovedIds()) {
+                        writer.delete(id);
+                    }
+                    connection.commit();
+                    changeTracker.commit(changes);
+                } else {
+                    writer.deleteAll();
+                    for (T entry : list) {
+                        writer.insert(entry);
+                    }
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new STException(STExceptionID.SQLITESTORAGE_STORE, "Failed to store " + listName
+                    + " to SQLite database '" + getDatabasePath(destination) + "' ...", e);
+        }
+
+        if (!listTracked) {
+            trackChanges(list, destination, table);
+        }
+    }
+
+    private synchronized <T extends IdObject> void trackChanges(IdObjectList<T> list, String filename, String table) {
+        changeTrackers.put(getDatabasePath(filename) + "#" + table, new ListChangeTracker<>(list));
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T extends IdObject> ListChangeTracker<T> getChangeTracker(String filename, String table) {
+        return (ListChangeTracker<T>) changeTrackers.get(getDatabasePath(filename) + "#" + table);
+    }
+
+    private static long toDatabaseTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromDatabaseTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static SportType readSportType(ResultSet resultSet, SpeedMode defaultSpeedMode) throws SQLException {
+        SportType sportType = new SportType(resultSet.getInt("ID"));
+        sportType.setName(resultSet.getString("NAME"));
+        sportType.setRecordDistance(resultSet.getInt("RECORD_DISTANCE") != 0);
+
+        String strSpeedMode = resultSet.getString("SPEED_MODE");
+        sportType.setSpeedMode(strSpeedMode == null ? defaultSpeedMode : SpeedMode.valueOf(strSpeedMode));
+
+        String strColor = resultSet.getString("COLOR");
+        if (strColor != null) {
+            sportType.setColor(Color.web(strColor));
+        }
+        sportType.setIcon(resultSet.getString("ICON"));
+        return sportType;
+    }
+
+    private static void readSportSubTypes(Connection connection, Map<Integer, SportType> sportTypesById)
+            throws SQLException {
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT SPORT_SUBTYPE_ID, SPORT_TYPE_ID, NAME FROM SPORT_SUBTYPE ORDER BY ROWID")) {
+            while (resultSet.next()) {
+                SportType sportType = sportTypesById.get(resultSet.getInt("SPORT_TYPE_ID"));
+                if (sportType != null) {
+                    SportSubType sportSubType = new SportSubType(resultSet.getInt("SPORT_SUBTYPE_ID"));
+                    sportSubType.setName(resultSet.getString("NAME"));
+                    sportType.getSportSubTypeList().set(sportSubType);
+                }
+            }
+        }
+    }
+
+    private static void readEquipments(Connection connection, Map<Integer, SportType> sportTypesById)
+            throws SQLException {
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT EQUIPMENT_ID, SPORT_TYPE_ID, NAME, NOT_IN_USE FROM EQUIPMENT ORDER BY ROWID")) {
+            while (resultSet.next()) {
+                SportType sportType = sportTypesById.get(resultSet.getInt("SPORT_TYPE_ID"));
+                if (sportType != null) {
+                    Equipment equipment = new Equipment(resultSet.getInt("EQUIPMENT_ID"));
+                    equipment.setName(resultSet.getString("NAME"));
+                    equipment.setNotInUse(resultSet.getInt("NOT_IN_USE") != 0);
+                    sportType.getEquipmentList().set(equipment);
+                }
+            }
+        }
+    }
+
+    private static Exercise readExercise(ResultSet resultSet, SportTypeList sportTypeList) throws SQLException {
+        Exercise exercise = new Exercise(resultSet.getInt("ID"));
+
+        int sportTypeID = resultSet.getInt("SPORT_TYPE_ID");
+        SportType sportType = sportTypeList.getByID(sportTypeID);
+        if (sportType == null) {
+            throw new IllegalArgumentException("Failed to read exercise with ID '" + exercise.getId() +
+                    "', the sport type ID '" + sportTypeID + "' is unknown!");
+        }
+        exercise.setSportType(sportType);
+
+        int sportSubTypeID = resultSet.getInt("SPORT_SUBTYPE_ID");
+        SportSubType sportSubType = sportType.getSportSubTypeList().getByID(sportSubTypeID);
+        if (sportSubType == null) {
+            throw new IllegalArgumentException("Failed to read exercise with ID '" + exercise.getId() +
+                    "', the sport subtype ID '" + sportSubTypeID + "' is unknown!");
+        }
+        exercise.setSportSubType(sportSubType);
+
+        exercise.setDateTime(fromDatabaseTime(resultSet.getLong("DATE_TIME")));
+        exercise.setIntensity(Exercise.IntensityType.valueOf(resultSet.getString("INTENSITY")));
+        exercise.setDuration(resultSet.getInt("DURATION"));
+        exercise.setDistance(resultSet.getFloat("DISTANCE"));
+        exercise.setAvgSpeed(resultSet.getFloat("AVG_SPEED"));
+        exercise.setAvgHeartRate(resultSet.getInt("AVG_HEARTRATE"));
+        exercise.setAscent(resultSet.getInt("ASCENT"));
+        exercise.setDescent(resultSet.getInt("DESCENT"));
+        exercise.setCalories(resultSet.getInt("CALORIES"));
+        exercise.setHrmFile(resultSet.getString("HRM_FILE"));
+        exercise.setComment(resultSet.getString("COMMENT"));
+
+        int equipmentID = resultSet.getInt("EQUIPMENT_ID");
+        if (!resultSet.wasNull()) {
+            Equipment equipment = sportType.getEquipmentList().getByID(equipmentID);
+            if (equipment == null) {
+                throw new IllegalArgumentException("Failed to read exercise with ID '" + exercise.getId() +
+                        "', the equipment ID '" + equipmentID + "' is unknown!");
+            }
+            exercise.setEquipment(equipment);
+        }
+        return exercise;
+    }
+
+    private static Note readNote(ResultSet resultSet) throws SQLException {
+        Note note = new Note(resultSet.getInt("ID"));
+        note.setDateTime(fromDatabaseTime(resultSet.getLong("DATE_TIME")));
+        note.setComment(resultSet.getString("COMMENT"));
+        return note;
+    }
+
+    private static Weight readWeight(ResultSet resultSet) throws SQLException {
+        Weight weight = new Weight(resultSet.getInt("ID"));
+        weight.setDateTime(fromDatabaseTime(resultSet.getLong("DATE_TIME")));
+        weight.setValue(resultSet.getFloat("VALUE"));
+        weight.setComment(resultSet.getString("COMMENT"));
+        return weight;
+    }
+
+    private static void bindSportType(PreparedStatement statement, SportType sportType) throws SQLException {
+        statement.setString(1, sportType.getName());
+        statement.setInt(2, sportType.isRecordDistance() ? 1 : 0);
+        statement.setString(3, String.valueOf(sportType.getSpeedMode()));
+        statement.setString(4, sportType.getColor() == null ? null : ColorUtils.toRGBCode(sportType.getColor()));
+        statement.setString(5, StringUtils.isNullOrEmpty(sportType.getIcon()) ? null : sportType.getIcon());
+    }
+
+    private static void bindExercise(PreparedStatement statement, Exercise exercise) throws SQLException {
+        statement.setLong(1, toDatabaseTime(exercise.getDateTime()));
+        statement.setInt(2, exercise.getSportType().getId());
+        statement.setInt(3, exercise.getSportSubType().getId());
+        statement.setString(4, String.valueOf(exercise.getIntensity()));
+        statement.setInt(5, exercise.getDuration());
+        statement.setFloat(6, exercise.getDistance());
+        statement.setFloat(7, exercise.getAvgSpeed());
+        statement.setInt(8, exercise.getAvgHeartRate());
+        statement.setInt(9, exercise.getAscent());
+        statement.setInt(10, exercise.getDescent());
+        statement.setInt(11, exercise.getCalories());
+        statement.setString(12, exercise.getHrmFile());
+        if (exercise.getEquipment() != null) {
+            statement.setInt(13, exercise.getEquipment().getId());
+        } else {
+            statement.setNull(13, Types.INTEGER);
+        }
+        statement.setString(14, exercise.getComment());
+    }
+
+    private static void bindNote(PreparedStatement statement, Note note) throws SQLException {
+        statement.setLong(1, toDatabaseTime(note.getDateTime()));
+        statement.setString(2, note.getComment());
+    }
+
+    private static void bindWeight(PreparedStatement statement, Weight weight) throws SQLException {
+        statement.setLong(1, toDatabaseTime(weight.getDateTime()));
+        statement.setFloat(2, weight.getValue());
+        statement.setString(3, weight.getComment());
+    }
+
+    /**
+     * Creates an entry from the current row of the result set.
+     *
+     * @param <T> the entry type
+     */
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Binds all column values of the entry (without the ID) to the statement parameters,
+     * starting with index 1 in the order of the table columns.
+     *
+     * @param <T> the entry type
+     */
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement statement, T entry) throws SQLException;
+    }
+
+    /**
+     * Writer for the rows of a table, the statements are prepared once for all entries. The sport
+     * subtypes and equipment of sport types are written to their tables together with the sport type.
+     * The version of the used SQLite library does not support UPSERT, so an update is tried first
+     * and the row will be inserted when it does not exist yet.
+     *
+     * @param <T> the entry type
+     */
+    private static final class TableWriter<T extends IdObject> implements AutoCloseable {
+
+        private final Connection connection;
+        private final String table;
+        private final RowBinder<T> rowBinder;
+        private final int idIndex;
+
+        private final PreparedStatement updateStatement;
+        private final PreparedStatement insertStatement;
+        private final PreparedStatement deleteStatement;
+
+        TableWriter(Connection connection, String table, String[] columns, RowBinder<T> rowBinder)
+                throws SQLException {
+            this.connection = connection;
+            this.table = table;
+            this.rowBinder = rowBinder;
+            this.idIndex = columns.length + 1;
+
+            // both statements are using the same parameter order, the ID is the last parameter
+            updateStatement = connection.prepareStatement("UPDATE " + table + " SET "
+                    + String.join(" = ?, ", columns) + " = ? WHERE ID = ?");
+            insertStatement = connection.prepareStatement("INSERT INTO " + table + " ("
+                    + String.join(", ", columns) + ", ID) VALUES (" + "?, ".repeat(columns.length) + "?)");
+            deleteStatement = connection.prepareStatement("DELETE FROM " + table + " WHERE ID = ?");
+        }
+
+        void upsert(T entry) throws SQLException {
+            rowBinder.bind(updateStatement, entry);
+            updateStatement.setInt(idIndex, entry.getId());
+            if (updateStatement.executeUpdate() == 0) {
+                insert(entry);
+            } else {
+                writeSportTypeChildren(entry, true);
+            }
+        }
+
+        void insert(T entry) throws SQLException {
+            rowBinder.bind(insertStatement, entry);
+            insertStatement.setInt(idIndex, entry.getId());
+            insertStatement.executeUpdate();
+            writeSportTypeChildren(entry, false);
+        }
+
+        void delete(int id) throws SQLException {
+            deleteStatement.setInt(1, id);
+            deleteStatement.executeUpdate();
+            if (table.equals("SPORT_TYPE")) {
+                deleteSportTypeChildren(id);
+            }
+        }
+
+        void deleteAll() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + table);
+                if (table.equals("SPORT_TYPE")) {
+                    statement.executeUpdate("DELETE FROM SPORT_SUBTYPE");
+                    statement.executeUpdate("DELETE FROM EQUIPMENT");
+                }
+            }
+        }
+
+        private void writeSportTypeChildren(T entry, boolean replace) throws SQLException {
+            if (!(entry instanceof SportType)) {
+                return;
+            }
+
+            SportType sportType = (SportType) entry;
+            if (replace) {
+                deleteSportTypeChildren(sportType.getId());
+            }
+
+            try (PreparedStatement subTypeStatement = connection.prepareStatement(
+                    "INSERT INTO SPORT_SUBTYPE (SPORT_SUBTYPE_ID, SPORT_TYPE_ID, NAME) VALUES (?, ?, ?)");
+                 PreparedStatement equipmentStatement = connection.prepareStatement(
+                    "INSERT INTO EQUIPMENT (EQUIPMENT_ID, SPORT_TYPE_ID, NAME, NOT_IN_USE) VALUES (?, ?, ?, ?)")) {
+
+                for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
+                    subTypeStatement.setInt(1, sportSubType.getId());
+                    subTypeStatement.setInt(2, sportType.getId());
+                    subTypeStatement.setString(3, sportSubType.getName());
+                    subTypeStatement.executeUpdate();
+                }
+
+                for (Equipment equipment : sportType.getEquipmentList()) {
+                    equipmentStatement.setInt(1, equipment.getId());
+                    equipmentStatement.setInt(2, sportType.getId());
+                    equipmentStatement.setString(3, equipment.getName());
+                    equipmentStatement.setInt(4, equipment.isNotInUse() ? 1 : 0);
+                    equipmentStatement.executeUpdate();
+                }
+            }
+        }
+
+        private void deleteSportTypeChildren(int sportTypeId) throws SQLException {
+            try (PreparedStatement subTypeStatement = connection.prepareStatement(
+                    "DELETE FROM SPORT_SUBTYPE WHERE SPORT_TYPE_ID = ?");
+                 PreparedStatement equipmentStatement = connection.prepareStatement(
+                    "DELETE FROM EQUIPMENT WHERE SPORT_TYPE_ID = ?")) {
+                subTypeStatement.setInt(1, sportTypeId);
+                subTypeStatement.executeUpdate();
+                equipmentStatement.setInt(1, sportTypeId);
+                equipmentStatement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            updateStatement.close();
+            insertStatement.close();
+            deleteStatement.close();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.saring.sportstracker.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper class for the SQLite database access of the exporter and the storage.
+ *
+ * @author Stefan Saring
+ */
+final class SQLiteUtils {
+
+    private SQLiteUtils() {
+    }
+
+    /**
+     * Reads the SQL script (e.g. a database schema) from the specified classpath resource.
+     *
+     * @param resource absolute name of the classpath resource
+     * @return the content of the SQL script
+     * @throws IOException on reading problems or when the resource does not exist
+     */
+    static String readSqlScript(String resource) throws IOException {
+
+        InputStream inputStream = SQLiteUtils.class.getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new IOException("The SQL script '" + resource + "' does not exist!");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            StringBuilder fileContent = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fileContent.append(line).append('\n');
+            }
+            return fileContent.toString();
+        }
+    }
+}
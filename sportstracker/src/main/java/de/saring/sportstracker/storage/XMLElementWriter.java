@@ -0,0 +1,73 @@
+package de.saring.sportstracker.storage;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Interface for writing the elements of a XML document in document order. It's used for creating
+ * the XML content of all lists in one place, independent of whether a JDOM document tree is
+ * created or whether the content is written by a streaming writer.
+ *
+ * @author Stefan Saring
+ */
+interface XMLElementWriter {
+
+    /**
+     * Starts a new element with the specified name as child of the current element.
+     *
+     * @param name name of the element
+     * @throws XMLStreamException on writing problems
+     */
+    void startElement(String name) throws XMLStreamException;
+
+    /**
+     * Adds an attribute to the current element, must be called before any child elements are added.
+     *
+     * @param name name of the attribute
+     * @param value value of the attribute
+     * @throws XMLStreamException on writing problems
+     */
+    void attribute(String name, String value) throws XMLStreamException;
+
+    /**
+     * Ends the current element.
+     *
+     * @throws XMLStreamException on writing problems
+     */
+    void endElement() throws XMLStreamException;
+
+    /**
+     * Adds a child element with the specified text to the current element.
+     *
+     * @param name name of the element
+     * @param text text of the element (can be null for an empty element)
+     * @throws XMLStreamException on writing problems
+     */
+    default void element(String name, String text) throws XMLStreamException {
+        startElement(name);
+        text(text);
+        endElement();
+    }
+
+    /**
+     * Sets the text of the current element.
+     *
+     * @param text text of the element (can be null for no text)
+     * @throws XMLStreamException on writing problems
+     */
+    void text(String text) throws XMLStreamException;
+
+    /**
+     * Content of a XML document, which is written by the passed XMLElementWriter.
+     */
+    @FunctionalInterface
+    interface Content {
+
+        /**
+         * Writes the complete content of the XML document, starting with the root element.
+         *
+         * @param writer the element writer
+         * @throws XMLStreamException on writing problems
+         */
+        void write(XMLElementWriter writer) throws XMLStreamException;
+    }
+}
@@ -0,0 +1,501 @@
+package de.saring.sportstracker.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom2.JDOMException;
+
+import de.saring.util.data.IdObject;
+import de.saring.util.data.IdObjectList;
+
+/**
+ * Append-only journal of the changes of an IdObjectList, which is stored in a XML snapshot file.
+ * The journal file is located next to the snapshot file and has the suffix ".journal".<br/>
+ * After the list has been attached, all changes are tracked by a ListChangeTracker. On storing,
+ * only the changed entries are appended to the journal file as update or delete records, the
+ * snapshot file is not modified. When reading, the records are replayed on top of the list read
+ * from the snapshot. The journal can be compacted by writing a new snapshot of the list, the
+ * compacted records are removed from the journal then.<br/>
+ * Each record consists of the body length, the body (record type, entry ID and for updates the
+ * XML element of the entry) and the CRC32 checksum of the body. An incomplete or corrupt record at
+ * the end of the journal (e.g. after a crash while appending) is ignored and truncated on replay.
+ * <br/>
+ * The snapshot can be written by a background thread while changes are appended to the journal,
+ * all journal state is guarded by the instance lock, the snapshot writing by a separate lock.
+ *
+ * @param <T> the entry type of the list
+ * @author Stefan Saring
+ */
+final class XMLEntryJournal<T extends IdObject> {
+
+    private static final Logger LOGGER = Logger.getLogger(XMLEntryJournal.class.getName());
+
+    /** Suffix of the journal file name. */
+    static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+    private static final byte RECORD_UPDATE = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    /** Size of the record body without the XML element: record type and entry ID. */
+    private static final int RECORD_BODY_HEADER_SIZE = 5;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final EntryFormat<T> format;
+
+    /** Lock for writing the snapshot file, it's held during the complete compaction. */
+    private final Object snapshotLock = new Object();
+
+    /** The change tracker of the list attached to this journal, null when not attached yet. */
+    private ListChangeTracker<T> changeTracker;
+
+    /** The reader for the XML elements of the entries passed on replay, null when not replayed yet. */
+    private XMLStreamListReader.EntryReader<T> entryReader;
+
+    /** Number of records and length in bytes of the journal file. */
+    private int recordCount;
+    private long journalLength;
+
+    /** This flag is true while a compaction is pending or running. */
+    private boolean compactionPending;
+
+    /**
+     * Creates the journal for the specified snapshot file.
+     *
+     * @param snapshotFile name of the XML snapshot file
+     * @param format the XML format of the list entries
+     */
+    XMLEntryJournal(String snapshotFile, EntryFormat<T> format) {
+        this.snapshotFile = Paths.get(snapshotFile).toAbsolutePath();
+        this.journalFile = this.snapshotFile.resolveSibling(this.snapshotFile.getFileName() + JOURNAL_FILE_SUFFIX);
+        this.format = format;
+    }
+
+    /**
+     * Returns the XML snapshot file of this journal.
+     *
+     * @return the snapshot file
+     */
+    Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Returns the XML format of the list entries.
+     *
+     * @return the entry format
+     */
+    EntryFormat<T> getFormat() {
+        return format;
+    }
+
+    /**
+     * Replays all records of the journal file (if there is one) on the specified list read from
+     * the snapshot file. Afterwards the journal gets attached to the list.
+     *
+     * @param list the list read from the snapshot file
+     * @param entryReader the reader for the XML elements of the entries
+     * @throws IOException on reading problems
+     * @throws XMLStreamException on parsing problems of the XML elements
+     * @throws JDOMException on parsing problems of the XML elements
+     */
+    synchronized void replay(IdObjectList<T> list, XMLStreamListReader.EntryReader<T> entryReader)
+            throws IOException, XMLStreamException, JDOMException {
+
+        this.entryReader = entryReader;
+        recordCount = 0;
+        journalLength = 0;
+
+        if (Files.exists(journalFile)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile));
+            recordCount = applyRecords(buffer, list, entryReader);
+            journalLength = buffer.position();
+
+            if (journalLength < buffer.limit()) {
+                LOGGER.warning("Ignoring the incomplete or corrupt end of the journal '" + journalFile + "' ...");
+                try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(journalLength);
+                }
+            }
+        }
+
+        attach(list);
+    }
+
+    /**
+     * Applies all valid records of the journal file (if there is one) on the specified list, e.g. on a
+     * preview of some entries of the snapshot file. In difference to replay() the journal does not get
+     * attached to the list and the journal file is not modified.
+     *
+     * @param list the list read from the snapshot file
+     * @param entryReader the reader for the XML elements of the entries
+     * @throws IOException on reading problems
+     * @throws XMLStreamException on parsing problems of the XML elements
+     * @throws JDOMException on parsing problems of the XML elements
+     */
+    synchronized void applyTo(IdObjectList<T> list, XMLStreamListReader.EntryReader<T> entryReader)
+            throws IOException, XMLStreamException, JDOMException {
+
+        if (Files.exists(journalFile)) {
+            applyRecords(ByteBuffer.wrap(Files.readAllBytes(journalFile)), list, entryReader);
+        }
+    }
+
+    /**
+     * Applies all valid records of the passed journal content on the specified list. Afterwards the
+     * buffer is positioned at the end of the last valid record.
+     *
+     * @return the number of applied records
+     */
+    private int applyRecords(ByteBuffer buffer, IdObjectList<T> list, XMLStreamListReader.EntryReader<T> entryReader)
+            throws XMLStreamException, JDOMException {
+
+        CRC32 crc32 = new CRC32();
+        int appliedRecords = 0;
+        int validLength = 0;
+
+        while (buffer.remaining() >= Integer.BYTES) {
+            int bodyLength = buffer.getInt();
+            if (bodyLength < RECORD_BODY_HEADER_SIZE || buffer.remaining() < bodyLength + Integer.BYTES) {
+                break;
+            }
+
+            int bodyStart = buffer.position();
+            crc32.reset();
+            crc32.update(buffer.array(), bodyStart, bodyLength);
+            byte recordType = buffer.get();
+            int entryId = buffer.getInt();
+            int elementLength = bodyLength - RECORD_BODY_HEADER_SIZE;
+            int elementStart = buffer.position();
+            buffer.position(bodyStart + bodyLength);
+            if ((int) crc32.getValue() != buffer.getInt()) {
+                break;
+            }
+
+            if (recordType == RECORD_UPDATE) {
+                list.set(readEntry(buffer.array(), elementStart, elementLength, entryReader));
+            } else {
+                list.removeByID(entryId);
+            }
+            appliedRecords++;
+            validLength = buffer.position();
+        }
+
+        buffer.position(validLength);
+        return appliedRecords;
+    }
+
+    /**
+     * Checks whether this journal is attached to the specified list.
+     *
+     * @param list the list to check
+     * @return true when the journal tracks this list
+     */
+    synchronized boolean isAttachedTo(IdObjectList<?> list) {
+        return changeTracker != null && changeTracker.getList() == list;
+    }
+
+    /**
+     * Detaches the journal from the list, so the list will be stored as new snapshot next time.
+     * This is needed when the stored entries can't be read anymore, e.g. because they reference
+     * objects of another list which have been deleted.
+     */
+    synchronized void detach() {
+        changeTracker = null;
+    }
+
+    /**
+     * Appends the records of all changed entries of the attached list to the journal file, it's
+     * forced to the storage device afterwards. Nothing is written when there are no changes.
+     *
+     * @return true when the journal file has been created
+     * @throws IOException on writing problems
+     * @throws XMLStreamException on creating the XML elements of the entries
+     */
+    synchronized boolean appendChanges() throws IOException, XMLStreamException {
+
+        ListChangeTracker.Changes<T> changes = changeTracker.getChanges();
+        if (changes.isEmpty()) {
+            return false;
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (T entry : changes.getUpdatedEntries()) {
+            writeRecord(records, RECORD_UPDATE, entry.getId(), writeEntry(entry));
+        }
+        for (Integer id : changes.getRemovedIds()) {
+            writeRecord(records, RECORD_DELETE, id, new byte[0]);
+        }
+
+        boolean created = !Files.exists(journalFile);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+
+            ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        changeTracker.commit(changes);
+        recordCount += changes.getUpdatedEntries().size() + changes.getRemovedIds().size();
+        journalLength += records.size();
+        return created;
+    }
+
+    /**
+     * Checks whether the journal needs to be compacted and no compaction is pending yet.
+     *
+     * @param maxRecordCount the maximum number of records in the journal
+     * @return true when the journal needs to be compacted
+     */
+    synchronized boolean needsCompaction(int maxRecordCount) {
+        return recordCount >= maxRecordCount && !compactionPending;
+    }
+
+    /**
+     * Creates the compaction of the journal, which can be executed in a background thread. The
+     * entries of the attached list are copied for the new snapshot when calling this method, so
+     * the list can be modified while the compaction is executed. Errors of the compaction will be
+     * logged only, the journal remains valid in this case.
+     *
+     * @return the compaction task
+     */
+    synchronized Runnable createCompaction() {
+        compactionPending = true;
+
+        IdObjectList<T> list = changeTracker.getList();
+        List<T> entries = new ArrayList<>(list.size());
+        list.forEach(entry -> entries.add(format.copier.apply(entry)));
+        long compactedLength = journalLength;
+        int compactedRecordCount = recordCount;
+
+        return () -> {
+            synchronized (snapshotLock) {
+                try {
+                    writeSnapshot(entries);
+                    synchronized (this) {
+                        removeJournalStart(compactedLength);
+                        recordCount -= compactedRecordCount;
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to compact the journal '" + journalFile + "' ...", e);
+                } finally {
+                    synchronized (this) {
+                        compactionPending = false;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes a new snapshot of the specified list and deletes the journal file. Afterwards the journal
+     * is attached to this list. This is needed when the journal was not attached to the list yet,
+     * e.g. when the list has not been read by the storage.
+     *
+     * @param list the list to store
+     * @throws IOException on writing problems
+     */
+    void storeSnapshot(IdObjectList<T> list) throws IOException {
+        synchronized (snapshotLock) {
+            writeSnapshot(list);
+            synchronized (this) {
+                deleteJournal();
+                attach(list);
+            }
+        }
+    }
+
+    /**
+     * Compacts the journal synchronously by writing a new snapshot with all stored entries, afterwards
+     * the journal file is deleted. When the attached list contains unstored changes, the stored entries
+     * are read from the snapshot and the journal file, so the unstored changes are not written. Nothing
+     * is done when the journal file does not exist or when the journal is not attached (or not replayed
+     * when needed), the journal file will be replayed on the next reading then. No compaction created
+     * by createCompaction() may be pending when calling this method.
+     *
+     * @throws IOException on reading or writing problems
+     * @throws XMLStreamException on parsing problems of the XML elements
+     * @throws JDOMException on parsing problems of the XML elements
+     */
+    void compact() throws IOException, XMLStreamException, JDOMException {
+        synchronized (snapshotLock) {
+            synchronized (this) {
+                if (changeTracker == null || !Files.exists(journalFile)) {
+                    return;
+                }
+
+                IdObjectList<T> list = changeTracker.getList();
+                if (!changeTracker.getChanges().isEmpty()) {
+                    if (entryReader == null) {
+                        LOGGER.warning("Can't compact the journal '" + journalFile + "', it was not replayed ...");
+                        return;
+                    }
+                    list = new IdObjectList<>();
+                    list.clearAndAddAll(XMLStreamListReader.readEntries(
+                            snapshotFile.toFile(), format.entryElementName, entryReader));
+                    applyRecords(ByteBuffer.wrap(Files.readAllBytes(journalFile)), list, entryReader);
+                }
+
+                writeSnapshot(list);
+                deleteJournal();
+            }
+        }
+    }
+
+    private void deleteJournal() throws IOException {
+        // the deletion must be durable, otherwise outdated records would be replayed on the new snapshot
+        if (Files.deleteIfExists(journalFile)) {
+            XMLUtils.syncDirectory(journalFile.getParent());
+        }
+        recordCount = 0;
+        journalLength = 0;
+    }
+
+    private void attach(IdObjectList<T> list) {
+        // the listener of a previously attached list can't be removed, but it's not used anymore
+        changeTracker = new ListChangeTracker<>(list);
+    }
+
+    /**
+     * Writes the snapshot file atomically with all specified entries, the directory is synced
+     * afterwards, so the journal can be modified safely.
+     */
+    private void writeSnapshot(Iterable<T> entries) throws IOException {
+        XMLUtils.writeXMLFileStreaming(writer -> {
+            writer.startElement(format.listElementName);
+            for (T entry : entries) {
+                format.entryWriter.write(entry, writer);
+            }
+            writer.endElement();
+        }, snapshotFile.toString());
+        XMLUtils.syncDirectory(snapshotFile.getParent());
+    }
+
+    /**
+     * Removes the specified number of bytes with the compacted records from the start of the journal.
+     * The remaining records are written to a new journal file, which replaces the current one atomically.
+     */
+    private void removeJournalStart(long length) throws IOException {
+        if (length >= journalLength) {
+            Files.deleteIfExists(journalFile);
+        } else {
+            byte[] journalRecords = Files.readAllBytes(journalFile);
+            byte[] remainingRecords = Arrays.copyOfRange(journalRecords, (int) length, (int) journalLength);
+            XMLUtils.writeFileAtomically(journalFile.toString(), outputStream -> outputStream.write(remainingRecords));
+        }
+        journalLength -= length;
+    }
+
+    private byte[] writeEntry(T entry) throws XMLStreamException {
+        StringWriter stringWriter = new StringWriter();
+        XMLStreamWriter xmlWriter = XMLUtils.createXMLStreamWriter(stringWriter);
+        try {
+            format.entryWriter.write(entry, new XMLStreamElementWriter(xmlWriter, ""));
+            xmlWriter.flush();
+        } finally {
+            xmlWriter.close();
+        }
+        return stringWriter.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static <T> T readEntry(byte[] data, int offset, int length,
+            XMLStreamListReader.EntryReader<T> entryReader) throws XMLStreamException, JDOMException {
+
+        XMLStreamReader reader = XMLUtils.createXMLStreamReader(new ByteArrayInputStream(data, offset, length));
+        try {
+            reader.nextTag();
+            return entryReader.read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream records, byte recordType, int entryId, byte[] element)
+            throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(RECORD_BODY_HEADER_SIZE + element.length);
+        DataOutputStream bodyOutput = new DataOutputStream(body);
+        bodyOutput.writeByte(recordType);
+        bodyOutput.writeInt(entryId);
+        bodyOutput.write(element);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(body.toByteArray());
+
+        DataOutputStream recordOutput = new DataOutputStream(records);
+        recordOutput.writeInt(body.size());
+        body.writeTo(recordOutput);
+        recordOutput.writeInt((int) crc32.getValue());
+    }
+
+    /**
+     * XML format of the entries of a list.
+     *
+     * @param <T> the entry type of the list
+     */
+    static final class EntryFormat<T extends IdObject> {
+
+        private final String listElementName;
+        private final String entryElementName;
+        private final EntryWriter<T> entryWriter;
+        private final UnaryOperator<T> copier;
+
+        /**
+         * Creates the entry format.
+         *
+         * @param listElementName name of the root element of the snapshot file
+         * @param entryElementName name of the entry elements in the snapshot file
+         * @param entryWriter the writer for the XML element of an entry
+         * @param copier creates a copy of an entry with the same ID
+         */
+        EntryFormat(String listElementName, String entryElementName, EntryWriter<T> entryWriter,
+                UnaryOperator<T> copier) {
+            this.listElementName = listElementName;
+            this.entryElementName = entryElementName;
+            this.entryWriter = entryWriter;
+            this.copier = copier;
+        }
+    }
+
+    /**
+     * Writer for the XML element of a single entry.
+     *
+     * @param <T> the entry type
+     */
+    @FunctionalInterface
+    interface EntryWriter<T> {
+
+        /**
+         * Writes the XML element of the specified entry.
+         *
+         * @param entry the entry to write
+         * @param writer the element writer
+         * @throws XMLStreamException on writing problems
+         */
+        void write(T entry, XMLElementWriter writer) throws XMLStreamException;
+    }
+}
@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLStreamException;
 
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -58,7 +61,7 @@ public class XMLExerciseList {
             ArrayList<Exercise> tempExercises = new ArrayList<>();
 
             eExerciseList.getChildren("exercise").forEach(eExercise ->
-                tempExercises.add(readExercise(eExercise, sportTypeList)));
+                tempExercises.add(readExercise(eExercise::getChildText, sportTypeList)));
 
             ExerciseList exerciseList = new ExerciseList();
             exerciseList.clearAndAddAll(tempExercises);
@@ -70,20 +73,21 @@ public class XMLExerciseList {
     }
 
     /**
-     * Reads the data from the specified sport-type element and returns the created
-     * Exercise object.
+     * Reads the data from the child elements of an exercise element and returns the created
+     * Exercise object. It's used for both the JDOM and the StAX based XML reading.
      *
-     * @param eExercise exercise JDOM element
+     * @param eExercise function which returns the text of the specified child element of the
+     * exercise element (or null when the child element does not exist)
      * @param sportTypeList the sport type list for assigning sport types to exercises.
      * @return the created Exercise object
      */
-    private Exercise readExercise(Element eExercise, SportTypeList sportTypeList) {
+    static Exercise readExercise(Function<String, String> eExercise, SportTypeList sportTypeList) {
 
         Exercise exercise = new Exercise(
-                Integer.parseInt(eExercise.getChildText("id")));
+                Integer.parseInt(eExercise.apply("id")));
 
         // get sport type by parsed ID
-        int sportTypeID = Integer.parseInt(eExercise.getChildText("sport-type-id"));
+        int sportTypeID = Integer.parseInt(eExercise.apply("sport-type-id"));
         SportType sportType = sportTypeList.getByID(sportTypeID);
         if (sportType == null) {
             throw new IllegalArgumentException("Failed to parse exercise with ID '" + exercise.getId() +
@@ -92,7 +96,7 @@ public class XMLExerciseList {
         exercise.setSportType(sportType);
 
         // get sport subtype by parsed ID
-        int sportSubTypeID = Integer.parseInt(eExercise.getChildText("sport-subtype-id"));
+        int sportSubTypeID = Integer.parseInt(eExercise.apply("sport-subtype-id"));
         SportSubType sportSubType = sportType.getSportSubTypeList().getByID(sportSubTypeID);
         if (sportSubType == null) {
             throw new IllegalArgumentException("Failed to parse exercise with ID '" + exercise.getId() +
@@ -101,7 +105,7 @@ public class XMLExerciseList {
         exercise.setSportSubType(sportSubType);
 
         // get and convert date (format allready checked by XSD schema)
-        String strDate = eExercise.getChildText("date");
+        String strDate = eExercise.apply("date");
         try {
             exercise.setDateTime(LocalDateTime.parse(strDate, XMLUtils.DATE_TIME_FORMAT));
         } catch (Exception e) {
@@ -109,12 +113,12 @@ public class XMLExerciseList {
                     "', the date format '" + strDate + "' is not valid!");
         }
 
-        exercise.setDuration(Integer.parseInt(eExercise.getChildText("duration")));
-        exercise.setDistance(Float.parseFloat(eExercise.getChildText("distance")));
-        exercise.setAvgSpeed(Float.parseFloat(eExercise.getChildText("avg-speed")));
+        exercise.setDuration(Integer.parseInt(eExercise.apply("duration")));
+        exercise.setDistance(Float.parseFloat(eExercise.apply("distance")));
+        exercise.setAvgSpeed(Float.parseFloat(eExercise.apply("avg-speed")));
 
         // get and parse intensity type
-        String strIntensity = eExercise.getChildText("intensity");
+        String strIntensity = eExercise.apply("intensity");
         try {
             exercise.setIntensity(Exercise.IntensityType.valueOf(strIntensity));
         } catch (Exception e) {
@@ -123,31 +127,31 @@ public class XMLExerciseList {
         }
 
         // get all the optional exercise data
-        String strAvgHeartRate = eExercise.getChildText("avg-heartrate");
+        String strAvgHeartRate = eExercise.apply("avg-heartrate");
         if (strAvgHeartRate != null) {
             exercise.setAvgHeartRate(Integer.parseInt(strAvgHeartRate));
         }
 
-        String strAscent = eExercise.getChildText("ascent");
+        String strAscent = eExercise.apply("ascent");
         if (strAscent != null) {
             exercise.setAscent(Integer.parseInt(strAscent));
         }
 
-        String strDescent = eExercise.getChildText("descent");
+        String strDescent = eExercise.apply("descent");
         if (strDescent != null) {
             exercise.setDescent(Integer.parseInt(strDescent));
         }
 
-        String strCalories = eExercise.getChildText("calories");
+        String strCalories = eExercise.apply("calories");
         if (strCalories != null) {
             exercise.setCalories(Integer.parseInt(strCalories));
         }
 
-        exercise.setHrmFile(eExercise.getChildText("hrm-file"));
-        exercise.setComment(eExercise.getChildText("comment"));
+        exercise.setHrmFile(eExercise.apply("hrm-file"));
+        exercise.setComment(eExercise.apply("comment"));
 
         // get equipment by parsed ID (optional)
-        String strEquipmentID = eExercise.getChildText("equipment-id");
+        String strEquipmentID = eExercise.apply("equipment-id");
         if (strEquipmentID != null) {
             int equipmentID = Integer.parseInt(strEquipmentID);
             Equipment equipment = sportType.getEquipmentList().getByID(equipmentID);
@@ -170,64 +174,79 @@ public class XMLExerciseList {
      */
     public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
 
-        // create JDOM element with all exercises
-        Element eExerciseList = createExerciseListElement(exerciseList);
-
-        // write the element to XML file
         try {
-            XMLUtils.writeXMLFile(eExerciseList, destination);
-        } catch (IOException e) {
+            // create JDOM element with all exercises and write it to XML file
+            JDOMElementWriter elementWriter = new JDOMElementWriter();
+            writeExerciseList(exerciseList, elementWriter);
+            XMLUtils.writeXMLFile(elementWriter.getRootElement(), destination);
+        } catch (IOException | XMLStreamException e) {
             throw new STException(STExceptionID.XMLSTORAGE_STORE_EXERCISE_LIST,
                     "Failed to write exercise list to XML file '" + destination + "' ...", e);
         }
     }
 
     /**
-     * Creates the "exercise-list" element with all exercises for the specified
-     * exercise list.
+     * Writes the "exercise-list" element with all exercises for the specified
+     * exercise list. It's used for both the JDOM and the streaming XML writing.
+     *
+     * @param exerciseList the exercise list to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
      */
-    private Element createExerciseListElement(ExerciseList exerciseList) {
-        Element eExerciseList = new Element("exercise-list");
+    static void writeExerciseList(ExerciseList exerciseList, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("exercise-list");
 
         // append an exercise element for each exercise
-        exerciseList.forEach(exercise -> {
-            Element eExercise = new Element("exercise");
-            eExerciseList.addContent(eExercise);
-
-            // create required exercise elements
-            XMLUtils.addElement(eExercise, "id", String.valueOf(exercise.getId()));
-            XMLUtils.addElement(eExercise, "sport-type-id", String.valueOf(exercise.getSportType().getId()));
-            XMLUtils.addElement(eExercise, "sport-subtype-id", String.valueOf(exercise.getSportSubType().getId()));
-            XMLUtils.addElement(eExercise, "date", exercise.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
-            XMLUtils.addElement(eExercise, "duration", String.valueOf(exercise.getDuration()));
-            XMLUtils.addElement(eExercise, "intensity", String.valueOf(exercise.getIntensity()));
-            XMLUtils.addElement(eExercise, "distance", String.valueOf(exercise.getDistance()));
-            XMLUtils.addElement(eExercise, "avg-speed", String.valueOf(exercise.getAvgSpeed()));
-
-            // create optional exercise elements
-            if (exercise.getAvgHeartRate() != 0) {
-                XMLUtils.addElement(eExercise, "avg-heartrate", String.valueOf(exercise.getAvgHeartRate()));
-            }
-            if (exercise.getAscent() != 0) {
-                XMLUtils.addElement(eExercise, "ascent", String.valueOf(exercise.getAscent()));
-            }
-            if (exercise.getDescent() != 0) {
-                XMLUtils.addElement(eExercise, "descent", String.valueOf(exercise.getDescent()));
-            }
-            if (exercise.getCalories() != 0) {
-                XMLUtils.addElement(eExercise, "calories", String.valueOf(exercise.getCalories()));
-            }
-            if (exercise.getHrmFile() != null) {
-                XMLUtils.addElement(eExercise, "hrm-file", exercise.getHrmFile());
-            }
-            if (exercise.getEquipment() != null) {
-                XMLUtils.addElement(eExercise, "equipment-id", String.valueOf(exercise.getEquipment().getId()));
-            }
-            if (exercise.getComment() != null) {
-                XMLUtils.addElement(eExercise, "comment", exercise.getComment());
-            }
-        });
+        for (Exercise exercise : exerciseList) {
+            writeExercise(exercise, writer);
+        }
+
+        writer.endElement();
+    }
+
+    /**
+     * Writes the "exercise" element for the specified exercise.
+     *
+     * @param exercise the exercise to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
+     */
+    static void writeExercise(Exercise exercise, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("exercise");
+
+        // create required exercise elements
+        writer.element("id", String.valueOf(exercise.getId()));
+        writer.element("sport-type-id", String.valueOf(exercise.getSportType().getId()));
+        writer.element("sport-subtype-id", String.valueOf(exercise.getSportSubType().getId()));
+        writer.element("date", exercise.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
+        writer.element("duration", String.valueOf(exercise.getDuration()));
+        writer.element("intensity", String.valueOf(exercise.getIntensity()));
+        writer.element("distance", String.valueOf(exercise.getDistance()));
+        writer.element("avg-speed", String.valueOf(exercise.getAvgSpeed()));
+
+        // create optional exercise elements
+        if (exercise.getAvgHeartRate() != 0) {
+            writer.element("avg-heartrate", String.valueOf(exercise.getAvgHeartRate()));
+        }
+        if (exercise.getAscent() != 0) {
+            writer.element("ascent", String.valueOf(exercise.getAscent()));
+        }
+        if (exercise.getDescent() != 0) {
+            writer.element("descent", String.valueOf(exercise.getDescent()));
+        }
+        if (exercise.getCalories() != 0) {
+            writer.element("calories", String.valueOf(exercise.getCalories()));
+        }
+        if (exercise.getHrmFile() != null) {
+            writer.element("hrm-file", exercise.getHrmFile());
+        }
+        if (exercise.getEquipment() != null) {
+            writer.element("equipment-id", String.valueOf(exercise.getEquipment().getId()));
+        }
+        if (exercise.getComment() != null) {
+            writer.element("comment", exercise.getComment());
+        }
 
-        return eExerciseList;
+        writer.endElement();
     }
 }
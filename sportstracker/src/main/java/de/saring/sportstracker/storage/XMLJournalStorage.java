@@ -0,0 +1,317 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.util.data.IdObject;
+import de.saring.util.data.IdObjectList;
+import de.saring.util.unitcalc.SpeedMode;
+import org.jdom2.Element;
+import org.jdom2.input.StAXStreamBuilder;
+
+import javax.inject.Singleton;
+import javax.xml.stream.XMLStreamException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is for reading / storing of the application data from / to
+ * different XML files. In difference to XMLStreamStorage the XML files are
+ * used as snapshots, all changes of the lists read by this storage are
+ * appended to a journal file next to each XML file (see XMLEntryJournal).
+ * So storing a list costs only the size of its changes, not the size of
+ * the complete list. On reading, the journal is replayed on top of the
+ * XML snapshot. The previews of a date range (readXxxListInDateRange()) apply
+ * the journal too, but they are not attached to the journal.<br/>
+ * When the journal of a list contains too many records, it's compacted into
+ * a new XML snapshot in a background thread. Lists which have not been read
+ * by this storage are always stored as new snapshot.<br/>
+ * On closing the storage (application exit) all journals are compacted
+ * synchronously, so the XML files contain all stored data and remain the
+ * source of truth whenever the application is not running.
+ *
+ * @author Stefan Saring
+ */
+@Singleton
+public class XMLJournalStorage extends XMLStreamStorage {
+
+    /** Default number of journal records which trigger the compaction into a new snapshot. */
+    private static final int DEFAULT_COMPACTION_RECORD_COUNT = 500;
+
+    /** Maximum time in seconds to wait for running background compactions when closing the storage. */
+    private static final int CLOSE_TIMEOUT_SECONDS = 60;
+
+    private static final XMLEntryJournal.EntryFormat<SportType> SPORT_TYPE_FORMAT =
+            new XMLEntryJournal.EntryFormat<>("sport-type-list", "sport-type", XMLSportTypeList::writeSportType,
+                    SportType::clone);
+    private static final XMLEntryJournal.EntryFormat<Exercise> EXERCISE_FORMAT =
+            new XMLEntryJournal.EntryFormat<>("exercise-list", "exercise", XMLExerciseList::writeExercise,
+                    exercise -> exercise.clone(exercise.getId()));
+    private static final XMLEntryJournal.EntryFormat<Note> NOTE_FORMAT =
+            new XMLEntryJournal.EntryFormat<>("note-list", "note", XMLNoteList::writeNote,
+                    note -> note.clone(note.getId()));
+    private static final XMLEntryJournal.EntryFormat<Weight> WEIGHT_FORMAT =
+            new XMLEntryJournal.EntryFormat<>("weight-list", "weight", XMLWeightList::writeWeight,
+                    weight -> weight.clone(weight.getId()));
+
+    private final int compactionRecordCount;
+    private final Executor compactionExecutor;
+
+    /** The journals of all read or stored XML files, the key is the absolute file name. */
+    private final Map<String, XMLEntryJournal<?>> journals = new HashMap<>();
+
+    /**
+     * Standard c'tor.
+     */
+    public XMLJournalStorage() {
+        this(DEFAULT_COMPACTION_RECORD_COUNT, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "XMLJournalStorage-Compaction");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * C'tor for custom compaction settings (e.g. for unit tests).
+     *
+     * @param compactionRecordCount number of journal records which trigger the compaction
+     * @param compactionExecutor executor for the compactions, an ExecutorService will be shut down on closing
+     */
+    XMLJournalStorage(int compactionRecordCount, Executor compactionExecutor) {
+        this.compactionRecordCount = compactionRecordCount;
+        this.compactionExecutor = compactionExecutor;
+    }
+
+    /**
+     * Closes the storage: waits for the completion of the background compactions and compacts
+     * all journals synchronously afterwards.
+     *
+     * @throws STException thrown on compaction problems
+     */
+    @Override
+    public void close() throws STException {
+        if (compactionExecutor instanceof ExecutorService) {
+            ExecutorService executorService = (ExecutorService) compactionExecutor;
+            executorService.shutdown();
+            try {
+                if (!executorService.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    throw new STException(STExceptionID.XMLSTORAGE_COMPACT_JOURNAL,
+                            "Timeout while waiting for the background compactions of the journals ...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new STException(STExceptionID.XMLSTORAGE_COMPACT_JOURNAL,
+                        "Interrupted while waiting for the background compactions of the journals ...", e);
+            }
+        }
+
+        List<XMLEntryJournal<?>> journalsToCompact;
+        synchronized (this) {
+            journalsToCompact = new ArrayList<>(journals.values());
+        }
+        for (XMLEntryJournal<?> journal : journalsToCompact) {
+            try {
+                journal.compact();
+            } catch (Exception e) {
+                throw new STException(STExceptionID.XMLSTORAGE_COMPACT_JOURNAL,
+                        "Failed to compact the journal of XML file '" + journal.getSnapshotFile() + "' ...", e);
+            }
+        }
+    }
+
+    @Override
+    public SportTypeList readSportTypeList(String source, SpeedMode defaultSpeedMode) throws STException {
+        SportTypeList sportTypeList = super.readSportTypeList(source, defaultSpeedMode);
+
+        StAXStreamBuilder builder = new StAXStreamBuilder();
+        replayJournal(sportTypeList, source, SPORT_TYPE_FORMAT, reader ->
+                XMLSportTypeList.readSportType((Element) builder.fragment(reader), defaultSpeedMode),
+                STExceptionID.XMLSTORAGE_READ_SPORT_TYPE_LIST, "sport type list");
+        return sportTypeList;
+    }
+
+    /**
+     * Stores the sport type list. Afterwards all exercise lists will be stored as new snapshots, because
+     * their snapshots and journals can reference sport type objects which have been deleted (e.g. the
+     * equipments). So the sport type list must always be stored before the exercise list.
+     */
+    @Override
+    public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
+        storeWithJournal(sportTypeList, destination, SPORT_TYPE_FORMAT,
+                STExceptionID.XMLSTORAGE_STORE_SPORT_TYPE_LIST, "sport type list");
+
+        synchronized (this) {
+            journals.values().stream()
+                    .filter(journal -> journal.getFormat() == EXERCISE_FORMAT)
+                    .forEach(XMLEntryJournal::detach);
+        }
+    }
+
+    @Override
+    public ExerciseList readExerciseList(String source, SportTypeList sportTypeList) throws STException {
+        ExerciseList exerciseList = super.readExerciseList(source, sportTypeList);
+
+        Map<String, String> childTexts = new HashMap<>();
+        replayJournal(exerciseList, source, EXERCISE_FORMAT, reader -> XMLExerciseList.readExercise(
+                XMLStreamListReader.readChildTexts(reader, childTexts)::get, sportTypeList),
+                STExceptionID.XMLSTORAGE_READ_EXERCISE_LIST, "exercise list");
+        return exerciseList;
+    }
+
+    @Override
+    public ExerciseList readExerciseListInDateRange(String source, SportTypeList sportTypeList,
+            LocalDate dateStart, LocalDate dateEnd) throws STException {
+        ExerciseList exerciseList = super.readExerciseListInDateRange(source, sportTypeList, dateStart, dateEnd);
+
+        Map<String, String> childTexts = new HashMap<>();
+        applyJournal(exerciseList, source, EXERCISE_FORMAT, reader -> XMLExerciseList.readExercise(
+                XMLStreamListReader.readChildTexts(reader, childTexts)::get, sportTypeList),
+                STExceptionID.XMLSTORAGE_READ_EXERCISE_LIST, "exercise list");
+        // the journal can contain entries which are outside of the date range
+        exerciseList.clearAndAddAll(exerciseList.getEntriesInDateRange(dateStart, dateEnd));
+        return exerciseList;
+    }
+
+    @Override
+    public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
+        storeWithJournal(exerciseList, destination, EXERCISE_FORMAT,
+                STExceptionID.XMLSTORAGE_STORE_EXERCISE_LIST, "exercise list");
+    }
+
+    @Override
+    public NoteList readNoteList(String source) throws STException {
+        NoteList noteList = super.readNoteList(source);
+
+        Map<String, String> childTexts = new HashMap<>();
+        replayJournal(noteList, source, NOTE_FORMAT, reader ->
+                XMLNoteList.readNote(XMLStreamListReader.readChildTexts(reader, childTexts)::get),
+                STExceptionID.XMLSTORAGE_READ_NOTE_LIST, "note list");
+        return noteList;
+    }
+
+    @Override
+    public NoteList readNoteListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        NoteList noteList = super.readNoteListInDateRange(source, dateStart, dateEnd);
+
+        Map<String, String> childTexts = new HashMap<>();
+        applyJournal(noteList, source, NOTE_FORMAT, reader ->
+                XMLNoteList.readNote(XMLStreamListReader.readChildTexts(reader, childTexts)::get),
+                STExceptionID.XMLSTORAGE_READ_NOTE_LIST, "note list");
+        noteList.clearAndAddAll(noteList.getEntriesInDateRange(dateStart, dateEnd));
+        return noteList;
+    }
+
+    @Override
+    public void storeNoteList(NoteList noteList, String destination) throws STException {
+        storeWithJournal(noteList, destination, NOTE_FORMAT,
+                STExceptionID.XMLSTORAGE_STORE_NOTE_LIST, "note list");
+    }
+
+    @Override
+    public WeightList readWeightList(String source) throws STException {
+        WeightList weightList = super.readWeightList(source);
+
+        Map<String, String> childTexts = new HashMap<>();
+        replayJournal(weightList, source, WEIGHT_FORMAT, reader ->
+                XMLWeightList.readWeight(XMLStreamListReader.readChildTexts(reader, childTexts)::get),
+                STExceptionID.XMLSTORAGE_READ_WEIGHT_LIST, "weight list");
+        return weightList;
+    }
+
+    @Override
+    public WeightList readWeightListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        WeightList weightList = super.readWeightListInDateRange(source, dateStart, dateEnd);
+
+        Map<String, String> childTexts = new HashMap<>();
+        applyJournal(weightList, source, WEIGHT_FORMAT, reader ->
+                XMLWeightList.readWeight(XMLStreamListReader.readChildTexts(reader, childTexts)::get),
+                STExceptionID.XMLSTORAGE_READ_WEIGHT_LIST, "weight list");
+        weightList.clearAndAddAll(weightList.getEntriesInDateRange(dateStart, dateEnd));
+        return weightList;
+    }
+
+    @Override
+    public void storeWeightList(WeightList weightList, String destination) throws STException {
+        storeWithJournal(weightList, destination, WEIGHT_FORMAT,
+                STExceptionID.XMLSTORAGE_STORE_WEIGHT_LIST, "weight list");
+    }
+
+    private <T extends IdObject> void replayJournal(IdObjectList<T> list, String source,
+            XMLEntryJournal.EntryFormat<T> format, XMLStreamListReader.EntryReader<T> entryReader,
+            STExceptionID exceptionId, String listName) throws STException {
+
+        try {
+            getJournal(source, format).replay(list, entryReader);
+        } catch (Exception e) {
+            throw new STException(exceptionId, "Failed to replay the journal of the " + listName
+                    + " from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Applies the journal on the specified preview list, the journal does not get attached to it.
+     */
+    private <T extends IdObject> void applyJournal(IdObjectList<T> list, String source,
+            XMLEntryJournal.EntryFormat<T> format, XMLStreamListReader.EntryReader<T> entryReader,
+            STExceptionID exceptionId, String listName) throws STException {
+
+        try {
+            getJournal(source, format).applyTo(list, entryReader);
+        } catch (Exception e) {
+            throw new STException(exceptionId, "Failed to apply the journal of the " + listName
+                    + " from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Stores the specified list by appending its changes to the journal. The list is stored as a new
+     * snapshot when it has not been read by this storage. The compaction of the journal will be
+     * started in the background when it contains too many records.
+     */
+    private <T extends IdObject> void storeWithJournal(IdObjectList<T> list, String destination,
+            XMLEntryJournal.EntryFormat<T> format, STExceptionID exceptionId, String listName) throws STException {
+
+        XMLEntryJournal<T> journal = getJournal(destination, format);
+        try {
+            if (journal.isAttachedTo(list)) {
+                if (journal.appendChanges()) {
+                    // the new journal file must be durable
+                    syncDestinationDirectory(destination);
+                }
+                if (journal.needsCompaction(compactionRecordCount)) {
+                    compactionExecutor.execute(journal.createCompaction());
+                }
+            } else {
+                journal.storeSnapshot(list);
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new STException(exceptionId, "Failed to write " + listName
+                    + " to XML file '" + destination + "' ...", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T extends IdObject> XMLEntryJournal<T> getJournal(String filename, XMLEntryJournal.EntryFormat<T> format) {
+        return (XMLEntryJournal<T>) journals.computeIfAbsent(Paths.get(filename).toAbsolutePath().toString(),
+                key -> new XMLEntryJournal<>(key, format));
+    }
+}
@@ -4,6 +4,9 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLStreamException;
 
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -50,7 +53,7 @@ public class XMLNoteList {
             // get root element and read all the contained notes
             Element eNoteList = document.getRootElement();
             eNoteList.getChildren("note").forEach(eNote ->
-                    tempNotes.add(readNote(eNote)));
+                    tempNotes.add(readNote(eNote::getChildText)));
 
             NoteList noteList = new NoteList();
             noteList.clearAndAddAll(tempNotes);
@@ -62,18 +65,19 @@ public class XMLNoteList {
     }
 
     /**
-     * Reads the data from the specified note element and returns the created
-     * Note object.
+     * Reads the data from the child elements of a note element and returns the created
+     * Note object. It's used for both the JDOM and the StAX based XML reading.
      *
-     * @param eNote note JDOM element
+     * @param eNote function which returns the text of the specified child element of the
+     * note element (or null when the child element does not exist)
      * @return the created Note object
      */
-    private Note readNote(Element eNote) {
-        Note note = new Note(Integer.parseInt(eNote.getChildText("id")));
-        note.setComment(eNote.getChildText("text"));
+    static Note readNote(Function<String, String> eNote) {
+        Note note = new Note(Integer.parseInt(eNote.apply("id")));
+        note.setComment(eNote.apply("text"));
 
         // get and convert date (format already checked by XSD schema)
-        String strDate = eNote.getChildText("date");
+        String strDate = eNote.apply("date");
         try {
             note.setDateTime(LocalDateTime.parse(strDate, XMLUtils.DATE_TIME_FORMAT));
         } catch (Exception e) {
@@ -92,36 +96,47 @@ public class XMLNoteList {
      */
     public void storeNoteList(NoteList noteList, String destination) throws STException {
 
-        // create JDOM element with all notes
-        Element eNoteList = createNoteListElement(noteList);
-
-        // write the element to XML file
         try {
-            XMLUtils.writeXMLFile(eNoteList, destination);
-        } catch (IOException e) {
+            // create JDOM element with all notes and write it to XML file
+            JDOMElementWriter elementWriter = new JDOMElementWriter();
+            writeNoteList(noteList, elementWriter);
+            XMLUtils.writeXMLFile(elementWriter.getRootElement(), destination);
+        } catch (IOException | XMLStreamException e) {
             throw new STException(STExceptionID.XMLSTORAGE_STORE_NOTE_LIST,
                     "Failed to write note list to XML file '" + destination + "' ...", e);
         }
     }
 
     /**
-     * Creates the "note-list" element with all notes for the specified
-     * note list.
+     * Writes the "note-list" element with all notes for the specified note list.
+     * It's used for both the JDOM and the streaming XML writing.
      *
-     * @param noteList the NoteList to store
-     * @return the created Element
+     * @param noteList the NoteList to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
+     */
+    static void writeNoteList(NoteList noteList, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("note-list");
+
+        for (Note note : noteList) {
+            writeNote(note, writer);
+        }
+
+        writer.endElement();
+    }
+
+    /**
+     * Writes the "note" element for the specified note.
+     *
+     * @param note the Note to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
      */
-    private Element createNoteListElement(NoteList noteList) {
-        Element eNoteList = new Element("note-list");
-
-        noteList.forEach(note -> {
-            Element eNote = new Element("note");
-            eNoteList.addContent(eNote);
-
-            XMLUtils.addElement(eNote, "id", String.valueOf(note.getId()));
-            XMLUtils.addElement(eNote, "date", note.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
-            XMLUtils.addElement(eNote, "text", note.getComment());
-        });
-        return eNoteList;
+    static void writeNote(Note note, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("note");
+        writer.element("id", String.valueOf(note.getId()));
+        writer.element("date", note.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
+        writer.element("text", note.getComment());
+        writer.endElement();
     }
-}
\ No newline at end of file
+}
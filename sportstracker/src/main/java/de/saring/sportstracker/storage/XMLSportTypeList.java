@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
+import javax.xml.stream.XMLStreamException;
+
 import de.saring.util.unitcalc.SpeedMode;
 import javafx.scene.paint.Color;
 
@@ -72,13 +74,13 @@ public class XMLSportTypeList {
 
     /**
      * Reads the data from the specified sport-type element and returns the created
-     * SportType object.
+     * SportType object. It's used for both the JDOM and the StAX based XML reading.
      *
      * @param eSportType sport-type JDOM element
      * @param defaultSpeedMode default speed mode to be set when not specified in the XML file
      * @return the created SportType object
      */
-    private SportType readSportType(Element eSportType, SpeedMode defaultSpeedMode) {
+    static SportType readSportType(Element eSportType, SpeedMode defaultSpeedMode) {
 
         SportType sportType = new SportType(Integer.parseInt(eSportType.getChildText("id")));
         sportType.setSpeedMode(defaultSpeedMode);
@@ -149,69 +151,81 @@ public class XMLSportTypeList {
      */
     public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
 
-        // create JDOM element with all sport types
-        Element eSportTypeList = createSportTypeListElement(sportTypeList);
-
-        // write the element to XML file
         try {
-            XMLUtils.writeXMLFile(eSportTypeList, destination);
-        } catch (IOException e) {
+            // create JDOM element with all sport types and write it to XML file
+            JDOMElementWriter elementWriter = new JDOMElementWriter();
+            writeSportTypeList(sportTypeList, elementWriter);
+            XMLUtils.writeXMLFile(elementWriter.getRootElement(), destination);
+        } catch (IOException | XMLStreamException e) {
             throw new STException(STExceptionID.XMLSTORAGE_STORE_SPORT_TYPE_LIST,
                     "Failed to write sport type list to XML file '" + destination + "' ...", e);
         }
     }
 
     /**
-     * Creates the "sport-type-list" element with all exercises for the specified
-     * sport type list.
+     * Writes the "sport-type-list" element with all sport types for the specified
+     * sport type list. It's used for both the JDOM and the streaming XML writing.
+     *
+     * @param sportTypeList the sport type list to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
      */
-    private Element createSportTypeListElement(SportTypeList sportTypeList) {
-
-        Element eSportTypeList = new Element("sport-type-list");
+    static void writeSportTypeList(SportTypeList sportTypeList, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("sport-type-list");
 
         // append an "sport-type" element for each sport type
-        sportTypeList.forEach(sportType -> {
-            Element eSportType = new Element("sport-type");
-            eSportTypeList.addContent(eSportType);
-
-            // create sport type attributes and elements
-            eSportType.setAttribute("record-distance", String.valueOf(sportType.isRecordDistance()));
-            XMLUtils.addElement(eSportType, "id", String.valueOf(sportType.getId()));
-            XMLUtils.addElement(eSportType, "name", sportType.getName());
-            XMLUtils.addElement(eSportType, "speed-mode", String.valueOf(sportType.getSpeedMode()));
-            XMLUtils.addElement(eSportType, "icon", sportType.getIcon());
-
-            Element eColor = new Element("color");
-            java.awt.Color awtColor = ColorUtils.toAwtColor(sportType.getColor());
-            eColor.setAttribute("red", String.valueOf(awtColor.getRed()));
-            eColor.setAttribute("green", String.valueOf(awtColor.getGreen()));
-            eColor.setAttribute("blue", String.valueOf(awtColor.getBlue()));
-            eSportType.addContent(eColor);
-
-            // append an "sport-subtype" element for each sport subtype
-            Element eSportSubTypeList = new Element("sport-subtype-list");
-            eSportType.addContent(eSportSubTypeList);
-
-            sportType.getSportSubTypeList().forEach(sportSubType -> {
-                Element eSportSubType = new Element("sport-subtype");
-                eSportSubTypeList.addContent(eSportSubType);
-                XMLUtils.addElement(eSportSubType, "id", String.valueOf(sportSubType.getId()));
-                XMLUtils.addElement(eSportSubType, "name", sportSubType.getName());
-            });
+        for (SportType sportType : sportTypeList) {
+            writeSportType(sportType, writer);
+        }
 
-            // append an "equipment" element for each equipment
-            Element eEquipmentList = new Element("equipment-list");
-            eSportType.addContent(eEquipmentList);
+        writer.endElement();
+    }
 
-            sportType.getEquipmentList().forEach(equipment-> {
-                Element eEquipment = new Element("equipment");
-                eEquipmentList.addContent(eEquipment);
-                XMLUtils.addElement(eEquipment, "id", String.valueOf(equipment.getId()));
-                XMLUtils.addElement(eEquipment, "name", equipment.getName());
-                XMLUtils.addElement(eEquipment, "not-in-use", String.valueOf(equipment.isNotInUse()));
-            });
-        });
+    /**
+     * Writes the "sport-type" element for the specified sport type.
+     *
+     * @param sportType the sport type to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
+     */
+    static void writeSportType(SportType sportType, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("sport-type");
+
+        // create sport type attributes and elements
+        writer.attribute("record-distance", String.valueOf(sportType.isRecordDistance()));
+        writer.element("id", String.valueOf(sportType.getId()));
+        writer.element("name", sportType.getName());
+        writer.element("speed-mode", String.valueOf(sportType.getSpeedMode()));
+        writer.element("icon", sportType.getIcon());
+
+        writer.startElement("color");
+        java.awt.Color awtColor = ColorUtils.toAwtColor(sportType.getColor());
+        writer.attribute("red", String.valueOf(awtColor.getRed()));
+        writer.attribute("green", String.valueOf(awtColor.getGreen()));
+        writer.attribute("blue", String.valueOf(awtColor.getBlue()));
+        writer.endElement();
+
+        // append an "sport-subtype" element for each sport subtype
+        writer.startElement("sport-subtype-list");
+        for (SportSubType sportSubType : sportType.getSportSubTypeList()) {
+            writer.startElement("sport-subtype");
+            writer.element("id", String.valueOf(sportSubType.getId()));
+            writer.element("name", sportSubType.getName());
+            writer.endElement();
+        }
+        writer.endElement();
+
+        // append an "equipment" element for each equipment
+        writer.startElement("equipment-list");
+        for (Equipment equipment : sportType.getEquipmentList()) {
+            writer.startElement("equipment");
+            writer.element("id", String.valueOf(equipment.getId()));
+            writer.element("name", equipment.getName());
+            writer.element("not-in-use", String.valueOf(equipment.isNotInUse()));
+            writer.endElement();
+        }
+        writer.endElement();
 
-        return eSportTypeList;
+        writer.endElement();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package de.saring.sportstracker.storage;
 
 import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
 import de.saring.sportstracker.data.ExerciseList;
 import de.saring.sportstracker.data.NoteList;
 import de.saring.sportstracker.data.SportTypeList;
@@ -9,12 +10,21 @@ import de.saring.util.unitcalc.SpeedMode;
 
 import javax.inject.Singleton;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * This class is for reading / storing of the application data from / to
  * different XML files. It does not contain the appropriate functionality,
  * this is done by delegates. This interface defines methods for reading /
  * storing of the application data from / to different data sources
- * (files, database, ...).
+ * (files, database, ...).<br/>
+ * The XML files are replaced atomically, so they can't be written partially.
+ * When multiple lists are stored in a batch, the directories of the written
+ * files are synced only once at the end of the batch.
  *
  * @author Stefan Saring
  * @version 1.0
@@ -27,6 +37,9 @@ public class XMLStorage implements IStorage {
     private final XMLNoteList xmlNoteList;
     private final XMLWeightList xmlWeightList;
 
+    /** The directories of the files stored in the current batch, it's null when no batch is active. */
+    private Set<Path> batchDirectories;
+
     /**
      * Standard c'tor.
      */
@@ -45,6 +58,7 @@ public class XMLStorage implements IStorage {
     @Override
     public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
         xmlSportTypeList.storeSportTypeList(sportTypeList, destination);
+        syncDestinationDirectory(destination);
     }
 
     @Override
@@ -55,6 +69,7 @@ public class XMLStorage implements IStorage {
     @Override
     public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
         xmlExerciseList.storeExerciseList(exerciseList, destination);
+        syncDestinationDirectory(destination);
     }
 
     @Override
@@ -65,6 +80,7 @@ public class XMLStorage implements IStorage {
     @Override
     public void storeNoteList(NoteList noteList, String destination) throws STException {
         xmlNoteList.storeNoteList(noteList, destination);
+        syncDestinationDirectory(destination);
     }
 
     @Override
@@ -75,5 +91,45 @@ public class XMLStorage implements IStorage {
     @Override
     public void storeWeightList(WeightList weightList, String destination) throws STException {
         xmlWeightList.storeWeightList(weightList, destination);
+        syncDestinationDirectory(destination);
+    }
+
+    @Override
+    public void storeBatch(StoreBatch batch) throws STException {
+        batchDirectories = new LinkedHashSet<>();
+        try {
+            batch.store(this);
+            for (Path directory : batchDirectories) {
+                syncDirectory(directory);
+            }
+        } finally {
+            batchDirectories = null;
+        }
+    }
+
+    /**
+     * Syncs the directory of the stored destination file, so the atomically replaced file is durable.
+     * When a batch is active, the directory will be synced at the end of the batch instead.
+     * Must be called by subclasses after storing a file.
+     *
+     * @param destination name of the stored file
+     * @throws STException thrown on sync problems
+     */
+    protected void syncDestinationDirectory(String destination) throws STException {
+        Path directory = Paths.get(destination).toAbsolutePath().getParent();
+        if (batchDirectories != null) {
+            batchDirectories.add(directory);
+        } else {
+            syncDirectory(directory);
+        }
+    }
+
+    private static void syncDirectory(Path directory) throws STException {
+        try {
+            XMLUtils.syncDirectory(directory);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.XMLSTORAGE_SYNC_DIRECTORY,
+                    "Failed to sync the directory '" + directory + "' of the written XML files ...", e);
+        }
     }
 }
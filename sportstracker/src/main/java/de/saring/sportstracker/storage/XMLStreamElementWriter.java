@@ -0,0 +1,115 @@
+package de.saring.sportstracker.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * XMLElementWriter implementation which writes the elements directly to a StAX stream writer.
+ * The output is formatted in the same way as the JDOM based writing in XMLUtils: each element
+ * starts on a new line with 4-space indentation per level, the texts are trimmed and elements
+ * without text and child elements are written as empty elements.<br/>
+ * The start tag of an element is written not before the first child element or the end of the
+ * element, so only the attributes and the text of the current element need to be buffered.
+ *
+ * @author Stefan Saring
+ */
+final class XMLStreamElementWriter implements XMLElementWriter {
+
+    private static final String INDENT = "    ";
+
+    private final XMLStreamWriter writer;
+    private final String lineSeparator;
+
+    /** Number of elements whose start tag has been written but not the end tag. */
+    private int openElementCount;
+
+    /** Name, attributes and text of the started element whose start tag has not been written yet. */
+    private String pendingName;
+    private final List<String> pendingAttributes = new ArrayList<>();
+    private String pendingText;
+
+    /**
+     * Creates the element writer for the specified StAX stream writer.
+     *
+     * @param writer the StAX stream writer
+     * @param lineSeparator the line separator to be used
+     */
+    XMLStreamElementWriter(XMLStreamWriter writer, String lineSeparator) {
+        this.writer = writer;
+        this.lineSeparator = lineSeparator;
+    }
+
+    @Override
+    public void startElement(String name) throws XMLStreamException {
+        writePendingStartTag();
+        pendingName = name;
+    }
+
+    @Override
+    public void attribute(String name, String value) {
+        pendingAttributes.add(name);
+        pendingAttributes.add(value);
+    }
+
+    @Override
+    public void text(String text) {
+        pendingText = text == null ? null : text.trim();
+    }
+
+    @Override
+    public void endElement() throws XMLStreamException {
+        if (pendingName != null) {
+            // element has no child elements => write it on one line
+            writeLineStart(openElementCount);
+            if (pendingText == null || pendingText.isEmpty()) {
+                writer.writeEmptyElement(pendingName);
+                writePendingAttributes();
+            } else {
+                writer.writeStartElement(pendingName);
+                writePendingAttributes();
+                writer.writeCharacters(pendingText);
+                writer.writeEndElement();
+            }
+            clearPendingElement();
+        } else {
+            openElementCount--;
+            writeLineStart(openElementCount);
+            writer.writeEndElement();
+        }
+    }
+
+    private void writePendingStartTag() throws XMLStreamException {
+        if (pendingName != null) {
+            writeLineStart(openElementCount);
+            writer.writeStartElement(pendingName);
+            writePendingAttributes();
+            if (pendingText != null && !pendingText.isEmpty()) {
+                writer.writeCharacters(pendingText);
+            }
+            clearPendingElement();
+            openElementCount++;
+        }
+    }
+
+    private void writePendingAttributes() throws XMLStreamException {
+        for (int i = 0; i < pendingAttributes.size(); i += 2) {
+            writer.writeAttribute(pendingAttributes.get(i), pendingAttributes.get(i + 1));
+        }
+    }
+
+    private void clearPendingElement() {
+        pendingName = null;
+        pendingAttributes.clear();
+        pendingText = null;
+    }
+
+    private void writeLineStart(int level) throws XMLStreamException {
+        writer.writeCharacters(lineSeparator);
+        for (int i = 0; i < level; i++) {
+            writer.writeCharacters(INDENT);
+        }
+    }
+}
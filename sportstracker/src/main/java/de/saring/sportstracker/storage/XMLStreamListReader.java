@@ -0,0 +1,368 @@
+package de.saring.sportstracker.storage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.StAXStreamBuilder;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.util.unitcalc.SpeedMode;
+
+/**
+ * This class is for reading the sport type, exercise, note and weight lists from XML files by
+ * using a StAX stream reader. No document tree of the whole file will be created, the entries
+ * are created directly while reading the event stream. So the needed memory is much lower than
+ * for the JDOM based reading, especially for large exercise lists.<br/>
+ * The XML files are validated against the XSD schema in a separate streaming pass before. The
+ * mapping of the XML elements to the entries and the error messages are the same as in the JDOM
+ * based XMLExerciseList, XMLNoteList, XMLWeightList and XMLSportTypeList classes.<br/>
+ * The readXxxListInDateRange() methods are for a fast preview of a date range (e.g. the current
+ * month), they skip the validation and create only the entries of the date range.
+ *
+ * @author Stefan Saring
+ */
+public class XMLStreamListReader {
+
+    private static final String XSD_SPORT_TYPES = "sport-types.xsd";
+    private static final String XSD_EXERCISES = "exercises.xsd";
+    private static final String XSD_NOTES = "notes.xsd";
+    private static final String XSD_WEIGHTS = "weights.xsd";
+
+    /**
+     * Reads the sport type list from the specified XML file.
+     * Returns an empty list when the file doesn't exists yet.
+     *
+     * @param source name of the XML file to read from
+     * @param defaultSpeedMode default speed mode to be set when not specified in the XML file
+     * @return the created SportTypeList
+     * @throws STException thrown on read problems
+     */
+    public SportTypeList readSportTypeList(String source, SpeedMode defaultSpeedMode) throws STException {
+        SportTypeList sportTypeList = new SportTypeList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                XMLUtils.validateXMLFile(fSource, XSD_SPORT_TYPES);
+
+                // the sport types contain nested elements, so a small JDOM element is
+                // created for each sport type (the list contains only a few sport types)
+                StAXStreamBuilder builder = new StAXStreamBuilder();
+                sportTypeList.clearAndAddAll(readEntries(fSource, "sport-type", reader ->
+                        XMLSportTypeList.readSportType((Element) builder.fragment(reader), defaultSpeedMode)));
+            }
+            return sportTypeList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_SPORT_TYPE_LIST,
+                    "Failed to read sport type list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads the exercise list from the specified XML file and maps the sport types
+     * by using the specified sport type list.
+     * Returns an empty list when the file doesn't exists yet.
+     *
+     * @param source name of the XML file to read from
+     * @param sportTypeList the sport type list for assigning sport types to exercises.
+     * @return the created ExerciseList
+     * @throws STException thrown on read problems
+     */
+    public ExerciseList readExerciseList(String source, SportTypeList sportTypeList) throws STException {
+        ExerciseList exerciseList = new ExerciseList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                XMLUtils.validateXMLFile(fSource, XSD_EXERCISES);
+                exerciseList.clearAndAddAll(readFlatEntries(fSource, "exercise", childTexts ->
+                        XMLExerciseList.readExercise(childTexts, sportTypeList)));
+            }
+            return exerciseList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_EXERCISE_LIST,
+                    "Failed to read exercise list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads the note list from the specified XML file.
+     * Returns an empty list when the file doesn't exists yet.
+     *
+     * @param source name of the XML file to read from
+     * @return the created NoteList
+     * @throws STException thrown on read problems
+     */
+    public NoteList readNoteList(String source) throws STException {
+        NoteList noteList = new NoteList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                XMLUtils.validateXMLFile(fSource, XSD_NOTES);
+                noteList.clearAndAddAll(readFlatEntries(fSource, "note", XMLNoteList::readNote));
+            }
+            return noteList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_NOTE_LIST,
+                    "Failed to read note list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads the weight list from the specified XML file.
+     * Returns an empty list when the file doesn't exists yet.
+     *
+     * @param source name of the XML file to read from
+     * @return the created WeightList
+     * @throws STException thrown on read problems
+     */
+    public WeightList readWeightList(String source) throws STException {
+        WeightList weightList = new WeightList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                XMLUtils.validateXMLFile(fSource, XSD_WEIGHTS);
+                weightList.clearAndAddAll(readFlatEntries(fSource, "weight", XMLWeightList::readWeight));
+            }
+            return weightList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_WEIGHT_LIST,
+                    "Failed to read weight list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads only the exercises of the specified date range from the XML file. The XML file will not be
+     * validated, the complete list needs to be read by readExerciseList() afterwards.
+     * Returns an empty list when the file doesn't exists yet.
+     *
+     * @param source name of the XML file to read from
+     * @param sportTypeList the sport type list for assigning sport types to exercises.
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created ExerciseList with the exercises of the date range
+     * @throws STException thrown on read problems
+     */
+    public ExerciseList readExerciseListInDateRange(String source, SportTypeList sportTypeList,
+            LocalDate dateStart, LocalDate dateEnd) throws STException {
+        ExerciseList exerciseList = new ExerciseList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                exerciseList.clearAndAddAll(readFlatEntriesInDateRange(fSource, "exercise", dateStart, dateEnd,
+                        childTexts -> XMLExerciseList.readExercise(childTexts, sportTypeList)));
+            }
+            return exerciseList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_EXERCISE_LIST,
+                    "Failed to read exercise list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads only the notes of the specified date range from the XML file, see
+     * readExerciseListInDateRange() for details.
+     *
+     * @param source name of the XML file to read from
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created NoteList with the notes of the date range
+     * @throws STException thrown on read problems
+     */
+    public NoteList readNoteListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        NoteList noteList = new NoteList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                noteList.clearAndAddAll(readFlatEntriesInDateRange(fSource, "note", dateStart, dateEnd,
+                        XMLNoteList::readNote));
+            }
+            return noteList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_NOTE_LIST,
+                    "Failed to read note list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads only the weights of the specified date range from the XML file, see
+     * readExerciseListInDateRange() for details.
+     *
+     * @param source name of the XML file to read from
+     * @param dateStart start date of the range (inclusive)
+     * @param dateEnd end date of the range (inclusive)
+     * @return the created WeightList with the weights of the date range
+     * @throws STException thrown on read problems
+     */
+    public WeightList readWeightListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        WeightList weightList = new WeightList();
+
+        try {
+            File fSource = new File(source);
+            if (fSource.exists()) {
+                weightList.clearAndAddAll(readFlatEntriesInDateRange(fSource, "weight", dateStart, dateEnd,
+                        XMLWeightList::readWeight));
+            }
+            return weightList;
+        } catch (Exception e) {
+            throw new STException(STExceptionID.XMLSTORAGE_READ_WEIGHT_LIST,
+                    "Failed to read weight list from XML file '" + source + "' ...", e);
+        }
+    }
+
+    /**
+     * Reads all entry elements with the specified name, which contain only child elements with
+     * text content. The texts of the child elements are collected in a reusable map, which is
+     * passed as a lookup function to the entry mapper.
+     */
+    private static <T> List<T> readFlatEntries(File file, String entryElementName,
+            Function<Function<String, String>, T> entryMapper) throws IOException, XMLStreamException, JDOMException {
+
+        Map<String, String> childTexts = new HashMap<>();
+
+        return readEntries(file, entryElementName, reader ->
+                entryMapper.apply(readChildTexts(reader, childTexts)::get));
+    }
+
+    /**
+     * Reads all flat entry elements with the specified name like readFlatEntries(), but only the entries
+     * with a date in the specified range are created, all other entries are skipped. The date element
+     * precedes all other child elements except the IDs (defined by the XSD files), so the remaining
+     * child elements of the skipped entries are not read.
+     */
+    private static <T> List<T> readFlatEntriesInDateRange(File file, String entryElementName,
+            LocalDate dateStart, LocalDate dateEnd, Function<Function<String, String>, T> entryMapper)
+            throws IOException, XMLStreamException, JDOMException {
+
+        Map<String, String> childTexts = new HashMap<>();
+
+        return readEntries(file, entryElementName, reader -> {
+            childTexts.clear();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String childName = reader.getLocalName();
+                childTexts.put(childName, reader.getElementText());
+
+                if ("date".equals(childName)) {
+                    LocalDate date = LocalDateTime.parse(childTexts.get("date"), XMLUtils.DATE_TIME_FORMAT)
+                            .toLocalDate();
+                    if (date.isBefore(dateStart) || date.isAfter(dateEnd)) {
+                        skipToEndOfElement(reader);
+                        return null;
+                    }
+                }
+            }
+            return entryMapper.apply(childTexts::get);
+        });
+    }
+
+    /**
+     * Skips all remaining content of the current element, afterwards the reader is positioned at its end.
+     */
+    private static void skipToEndOfElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the texts of all child elements of the current entry element into the specified map, it will be
+     * cleared before. The reader must be positioned at the start of the entry element, afterwards it's
+     * positioned at the end of the entry element.
+     *
+     * @param reader the XML stream reader
+     * @param childTexts the map for storing the texts by the child element names
+     * @return the passed map
+     * @throws XMLStreamException on reading problems
+     */
+    static Map<String, String> readChildTexts(XMLStreamReader reader, Map<String, String> childTexts)
+            throws XMLStreamException {
+
+        childTexts.clear();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            childTexts.put(reader.getLocalName(), reader.getElementText());
+        }
+        return childTexts;
+    }
+
+    /**
+     * Reads all entry elements with the specified name. The reader is passed to the entry
+     * reader at the start of each entry element, it has to read the complete entry element.
+     * Entries are skipped when the entry reader returns null.
+     */
+    static <T> List<T> readEntries(File file, String entryElementName, EntryReader<T> entryReader)
+            throws IOException, XMLStreamException, JDOMException {
+
+        List<T> entries = new ArrayList<>();
+
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = XMLUtils.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && entryElementName.equals(reader.getLocalName())) {
+                        T entry = entryReader.read(reader);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reader for a single entry element of the XML stream.
+     *
+     * @param <T> type of the entry
+     */
+    @FunctionalInterface
+    interface EntryReader<T> {
+
+        /**
+         * Reads the entry at the current start element, the reader must be positioned at the end of the
+         * entry element afterwards.
+         *
+         * @param reader the XML stream reader
+         * @return the created entry (or null when the entry is skipped)
+         * @throws XMLStreamException on reading problems
+         * @throws JDOMException on reading problems
+         */
+        T read(XMLStreamReader reader) throws XMLStreamException, JDOMException;
+    }
+}
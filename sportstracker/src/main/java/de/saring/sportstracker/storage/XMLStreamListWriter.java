@@ -0,0 +1,88 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.WeightList;
+
+import java.io.IOException;
+
+/**
+ * This class is for storing the sport type, exercise, note and weight lists to XML files by
+ * using a StAX stream writer. No document tree will be created, the elements of the entries
+ * are written directly to the file. The content of the XML files is the same as written by the
+ * JDOM based XMLExerciseList, XMLNoteList, XMLWeightList and XMLSportTypeList classes, the
+ * error messages are the same too.
+ *
+ * @author Stefan Saring
+ */
+public class XMLStreamListWriter {
+
+    /**
+     * Writes the sport type list to the specified XML file.
+     *
+     * @param sportTypeList the sport type list to store
+     * @param destination name of the XML file to write to
+     * @throws STException thrown on store problems
+     */
+    public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
+        try {
+            XMLUtils.writeXMLFileStreaming(writer ->
+                    XMLSportTypeList.writeSportTypeList(sportTypeList, writer), destination);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.XMLSTORAGE_STORE_SPORT_TYPE_LIST,
+                    "Failed to write sport type list to XML file '" + destination + "' ...", e);
+        }
+    }
+
+    /**
+     * Writes the exercise list to the specified XML file.
+     *
+     * @param exerciseList the exercise list to store
+     * @param destination name of the XML file to write to
+     * @throws STException thrown on store problems
+     */
+    public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
+        try {
+            XMLUtils.writeXMLFileStreaming(writer ->
+                    XMLExerciseList.writeExerciseList(exerciseList, writer), destination);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.XMLSTORAGE_STORE_EXERCISE_LIST,
+                    "Failed to write exercise list to XML file '" + destination + "' ...", e);
+        }
+    }
+
+    /**
+     * Writes the note list to the specified XML file.
+     *
+     * @param noteList the note list to store
+     * @param destination name of the XML file to write to
+     * @throws STException thrown on store problems
+     */
+    public void storeNoteList(NoteList noteList, String destination) throws STException {
+        try {
+            XMLUtils.writeXMLFileStreaming(writer -> XMLNoteList.writeNoteList(noteList, writer), destination);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.XMLSTORAGE_STORE_NOTE_LIST,
+                    "Failed to write note list to XML file '" + destination + "' ...", e);
+        }
+    }
+
+    /**
+     * Writes the weight list to the specified XML file.
+     *
+     * @param weightList the weight list to store
+     * @param destination name of the XML file to write to
+     * @throws STException thrown on store problems
+     */
+    public void storeWeightList(WeightList weightList, String destination) throws STException {
+        try {
+            XMLUtils.writeXMLFileStreaming(writer -> XMLWeightList.writeWeightList(weightList, writer), destination);
+        } catch (IOException e) {
+            throw new STException(STExceptionID.XMLSTORAGE_STORE_WEIGHT_LIST,
+                    "Failed to write weight list to XML file '" + destination + "' ...", e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.util.unitcalc.SpeedMode;
+
+import javax.inject.Singleton;
+
+import java.time.LocalDate;
+
+/**
+ * This class is for reading / storing of the application data from / to
+ * different XML files. In difference to XMLStorage the XML files are read
+ * and written by a streaming StAX reader and writer, which do not need to
+ * create the document tree of the whole file. The XML files are the same.<br/>
+ * The exercise, note and weight lists are also stored in a binary cache next
+ * to the XML files after reading or writing them. As long as the XML files
+ * are not modified, the lists are read from the cache (see BinarySnapshotCache).
+ *
+ * @author Stefan Saring
+ */
+@Singleton
+public class XMLStreamStorage extends XMLStorage {
+
+    private final XMLStreamListReader xmlStreamListReader;
+    private final XMLStreamListWriter xmlStreamListWriter;
+    private final BinarySnapshotCache snapshotCache;
+
+    /**
+     * Standard c'tor.
+     */
+    public XMLStreamStorage() {
+        xmlStreamListReader = new XMLStreamListReader();
+        xmlStreamListWriter = new XMLStreamListWriter();
+        snapshotCache = new BinarySnapshotCache();
+    }
+
+    @Override
+    public SportTypeList readSportTypeList(String source, SpeedMode defaultSpeedMode) throws STException {
+        return xmlStreamListReader.readSportTypeList(source, defaultSpeedMode);
+    }
+
+    @Override
+    public void storeSportTypeList(SportTypeList sportTypeList, String destination) throws STException {
+        xmlStreamListWriter.storeSportTypeList(sportTypeList, destination);
+        syncDestinationDirectory(destination);
+    }
+
+    @Override
+    public ExerciseList readExerciseList(String source, SportTypeList sportTypeList) throws STException {
+        ExerciseList exerciseList = snapshotCache.readExerciseList(source, sportTypeList);
+        if (exerciseList == null) {
+            exerciseList = xmlStreamListReader.readExerciseList(source, sportTypeList);
+            snapshotCache.storeExerciseList(exerciseList, source);
+        }
+        return exerciseList;
+    }
+
+    @Override
+    public ExerciseList readExerciseListInDateRange(String source, SportTypeList sportTypeList,
+            LocalDate dateStart, LocalDate dateEnd) throws STException {
+        ExerciseList exerciseList = snapshotCache.readExerciseList(source, sportTypeList);
+        if (exerciseList == null) {
+            return xmlStreamListReader.readExerciseListInDateRange(source, sportTypeList, dateStart, dateEnd);
+        }
+        exerciseList.clearAndAddAll(exerciseList.getEntriesInDateRange(dateStart, dateEnd));
+        return exerciseList;
+    }
+
+    @Override
+    public void storeExerciseList(ExerciseList exerciseList, String destination) throws STException {
+        xmlStreamListWriter.storeExerciseList(exerciseList, destination);
+        syncDestinationDirectory(destination);
+        snapshotCache.storeExerciseList(exerciseList, destination);
+    }
+
+    @Override
+    public NoteList readNoteList(String source) throws STException {
+        NoteList noteList = snapshotCache.readNoteList(source);
+        if (noteList == null) {
+            noteList = xmlStreamListReader.readNoteList(source);
+            snapshotCache.storeNoteList(noteList, source);
+        }
+        return noteList;
+    }
+
+    @Override
+    public NoteList readNoteListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        NoteList noteList = snapshotCache.readNoteList(source);
+        if (noteList == null) {
+            return xmlStreamListReader.readNoteListInDateRange(source, dateStart, dateEnd);
+        }
+        noteList.clearAndAddAll(noteList.getEntriesInDateRange(dateStart, dateEnd));
+        return noteList;
+    }
+
+    @Override
+    public void storeNoteList(NoteList noteList, String destination) throws STException {
+        xmlStreamListWriter.storeNoteList(noteList, destination);
+        syncDestinationDirectory(destination);
+        snapshotCache.storeNoteList(noteList, destination);
+    }
+
+    @Override
+    public WeightList readWeightList(String source) throws STException {
+        WeightList weightList = snapshotCache.readWeightList(source);
+        if (weightList == null) {
+            weightList = xmlStreamListReader.readWeightList(source);
+            snapshotCache.storeWeightList(weightList, source);
+        }
+        return weightList;
+    }
+
+    @Override
+    public WeightList readWeightListInDateRange(String source, LocalDate dateStart, LocalDate dateEnd)
+            throws STException {
+        WeightList weightList = snapshotCache.readWeightList(source);
+        if (weightList == null) {
+            return xmlStreamListReader.readWeightListInDateRange(source, dateStart, dateEnd);
+        }
+        weightList.clearAndAddAll(weightList.getEntriesInDateRange(dateStart, dateEnd));
+        return weightList;
+    }
+
+    @Override
+    public void storeWeightList(WeightList weightList, String destination) throws STException {
+        xmlStreamListWriter.storeWeightList(weightList, destination);
+        syncDestinationDirectory(destination);
+        snapshotCache.storeWeightList(weightList, destination);
+    }
+}
@@ -11,11 +11,37 @@ import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper class for common functions when reading and writing XML files.
@@ -28,9 +54,32 @@ public final class XMLUtils {
     /** The date and time parser and formatter instance. */
     public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    /** Cache of the compiled XSD schemas, key is the XSD filename. */
+    private static final Map<String, Schema> SCHEMA_CACHE = new ConcurrentHashMap<>();
+
+    /** The factory for StAX stream readers, it's thread safe after configuration. */
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+    /** The factory for StAX stream writers, it's thread safe. */
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /** Suffix of the temporary files, which are used for the atomic writing of the XML files. */
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /** Buffer size for writing files. */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     private XMLUtils() {
     }
 
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
     /**
      * Parses the specified XML file and creates the JDOM document. The XML will
      * be verified against the specified XSD schema (will be read from classpath).
@@ -64,6 +113,45 @@ public final class XMLUtils {
         return builder.build(xmlFile);
     }
 
+    /**
+     * Validates the specified XML file against the specified XSD schema (will be read from classpath).
+     * The file is validated in a streaming way, no document tree will be created. The compiled schema
+     * is cached for further validations.
+     *
+     * @param xmlFile the XML file to validate
+     * @param xsdFilename the name of the XSD (just the filename)
+     * @throws IOException on reading problems
+     * @throws SAXException when the XML file is not valid
+     */
+    public static void validateXMLFile(final File xmlFile, final String xsdFilename) throws IOException, SAXException {
+
+        Schema schema = SCHEMA_CACHE.get(xsdFilename);
+        if (schema == null) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = schemaFactory.newSchema(XMLUtils.class.getResource("/xml/" + xsdFilename));
+            SCHEMA_CACHE.put(xsdFilename, schema);
+        }
+
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            schema.newValidator().validate(new StreamSource(inputStream, xmlFile.toURI().toString()));
+        }
+    }
+
+    /**
+     * Creates a StAX stream reader for the specified input stream. The support of DTDs and external
+     * entities is disabled, adjacent text is coalesced. The shared factory is not guaranteed to be
+     * thread safe, so the readers are created synchronized (lists can be read in parallel).
+     *
+     * @param inputStream the input stream of the XML document
+     * @return the created XMLStreamReader
+     * @throws XMLStreamException on problems creating the reader
+     */
+    public static XMLStreamReader createXMLStreamReader(final InputStream inputStream) throws XMLStreamException {
+        synchronized (XML_INPUT_FACTORY) {
+            return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+        }
+    }
+
     /**
      * Creates the element with the specified name and comment and adds it to the parent.
      *
@@ -79,7 +167,8 @@ public final class XMLUtils {
 
     /**
      * Writes the specified JDOM element to the XML file specified by filename.
-     * The file will use UTF-8 encoding and has 4-space indentation.
+     * The file will use UTF-8 encoding and has 4-space indentation. The file is
+     * replaced atomically, see writeFileAtomically() for details.
      *
      * @param eRoot root element of the XML document
      * @param filename filename of the XML file to create
@@ -95,9 +184,138 @@ public final class XMLUtils {
         outputter.setFormat(format);
 
         // FileWriter can't be used here, because default encoding on Win32 isn't UTF-8
-        try (OutputStreamWriter osWriter = new OutputStreamWriter(new FileOutputStream(filename), "UTF-8")) {
+        writeFileAtomically(filename, outputStream -> {
+            Writer osWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
             outputter.output(document, osWriter);
             osWriter.flush();
+        });
+    }
+
+    /**
+     * Creates a StAX stream writer for the specified writer.
+     *
+     * @param writer the writer for the XML content
+     * @return the created XMLStreamWriter
+     * @throws XMLStreamException on creation problems
+     */
+    static XMLStreamWriter createXMLStreamWriter(Writer writer) throws XMLStreamException {
+        synchronized (XML_OUTPUT_FACTORY) {
+            return XML_OUTPUT_FACTORY.createXMLStreamWriter(writer);
+        }
+    }
+
+    /**
+     * Writes the specified XML content directly to the XML file specified by filename, no document
+     * tree will be created. The file will use UTF-8 encoding and has 4-space indentation, same as
+     * in writeXMLFile().
+     *
+     * @param content the content of the XML document
+     * @param filename filename of the XML file to create
+     * @throws IOException on writing problems
+     */
+    static void writeXMLFileStreaming(XMLElementWriter.Content content, String filename) throws IOException {
+
+        String lineSeparator = System.getProperty("line.separator");
+
+        writeFileAtomically(filename, outputStream -> {
+            Writer osWriter = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            try {
+                XMLStreamWriter xmlWriter = createXMLStreamWriter(osWriter);
+                try {
+                    xmlWriter.writeStartDocument("UTF-8", "1.0");
+                    content.write(new XMLStreamElementWriter(xmlWriter, lineSeparator));
+                    xmlWriter.writeCharacters(lineSeparator);
+                    xmlWriter.writeEndDocument();
+                    xmlWriter.flush();
+                } finally {
+                    // does not close the underlying writer
+                    xmlWriter.close();
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Failed to write XML file '" + filename + "'!", e);
+            }
+            osWriter.flush();
+        });
+    }
+
+    /**
+     * Writes a file atomically: the content is written to a temporary file in the same directory
+     * through a buffered FileChannel, which is forced to the storage device once after writing.
+     * Then the temporary file is moved to the destination in one atomic step. So the destination
+     * file contains either the previous or the new content, it can't be written partially (e.g.
+     * on application crashes or power loss).<br/>
+     * The directory entry of the moved file is not synced by this method, so multiple files can be
+     * written with a single directory sync afterwards by using syncDirectory().
+     *
+     * @param filename filename of the file to write
+     * @param content the content writer of the file
+     * @throws IOException on writing problems, the destination file is not modified then
+     */
+    static void writeFileAtomically(String filename, FileContent content) throws IOException {
+
+        Path destination = Paths.get(filename).toAbsolutePath();
+        Path tempFile = destination.resolveSibling(destination.getFileName() + TEMP_FILE_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            // the output stream must not be closed here, this would close the channel before forcing
+            OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_SIZE);
+            content.write(outputStream);
+            outputStream.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            throw e;
+        }
+
+        try {
+            Files.move(tempFile, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // fallback for file systems without atomic move support, the temporary file is complete anyway
+            Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING);
         }
     }
+
+    /**
+     * Forces all changes of the directory entries in the specified directory to the storage device,
+     * e.g. the replaced files by writeFileAtomically(). Directories can't be opened for syncing on
+     * all platforms (e.g. on Windows), nothing is done in this case.
+     *
+     * @param directory the directory to sync
+     * @throws IOException when syncing of the opened directory has failed
+     */
+    static void syncDirectory(Path directory) throws IOException {
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // platform does not support opening of directories
+            return;
+        }
+
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writer of the content of a file.
+     */
+    @FunctionalInterface
+    interface FileContent {
+
+        /**
+         * Writes the complete file content to the specified output stream, the stream must not be closed.
+         *
+         * @param outputStream the output stream of the file
+         * @throws IOException on writing problems
+         */
+        void write(OutputStream outputStream) throws IOException;
+    }
 }
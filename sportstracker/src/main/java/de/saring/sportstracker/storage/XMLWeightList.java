@@ -11,6 +11,9 @@ import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.function.Function;
+
+import javax.xml.stream.XMLStreamException;
 
 /**
  * This class is for reading or writing a WeightList object from or to a XML file.
@@ -49,7 +52,7 @@ public class XMLWeightList {
             // get root element and read all the contained weights
             Element eWeightList = document.getRootElement();
             eWeightList.getChildren("weight").forEach(eWeight ->
-                    tempWeights.add(readWeight(eWeight)));
+                    tempWeights.add(readWeight(eWeight::getChildText)));
 
             WeightList weightList = new WeightList();
             weightList.clearAndAddAll(tempWeights);
@@ -61,19 +64,20 @@ public class XMLWeightList {
     }
 
     /**
-     * Reads the data from the specified weight element and returns the created
-     * Weight object.
+     * Reads the data from the child elements of a weight element and returns the created
+     * Weight object. It's used for both the JDOM and the StAX based XML reading.
      *
-     * @param eWeight weight JDOM element
+     * @param eWeight function which returns the text of the specified child element of the
+     * weight element (or null when the child element does not exist)
      * @return the created Weight object
      */
-    private Weight readWeight(Element eWeight) {
-        Weight weight = new Weight(Integer.parseInt(eWeight.getChildText("id")));
-        weight.setValue(Float.parseFloat(eWeight.getChildText("value")));
-        weight.setComment(eWeight.getChildText("comment"));
+    static Weight readWeight(Function<String, String> eWeight) {
+        Weight weight = new Weight(Integer.parseInt(eWeight.apply("id")));
+        weight.setValue(Float.parseFloat(eWeight.apply("value")));
+        weight.setComment(eWeight.apply("comment"));
 
         // get and convert date (format allready checked by XSD schema)
-        String strDate = eWeight.getChildText("date");
+        String strDate = eWeight.apply("date");
         try {
             weight.setDateTime(LocalDateTime.parse(strDate, XMLUtils.DATE_TIME_FORMAT));
         } catch (Exception e) {
@@ -92,37 +96,48 @@ public class XMLWeightList {
      */
     public void storeWeightList(WeightList weightList, String destination) throws STException {
 
-        // create JDOM element with all weights
-        Element eWeightList = createWeightListElement(weightList);
-
-        // write the element to XML file
         try {
-            XMLUtils.writeXMLFile(eWeightList, destination);
-        } catch (IOException e) {
+            // create JDOM element with all weights and write it to XML file
+            JDOMElementWriter elementWriter = new JDOMElementWriter();
+            writeWeightList(weightList, elementWriter);
+            XMLUtils.writeXMLFile(elementWriter.getRootElement(), destination);
+        } catch (IOException | XMLStreamException e) {
             throw new STException(STExceptionID.XMLSTORAGE_STORE_WEIGHT_LIST,
                     "Failed to write weight list to XML file '" + destination + "' ...", e);
         }
     }
 
     /**
-     * Creates the "weight-list" element with all weights for the specified
-     * weight list.
+     * Writes the "weight-list" element with all weights for the specified weight list.
+     * It's used for both the JDOM and the streaming XML writing.
      *
-     * @param weightList the WeightList to store
-     * @return the created Element
+     * @param weightList the WeightList to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
+     */
+    static void writeWeightList(WeightList weightList, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("weight-list");
+
+        for (Weight weight : weightList) {
+            writeWeight(weight, writer);
+        }
+
+        writer.endElement();
+    }
+
+    /**
+     * Writes the "weight" element for the specified weight.
+     *
+     * @param weight the Weight to write
+     * @param writer the element writer
+     * @throws XMLStreamException on writing problems
      */
-    private Element createWeightListElement(WeightList weightList) {
-        Element eWeightList = new Element("weight-list");
-
-        weightList.forEach(weight -> {
-            Element eWeight = new Element("weight");
-            eWeightList.addContent(eWeight);
-
-            XMLUtils.addElement(eWeight, "id", String.valueOf(weight.getId()));
-            XMLUtils.addElement(eWeight, "date", weight.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
-            XMLUtils.addElement(eWeight, "value", String.valueOf(weight.getValue()));
-            XMLUtils.addElement(eWeight, "comment", weight.getComment());
-        });
-        return eWeightList;
+    static void writeWeight(Weight weight, XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement("weight");
+        writer.element("id", String.valueOf(weight.getId()));
+        writer.element("date", weight.getDateTime().format(XMLUtils.DATE_TIME_FORMAT));
+        writer.element("value", String.valueOf(weight.getValue()));
+        writer.element("comment", weight.getComment());
+        writer.endElement();
     }
-}
\ No newline at end of file
+}
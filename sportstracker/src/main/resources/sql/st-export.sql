@@ -76,3 +76,12 @@ CREATE TABLE WEIGHT (
     VALUE REAL NOT NULL,
     COMMENT TEXT
 );
+
+-- content hashes of all exported rows, needed for the incremental export
+-- (rows of sport subtypes and equipment are part of the sport type hash)
+CREATE TABLE EXPORT_ROW_HASH (
+    TABLE_NAME TEXT NOT NULL,
+    ROW_ID INTEGER NOT NULL,
+    HASH INTEGER NOT NULL,
+    PRIMARY KEY (TABLE_NAME, ROW_ID)
+);
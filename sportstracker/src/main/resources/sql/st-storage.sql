@@ -0,0 +1,78 @@
+-- SQLite schema definition for the SportsTracker storage (SQLiteStorage).
+
+-- In difference to the export schema all date-time values are stored as an INTEGER,
+-- which is the number of seconds since 1970-01-01 00:00:00 of the local date and time
+-- (no time zone conversion, so the values are independent of the time zone).
+-- All boolean values are stored as an INTEGER, 0 is false, 1 is true.
+-- The tables contain all attributes of the entities, so they can be restored completely.
+
+CREATE TABLE IF NOT EXISTS SPORT_TYPE (
+    ID INTEGER PRIMARY KEY NOT NULL,
+    NAME TEXT NOT NULL,
+    RECORD_DISTANCE INTEGER NOT NULL,
+    SPEED_MODE TEXT NOT NULL,
+    COLOR TEXT,
+    ICON TEXT
+);
+
+CREATE TABLE IF NOT EXISTS SPORT_SUBTYPE (
+    SPORT_SUBTYPE_ID INTEGER NOT NULL,
+    SPORT_TYPE_ID INTEGER NOT NULL,
+    NAME TEXT NOT NULL,
+    PRIMARY KEY (SPORT_TYPE_ID, SPORT_SUBTYPE_ID)
+);
+
+CREATE TABLE IF NOT EXISTS EQUIPMENT (
+    EQUIPMENT_ID INTEGER NOT NULL,
+    SPORT_TYPE_ID INTEGER NOT NULL,
+    NAME TEXT NOT NULL,
+    NOT_IN_USE INTEGER NOT NULL,
+    PRIMARY KEY (SPORT_TYPE_ID, EQUIPMENT_ID)
+);
+
+CREATE TABLE IF NOT EXISTS EXERCISE (
+    ID INTEGER PRIMARY KEY NOT NULL,
+    DATE_TIME INTEGER NOT NULL,
+    SPORT_TYPE_ID INTEGER NOT NULL,
+    SPORT_SUBTYPE_ID INTEGER NOT NULL,
+    INTENSITY TEXT NOT NULL,
+    -- duration of exercise in seconds
+    DURATION INTEGER NOT NULL,
+    -- distance of exercise in kilometers
+    DISTANCE REAL NOT NULL,
+    -- average speed of exercise in kilometers per hour
+    AVG_SPEED REAL NOT NULL,
+    -- average heartrate of exercise in beats per minute
+    AVG_HEARTRATE INTEGER NOT NULL,
+    -- ascent (height meters) of exercise in meters
+    ASCENT INTEGER NOT NULL,
+    -- descent (height meters) of exercise in meters
+    DESCENT INTEGER NOT NULL,
+    -- amount of calories consumed
+    CALORIES INTEGER NOT NULL,
+    HRM_FILE TEXT,
+    EQUIPMENT_ID INTEGER,
+    COMMENT TEXT
+);
+
+CREATE INDEX IF NOT EXISTS EXERCISE_DATE_TIME ON EXERCISE (DATE_TIME);
+CREATE INDEX IF NOT EXISTS EXERCISE_SPORT_TYPE_ID ON EXERCISE (SPORT_TYPE_ID);
+CREATE INDEX IF NOT EXISTS EXERCISE_EQUIPMENT_ID ON EXERCISE (EQUIPMENT_ID);
+
+CREATE TABLE IF NOT EXISTS NOTE (
+    ID INTEGER PRIMARY KEY NOT NULL,
+    DATE_TIME INTEGER NOT NULL,
+    COMMENT TEXT
+);
+
+CREATE INDEX IF NOT EXISTS NOTE_DATE_TIME ON NOTE (DATE_TIME);
+
+CREATE TABLE IF NOT EXISTS WEIGHT (
+    ID INTEGER PRIMARY KEY NOT NULL,
+    DATE_TIME INTEGER NOT NULL,
+    -- weight value in kilograms
+    VALUE REAL NOT NULL,
+    COMMENT TEXT
+);
+
+CREATE INDEX IF NOT EXISTS WEIGHT_DATE_TIME ON WEIGHT (DATE_TIME);
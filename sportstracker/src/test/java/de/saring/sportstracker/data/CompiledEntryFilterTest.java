@@ -0,0 +1,148 @@
+package de.saring.sportstracker.data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains all unit tests for the CompiledEntryFilter class.
+ *
+ * @author Stefan Saring
+ */
+public class CompiledEntryFilterTest {
+
+    private EntryFilter filter;
+
+    /**
+     * This method initializes the environment for testing.
+     */
+    @BeforeEach
+    public void setUp() {
+        filter = new EntryFilter();
+        filter.setDateStart(LocalDate.of(2019, 5, 1));
+        filter.setDateEnd(LocalDate.of(2019, 5, 31));
+        filter.setCommentSubString("");
+    }
+
+    /**
+     * Test of matchesDateTime(): the first and the last day of the range must be included completely.
+     */
+    @Test
+    public void testMatchesDateTime() {
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertTrue(compiledFilter.matchesDateTime(LocalDateTime.of(2019, 5, 1, 0, 0, 0)));
+        assertTrue(compiledFilter.matchesDateTime(LocalDateTime.of(2019, 5, 31, 23, 59, 59)));
+        assertFalse(compiledFilter.matchesDateTime(LocalDateTime.of(2019, 4, 30, 23, 59, 59)));
+        assertFalse(compiledFilter.matchesDateTime(LocalDateTime.of(2019, 6, 1, 0, 0, 0)));
+    }
+
+    /**
+     * Test of matchesComment(): all comments must match when no comment substring is specified.
+     */
+    @Test
+    public void testMatchesCommentNotFiltered() {
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertFalse(compiledFilter.isCommentFiltered());
+        assertTrue(compiledFilter.matchesComment(null));
+        assertTrue(compiledFilter.matchesComment("Foo"));
+    }
+
+    /**
+     * Test of matchesComment(): the normal substring search must not be case sensitive.
+     */
+    @Test
+    public void testMatchesCommentSubString() {
+        filter.setCommentSubString(" Fast Run ");
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertTrue(compiledFilter.matchesComment("a fast run in the park"));
+        assertTrue(compiledFilter.matchesComment("FAST RUN"));
+        assertFalse(compiledFilter.matchesComment("fast"));
+        assertFalse(compiledFilter.matchesComment(""));
+        assertFalse(compiledFilter.matchesComment(null));
+    }
+
+    /**
+     * Test of matchesComment(): a comment substring of whitespaces only must not filter comments, so entries
+     * without a comment must match too (same as the previous EntryList filtering).
+     */
+    @Test
+    public void testMatchesCommentWhitespacesOnly() {
+        filter.setCommentSubString("  ");
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertFalse(compiledFilter.isCommentFiltered());
+        assertTrue(compiledFilter.matchesComment("Foo"));
+        assertTrue(compiledFilter.matchesComment(""));
+        assertTrue(compiledFilter.matchesComment(null));
+    }
+
+    /**
+     * Test of matchesComment(): the regular expression search must be case sensitive.
+     */
+    @Test
+    public void testMatchesCommentRegularExpression() {
+        filter.setCommentSubString("R.n");
+        filter.setRegularExpressionMode(true);
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertTrue(compiledFilter.matchesComment("Fast Run"));
+        assertTrue(compiledFilter.matchesComment("Ran"));
+        assertFalse(compiledFilter.matchesComment("fast run"));
+    }
+
+    /**
+     * Test of the c'tor: must fail for an invalid regular expression.
+     */
+    @Test
+    public void testInvalidRegularExpression() {
+        filter.setCommentSubString("(Run");
+        filter.setRegularExpressionMode(true);
+
+        assertThrows(PatternSyntaxException.class, () -> new CompiledEntryFilter(filter));
+    }
+
+    /**
+     * Test of the exercise criteria: sport type, subtype and equipment must be compared by ID,
+     * no equipment must not match an equipment filter.
+     */
+    @Test
+    public void testMatchesExerciseCriteria() {
+        filter.setSportType(new SportType(1));
+        filter.setSportSubType(new SportSubType(2));
+        filter.setEquipment(new Equipment(3));
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+
+        assertTrue(compiledFilter.matchesSportType(new SportType(1)));
+        assertFalse(compiledFilter.matchesSportType(new SportType(2)));
+        assertTrue(compiledFilter.matchesSportSubType(new SportSubType(2)));
+        assertFalse(compiledFilter.matchesSportSubType(new SportSubType(1)));
+        assertTrue(compiledFilter.matchesEquipment(new Equipment(3)));
+        assertFalse(compiledFilter.matchesEquipment(new Equipment(1)));
+        assertFalse(compiledFilter.matchesEquipment(null));
+        assertTrue(compiledFilter.matchesIntensity(Exercise.IntensityType.HIGH));
+    }
+
+    /**
+     * Test of matchesIntensity(): the intensity must be taken from the filter on creation, later
+     * modifications of the filter must not be used.
+     */
+    @Test
+    public void testMatchesIntensity() {
+        filter.setIntensity(Exercise.IntensityType.LOW);
+        CompiledEntryFilter compiledFilter = new CompiledEntryFilter(filter);
+        filter.setIntensity(Exercise.IntensityType.HIGH);
+
+        assertTrue(compiledFilter.matchesIntensity(Exercise.IntensityType.LOW));
+        assertFalse(compiledFilter.matchesIntensity(Exercise.IntensityType.HIGH));
+    }
+}
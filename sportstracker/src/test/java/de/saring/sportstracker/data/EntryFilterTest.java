@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
@@ -79,4 +80,27 @@ public class EntryFilterTest {
         assertNull(filter.getSportType());
         assertNull(filter.getSportSubType());
     }
+
+    /**
+     * Tests that a clone is equal to the original filter and keeps unchanged when the original gets
+     * modified in place.
+     */
+    @Test
+    public void testCloneAndEquals() {
+
+        EntryFilter filter = EntryFilter.createDefaultExerciseFilter();
+        filter.setSportType(sportTypeList.getByID(1));
+
+        EntryFilter clone = filter.clone();
+        assertEquals(filter, clone);
+        assertEquals(filter.hashCode(), clone.hashCode());
+
+        filter.setSportType(sportTypeList.getByID(2));
+        assertNotEquals(filter, clone);
+        assertEquals(1, clone.getSportType().getId());
+
+        // the sport type is compared by ID, an updated sport type object does not change the filter
+        clone.setSportType(sportTypeList.getByID(2).clone());
+        assertEquals(filter, clone);
+    }
 }
@@ -1,6 +1,8 @@
 package de.saring.sportstracker.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.LocalDate;
@@ -112,6 +114,10 @@ public class NoteListTest {
 
         EntryList<Note> entryList = list.getEntriesForFilter(filter);
         assertEquals(2, entryList.size());
+        assertEquals(1, entryList.getAt(0).getId());
+        assertEquals(3, entryList.getAt(1).getId());
+        assertNotNull(entryList.getByID(3));
+        assertNull(entryList.getByID(2));
     }
 
     /**
@@ -0,0 +1,140 @@
+package de.saring.sportstracker.data.statistic;
+
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.SportType;
+import de.saring.util.data.IdObjectList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class contains all unit tests for the ExerciseAggregation class.
+ *
+ * @author Stefan Saring
+ */
+public class ExerciseAggregationTest {
+
+    private static final double DELTA = 0.0001d;
+
+    private IdObjectList<Exercise> lExercises;
+
+    /** Time buckets: all days of January and of March 2020 (February is not included). */
+    private final LocalDate[] bucketStarts = {LocalDate.of(2020, 1, 1), LocalDate.of(2020, 3, 1)};
+    private final LocalDate[] bucketEnds = {LocalDate.of(2020, 1, 31), LocalDate.of(2020, 3, 31)};
+
+    /**
+     * This method initializes the environment for testing.
+     */
+    @BeforeEach
+    public void setUp() {
+        SportType sportType1 = new SportType(1);
+        SportType sportType2 = new SportType(2);
+
+        lExercises = new IdObjectList<>();
+        lExercises.set(createExercise(1, sportType1, LocalDateTime.of(2020, 1, 1, 0, 0), 10, 3600, 100));
+        lExercises.set(createExercise(2, sportType1, LocalDateTime.of(2020, 1, 31, 23, 59), 20, 1800, 200));
+        lExercises.set(createExercise(3, sportType2, LocalDateTime.of(2020, 1, 15, 10, 0), 5, 900, 0));
+        lExercises.set(createExercise(4, sportType1, LocalDateTime.of(2020, 2, 10, 10, 0), 40, 7200, 400));
+        lExercises.set(createExercise(5, sportType2, LocalDateTime.of(2020, 3, 31, 10, 0), 15, 2700, 50));
+        lExercises.set(createExercise(6, sportType1, LocalDateTime.of(2019, 12, 31, 10, 0), 30, 3600, 300));
+    }
+
+    /**
+     * Tests the aggregation of all exercises into one series, exercises outside of the
+     * time buckets must be ignored.
+     */
+    @Test
+    public void testAggregateSingleSeries() {
+        ExerciseAggregation aggregation = new ExerciseAggregation(lExercises, bucketStarts, bucketEnds, 1,
+                exercise -> 0);
+
+        assertEquals(2, aggregation.getBucketCount());
+        assertEquals(1, aggregation.getSeriesCount());
+
+        assertEquals(3, aggregation.getCount(0, 0));
+        assertEquals(35d, aggregation.getDistance(0, 0), DELTA);
+        assertEquals(6300d, aggregation.getDuration(0, 0), DELTA);
+        assertEquals(300d, aggregation.getAscent(0, 0), DELTA);
+        assertEquals(150d, aggregation.getDescent(0, 0), DELTA);
+        assertEquals(35d * 50, aggregation.getCalories(0, 0), DELTA);
+
+        assertEquals(1, aggregation.getCount(0, 1));
+        assertEquals(15d, aggregation.getDistance(0, 1), DELTA);
+        assertEquals(2700d, aggregation.getDuration(0, 1), DELTA);
+    }
+
+    /**
+     * Tests the aggregation of the exercises into one series per sport type, exercises mapped to
+     * NO_SERIES must be ignored.
+     */
+    @Test
+    public void testAggregateMultipleSeries() {
+        ExerciseAggregation aggregation = new ExerciseAggregation(lExercises, bucketStarts, bucketEnds, 2,
+                exercise -> exercise.getSportType().getId() - 1);
+
+        assertEquals(2, aggregation.getCount(0, 0));
+        assertEquals(30d, aggregation.getDistance(0, 0), DELTA);
+        assertEquals(0, aggregation.getCount(0, 1));
+        assertEquals(0d, aggregation.getDistance(0, 1), DELTA);
+
+        assertEquals(1, aggregation.getCount(1, 0));
+        assertEquals(5d, aggregation.getDistance(1, 0), DELTA);
+        assertEquals(1, aggregation.getCount(1, 1));
+        assertEquals(15d, aggregation.getDistance(1, 1), DELTA);
+
+        aggregation = new ExerciseAggregation(lExercises, bucketStarts, bucketEnds, 1,
+                exercise -> exercise.getSportType().getId() == 2 ? 0 : ExerciseAggregation.NO_SERIES);
+        assertEquals(1, aggregation.getCount(0, 0));
+        assertEquals(5d, aggregation.getDistance(0, 0), DELTA);
+    }
+
+    /**
+     * Tests the aggregation from the exercise rollups, the result must be the same as for the exercises.
+     */
+    @Test
+    public void testFromRollups() {
+        ExerciseList exerciseList = new ExerciseList();
+        lExercises.forEach(exerciseList::set);
+
+        ExerciseAggregation aggregation = ExerciseAggregation.fromRollups(new ExerciseRollups(exerciseList),
+                bucketStarts, bucketEnds, 2, key -> key.getSportTypeId() - 1);
+
+        assertEquals(2, aggregation.getCount(0, 0));
+        assertEquals(30d, aggregation.getDistance(0, 0), DELTA);
+        assertEquals(5400d, aggregation.getDuration(0, 0), DELTA);
+        assertEquals(0, aggregation.getCount(0, 1));
+        assertEquals(1, aggregation.getCount(1, 0));
+        assertEquals(1, aggregation.getCount(1, 1));
+        assertEquals(15d, aggregation.getDistance(1, 1), DELTA);
+        assertEquals(50d, aggregation.getAscent(1, 1), DELTA);
+    }
+
+    /**
+     * Tests the c'tor: must fail when the bucket start and end dates have a different size.
+     */
+    @Test
+    public void testInvalidBuckets() {
+        assertThrows(IllegalArgumentException.class, () -> new ExerciseAggregation(lExercises, bucketStarts,
+                new LocalDate[] {LocalDate.of(2020, 1, 31)}, 1, exercise -> 0));
+    }
+
+    private static Exercise createExercise(int id, SportType sportType, LocalDateTime dateTime, float distance,
+            int duration, int ascent) {
+        Exercise exercise = new Exercise(id);
+        exercise.setSportType(sportType);
+        exercise.setDateTime(dateTime);
+        exercise.setIntensity(Exercise.IntensityType.NORMAL);
+        exercise.setDistance(distance);
+        exercise.setDuration(duration);
+        exercise.setAscent(ascent);
+        exercise.setDescent(ascent / 2);
+        exercise.setCalories((int) distance * 50);
+        return exercise;
+    }
+}
@@ -0,0 +1,179 @@
+package de.saring.sportstracker.data.statistic;
+
+import de.saring.sportstracker.data.Equipment;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class contains all unit tests for the ExerciseRollups class.
+ *
+ * @author Stefan Saring
+ */
+public class ExerciseRollupsTest {
+
+    private static final double DELTA = 0.0001d;
+
+    private SportType sportType1;
+    private SportSubType sportSubType1;
+    private Equipment equipment1;
+
+    private ExerciseList exerciseList;
+    private ExerciseRollups rollups;
+
+    /**
+     * This method initializes the environment for testing.
+     */
+    @BeforeEach
+    public void setUp() {
+        sportType1 = new SportType(1);
+        sportSubType1 = new SportSubType(1);
+        sportType1.getSportSubTypeList().set(sportSubType1);
+        equipment1 = new Equipment(1);
+        sportType1.getEquipmentList().set(equipment1);
+
+        exerciseList = new ExerciseList();
+        exerciseList.set(createExercise(1, LocalDateTime.of(2020, 1, 10, 10, 0), 10, equipment1));
+        exerciseList.set(createExercise(2, LocalDateTime.of(2020, 1, 31, 10, 0), 20, null));
+        exerciseList.set(createExercise(3, LocalDateTime.of(2020, 2, 1, 10, 0), 30, equipment1));
+        exerciseList.set(createExercise(4, LocalDateTime.of(2020, 2, 29, 10, 0), 40, null));
+        exerciseList.set(createExercise(5, LocalDateTime.of(2020, 3, 1, 10, 0), 50, null));
+
+        rollups = new ExerciseRollups(exerciseList);
+    }
+
+    /**
+     * Tests the totals for date ranges consisting of days and complete months.
+     */
+    @Test
+    public void testGetTotalInDateRange() {
+        assertTotal(5, 150d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+        assertTotal(3, 90d, LocalDate.of(2020, 1, 31), LocalDate.of(2020, 2, 29));
+        assertTotal(2, 70d, LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 29));
+        assertTotal(1, 30d, LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 7));
+        assertTotal(0, 0d, LocalDate.of(2020, 2, 2), LocalDate.of(2020, 2, 28));
+        assertTotal(1, 10d, LocalDate.of(2020, 1, 10), LocalDate.of(2020, 1, 10));
+    }
+
+    /**
+     * Tests the grouping of the sums by the rollup keys.
+     */
+    @Test
+    public void testForEachInDateRangeKeys() {
+        Map<ExerciseRollups.Key, Double> distances = new HashMap<>();
+        rollups.forEachInDateRange(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 2, 15), (key, values) ->
+                distances.merge(key, values.getDistance(), Double::sum));
+
+        assertEquals(2, distances.size());
+        assertEquals(40d, distances.get(new ExerciseRollups.Key(1, 1, 1)), DELTA);
+        assertEquals(20d, distances.get(new ExerciseRollups.Key(1, 1, ExerciseRollups.ID_NONE)), DELTA);
+    }
+
+    /**
+     * Tests the incremental update when an exercise was modified in place and stored again and
+     * when a new exercise was added.
+     */
+    @Test
+    public void testUpdateOnSet() {
+        Exercise exercise = exerciseList.getByID(3);
+        exercise.setDateTime(LocalDateTime.of(2020, 1, 15, 10, 0));
+        exercise.setDistance(35);
+        exerciseList.set(exercise);
+
+        assertTotal(3, 65d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31));
+        assertTotal(1, 40d, LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 29));
+
+        exerciseList.set(createExercise(6, LocalDateTime.of(2020, 2, 10, 10, 0), 5, null));
+        assertTotal(2, 45d, LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 29));
+        assertTotal(6, 160d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+    }
+
+    /**
+     * Tests the incremental update when a referenced equipment has been deleted in the sport type editor,
+     * the sums must be moved to the rollup key without equipment.
+     */
+    @Test
+    public void testUpdateOnEquipmentDeletion() {
+        SportTypeList sportTypeList = new SportTypeList();
+        SportType sportType1Edited = sportType1.clone();
+        sportType1Edited.getEquipmentList().removeByID(equipment1.getId());
+        sportTypeList.set(sportType1Edited);
+        exerciseList.updateSportTypes(sportTypeList);
+
+        Map<ExerciseRollups.Key, Double> distances = new HashMap<>();
+        rollups.forEachInDateRange(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31), (key, values) ->
+                distances.merge(key, values.getDistance(), Double::sum));
+
+        assertEquals(1, distances.size());
+        assertEquals(150d, distances.get(new ExerciseRollups.Key(1, 1, ExerciseRollups.ID_NONE)), DELTA);
+    }
+
+    /**
+     * Tests the incremental update when exercises were removed or when all exercises have been replaced.
+     */
+    @Test
+    public void testUpdateOnRemoveAndReplaceAll() {
+        exerciseList.removeByID(4);
+        assertTotal(1, 30d, LocalDate.of(2020, 2, 1), LocalDate.of(2020, 2, 29));
+        assertTotal(4, 110d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+
+        exerciseList.clearAndAddAll(List.of(createExercise(7, LocalDateTime.of(2020, 2, 3, 10, 0), 7, null)));
+        assertTotal(0, 0d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31));
+        assertTotal(1, 7d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+    }
+
+    /**
+     * Tests that the removal of an exercise only updates the sums of the removed exercise, other exercises
+     * which have been modified but not stored in the list yet must not be updated.
+     */
+    @Test
+    public void testUpdateOnRemoveOnlyRemovedExercise() {
+        exerciseList.getByID(1).setDistance(100);
+        exerciseList.removeByID(4);
+        assertTotal(4, 110d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+
+        exerciseList.set(exerciseList.getByID(1));
+        assertTotal(4, 200d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+    }
+
+    /**
+     * Tests that the disposed rollups are not updated anymore.
+     */
+    @Test
+    public void testDispose() {
+        rollups.dispose();
+        exerciseList.removeByID(4);
+        exerciseList.set(createExercise(7, LocalDateTime.of(2020, 2, 3, 10, 0), 7, null));
+        assertTotal(5, 150d, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+    }
+
+    private void assertTotal(int expectedCount, double expectedDistance, LocalDate dateStart, LocalDate dateEnd) {
+        ExerciseRollups.Values total = rollups.getTotalInDateRange(dateStart, dateEnd);
+        assertEquals(expectedCount, total.getCount());
+        assertEquals(expectedDistance, total.getDistance(), DELTA);
+    }
+
+    private Exercise createExercise(int id, LocalDateTime dateTime, float distance, Equipment equipment) {
+        Exercise exercise = new Exercise(id);
+        exercise.setSportType(sportType1);
+        exercise.setSportSubType(sportSubType1);
+        exercise.setDateTime(dateTime);
+        exercise.setIntensity(Exercise.IntensityType.NORMAL);
+        exercise.setDistance(distance);
+        exercise.setDuration(3600);
+        exercise.setEquipment(equipment);
+        return exercise;
+    }
+}
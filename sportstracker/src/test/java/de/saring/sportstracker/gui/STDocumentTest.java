@@ -1,18 +1,48 @@
 package de.saring.sportstracker.gui;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import javafx.scene.paint.Color;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.core.STExceptionID;
+import de.saring.sportstracker.data.EntryFilter;
+import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.data.Equipment;
 import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportSubType;
 import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.storage.IStorage;
+import de.saring.sportstracker.storage.XMLStreamStorage;
 import de.saring.util.unitcalc.SpeedMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit tests of class STDocument/Impl. All the involved components will be
@@ -22,6 +52,9 @@ import org.junit.jupiter.api.Test;
  */
 public class STDocumentTest {
 
+    @TempDir
+    Path tempDirectory;
+
     private STDocument document;
 
     @BeforeEach
@@ -91,6 +124,206 @@ public class STDocumentTest {
         assertEquals(document.getOptions().getPreferredSpeedMode(), speedMode);
     }
 
+    /**
+     * Test of method getFilterableExerciseList(): the filtered list must be cached as long as the exercise list
+     * and the filter are not modified.
+     */
+    @Test
+    public void testGetFilterableExerciseListCached() {
+        appendExerciseWithSpeedMode(SpeedMode.SPEED);
+        document.setCurrentFilter(EntryFilter.createDefaultExerciseFilter());
+        document.setFilterEnabled(true);
+
+        final EntryList<Exercise> filteredList = document.getFilterableExerciseList();
+        assertEquals(1, filteredList.size());
+        assertSame(filteredList, document.getFilterableExerciseList());
+
+        // the cached list must not be used anymore after the exercise list has been modified
+        appendExerciseWithSpeedMode(SpeedMode.SPEED);
+        assertEquals(2, document.getFilterableExerciseList().size());
+
+        // the cached list must not be used anymore after the filter has been changed
+        final EntryFilter previousMonthFilter = EntryFilter.createDefaultExerciseFilter();
+        previousMonthFilter.setDateStart(previousMonthFilter.getDateStart().minusMonths(1));
+        previousMonthFilter.setDateEnd(previousMonthFilter.getDateStart().plusDays(1));
+        document.setCurrentFilter(previousMonthFilter);
+        assertEquals(0, document.getFilterableExerciseList().size());
+
+        // the cached list must not be used anymore after the current filter has been modified in place
+        final EntryFilter currentMonthFilter = EntryFilter.createDefaultExerciseFilter();
+        previousMonthFilter.setDateStart(currentMonthFilter.getDateStart());
+        previousMonthFilter.setDateEnd(currentMonthFilter.getDateEnd());
+        assertEquals(2, document.getFilterableExerciseList().size());
+
+        previousMonthFilter.setSportType(new SportType(999));
+        assertEquals(0, document.getFilterableExerciseList().size());
+
+        document.setFilterEnabled(false);
+        assertSame(document.getExerciseList(), document.getFilterableExerciseList());
+    }
+
+    /**
+     * Test of method storeApplicationData(): only the modified data lists must be stored, afterwards the
+     * dirty data flag must be reset.
+     */
+    @Test
+    public void testStoreApplicationDataOnlyModifiedLists() throws STException {
+        final IStorage storageMock = mock(IStorage.class);
+        when(storageMock.readSportTypeList(anyString(), any())).thenReturn(new SportTypeList());
+        when(storageMock.readExerciseList(anyString(), any())).thenReturn(new ExerciseList());
+        when(storageMock.readNoteList(anyString())).thenReturn(new NoteList());
+        when(storageMock.readWeightList(anyString())).thenReturn(new WeightList());
+        doAnswer(invocation -> {
+            invocation.<IStorage.StoreBatch>getArgument(0).store(storageMock);
+            return null;
+        }).when(storageMock).storeBatch(any());
+
+        document = new STDocumentImpl(mock(STContext.class), storageMock);
+        document.loadOptions();
+        document.readApplicationData().apply();
+        assertFalse(document.isDirtyData());
+
+        final Weight weight = new Weight(1);
+        weight.setDateTime(LocalDateTime.now());
+        weight.setValue(70f);
+        document.getWeightList().set(weight);
+        assertTrue(document.isDirtyData());
+
+        document.storeApplicationData();
+        assertFalse(document.isDirtyData());
+        verify(storageMock).storeWeightList(any(), anyString());
+        verify(storageMock, never()).storeSportTypeList(any(), anyString());
+        verify(storageMock, never()).storeExerciseList(any(), anyString());
+        verify(storageMock, never()).storeNoteList(any(), anyString());
+    }
+
+    /**
+     * Test of method readApplicationData(): the lists are read in parallel, all lists which could be read must be
+     * used after applying the update. The failures of all other lists must be reported by the thrown exception.
+     */
+    @Test
+    public void testReadApplicationDataWithFailures() throws STException {
+        final STException sportTypeException = new STException(STExceptionID.XMLSTORAGE_READ_SPORT_TYPE_LIST, "1");
+        final STException noteException = new STException(STExceptionID.XMLSTORAGE_READ_NOTE_LIST, "2");
+        final WeightList weightList = new WeightList();
+
+        final IStorage storageMock = mock(IStorage.class);
+        when(storageMock.readSportTypeList(anyString(), any())).thenThrow(sportTypeException);
+        when(storageMock.readNoteList(anyString())).thenThrow(noteException);
+        when(storageMock.readWeightList(anyString())).thenReturn(weightList);
+
+        document = new STDocumentImpl(mock(STContext.class), storageMock);
+        document.loadOptions();
+        final STDocument.DataUpdate dataUpdate = document.readApplicationData();
+        assertNotSame(weightList, document.getWeightList());
+
+        final STException exception = assertThrows(STException.class, dataUpdate::apply);
+
+        assertSame(sportTypeException, exception);
+        assertEquals(1, exception.getSuppressed().length);
+        assertSame(noteException, exception.getSuppressed()[0]);
+        assertSame(weightList, document.getWeightList());
+        assertEquals(0, document.getSportTypeList().size());
+        assertEquals(0, document.getNoteList().size());
+        verify(storageMock, never()).readExerciseList(anyString(), any());
+    }
+
+    /**
+     * Test of method readApplicationData(): when a list could not be read after the preview has been displayed,
+     * the preview list must be replaced by an empty list, which must never be stored. Otherwise saving would
+     * replace the complete data file by the preview entries.
+     */
+    @Test
+    public void testReadApplicationDataFailureAfterPreview() throws STException {
+        final NoteList previewNoteList = new NoteList();
+        previewNoteList.set(createNote(1));
+
+        final IStorage storageMock = mock(IStorage.class);
+        when(storageMock.readSportTypeList(anyString(), any())).thenReturn(new SportTypeList());
+        when(storageMock.readExerciseListInDateRange(anyString(), any(), any(), any())).thenReturn(new ExerciseList());
+        when(storageMock.readNoteListInDateRange(anyString(), any(), any())).thenReturn(previewNoteList);
+        when(storageMock.readWeightListInDateRange(anyString(), any(), any())).thenReturn(new WeightList());
+        when(storageMock.readExerciseList(anyString(), any())).thenReturn(new ExerciseList());
+        when(storageMock.readNoteList(anyString())).thenThrow(
+                new STException(STExceptionID.XMLSTORAGE_READ_NOTE_LIST, "1"));
+        when(storageMock.readWeightList(anyString())).thenReturn(new WeightList());
+        doAnswer(invocation -> {
+            invocation.<IStorage.StoreBatch>getArgument(0).store(storageMock);
+            return null;
+        }).when(storageMock).storeBatch(any());
+
+        document = new STDocumentImpl(mock(STContext.class), storageMock);
+        document.loadOptions();
+        document.readApplicationDataPreview(LocalDate.of(2020, 5, 1), LocalDate.of(2020, 5, 31)).apply();
+        assertSame(previewNoteList, document.getNoteList());
+        assertThrows(STException.class, document.readApplicationData()::apply);
+
+        assertEquals(0, document.getNoteList().size());
+        document.getNoteList().set(createNote(2));
+        previewNoteList.set(createNote(3));
+        assertFalse(document.isDirtyData());
+
+        document.storeApplicationData();
+        verify(storageMock, never()).storeNoteList(any(), anyString());
+    }
+
+    /**
+     * Test of method storeApplicationData(): when an equipment referenced by an exercise has been deleted in the
+     * sport type editor, the exercises must be stored too, otherwise they can't be read anymore.
+     */
+    @Test
+    public void testStoreApplicationDataAfterEquipmentDeletion() throws STException {
+        document = new STDocumentImpl(mock(STContext.class), new XMLStreamStorage());
+        document.evaluateCommandLineParameters(List.of("--datadir=" + tempDirectory));
+        document.loadOptions();
+        document.readApplicationData().apply();
+
+        final SportType sportType = new SportType(1);
+        sportType.setName("Cycling");
+        sportType.setSpeedMode(SpeedMode.SPEED);
+        sportType.setColor(Color.BLUE);
+        final SportSubType sportSubType = new SportSubType(1);
+        sportSubType.setName("Road");
+        sportType.getSportSubTypeList().set(sportSubType);
+        final Equipment equipment = new Equipment(1);
+        equipment.setName("Bike");
+        sportType.getEquipmentList().set(equipment);
+        document.getSportTypeList().set(sportType);
+
+        final Exercise exercise = new Exercise(1);
+        exercise.setDateTime(LocalDateTime.of(2020, 5, 1, 10, 0));
+        exercise.setSportType(sportType);
+        exercise.setSportSubType(sportSubType);
+        exercise.setIntensity(Exercise.IntensityType.NORMAL);
+        exercise.setDuration(3600);
+        exercise.setEquipment(equipment);
+        document.getExerciseList().set(exercise);
+        document.storeApplicationData();
+
+        // delete the equipment the way the sport type editor works
+        final SportType sportTypeEdited = sportType.clone();
+        sportTypeEdited.getEquipmentList().removeByID(equipment.getId());
+        document.getSportTypeList().set(sportTypeEdited);
+        document.getExerciseList().updateSportTypes(document.getSportTypeList());
+        document.storeApplicationData();
+
+        final STDocument reloadedDocument = new STDocumentImpl(mock(STContext.class), new XMLStreamStorage());
+        reloadedDocument.evaluateCommandLineParameters(List.of("--datadir=" + tempDirectory));
+        reloadedDocument.loadOptions();
+        reloadedDocument.readApplicationData().apply();
+
+        assertEquals(1, reloadedDocument.getExerciseList().size());
+        assertNull(reloadedDocument.getExerciseList().getByID(1).getEquipment());
+        assertEquals(0, reloadedDocument.getSportTypeList().getByID(1).getEquipmentList().size());
+    }
+
+    private static Note createNote(int id) {
+        final Note note = new Note(id);
+        note.setDateTime(LocalDateTime.of(2020, 5, id, 10, 0));
+        note.setComment("Note " + id);
+        return note;
+    }
+
     private int appendExerciseWithSpeedMode(SpeedMode speedMode) {
         final Exercise exercise = new Exercise(document.getExerciseList().getNewId());
         exercise.setDateTime(LocalDateTime.now());
@@ -0,0 +1,202 @@
+package de.saring.sportstracker.gui.views.calendarview;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportSubType;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.Weight;
+import de.saring.sportstracker.data.WeightList;
+import de.saring.sportstracker.data.statistic.ExerciseRollups;
+import de.saring.sportstracker.gui.STContext;
+import de.saring.sportstracker.gui.STDocument;
+import de.saring.util.AppResources;
+import de.saring.util.gui.javafx.control.calendar.CalendarEntry;
+import de.saring.util.gui.javafx.control.calendar.CalendarRangeData;
+import de.saring.util.unitcalc.FormatUtils;
+import de.saring.util.unitcalc.UnitSystem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests of class CalendarDataProviderImpl. The calendar data of a date range must be the same as the
+ * calendar entries and summaries requested for each single day and week.
+ *
+ * @author Stefan Saring
+ */
+public class CalendarDataProviderImplTest {
+
+    /** First day of the displayed range (a monday), the range crosses the end of April 2019. */
+    private static final LocalDate DATE_START = LocalDate.of(2019, 4, 22);
+    private static final int WEEK_COUNT = 3;
+
+    private ExerciseList exerciseList;
+    private STDocument documentMock;
+    private CalendarDataProviderImpl dataProvider;
+
+    @BeforeEach
+    public void setUp() {
+        final SportType sportType = new SportType(1);
+        sportType.setName("Cycling");
+        sportType.setRecordDistance(true);
+        final SportSubType sportSubType = new SportSubType(1);
+        sportSubType.setName("Tour");
+        sportType.getSportSubTypeList().set(sportSubType);
+
+        exerciseList = new ExerciseList();
+        exerciseList.set(createExercise(1, LocalDateTime.of(2019, 4, 21, 10, 0), sportType, sportSubType));
+        exerciseList.set(createExercise(2, LocalDateTime.of(2019, 4, 22, 0, 0), sportType, sportSubType));
+        exerciseList.set(createExercise(3, LocalDateTime.of(2019, 4, 22, 18, 30), sportType, sportSubType));
+        exerciseList.set(createExercise(4, LocalDateTime.of(2019, 4, 30, 23, 59), sportType, sportSubType));
+        exerciseList.set(createExercise(5, LocalDateTime.of(2019, 5, 1, 9, 0), sportType, sportSubType));
+        exerciseList.set(createExercise(6, LocalDateTime.of(2019, 5, 12, 23, 59), sportType, sportSubType));
+        exerciseList.set(createExercise(7, LocalDateTime.of(2019, 5, 13, 8, 0), sportType, sportSubType));
+
+        final NoteList noteList = new NoteList();
+        final Note note1 = new Note(1);
+        note1.setDateTime(LocalDateTime.of(2019, 4, 30, 12, 0));
+        note1.setComment("Note 1\nSecond line");
+        noteList.set(note1);
+        final Note note2 = new Note(2);
+        note2.setDateTime(LocalDateTime.of(2019, 5, 2, 12, 0));
+        note2.setComment("Note 2");
+        noteList.set(note2);
+
+        final WeightList weightList = new WeightList();
+        final Weight weight = new Weight(1);
+        weight.setDateTime(LocalDateTime.of(2019, 4, 30, 7, 0));
+        weight.setValue(72.5f);
+        weightList.set(weight);
+
+        final STContext contextMock = mock(STContext.class);
+        when(contextMock.getFormatUtils()).thenReturn(new FormatUtils(UnitSystem.METRIC));
+        when(contextMock.getResources()).thenReturn(new AppResources("i18n.SportsTracker"));
+
+        documentMock = mock(STDocument.class);
+        when(documentMock.getExerciseList()).thenReturn(exerciseList);
+        when(documentMock.getFilterableExerciseList()).thenReturn(exerciseList);
+        when(documentMock.getFilterableNoteList()).thenReturn(noteList);
+        when(documentMock.getFilterableWeightList()).thenReturn(weightList);
+        when(documentMock.getExerciseRollups()).thenReturn(new ExerciseRollups(exerciseList));
+
+        dataProvider = new CalendarDataProviderImpl(contextMock, documentMock);
+    }
+
+    /**
+     * Test of getCalendarDataForDateRange(): the entries of each day must be the same as the entries provided
+     * by getCalendarEntriesForDate(), also for the days of the following month.
+     */
+    @Test
+    public void testGetCalendarDataForDateRangeEntries() {
+        final CalendarRangeData rangeData = dataProvider.getCalendarDataForDateRange(DATE_START, WEEK_COUNT);
+
+        assertEquals(DATE_START, rangeData.getDateStart());
+        assertEquals(LocalDate.of(2019, 5, 12), rangeData.getDateEnd());
+        assertEquals(WEEK_COUNT, rangeData.getWeekCount());
+
+        int entryCount = 0;
+        for (LocalDate date = DATE_START; !date.isAfter(rangeData.getDateEnd()); date = date.plusDays(1)) {
+            final List<CalendarEntry> rangeEntries = rangeData.getEntriesForDate(date);
+            assertEntriesEqual(dataProvider.getCalendarEntriesForDate(date), rangeEntries);
+            entryCount += rangeEntries.size();
+        }
+
+        // exercises 2 to 6, both notes and the weight, but no entries outside of the range
+        assertEquals(8, entryCount);
+        assertEquals(3, rangeData.getEntriesForDate(LocalDate.of(2019, 4, 30)).size());
+        assertEquals(1, rangeData.getEntriesForDate(LocalDate.of(2019, 5, 12)).size());
+    }
+
+    /**
+     * Test of getCalendarDataForDateRange(): the summary of each week must be the same as the summary provided
+     * by getSummaryForDateRange(), the week crossing the month boundary included.
+     */
+    @Test
+    public void testGetCalendarDataForDateRangeWeekSummaries() {
+        final CalendarRangeData rangeData = dataProvider.getCalendarDataForDateRange(DATE_START, WEEK_COUNT);
+
+        for (int week = 0; week < WEEK_COUNT; week++) {
+            final LocalDate weekStart = DATE_START.plusWeeks(week);
+            assertEquals(dataProvider.getSummaryForDateRange(weekStart, weekStart.plusDays(6)),
+                    rangeData.getSummaryForWeek(week));
+        }
+
+        // the first week contains exercises 2 and 3, the second week exercises 4 and 5 (crossing the month
+        // boundary), the last week exercise 6
+        assertEquals(2, rangeData.getSummaryForWeek(0).size());
+        assertTrue(rangeData.getSummaryForWeek(0).get(0).startsWith("20"));
+        assertTrue(rangeData.getSummaryForWeek(1).get(0).startsWith("20"));
+        assertTrue(rangeData.getSummaryForWeek(2).get(0).startsWith("10"));
+    }
+
+    /**
+     * Test of getCalendarDataForDateRange(): when the exercises are filtered, the week summaries must be calculated
+     * for the filtered exercises and not taken from the rollups of all exercises.
+     */
+    @Test
+    public void testGetCalendarDataForDateRangeFiltered() {
+        final EntryList<Exercise> filteredExercises = new EntryList<>();
+        filteredExercises.set(exerciseList.getByID(4));
+        filteredExercises.set(exerciseList.getByID(6));
+        when(documentMock.getFilterableExerciseList()).thenReturn(filteredExercises);
+
+        final CalendarRangeData rangeData = dataProvider.getCalendarDataForDateRange(DATE_START, WEEK_COUNT);
+
+        for (int week = 0; week < WEEK_COUNT; week++) {
+            final LocalDate weekStart = DATE_START.plusWeeks(week);
+            assertEquals(dataProvider.getSummaryForDateRange(weekStart, weekStart.plusDays(6)),
+                    rangeData.getSummaryForWeek(week));
+        }
+        assertTrue(rangeData.getSummaryForWeek(0).isEmpty());
+        assertTrue(rangeData.getSummaryForWeek(1).get(0).startsWith("10"));
+        assertTrue(rangeData.getEntriesForDate(LocalDate.of(2019, 5, 1)).isEmpty());
+    }
+
+    /**
+     * Test of getCalendarDataForDateRange(): weeks without exercises must not have a summary.
+     */
+    @Test
+    public void testGetCalendarDataForDateRangeWithoutExercises() {
+        final CalendarRangeData rangeData = dataProvider.getCalendarDataForDateRange(LocalDate.of(2019, 6, 3), 2);
+
+        assertTrue(rangeData.getSummaryForWeek(0).isEmpty());
+        assertTrue(rangeData.getSummaryForWeek(1).isEmpty());
+        assertTrue(rangeData.getEntriesForDate(LocalDate.of(2019, 6, 3)).isEmpty());
+    }
+
+    private static Exercise createExercise(final int id, final LocalDateTime dateTime, final SportType sportType,
+            final SportSubType sportSubType) {
+        final Exercise exercise = new Exercise(id);
+        exercise.setDateTime(dateTime);
+        exercise.setSportType(sportType);
+        exercise.setSportSubType(sportSubType);
+        exercise.setIntensity(Exercise.IntensityType.NORMAL);
+        exercise.setDistance(10f);
+        exercise.setAvgSpeed(20f);
+        exercise.setDuration(1800);
+        return exercise;
+    }
+
+    private static void assertEntriesEqual(final List<CalendarEntry> expected, final List<CalendarEntry> actual) {
+        assertEquals(toStrings(expected), toStrings(actual));
+    }
+
+    private static List<String> toStrings(final List<CalendarEntry> entries) {
+        return entries.stream()
+                .map(entry -> entry.getEntry().getId() + "|" + entry.getText() + "|" + entry.getToolTipText() + "|"
+                        + entry.getColor())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,11 +1,21 @@
 package de.saring.sportstracker.storage;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import javafx.scene.paint.Color;
 
@@ -63,6 +73,162 @@ public class SQLiteExporterTest {
         assertTrue(Files.exists(exporter.getDatabasePath()));
     }
 
+    /**
+     * Test of method exportToSqlite(): All entries must be exported, also when the lists are larger than
+     * the batch size of the exporter.
+     */
+    @Test
+    public void testExportToSqliteLargeList() throws STException, SQLException {
+
+        for (int i = 2; i <= 2500; i++) {
+            Note note = new Note(i);
+            note.setDateTime(LocalDateTime.of(2020, 1, 1, 12, 0).plusDays(i));
+            note.setComment("Note " + i);
+            document.getNoteList().set(note);
+        }
+
+        exporter.exportToSqlite();
+
+        assertEquals(2500, queryInt("SELECT COUNT(*) FROM NOTE"));
+    }
+
+    /**
+     * Test of method exportChangesToSqlite(): Only the changes since the previous export must be written to the
+     * existing database, the generated IDs of unchanged sport subtypes must be kept.
+     */
+    @Test
+    public void testExportChangesToSqlite() throws STException, SQLException {
+
+        // the first export needs to create the database
+        exporter.exportChangesToSqlite();
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM EXERCISE"));
+        int subTypeRowId = queryInt("SELECT ID FROM SPORT_SUBTYPE WHERE SPORT_SUBTYPE_ID = 1");
+
+        Note note = document.getNoteList().getByID(1);
+        note.setComment("Modified comment");
+        document.getNoteList().set(note);
+        document.getWeightList().removeByID(1);
+
+        SportType sportType = document.getSportTypeList().getByID(1);
+        sportType.setName("Biking");
+        SportSubType sportSubType2 = new SportSubType(2);
+        sportSubType2.setName("Road");
+        sportType.getSportSubTypeList().set(sportSubType2);
+        sportType.getEquipmentList().removeByID(1);
+        document.getSportTypeList().set(sportType);
+
+        Exercise exercise2 = document.getExerciseList().getByID(1).clone(2);
+        exercise2.setSportSubType(sportSubType2);
+        exercise2.setEquipment(null);
+        document.getExerciseList().set(exercise2);
+
+        exporter.exportChangesToSqlite();
+
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM EXERCISE"));
+        assertEquals(2, queryInt("SELECT SPORT_SUBTYPE_ID FROM EXERCISE WHERE ID = 2"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM NOTE WHERE COMMENT = 'Modified comment'"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM WEIGHT"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM SPORT_TYPE WHERE NAME = 'Biking'"));
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM SPORT_SUBTYPE"));
+        assertEquals(subTypeRowId, queryInt("SELECT ID FROM SPORT_SUBTYPE WHERE SPORT_SUBTYPE_ID = 1"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM EQUIPMENT"));
+        assertEquals(4, queryInt("SELECT COUNT(*) FROM EXPORT_ROW_HASH"));
+    }
+
+    /**
+     * Test of method exportChangesToSqlite() with a progress monitor: The progress must be reported for all
+     * entity types. A cancelled export must not modify the database.
+     */
+    @Test
+    public void testExportChangesToSqliteWithProgressAndCancel() throws STException, SQLException {
+
+        List<SQLiteExporter.EntityType> reportedTypes = new ArrayList<>();
+        assertTrue(exporter.exportChangesToSqlite(exporter.createSnapshot(), new SQLiteExporter.ProgressMonitor() {
+            @Override
+            public void progress(SQLiteExporter.EntityType entityType, int exportedCount, int totalCount) {
+                if (!reportedTypes.contains(entityType)) {
+                    reportedTypes.add(entityType);
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        }));
+        assertEquals(List.of(SQLiteExporter.EntityType.values()), reportedTypes);
+
+        // the snapshot must not contain the changes after its creation (also of entries modified in place)
+        SQLiteExporter.Snapshot snapshot = exporter.createSnapshot();
+        document.getNoteList().removeByID(1);
+        Note note2 = new Note(2);
+        note2.setDateTime(LocalDateTime.now());
+        note2.setComment("Note 2");
+        document.getNoteList().set(note2);
+        Exercise exercise1 = document.getExerciseList().getByID(1);
+        exercise1.setAscent(500);
+        document.getExerciseList().set(exercise1);
+
+        // cancel the export after the sport types
+        assertFalse(exporter.exportChangesToSqlite(exporter.createSnapshot(), new SQLiteExporter.ProgressMonitor() {
+            private boolean cancelled;
+
+            @Override
+            public void progress(SQLiteExporter.EntityType entityType, int exportedCount, int totalCount) {
+                cancelled = entityType != SQLiteExporter.EntityType.SPORT_TYPES;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+        }));
+        assertEquals(1, queryInt("SELECT ID FROM NOTE"));
+
+        assertTrue(exporter.exportChangesToSqlite(snapshot, SQLiteExporter.ProgressMonitor.NONE));
+        assertEquals(1, queryInt("SELECT ID FROM NOTE"));
+        assertEquals(321, queryInt("SELECT ASCENT FROM EXERCISE WHERE ID = 1"));
+
+        exporter.exportChangesToSqlite();
+        assertEquals(2, queryInt("SELECT ID FROM NOTE"));
+        assertEquals(500, queryInt("SELECT ASCENT FROM EXERCISE WHERE ID = 1"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM NOTE"));
+    }
+
+    /**
+     * Test of method exportToSqlite() with a progress monitor: A cancelled full export must not modify the
+     * existing database, the temporary database must be deleted.
+     */
+    @Test
+    public void testExportToSqliteCancel() throws STException, SQLException {
+
+        exporter.exportToSqlite();
+        document.getNoteList().removeByID(1);
+
+        assertFalse(exporter.exportToSqlite(exporter.createSnapshot(), new SQLiteExporter.ProgressMonitor() {
+            @Override
+            public void progress(SQLiteExporter.EntityType entityType, int exportedCount, int totalCount) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        }));
+
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM NOTE"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM EXERCISE"));
+        assertFalse(Files.exists(Paths.get(exporter.getDatabasePath() + ".tmp")));
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + exporter.getDatabasePath());
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.getInt(1);
+        }
+    }
+
     private void fillDocumentWithTestData() {
 
         SportSubType sportSubType = new SportSubType(1);
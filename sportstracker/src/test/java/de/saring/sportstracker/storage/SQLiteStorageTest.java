@@ -0,0 +1,225 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.EntryFilter;
+import de.saring.sportstracker.data.EntryList;
+import de.saring.sportstracker.data.Equipment;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.util.data.IdObjectList;
+import de.saring.util.unitcalc.SpeedMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains all unit tests for the SQLiteStorage class. The test data is read from
+ * the XML test files and stored in a SQLite database in a temporary directory.
+ *
+ * @author Stefan Saring
+ */
+public class SQLiteStorageTest {
+
+    private static final SpeedMode SPEED_MODE = SpeedMode.SPEED;
+
+    @TempDir
+    File tempDir;
+
+    private String sportTypesFile;
+    private String exercisesFile;
+    private String notesFile;
+    private String weightsFile;
+
+    /**
+     * Copies all valid test data from the XML files into the SQLite database.
+     */
+    @BeforeEach
+    public void setUp() throws STException {
+        sportTypesFile = new File(tempDir, "sport-types.xml").getPath();
+        exercisesFile = new File(tempDir, "exercises.xml").getPath();
+        notesFile = new File(tempDir, "notes.xml").getPath();
+        weightsFile = new File(tempDir, "weights.xml").getPath();
+
+        XMLStorage xmlStorage = new XMLStorage();
+        SportTypeList sportTypeList = xmlStorage.readSportTypeList("misc/testdata/sport-types-valid.xml", SPEED_MODE);
+
+        SQLiteStorage storage = new SQLiteStorage();
+        storage.storeSportTypeList(sportTypeList, sportTypesFile);
+        storage.storeExerciseList(xmlStorage.readExerciseList(
+                "misc/testdata/exercises-valid.xml", sportTypeList), exercisesFile);
+        storage.storeNoteList(xmlStorage.readNoteList("misc/testdata/notes-valid.xml"), notesFile);
+        storage.storeWeightList(xmlStorage.readWeightList("misc/testdata/weights-valid.xml"), weightsFile);
+    }
+
+    /**
+     * Tests that all lists are read completely by a new storage instance.
+     */
+    @Test
+    public void testStoreAndRead() throws STException {
+        assertTrue(Files.exists(new File(tempDir, SQLiteStorage.DATABASE_FILE_NAME).toPath()));
+
+        SQLiteStorage storage = new SQLiteStorage();
+        SportTypeList sportTypeList = storage.readSportTypeList(sportTypesFile, SPEED_MODE);
+        XMLStorageTest.checkSportTypeListContent(sportTypeList);
+        XMLStorageTest.checkExerciseListContent(storage.readExerciseList(exercisesFile, sportTypeList));
+        XMLStorageTest.checkNoteListContent(storage.readNoteList(notesFile));
+        XMLStorageTest.checkWeightListContent(storage.readWeightList(weightsFile));
+    }
+
+    /**
+     * Tests that the changes of read lists are stored, including removals and sport type changes.
+     */
+    @Test
+    public void testStoreChanges() throws STException {
+        SQLiteStorage storage = new SQLiteStorage();
+        NoteList noteList = storage.readNoteList(notesFile);
+        int noteCount = noteList.size();
+
+        Note note1 = noteList.getAt(0);
+        note1.setComment("Note modified");
+        noteList.set(note1);
+        noteList.removeByID(noteList.getAt(1).getId());
+        Note newNote = new Note(100);
+        newNote.setDateTime(LocalDateTime.of(2020, 5, 1, 12, 0, 0));
+        newNote.setComment("New note");
+        noteList.set(newNote);
+        storage.storeNoteList(noteList, notesFile);
+
+        SportTypeList sportTypeList = storage.readSportTypeList(sportTypesFile, SPEED_MODE);
+        IdObjectList<Equipment> equipmentList = sportTypeList.getAt(0).getEquipmentList();
+        while (equipmentList.size() > 0) {
+            equipmentList.removeByID(equipmentList.getAt(0).getId());
+        }
+        sportTypeList.set(sportTypeList.getAt(0));
+        storage.storeSportTypeList(sportTypeList, sportTypesFile);
+
+        SQLiteStorage otherStorage = new SQLiteStorage();
+        NoteList noteListRead = otherStorage.readNoteList(notesFile);
+        assertEquals(noteCount, noteListRead.size());
+        assertEquals("Note modified", noteListRead.getByID(note1.getId()).getComment());
+        assertEquals("New note", noteListRead.getByID(100).getComment());
+        assertEquals(LocalDateTime.of(2020, 5, 1, 12, 0, 0), noteListRead.getByID(100).getDateTime());
+
+        SportTypeList sportTypeListRead = otherStorage.readSportTypeList(sportTypesFile, SPEED_MODE);
+        assertEquals(0, sportTypeListRead.getAt(0).getEquipmentList().size());
+        assertEquals(sportTypeList.getAt(0).getSportSubTypeList().size(),
+                sportTypeListRead.getAt(0).getSportSubTypeList().size());
+    }
+
+    /**
+     * Tests that the exercises updated after deleting a referenced equipment in the sport type editor
+     * are stored too, so the exercises can still be read afterwards.
+     */
+    @Test
+    public void testStoreEquipmentDeletion() throws STException {
+        SQLiteStorage storage = new SQLiteStorage();
+        SportTypeList sportTypeList = storage.readSportTypeList(sportTypesFile, SPEED_MODE);
+        ExerciseList exerciseList = storage.readExerciseList(exercisesFile, sportTypeList);
+        assertEquals(2, exerciseList.getByID(1).getEquipment().getId());
+
+        // delete the equipment the way the sport type editor works
+        SportType sportType = sportTypeList.getByID(1).clone();
+        sportType.getEquipmentList().removeByID(2);
+        sportTypeList.set(sportType);
+        exerciseList.updateSportTypes(sportTypeList);
+        storage.storeSportTypeList(sportTypeList, sportTypesFile);
+        storage.storeExerciseList(exerciseList, exercisesFile);
+
+        SQLiteStorage otherStorage = new SQLiteStorage();
+        SportTypeList sportTypeListRead = otherStorage.readSportTypeList(sportTypesFile, SPEED_MODE);
+        ExerciseList exerciseListRead = otherStorage.readExerciseList(exercisesFile, sportTypeListRead);
+        assertEquals(exerciseList.size(), exerciseListRead.size());
+        assertNull(exerciseListRead.getByID(1).getEquipment());
+    }
+
+    /**
+     * Tests the reading of the exercises and notes matching an entry filter.
+     */
+    @Test
+    public void testReadForFilter() throws STException {
+        SQLiteStorage storage = new SQLiteStorage();
+        SportTypeList sportTypeList = storage.readSportTypeList(sportTypesFile, SPEED_MODE);
+
+        EntryFilter filter = EntryFilter.createDefaultExerciseFilter();
+        filter.setDateStart(LocalDate.of(2003, 7, 24));
+        filter.setDateEnd(LocalDate.of(2003, 7, 27));
+        filter.setSportType(sportTypeList.getByID(1));
+        EntryList<Exercise> exercises = storage.readExercisesForFilter(exercisesFile, sportTypeList, filter);
+        assertEquals(2, exercises.size());
+        assertEquals(1, exercises.getAt(0).getId());
+        assertEquals(3, exercises.getAt(1).getId());
+
+        filter.setCommentSubString("stolpen");
+        exercises = storage.readExercisesForFilter(exercisesFile, sportTypeList, filter);
+        assertEquals(1, exercises.size());
+        assertEquals(1, exercises.getAt(0).getId());
+
+        filter.setDateEnd(LocalDate.of(2003, 7, 23));
+        assertEquals(0, storage.readExercisesForFilter(exercisesFile, sportTypeList, filter).size());
+
+        NoteList noteList = storage.readNoteList(notesFile);
+        EntryFilter noteFilter = EntryFilter.createDefaultExerciseFilter();
+        noteFilter.setEntryType(EntryFilter.EntryType.NOTE);
+        noteFilter.setDateStart(LocalDate.of(1990, 1, 1));
+        noteFilter.setDateEnd(LocalDate.of(2100, 1, 1));
+        noteFilter.setCommentSubString("%");
+        assertEquals(noteList.stream().filter(note -> note.getComment().contains("%")).count(),
+                storage.readNotesForFilter(notesFile, noteFilter).size());
+        noteFilter.setCommentSubString(null);
+        assertEquals(noteList.size(), storage.readNotesForFilter(notesFile, noteFilter).size());
+    }
+
+    /**
+     * Tests that reading exercises with unknown sport types fails.
+     */
+    @Test
+    public void testReadExercisesUnknownSportType() {
+        SQLiteStorage storage = new SQLiteStorage();
+        assertThrows(STException.class, () -> storage.readExerciseList(exercisesFile, new SportTypeList()));
+    }
+
+    /**
+     * Tests that the schema version is stored on creating the database and that the schema is not
+     * created again when opening an existing database (a dropped index must not be recreated).
+     */
+    @Test
+    public void testSchemaCreatedOnlyOnce() throws STException, SQLException {
+        String databaseUrl = "jdbc:sqlite:" + new File(tempDir, SQLiteStorage.DATABASE_FILE_NAME).getPath();
+        try (Connection connection = DriverManager.getConnection(databaseUrl);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+                assertEquals(SQLiteStorage.SCHEMA_VERSION, resultSet.getInt(1));
+            }
+            statement.executeUpdate("DROP INDEX EXERCISE_DATE_TIME");
+        }
+
+        SQLiteStorage storage = new SQLiteStorage();
+        storage.readNoteList(notesFile);
+
+        try (Connection connection = DriverManager.getConnection(databaseUrl);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = 'EXERCISE_DATE_TIME'")) {
+            assertEquals(0, resultSet.getInt(1));
+        }
+    }
+}
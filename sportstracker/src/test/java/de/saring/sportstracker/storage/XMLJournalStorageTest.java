@@ -0,0 +1,282 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.Exercise;
+import de.saring.sportstracker.data.ExerciseList;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportType;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.util.unitcalc.SpeedMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains all unit tests for the XMLJournalStorage class. It executes the same
+ * tests as for XMLStorage, additionally the journal handling is tested. The compactions are
+ * executed synchronously.
+ *
+ * @author Stefan Saring
+ */
+public class XMLJournalStorageTest extends XMLStorageTest {
+
+    @TempDir
+    File tempDir;
+
+    private Path notesFile;
+    private Path notesJournalFile;
+
+    @Override
+    protected XMLStorage createStorage() {
+        return new XMLJournalStorage(100, Runnable::run);
+    }
+
+    /**
+     * Copies the valid notes XML file to the temporary directory, it will be modified by the tests.
+     */
+    @BeforeEach
+    public void setUpNotesFile() throws IOException {
+        notesFile = new File(tempDir, "notes.xml").toPath();
+        notesJournalFile = Paths.get(notesFile + XMLEntryJournal.JOURNAL_FILE_SUFFIX);
+        Files.copy(Paths.get(testFile("notes-valid.xml")), notesFile);
+    }
+
+    /**
+     * Tests that the changes are appended to the journal only, the snapshot must not be modified.
+     * Reading by a new storage instance must replay the changes.
+     */
+    @Test
+    public void testStoreInJournalAndReplay() throws STException, IOException {
+        byte[] snapshotContent = Files.readAllBytes(notesFile);
+
+        XMLStorage storage = createStorage();
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+
+        assertArrayEquals(snapshotContent, Files.readAllBytes(notesFile));
+        assertTrue(Files.exists(notesJournalFile));
+
+        // storing without further changes must not append anything
+        long journalSize = Files.size(notesJournalFile);
+        storage.storeNoteList(noteList, notesFile.toString());
+        assertEquals(journalSize, Files.size(notesJournalFile));
+
+        checkModifiedNoteList(createStorage().readNoteList(notesFile.toString()));
+    }
+
+    /**
+     * Tests that the journal is compacted into a new snapshot when it contains too many records.
+     */
+    @Test
+    public void testCompaction() throws STException {
+        XMLStorage storage = new XMLJournalStorage(3, Runnable::run);
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+
+        assertFalse(Files.exists(notesJournalFile));
+        checkModifiedNoteList(new XMLStorage().readNoteList(notesFile.toString()));
+
+        // further changes must be appended to the journal of the new snapshot
+        noteList.removeByID(4);
+        storage.storeNoteList(noteList, notesFile.toString());
+        assertTrue(Files.exists(notesJournalFile));
+        assertNull(createStorage().readNoteList(notesFile.toString()).getByID(4));
+    }
+
+    /**
+     * Tests that an incomplete record at the end of the journal (e.g. after a crash) is ignored
+     * and removed, all previous records must be replayed.
+     */
+    @Test
+    public void testReplayIncompleteJournal() throws STException, IOException {
+        XMLStorage storage = createStorage();
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+
+        long journalSize = Files.size(notesJournalFile);
+        Files.write(notesJournalFile, new byte[] {0, 0, 1, 0, 1, 0, 0}, StandardOpenOption.APPEND);
+
+        checkModifiedNoteList(createStorage().readNoteList(notesFile.toString()));
+        assertEquals(journalSize, Files.size(notesJournalFile));
+    }
+
+    /**
+     * Tests that the journal is applied on the entries of a date range. The read entries must not
+     * be attached to the journal, so the list read completely afterwards must still be stored in it.
+     */
+    @Test
+    public void testReadInDateRangeWithJournal() throws STException, IOException {
+        XMLStorage storage = createStorage();
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+        long journalSize = Files.size(notesJournalFile);
+
+        XMLStorage otherStorage = createStorage();
+        NoteList notesInRange = otherStorage.readNoteListInDateRange(notesFile.toString(),
+                LocalDate.of(2009, 1, 1), LocalDate.of(2009, 1, 31));
+        assertEquals(2, notesInRange.size());
+        assertEquals("Note 1 modified", notesInRange.getByID(1).getComment());
+        assertNull(notesInRange.getByID(2));
+        assertEquals(journalSize, Files.size(notesJournalFile));
+
+        NoteList otherNoteList = otherStorage.readNoteList(notesFile.toString());
+        otherNoteList.removeByID(3);
+        otherStorage.storeNoteList(otherNoteList, notesFile.toString());
+        assertTrue(Files.size(notesJournalFile) > journalSize);
+        assertNull(createStorage().readNoteList(notesFile.toString()).getByID(3));
+    }
+
+    /**
+     * Tests that lists which have not been read by the storage are stored as new snapshot,
+     * an existing journal must be deleted.
+     */
+    @Test
+    public void testStoreNotReadList() throws STException {
+        XMLStorage storage = createStorage();
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+        assertTrue(Files.exists(notesJournalFile));
+
+        NoteList otherNoteList = new NoteList();
+        otherNoteList.set(createNote(1, "Other note"));
+        storage.storeNoteList(otherNoteList, notesFile.toString());
+
+        assertFalse(Files.exists(notesJournalFile));
+        NoteList noteListRead = createStorage().readNoteList(notesFile.toString());
+        assertEquals(1, noteListRead.size());
+        assertEquals("Other note", noteListRead.getByID(1).getComment());
+    }
+
+    /**
+     * Tests that closing the storage waits for the background compactions and compacts the journal
+     * synchronously, so the XML file contains all stored changes afterwards.
+     */
+    @Test
+    public void testCloseCompactsJournal() throws STException {
+        XMLStorage storage = new XMLJournalStorage(100, Executors.newSingleThreadExecutor());
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+        assertTrue(Files.exists(notesJournalFile));
+
+        storage.close();
+
+        assertFalse(Files.exists(notesJournalFile));
+        checkModifiedNoteList(new XMLStorage().readNoteList(notesFile.toString()));
+    }
+
+    /**
+     * Tests that closing the storage with unstored changes of the list compacts the journal with the
+     * stored changes only, the unstored changes (also of modified entry instances) must not be written.
+     */
+    @Test
+    public void testCloseWithUnstoredChanges() throws STException {
+        XMLStorage storage = createStorage();
+        NoteList noteList = storage.readNoteList(notesFile.toString());
+        modifyNoteList(noteList);
+        storage.storeNoteList(noteList, notesFile.toString());
+
+        Note note1 = noteList.getByID(1);
+        note1.setComment("Note 1 unstored");
+        noteList.set(note1);
+        noteList.removeByID(3);
+
+        storage.close();
+
+        assertFalse(Files.exists(notesJournalFile));
+        checkModifiedNoteList(new XMLStorage().readNoteList(notesFile.toString()));
+    }
+
+    /**
+     * Tests that the exercises updated after deleting a referenced equipment in the sport type editor
+     * are appended to the journal too, so the exercises can still be read afterwards.
+     */
+    @Test
+    public void testStoreEquipmentDeletionInJournal() throws STException, IOException {
+        Path sportTypesFile = new File(tempDir, "sport-types.xml").toPath();
+        Path exercisesFile = new File(tempDir, "exercises.xml").toPath();
+        Files.copy(Paths.get(testFile("sport-types-valid.xml")), sportTypesFile);
+        Files.copy(Paths.get(testFile("exercises-valid.xml")), exercisesFile);
+
+        XMLStorage storage = createStorage();
+        SportTypeList sportTypeList = storage.readSportTypeList(sportTypesFile.toString(), SpeedMode.SPEED);
+        ExerciseList exerciseList = storage.readExerciseList(exercisesFile.toString(), sportTypeList);
+        assertEquals(2, exerciseList.getByID(1).getEquipment().getId());
+
+        // the journal contains a record of the exercise with the equipment to delete
+        Exercise exercise1 = exerciseList.getByID(1);
+        exercise1.setComment("Exercise 1 modified");
+        exerciseList.set(exercise1);
+        storage.storeExerciseList(exerciseList, exercisesFile.toString());
+
+        // delete the equipment the way the sport type editor works
+        SportType sportType = sportTypeList.getByID(1).clone();
+        sportType.getEquipmentList().removeByID(2);
+        sportTypeList.set(sportType);
+        exerciseList.updateSportTypes(sportTypeList);
+        storage.storeSportTypeList(sportTypeList, sportTypesFile.toString());
+        storage.storeExerciseList(exerciseList, exercisesFile.toString());
+
+        // the exercises must be stored as new snapshot, the further changes are appended to the journal
+        Path exercisesJournalFile = Paths.get(exercisesFile + XMLEntryJournal.JOURNAL_FILE_SUFFIX);
+        assertFalse(Files.exists(exercisesJournalFile));
+        Exercise exercise2 = exerciseList.getByID(2);
+        exercise2.setComment("Exercise 2 modified");
+        exerciseList.set(exercise2);
+        storage.storeExerciseList(exerciseList, exercisesFile.toString());
+        assertTrue(Files.exists(exercisesJournalFile));
+
+        XMLStorage storageRead = createStorage();
+        SportTypeList sportTypeListRead = storageRead.readSportTypeList(sportTypesFile.toString(), SpeedMode.SPEED);
+        ExerciseList exerciseListRead = storageRead.readExerciseList(exercisesFile.toString(), sportTypeListRead);
+        assertEquals(exerciseList.size(), exerciseListRead.size());
+        assertNull(exerciseListRead.getByID(1).getEquipment());
+        assertEquals("Exercise 2 modified", exerciseListRead.getByID(2).getComment());
+    }
+
+    private static void modifyNoteList(NoteList noteList) {
+        Note note1 = noteList.getByID(1);
+        note1.setComment("Note 1 modified");
+        noteList.set(note1);
+        noteList.removeByID(2);
+        noteList.set(createNote(4, "Note 4 <new>"));
+    }
+
+    private static void checkModifiedNoteList(NoteList noteList) {
+        assertEquals(3, noteList.size());
+        assertEquals("Note 1 modified", noteList.getByID(1).getComment());
+        assertNull(noteList.getByID(2));
+        assertEquals("Note 3", noteList.getByID(3).getComment());
+        assertEquals("Note 4 <new>", noteList.getByID(4).getComment());
+        assertEquals(LocalDateTime.of(2020, 5, 1, 12, 0, 0), noteList.getByID(4).getDateTime());
+    }
+
+    private static Note createNote(int id, String comment) {
+        Note note = new Note(id);
+        note.setDateTime(LocalDateTime.of(2020, 5, 1, 12, 0, 0));
+        note.setComment(comment);
+        return note;
+    }
+}
@@ -4,11 +4,17 @@ import de.saring.sportstracker.core.STException;
 import de.saring.sportstracker.data.*;
 import de.saring.util.gui.javafx.ColorUtils;
 import de.saring.util.unitcalc.SpeedMode;
-import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,36 +26,63 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class XMLStorageTest {
 
-    private static final String EXERCISES_WRITETEST_XML = "misc/testdata/exercises-writetest.xml";
-    private static final String SPORTTYPES_WRITETEST_XML = "misc/testdata/sport-types-writetest.xml";
-    private static final String NOTES_WRITETEST_XML = "misc/testdata/notes-writetest.xml";
-    private static final String WEIGHTS_WRITETEST_XML = "misc/testdata/weights-writetest.xml";
+    private static final String TESTDATA_DIR = "misc/testdata";
     private static final SpeedMode SPEED_MODE = SpeedMode.SPEED;
 
+    /**
+     * Temporary directory for the copy of the test data and for the written files. The streaming
+     * storages are creating cache files next to the XML files, so the test data must not be used
+     * in its version controlled directory.
+     */
+    @TempDir
+    File tempDataDir;
+
+    private File testDataDir;
+    private String exercisesWritetestXml;
+    private String sportTypesWritetestXml;
+    private String notesWritetestXml;
+    private String weightsWritetestXml;
+
     // the class instance to be tested
     private XMLStorage storage;
 
     /**
-     * This method initializes the environment for testing.
+     * This method initializes the environment for testing, the test data is copied to a temporary directory.
      */
     @BeforeEach
-    public void setUp() {
-        storage = new XMLStorage();
+    public void setUp() throws IOException {
+        testDataDir = new File(tempDataDir, "testdata");
+        Files.createDirectories(testDataDir.toPath());
+        try (DirectoryStream<Path> testDataFiles = Files.newDirectoryStream(Paths.get(TESTDATA_DIR))) {
+            for (Path testDataFile : testDataFiles) {
+                Files.copy(testDataFile, testDataDir.toPath().resolve(testDataFile.getFileName()));
+            }
+        }
+
+        exercisesWritetestXml = testFile("exercises-writetest.xml");
+        sportTypesWritetestXml = testFile("sport-types-writetest.xml");
+        notesWritetestXml = testFile("notes-writetest.xml");
+        weightsWritetestXml = testFile("weights-writetest.xml");
+        storage = createStorage();
     }
 
     /**
-     * This method removes all temporary files after all tests were done.
+     * Returns the path of the specified file in the copy of the test data directory.
+     *
+     * @param filename name of the test data file
+     * @return path of the test data file
      */
-    @AfterAll
-    public static void cleanUpFinal() {
-        deleteFileIfExists(EXERCISES_WRITETEST_XML);
-        deleteFileIfExists(SPORTTYPES_WRITETEST_XML);
-        deleteFileIfExists(NOTES_WRITETEST_XML);
-        deleteFileIfExists(WEIGHTS_WRITETEST_XML);
+    protected String testFile(String filename) {
+        return new File(testDataDir, filename).getPath();
     }
 
-    private static void deleteFileIfExists(String filename) {
-        new File(filename).delete();
+    /**
+     * Creates the storage instance to be tested, subclasses can test other XMLStorage implementations.
+     *
+     * @return the XMLStorage instance
+     */
+    protected XMLStorage createStorage() {
+        return new XMLStorage();
     }
 
     /**
@@ -58,7 +91,7 @@ public class XMLStorageTest {
      *
      * @param sportTypes sport type list to check
      */
-    private void checkSportTypeListContent(SportTypeList sportTypes) {
+    static void checkSportTypeListContent(SportTypeList sportTypes) {
 
         assertNotNull(sportTypes);
         assertEquals(sportTypes.size(), 2);
@@ -131,18 +164,18 @@ public class XMLStorageTest {
     public void testReadSportTypeList() throws STException {
 
         // read valid sporttype list from XML and check content
-        SportTypeList sportTypes = storage.readSportTypeList("misc/testdata/sport-types-valid.xml", SPEED_MODE);
+        SportTypeList sportTypes = storage.readSportTypeList(testFile("sport-types-valid.xml"), SPEED_MODE);
         checkSportTypeListContent(sportTypes);
 
         // read sporttype list from not existing XML 
         // => an empty List must be returned (same as first application startup)
-        SportTypeList sportTypesEmpty = storage.readSportTypeList("misc/testdata/sport-types-xyz.xml", SPEED_MODE);
+        SportTypeList sportTypesEmpty = storage.readSportTypeList(testFile("sport-types-xyz.xml"), SPEED_MODE);
         assertEquals(0, sportTypesEmpty.size());
 
         // read invalid sporttype list from XML
         // => an STException needs to be thrown
         assertThrows(STException.class, () ->
-            storage.readSportTypeList("misc/testdata/sport-types-invalid.xml", SPEED_MODE));
+            storage.readSportTypeList(testFile("sport-types-invalid.xml"), SPEED_MODE));
     }
 
     /**
@@ -152,14 +185,14 @@ public class XMLStorageTest {
     public void testStoreSportTypeList() throws STException {
 
         // read valid sporttype list from XML (has been checked in previous test)
-        SportTypeList sportTypes = storage.readSportTypeList("misc/testdata/sport-types-valid.xml", SPEED_MODE);
+        SportTypeList sportTypes = storage.readSportTypeList(testFile("sport-types-valid.xml"), SPEED_MODE);
 
         // store the read sport type list to a new file
-        storage.storeSportTypeList(sportTypes, SPORTTYPES_WRITETEST_XML);
+        storage.storeSportTypeList(sportTypes, sportTypesWritetestXml);
 
         // read the list from the created file again
         // => compare the content, needs to be same
-        SportTypeList sportTypesNew = storage.readSportTypeList(SPORTTYPES_WRITETEST_XML, SPEED_MODE);
+        SportTypeList sportTypesNew = storage.readSportTypeList(sportTypesWritetestXml, SPEED_MODE);
         checkSportTypeListContent(sportTypesNew);
     }
 
@@ -169,7 +202,7 @@ public class XMLStorageTest {
      *
      * @param exercises exercise list to check
      */
-    private void checkExerciseListContent(ExerciseList exercises) {
+    static void checkExerciseListContent(ExerciseList exercises) {
 
         assertNotNull(exercises);
         assertEquals(exercises.size(), 3);
@@ -296,25 +329,50 @@ public class XMLStorageTest {
         SportTypeList sportTypeList = createSportTypeList();
 
         // read valid exercise list from XML and check content
-        ExerciseList exercises = storage.readExerciseList("misc/testdata/exercises-valid.xml", sportTypeList);
+        ExerciseList exercises = storage.readExerciseList(testFile("exercises-valid.xml"), sportTypeList);
         checkExerciseListContent(exercises);
 
         // read exercise list from not existing XML
         // => an empty List must be returned (same as first application startup)
-        ExerciseList exercisesEmpty = storage.readExerciseList("misc/testdata/exercises-xyz.xml", sportTypeList);
+        ExerciseList exercisesEmpty = storage.readExerciseList(testFile("exercises-xyz.xml"), sportTypeList);
         assertEquals(0, exercisesEmpty.size());
 
         // read invalid exercise list from XML
         // => an STException needs to be thrown
         assertThrows(STException.class, () ->
-            storage.readExerciseList("misc/testdata/exercises-invalid.xml", sportTypeList));
+            storage.readExerciseList(testFile("exercises-invalid.xml"), sportTypeList));
 
         // read valid exercise list from XML but remove the referenced equipment
         // from the sport type configuration before
         // => an STException needs to be thrown
         sportTypeList.getByID(1).getEquipmentList().removeByID(2);
         assertThrows(STException.class, () ->
-            storage.readExerciseList("misc/testdata/exercises-valid.xml", sportTypeList));
+            storage.readExerciseList(testFile("exercises-valid.xml"), sportTypeList));
+    }
+
+    /**
+     * Tests the reading of the entries of a date range only.
+     */
+    @Test
+    public void testReadListsInDateRange() throws STException {
+        SportTypeList sportTypeList = createSportTypeList();
+
+        ExerciseList exercises = storage.readExerciseListInDateRange(testFile("exercises-valid.xml"),
+                sportTypeList, LocalDate.of(2003, 7, 25), LocalDate.of(2003, 7, 27));
+        assertEquals(2, exercises.size());
+        assertEquals(2, exercises.getAt(0).getId());
+        assertEquals(3, exercises.getAt(1).getId());
+        assertSame(sportTypeList.getByID(2), exercises.getAt(0).getSportType());
+
+        NoteList notes = storage.readNoteListInDateRange(testFile("notes-valid.xml"),
+                LocalDate.of(2009, 1, 5), LocalDate.of(2009, 1, 5));
+        assertEquals(1, notes.size());
+        assertEquals(2, notes.getAt(0).getId());
+
+        assertEquals(0, storage.readWeightListInDateRange(testFile("weights-valid.xml"),
+                LocalDate.of(2010, 1, 1), LocalDate.of(2010, 1, 31)).size());
+        assertEquals(0, storage.readNoteListInDateRange(testFile("notes-xyz.xml"),
+                LocalDate.of(2009, 1, 1), LocalDate.of(2009, 1, 31)).size());
     }
 
     /**
@@ -327,14 +385,14 @@ public class XMLStorageTest {
         SportTypeList sportTypeList = createSportTypeList();
 
         // read valid exercise list from XML (has been checked in previous test)
-        ExerciseList exercises = storage.readExerciseList("misc/testdata/exercises-valid.xml", sportTypeList);
+        ExerciseList exercises = storage.readExerciseList(testFile("exercises-valid.xml"), sportTypeList);
 
         // store the read exercise list to a new file
-        storage.storeExerciseList(exercises, EXERCISES_WRITETEST_XML);
+        storage.storeExerciseList(exercises, exercisesWritetestXml);
 
         // read the list from the created file again
         // => compare the content, needs to be same
-        ExerciseList exercisesNew = storage.readExerciseList(EXERCISES_WRITETEST_XML, sportTypeList);
+        ExerciseList exercisesNew = storage.readExerciseList(exercisesWritetestXml, sportTypeList);
         checkExerciseListContent(exercisesNew);
     }
 
@@ -345,18 +403,18 @@ public class XMLStorageTest {
     public void testReadNoteList() throws STException {
 
         // read valid note list from XML and check content
-        NoteList noteList = storage.readNoteList("misc/testdata/notes-valid.xml");
+        NoteList noteList = storage.readNoteList(testFile("notes-valid.xml"));
         checkNoteListContent(noteList);
 
         // read note list from not existing XML
         // => an empty List must be returned (same as first application startup)
-        NoteList noteListEmpty = storage.readNoteList("misc/testdata/notes-xyz.xml");
+        NoteList noteListEmpty = storage.readNoteList(testFile("notes-xyz.xml"));
         assertEquals(0, noteListEmpty.size());
 
         // read invalid note list from XML
         // => an STException needs to be thrown
         assertThrows(STException.class, () ->
-            storage.readNoteList("misc/testdata/notes-invalid.xml"));
+            storage.readNoteList(testFile("notes-invalid.xml")));
     }
 
     /**
@@ -366,14 +424,14 @@ public class XMLStorageTest {
     public void testStoreNoteList() throws STException {
 
         // read valid NoteList from XML (has been checked in previous test)
-        NoteList noteList = storage.readNoteList("misc/testdata/notes-valid.xml");
+        NoteList noteList = storage.readNoteList(testFile("notes-valid.xml"));
 
         // store the read sport type list to a new file
-        storage.storeNoteList(noteList, NOTES_WRITETEST_XML);
+        storage.storeNoteList(noteList, notesWritetestXml);
 
         // read the list from the created file again
         // => compare the content, needs to be same
-        NoteList noteListNew = storage.readNoteList(NOTES_WRITETEST_XML);
+        NoteList noteListNew = storage.readNoteList(notesWritetestXml);
         checkNoteListContent(noteListNew);
     }
 
@@ -383,7 +441,7 @@ public class XMLStorageTest {
      *
      * @param noteList NoteList to check
      */
-    private void checkNoteListContent(NoteList noteList) {
+    static void checkNoteListContent(NoteList noteList) {
         assertNotNull(noteList);
         assertEquals(noteList.size(), 3);
 
@@ -410,18 +468,18 @@ public class XMLStorageTest {
     public void testReadWeightList() throws STException {
 
         // read valid weight list from XML and check content
-        WeightList weightList = storage.readWeightList("misc/testdata/weights-valid.xml");
+        WeightList weightList = storage.readWeightList(testFile("weights-valid.xml"));
         checkWeightListContent(weightList);
 
         // read weight list from not existing XML
         // => an empty List must be returned (same as first application startup)
-        WeightList weightListEmpty = storage.readWeightList("misc/testdata/weights-xyz.xml");
+        WeightList weightListEmpty = storage.readWeightList(testFile("weights-xyz.xml"));
         assertEquals(0, weightListEmpty.size());
 
         // read invalid weight list from XML
         // => an STException needs to be thrown
         assertThrows(STException.class, () ->
-            storage.readWeightList("misc/testdata/weights-invalid.xml"));
+            storage.readWeightList(testFile("weights-invalid.xml")));
     }
 
     /**
@@ -431,24 +489,44 @@ public class XMLStorageTest {
     public void testStoreWeightList() throws STException {
 
         // read valid WeightList from XML (has been checked in previous test)
-        WeightList weightList = storage.readWeightList("misc/testdata/weights-valid.xml");
+        WeightList weightList = storage.readWeightList(testFile("weights-valid.xml"));
 
         // store the read sport type list to a new file
-        storage.storeWeightList(weightList, WEIGHTS_WRITETEST_XML);
+        storage.storeWeightList(weightList, weightsWritetestXml);
 
         // read the list from the created file again
         // => compare the content, needs to be same
-        WeightList weightListNew = storage.readWeightList(WEIGHTS_WRITETEST_XML);
+        WeightList weightListNew = storage.readWeightList(weightsWritetestXml);
         checkWeightListContent(weightListNew);
     }
 
+    /**
+     * Tests of the method storeBatch(): all lists of the batch must be stored, the
+     * temporary files of the atomic writing must not exist anymore.
+     */
+    @Test
+    public void testStoreBatch() throws STException {
+        NoteList noteList = storage.readNoteList(testFile("notes-valid.xml"));
+        WeightList weightList = storage.readWeightList(testFile("weights-valid.xml"));
+
+        storage.storeBatch(batchStorage -> {
+            batchStorage.storeNoteList(noteList, notesWritetestXml);
+            batchStorage.storeWeightList(weightList, weightsWritetestXml);
+        });
+
+        checkNoteListContent(storage.readNoteList(notesWritetestXml));
+        checkWeightListContent(storage.readWeightList(weightsWritetestXml));
+        assertFalse(new File(notesWritetestXml + XMLUtils.TEMP_FILE_SUFFIX).exists());
+        assertFalse(new File(weightsWritetestXml + XMLUtils.TEMP_FILE_SUFFIX).exists());
+    }
+
     /**
      * This helper methods checks the content of the specified WeightList.
      * It has to be exactly same as in "misc/testdata/weights-valid.xml".
      *
      * @param weightList WeightList to check
      */
-    private void checkWeightListContent(WeightList weightList) {
+    static void checkWeightListContent(WeightList weightList) {
         assertNotNull(weightList);
         assertEquals(3, weightList.size());
 
@@ -0,0 +1,111 @@
+package de.saring.sportstracker.storage;
+
+import de.saring.sportstracker.core.STException;
+import de.saring.sportstracker.data.Note;
+import de.saring.sportstracker.data.NoteList;
+import de.saring.sportstracker.data.SportTypeList;
+import de.saring.util.unitcalc.SpeedMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class contains all unit tests for the XMLStreamStorage class. It executes the same
+ * tests as for XMLStorage, the results of the StAX based reading and writing must be the same.
+ *
+ * @author Stefan Saring
+ */
+public class XMLStreamStorageTest extends XMLStorageTest {
+
+    @TempDir
+    File tempDir;
+
+    @Override
+    protected XMLStorage createStorage() {
+        return new XMLStreamStorage();
+    }
+
+    /**
+     * Tests that the XML file written by the streaming writer can be read by the JDOM based
+     * XMLStorage, texts with special characters and empty texts must be restored properly.
+     */
+    @Test
+    public void testStoreStreamingReadJDOM() throws STException {
+        NoteList noteList = new NoteList();
+        Note note1 = new Note(1);
+        note1.setDateTime(LocalDateTime.of(2020, 3, 1, 10, 15, 0));
+        note1.setComment("Line 1 <tag> & \"quotes\" äöü\nLine 2");
+        noteList.set(note1);
+        Note note2 = new Note(2);
+        note2.setDateTime(LocalDateTime.of(2020, 3, 2, 8, 0, 0));
+        note2.setComment("");
+        noteList.set(note2);
+
+        String filename = new File(tempDir, "notes.xml").getPath();
+        new XMLStreamStorage().storeNoteList(noteList, filename);
+
+        NoteList noteListRead = new XMLStorage().readNoteList(filename);
+        assertEquals(2, noteListRead.size());
+        assertEquals(note1.getDateTime(), noteListRead.getByID(1).getDateTime());
+        assertEquals(note1.getComment(), noteListRead.getByID(1).getComment());
+        assertEquals("", noteListRead.getByID(2).getComment());
+    }
+
+    /**
+     * Tests that the lists are read from the binary cache as long as the size and modification time
+     * of the XML file are not changed. Otherwise and for corrupt caches the XML file must be read.
+     */
+    @Test
+    public void testReadFromSnapshotCache() throws STException, IOException {
+        Path notesFile = new File(tempDir, "notes.xml").toPath();
+        Files.copy(Paths.get(testFile("notes-valid.xml")), notesFile);
+        new XMLStreamStorage().readNoteList(notesFile.toString());
+        Path cacheFile = BinarySnapshotCache.getCacheFile(notesFile.toString());
+        assertTrue(Files.exists(cacheFile));
+
+        // modify the XML file without changing the size and modification time => cache must be used
+        FileTime lastModified = Files.getLastModifiedTime(notesFile);
+        String xmlContent = new String(Files.readAllBytes(notesFile), StandardCharsets.UTF_8);
+        Files.write(notesFile, xmlContent.replace("Note 1", "Xote 1").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(notesFile, lastModified);
+        assertEquals("Note 1", new XMLStreamStorage().readNoteList(notesFile.toString()).getByID(1).getComment());
+
+        // modified XML file => XML must be read and the cache must be updated
+        Files.setLastModifiedTime(notesFile, FileTime.fromMillis(lastModified.toMillis() + 2000));
+        assertEquals("Xote 1", new XMLStreamStorage().readNoteList(notesFile.toString()).getByID(1).getComment());
+        assertEquals("Xote 1", new XMLStreamStorage().readNoteList(notesFile.toString()).getByID(1).getComment());
+
+        // corrupt cache => XML must be read
+        byte[] cacheContent = Files.readAllBytes(cacheFile);
+        cacheContent[cacheContent.length / 2] ^= 0x55;
+        Files.write(cacheFile, cacheContent);
+        assertEquals(3, new XMLStreamStorage().readNoteList(notesFile.toString()).size());
+    }
+
+    /**
+     * Tests that the exercises stored with their cache are restored completely from the cache.
+     */
+    @Test
+    public void testStoreAndReadExercisesFromSnapshotCache() throws STException {
+        XMLStorage storage = new XMLStreamStorage();
+        SportTypeList sportTypeList = storage.readSportTypeList(testFile("sport-types-valid.xml"),
+                SpeedMode.SPEED);
+        String exercisesFile = new File(tempDir, "exercises.xml").getPath();
+        storage.storeExerciseList(new XMLStorage().readExerciseList(testFile("exercises-valid.xml"),
+                sportTypeList), exercisesFile);
+        assertTrue(new File(BinarySnapshotCache.getCacheFile(exercisesFile).toString()).exists());
+
+        checkExerciseListContent(new XMLStreamStorage().readExerciseList(exercisesFile, sportTypeList));
+    }
+}
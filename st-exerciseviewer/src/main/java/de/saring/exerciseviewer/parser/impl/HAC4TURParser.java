@@ -2,15 +2,13 @@ package de.saring.exerciseviewer.parser.impl;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.data.ExerciseAltitude;
 import de.saring.exerciseviewer.data.ExerciseCadence;
-import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSamples;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.ExerciseTemperature;
 import de.saring.exerciseviewer.data.HeartRateLimit;
@@ -20,6 +18,7 @@ import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.LapTemperature;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileReader;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 
 /**
@@ -60,133 +59,96 @@ public class HAC4TURParser extends AbstractExerciseParser {
     }
 
     /**
-     * Private inner class which is used for reading samples from the file.
+     * Private inner class which is used for reading samples from the file. It does not copy the sample bytes,
+     * it reads all values from the current sample position in the file content. Only a truncated last sample
+     * is copied, it's padded with zero bytes.
      */
     private static class Sample {
-        private int[] contents = new int[20];
-        private int distance = 0;
-        private int altitude;
-        private int heartRate;
-        private int cadence;
-        private int temperature;
-        private long time;
+        private static final int SAMPLE_LENGTH = 20;
+
+        private final BinaryFileReader fileContents;
+        private BinaryFileReader contents;
+        private int offset;
+
+        public Sample(BinaryFileReader fileContents) {
+            this.fileContents = fileContents;
+        }
 
         /**
-         * Construct a new sample with the sample bytes. This will initialize
-         * all sample values.
+         * Moves this sample to the specified position in the file content.
          */
-        public Sample(int[] contents) throws EVException {
-            if (contents.length != 20) {
-                throw new EVException("Length of a sample should be 20 bytes!");
+        public void moveTo(int offset) throws EVException {
+            if (offset < 0 || offset > fileContents.getSize()) {
+                throw new EVException("The sample position " + offset + " is outside of the file!");
+            }
+
+            if (offset + SAMPLE_LENGTH <= fileContents.getSize()) {
+                this.contents = fileContents;
+                this.offset = offset;
+            } else {
+                // the last sample is truncated in some files => the missing bytes are zero
+                this.contents = fileContents.copyOfRange(offset, offset + SAMPLE_LENGTH);
+                this.offset = 0;
             }
-            this.contents = contents;
-            initializeValues();
         }
 
         /**
          * distance in kilometers
          */
         public int getDistance() {
-            return distance;
+            return (int) contents.getUnsignedInt(offset + 8);
         }
 
         /**
          * altitude in meters
          */
         public int getAltitude() {
-            return altitude;
+            return contents.getUnsignedShort(offset + 12);
         }
 
         /**
          * heart rate
          */
         public int getHeartRate() {
-            return heartRate;
+            return contents.getUnsignedByte(offset + 14);
         }
 
         /**
          * cadence
          */
         public int getCadence() {
-            return cadence;
+            return contents.getUnsignedByte(offset + 15);
         }
 
         /**
          * time
          */
         public long getTime() {
-            return time;
+            return contents.getUnsignedInt(offset);
         }
 
         /**
          * temperature in degrees celcius
          */
         public int getTemperature() {
-            return temperature;
-        }
-
-        private void initializeValues() {
-            this.distance = calculateDistance();
-            this.altitude = calculateAltitude();
-            this.heartRate = calculateHeartRate();
-            this.cadence = calculateCadence();
-            this.temperature = calculateTemperature();
-            this.time = calculateTime();
-        }
-
-        private long calculateTime() {
-            int[] timeBytes = Arrays.copyOfRange(contents, 0, 0 + 4);
-            return (timeBytes[0] & 0xff)
-                    + ((timeBytes[1] << 8) & 0xff00)
-                    + ((timeBytes[2] << 16) & 0xff0000)
-                    + ((timeBytes[3] << 24) & 0xff000000);
-        }
-
-        private int calculateDistance() {
-            int[] distanceBytes = Arrays.copyOfRange(contents, 8, 8 + 4);
-            int distance = 0;
-            for (int theByte = 0; theByte < distanceBytes.length; theByte++) {
-                distance += distanceBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return distance;
-        }
-
-        private int calculateAltitude() {
-            int[] altitudeBytes = Arrays.copyOfRange(contents, 12, 12 + 2);
-            int altitude = 0;
-            for (int theByte = 0; theByte < altitudeBytes.length; theByte++) {
-                altitude += altitudeBytes[theByte] * (int) Math.pow(2, theByte * 8);
-            }
-            return altitude;
-        }
-
-        private int calculateHeartRate() {
-            return contents[14];
-        }
-
-        private int calculateCadence() {
-            return contents[15];
-        }
-
-        private int calculateTemperature() {
-            return contents[16];
+            return contents.getUnsignedByte(offset + 16);
         }
 
         @Override
         public String toString() {
             StringBuilder builder = new StringBuilder();
-            builder.append("distance = ").append(distance).append(", ");
-            builder.append("altitude = ").append(altitude).append(", ");
-            builder.append("HR = ").append(heartRate).append(", ");
-            builder.append("Cadence = ").append(cadence).append(", ");
-            builder.append("Temp = ").append(temperature).append(", ");
-            builder.append("Time (seconds) = ").append(time).append(", ");
+            builder.append("distance = ").append(getDistance()).append(", ");
+            builder.append("altitude = ").append(getAltitude()).append(", ");
+            builder.append("HR = ").append(getHeartRate()).append(", ");
+            builder.append("Cadence = ").append(getCadence()).append(", ");
+            builder.append("Temp = ").append(getTemperature()).append(", ");
+            builder.append("Time (seconds) = ").append(getTime()).append(", ");
             return builder.toString();
         }
     }
 
     private List<String> fileContent;
-    private int[] fileContentsBytes;
+    private BinaryFileReader fileContentsBytes;
     private int nrOfLinesInNote;
     private int sampleInterval;
 
@@ -202,7 +164,7 @@ public class HAC4TURParser extends AbstractExerciseParser {
         // we'll need both as the tur file contains both text (header)
         // and binary (samples) information.
         fileContent = readFileToStringList(filename);
-        fileContentsBytes = readFileToByteArray(filename);
+        fileContentsBytes = readBinaryFile(filename);
 
         // Create a new exercise file and give it the right type
         EVExercise exercise = new EVExercise(EVExercise.ExerciseFileType.HAC4TUR);
@@ -251,9 +213,9 @@ public class HAC4TURParser extends AbstractExerciseParser {
         exercise.setRecordingInterval((short) sampleInterval);
 
         // read all samples
-        exercise.setSampleList(readSamples(
+        readSamples(exercise.getSamples(),
                 FilePosition.NR_SAMPLES + nrOfLinesInNote,
-                FilePosition.BEGIN_SAMPLES + nrOfLinesInNote));
+                FilePosition.BEGIN_SAMPLES + nrOfLinesInNote);
 
         // now that we have the samples, other values can be calculated.
         exercise.setAltitude(calculateAltitudes(exercise));
@@ -282,9 +244,10 @@ public class HAC4TURParser extends AbstractExerciseParser {
         int ascent = 0;
         long total = 0;
         short prevAlt = Short.MAX_VALUE;
+        ExerciseSamples samples = exercise.getSamples();
 
-        for (ExerciseSample sample : exercise.getSampleList()) {
-            short alt = sample.getAltitude();
+        for (int i = 0; i < samples.getSize(); i++) {
+            short alt = samples.getAltitude(i);
 
             // update values
             min = Math.min(alt, min);
@@ -296,7 +259,7 @@ public class HAC4TURParser extends AbstractExerciseParser {
             total += alt;
         }
 
-        short altitudeAVG = (short) (total / exercise.getSampleList().size());
+        short altitudeAVG = (short) (total / samples.getSize());
         return new ExerciseAltitude((short) min, altitudeAVG, (short) max, ascent, 0);
     }
 
@@ -306,14 +269,15 @@ public class HAC4TURParser extends AbstractExerciseParser {
     private ExerciseCadence calculateCadence(EVExercise exercise) {
         int cadenceMax = Integer.MIN_VALUE;
         long total = 0;
+        ExerciseSamples samples = exercise.getSamples();
 
-        for (ExerciseSample sample : exercise.getSampleList()) {
-            short cadence = sample.getCadence();
+        for (int i = 0; i < samples.getSize(); i++) {
+            short cadence = samples.getCadence(i);
             cadenceMax = Math.max(cadence, cadenceMax);
             total += cadence;
         }
 
-        short cadenceAvg = (short) (total / exercise.getSampleList().size());
+        short cadenceAvg = (short) (total / samples.getSize());
         return new ExerciseCadence(cadenceAvg, (short) cadenceMax, null);
     }
 
@@ -326,18 +290,20 @@ public class HAC4TURParser extends AbstractExerciseParser {
         int nrMovingIntervals = 0; // nr of intervals bike was moving
         float speedAVG = 0.0f;
         int previousDistance = 0;
+        ExerciseSamples samples = exercise.getSamples();
 
-        for (ExerciseSample sample : exercise.getSampleList()) {
-            if (sample.getDistance() > previousDistance) {
+        for (int i = 0; i < samples.getSize(); i++) {
+            int sampleDistance = samples.getDistance(i);
+            float sampleSpeed = samples.getSpeed(i);
+            if (sampleDistance > previousDistance) {
                 nrMovingIntervals++;
-                speedAVG = speedAVG + ((sample.getSpeed() - speedAVG) / nrMovingIntervals);
+                speedAVG = speedAVG + ((sampleSpeed - speedAVG) / nrMovingIntervals);
             }
-            max = Math.max(max, sample.getSpeed());
-            previousDistance = sample.getDistance();
+            max = Math.max(max, sampleSpeed);
+            previousDistance = sampleDistance;
         }
 
-        int sampleCount = exercise.getSampleList().size();
-        int distance = exercise.getSampleList().get(sampleCount - 1).getDistance();
+        int distance = samples.getDistance(samples.getSize() - 1);
         return new ExerciseSpeed(speedAVG, max, distance);
     }
 
@@ -348,14 +314,16 @@ public class HAC4TURParser extends AbstractExerciseParser {
         int min = Integer.MAX_VALUE;
         int max = Integer.MIN_VALUE;
         long total = 0;
+        ExerciseSamples samples = exercise.getSamples();
 
-        for (ExerciseSample sample : exercise.getSampleList()) {
-            min = Math.min(min, sample.getTemperature());
-            max = Math.max(max, sample.getTemperature());
-            total += sample.getTemperature();
+        for (int i = 0; i < samples.getSize(); i++) {
+            short temperature = samples.getTemperature(i);
+            min = Math.min(min, temperature);
+            max = Math.max(max, temperature);
+            total += temperature;
         }
 
-        short avg = (short) (total / exercise.getSampleList().size());
+        short avg = (short) (total / samples.getSize());
         return new ExerciseTemperature((short) min, avg, (short) max);
     }
 
@@ -371,9 +339,10 @@ public class HAC4TURParser extends AbstractExerciseParser {
         int intervalsBelow = 0;
         int intervalsBetween = 0;
         int intervalsAbove = 0;
+        ExerciseSamples samples = exercise.getSamples();
 
-        for (ExerciseSample sample : exercise.getSampleList()) {
-            short hr = sample.getHeartRate();
+        for (int i = 0; i < samples.getSize(); i++) {
+            short hr = samples.getHeartRate(i);
             max = Math.max(max, hr);
 
             if (hr < lower) {
@@ -399,23 +368,24 @@ public class HAC4TURParser extends AbstractExerciseParser {
      * a Lap object with values from the complete exercise.
      */
     private List<Lap> getLaps(EVExercise exercise) {
-        ExerciseSample lastSample = exercise.getSampleList().get(exercise.getSampleList().size() - 1);
+        ExerciseSamples samples = exercise.getSamples();
+        int lastSample = samples.getSize() - 1;
 
         Lap lap = new Lap();
         lap.setTimeSplit(exercise.getDuration());
-        lap.setHeartRateSplit(lastSample.getHeartRate());
+        lap.setHeartRateSplit(samples.getHeartRate(lastSample));
         lap.setHeartRateMax(exercise.getHeartRateMax());
         lap.setHeartRateAVG(exercise.getHeartRateAVG());
 
-        lap.setAltitude(new LapAltitude(lastSample.getAltitude(), exercise.getAltitude().getAscent(), 0));
+        lap.setAltitude(new LapAltitude(samples.getAltitude(lastSample), exercise.getAltitude().getAscent(), 0));
 
         lap.setSpeed(new LapSpeed(
-                lastSample.getSpeed(),
+                samples.getSpeed(lastSample),
                 exercise.getSpeed().getSpeedAvg(),
                 exercise.getSpeed().getDistance(),
-                lastSample.getCadence()));
+                samples.getCadence(lastSample)));
 
-        lap.setTemperature(new LapTemperature(lastSample.getTemperature()));
+        lap.setTemperature(new LapTemperature(samples.getTemperature(lastSample)));
 
         return List.of(lap);
     }
@@ -433,23 +403,23 @@ public class HAC4TURParser extends AbstractExerciseParser {
             lengthUntilSamples += fileContent.get(i).length() + 1;
 
         // start reading samples
-        int[] firstSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples, lengthUntilSamples + 20);
-        int[] secondSampleBytes = Arrays.copyOfRange(fileContentsBytes, lengthUntilSamples + 20, lengthUntilSamples + 40);
-        Sample firstSample = new Sample(firstSampleBytes);
-        Sample secondSample = new Sample(secondSampleBytes);
-        return (int) (secondSample.getTime() - firstSample.getTime());
+        Sample sample = new Sample(fileContentsBytes);
+        sample.moveTo(lengthUntilSamples);
+        long firstSampleTime = sample.getTime();
+        sample.moveTo(lengthUntilSamples + Sample.SAMPLE_LENGTH);
+        return (int) (sample.getTime() - firstSampleTime);
     }
 
     /**
      * Reads the raw sample data. This uses the private inner Sample class for
-     * temporary storing the samples. It parses the number of samples and the sample
+     * reading the samples. It parses the number of samples and the sample
      * data from the specified file positions.
      *
+     * @param exerciseSamples the exercise samples to fill
      * @param fpNrSamples file position for the number of samples
      * @param fpBeginSamples file position for the begin of sample data
-     * @return the created list of exercise samples
      */
-    private List<ExerciseSample> readSamples(int fpNrSamples, int fpBeginSamples) throws EVException {
+    private void readSamples(ExerciseSamples exerciseSamples, int fpNrSamples, int fpBeginSamples) throws EVException {
 
         int nrSamples = readInteger(fpNrSamples);
         // find length of all strings to this point
@@ -459,33 +429,27 @@ public class HAC4TURParser extends AbstractExerciseParser {
         }
 
         // start reading samples
-        List<Sample> samples = new ArrayList<>();
-        for (int i = 0; i < nrSamples; i++) {
-            int startFrom = lengthUntilSamples + (i * 20);
-            int[] sampleBytes = Arrays.copyOfRange(fileContentsBytes, startFrom, startFrom + 20);
-            samples.add(new Sample(sampleBytes));
-        }
-
-        List<ExerciseSample> eSamples = new ArrayList<>();
+        Sample sample = new Sample(fileContentsBytes);
         int previousDistance = 0;
-        long firstTimestamp = nrSamples > 0 ? samples.get(0).getTime() : 0;
+        long firstTimestamp = 0;
 
         for (int i = 0; i < nrSamples; i++) {
-            Sample sample = samples.get(i);
-            ExerciseSample eSample = new ExerciseSample();
-            eSamples.add(eSample);
-            eSample.setTimestamp((sample.getTime() - firstTimestamp) * 1000L);
-            eSample.setHeartRate((short) sample.getHeartRate());
-            eSample.setAltitude((short) sample.getAltitude());
-            eSample.setCadence((short) sample.getCadence());
+            sample.moveTo(lengthUntilSamples + (i * Sample.SAMPLE_LENGTH));
+            if (i == 0) {
+                firstTimestamp = sample.getTime();
+            }
+
+            int sampleIndex = exerciseSamples.addSample();
+            exerciseSamples.setTimestamp(sampleIndex, (sample.getTime() - firstTimestamp) * 1000L);
+            exerciseSamples.setHeartRate(sampleIndex, (short) sample.getHeartRate());
+            exerciseSamples.setAltitude(sampleIndex, (short) sample.getAltitude());
+            exerciseSamples.setCadence(sampleIndex, (short) sample.getCadence());
             int distanceDiff = sample.getDistance() - previousDistance;
             previousDistance = sample.getDistance();
-            eSample.setDistance(sample.getDistance() * 10);
-            eSample.setSpeed(((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f);
-            eSample.setTemperature((short) sample.getTemperature());
+            exerciseSamples.setDistance(sampleIndex, sample.getDistance() * 10);
+            exerciseSamples.setSpeed(sampleIndex, ((float) distanceDiff / (float) sampleInterval) * (float) 3.6 * 10f);
+            exerciseSamples.setTemperature(sampleIndex, (short) sample.getTemperature());
         }
-
-        return eSamples;
     }
 
     /**
@@ -8,6 +8,7 @@ import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.data.HeartRateLimit;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileReader;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 
 /**
@@ -50,7 +51,7 @@ public class PolarF6RawParser extends AbstractExerciseParser {
     /**
      * The binary data of the exercise file.
      */
-    private int[] fileContent;
+    private BinaryFileReader fileContent;
 
     @Override
     public ExerciseParserInfo getInfo() {
@@ -60,47 +61,47 @@ public class PolarF6RawParser extends AbstractExerciseParser {
     @Override
     public EVExercise parseExercise(String filename) throws EVException {
         // read binary file content to array
-        fileContent = readFileToByteArray(filename);
+        fileContent = readBinaryFile(filename);
 
         // create an PVExercise object from this data and set file type
         EVExercise exercise = new EVExercise(EVExercise.ExerciseFileType.F6RAW);
         exercise.setDeviceName("Polar F Series");
 
         // check wheter the read data fits the expected data length
-        if (fileContent.length != F6_EXERCISE_FILE_LENGTH && fileContent.length != F11_EXERCISE_FILE_LENGTH) {
+        if (fileContent.getSize() != F6_EXERCISE_FILE_LENGTH && fileContent.getSize() != F11_EXERCISE_FILE_LENGTH) {
             throw new EVException("The exercise file is not valid, the file length is not correct ...");
         }
 
         // read the exercise name
         StringBuilder exerciseName = new StringBuilder();
         int i = 0;
-        while ((fileContent[i] & 0x80) != 0x80 && i < 8) {
-            exerciseName.append(decodeChar(fileContent[i]));
+        while ((fileContent.getUnsignedByte(i) & 0x80) != 0x80 && i < 8) {
+            exerciseName.append(decodeChar(fileContent.getUnsignedByte(i)));
             i++;
         }
-        exerciseName.append(String.valueOf(fileContent[i] - 0x80));
+        exerciseName.append(String.valueOf(fileContent.getUnsignedByte(i) - 0x80));
         exercise.setType(exerciseName.toString());
 
         // read the exercise date
-        int dateDay = fileContent[8];
-        int dateMonth = fileContent[9];
-        int dateYear = 2000 + fileContent[10];
-        int dateSeconds = decodeBCD(fileContent[11]);
-        int dateMinutes = decodeBCD(fileContent[12]);
-        int dateHours = decodeBCD(fileContent[13]);
+        int dateDay = fileContent.getUnsignedByte(8);
+        int dateMonth = fileContent.getUnsignedByte(9);
+        int dateYear = 2000 + fileContent.getUnsignedByte(10);
+        int dateSeconds = decodeBCD(fileContent.getUnsignedByte(11));
+        int dateMinutes = decodeBCD(fileContent.getUnsignedByte(12));
+        int dateHours = decodeBCD(fileContent.getUnsignedByte(13));
 
         // add exercise to the calendar
         exercise.setDateTime(LocalDateTime.of(dateYear, dateMonth, dateDay, dateHours, dateMinutes, dateSeconds));
 
         // get duration
-        int durationSeconds = decodeBCD(fileContent[14]);
-        int durationMinutes = decodeBCD(fileContent[15]);
-        int durationHours = decodeBCD(fileContent[16]);
+        int durationSeconds = decodeBCD(fileContent.getUnsignedByte(14));
+        int durationMinutes = decodeBCD(fileContent.getUnsignedByte(15));
+        int durationHours = decodeBCD(fileContent.getUnsignedByte(16));
         exercise.setDuration((durationHours * 60 * 60 * 10) + (durationMinutes * 60 * 10) + durationSeconds * 10);
 
         // get heartrate data
-        exercise.setHeartRateAVG((short) fileContent[17]);
-        exercise.setHeartRateMax((short) fileContent[18]);
+        exercise.setHeartRateAVG((short) fileContent.getUnsignedByte(17));
+        exercise.setHeartRateMax((short) fileContent.getUnsignedByte(18));
 
         // decode recording mode (heartrate is always recorded)
         // (not available in F6/F11 files)
@@ -136,8 +137,8 @@ public class PolarF6RawParser extends AbstractExerciseParser {
         exercise.getHeartRateLimits().add(heartRateLimit3);
 
         // get energy (in kCal)
-        int energyLowByte = fileContent[19];
-        int energyHighByte = fileContent[20];
+        int energyLowByte = fileContent.getUnsignedByte(19);
+        int energyHighByte = fileContent.getUnsignedByte(20);
         exercise.setEnergy(energyLowByte + (energyHighByte << 8));
 
         // Note: the following data is appended from the totals section to each
@@ -145,20 +146,20 @@ public class PolarF6RawParser extends AbstractExerciseParser {
 
         // set the offset if the file is a 50 byte F11 file
         int offset = 0;
-        if (fileContent.length == F11_EXERCISE_FILE_LENGTH) {
+        if (fileContent.getSize() == F11_EXERCISE_FILE_LENGTH) {
             offset = 1;
         }
 
         // get the total exercise time
-        int cumWorkoutSeconds = decodeBCD(fileContent[43 + offset]);
-        int cumWorkoutMinutes = decodeBCD(fileContent[44 + offset]);
-        int cumWorkoutHours = decodeBCD(fileContent[45 + offset]);
+        int cumWorkoutSeconds = decodeBCD(fileContent.getUnsignedByte(43 + offset));
+        int cumWorkoutMinutes = decodeBCD(fileContent.getUnsignedByte(44 + offset));
+        int cumWorkoutHours = decodeBCD(fileContent.getUnsignedByte(45 + offset));
         exercise.setSumExerciseTime((cumWorkoutHours * 60) + cumWorkoutMinutes + (cumWorkoutSeconds / 60));
 
         // get total energy
-        int energyTotalPart1 = decodeBCD(fileContent[46 + offset]);
-        int energyTotalPart2 = decodeBCD(fileContent[47 + offset]);
-        int energyTotalPart3 = decodeBCD(fileContent[48 + offset]);
+        int energyTotalPart1 = decodeBCD(fileContent.getUnsignedByte(46 + offset));
+        int energyTotalPart2 = decodeBCD(fileContent.getUnsignedByte(47 + offset));
+        int energyTotalPart3 = decodeBCD(fileContent.getUnsignedByte(48 + offset));
         exercise.setEnergyTotal((energyTotalPart3 * 10000) + (energyTotalPart2 * 100) + energyTotalPart1);
 
         return exercise;
@@ -302,12 +303,12 @@ public class PolarF6RawParser extends AbstractExerciseParser {
      * @return the filled HeartRateLimit object
      */
     private HeartRateLimit decodeHeartRateLimit(int offsetLimits, int offsetTimes) {
-        short lowerHeartRate = (short) fileContent[offsetLimits + 0];
-        short upperHeartRate = (short) fileContent[offsetLimits + 1];
+        short lowerHeartRate = (short) fileContent.getUnsignedByte(offsetLimits + 0);
+        short upperHeartRate = (short) fileContent.getUnsignedByte(offsetLimits + 1);
 
-        int hrLimitWithinSecs = decodeBCD(fileContent[offsetTimes]);
-        hrLimitWithinSecs += decodeBCD(fileContent[offsetTimes + 1]) * 60;
-        hrLimitWithinSecs += decodeBCD(fileContent[offsetTimes + 2]) * 60 * 60;
+        int hrLimitWithinSecs = decodeBCD(fileContent.getUnsignedByte(offsetTimes));
+        hrLimitWithinSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 1)) * 60;
+        hrLimitWithinSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 2)) * 60 * 60;
 
         return new HeartRateLimit(lowerHeartRate, upperHeartRate, null, hrLimitWithinSecs, null, true);
     }
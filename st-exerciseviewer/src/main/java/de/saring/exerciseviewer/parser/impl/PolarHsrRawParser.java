@@ -5,13 +5,14 @@ import java.util.List;
 
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
-import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSamples;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.HeartRateLimit;
 import de.saring.exerciseviewer.data.Lap;
 import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileReader;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 import de.saring.util.unitcalc.ConvertUtils;
 
@@ -43,11 +44,15 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
     /**
      * The binary data of the exercise file.
      */
-    private int[] fileContent;
+    private BinaryFileReader fileContent;
     /**
-     * section data
+     * file offsets of the section data
      */
-    private int[][] s;
+    private int[] sectionOffsets;
+    /**
+     * lengths of the section data
+     */
+    private int[] sectionLengths;
 
 
     @Override
@@ -59,15 +64,15 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         section += index / 60;
         index %= 60;
 
-        if (section >= s.length) {
+        if (section >= sectionOffsets.length) {
             throw new EVException(String.format("Error! Section %d does not exist", section));
         }
-        if (index >= s[section].length) {
+        if (index >= sectionLengths[section]) {
             throw new EVException(String.format("Error! Byte %d in section %d does not exist (%d)",
-                    index, section, s[section].length));
+                    index, section, sectionLengths[section]));
         }
 
-        return s[section][index];
+        return fileContent.getUnsignedByte(sectionOffsets[section] + index);
     }
 
     @Override
@@ -76,7 +81,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         short[] interval = {5, 15, 30, 60, 120, 240, 300, 480};
 
         // read binary file content to array
-        fileContent = readFileToByteArray(filename);
+        fileContent = readBinaryFile(filename);
 
         // create an PVExercise object from this data and set file type
         // TODO - support S410 and S520
@@ -84,30 +89,31 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         exercise.setDeviceName("Polar S4xx/S5xx Series");
 
         // get bytes in file
-        int bytesInFile = (fileContent[1] * 0x100) + fileContent[0];
-        if (bytesInFile != fileContent.length) {
+        int bytesInFile = fileContent.getUnsignedShort(0);
+        if (bytesInFile != fileContent.getSize()) {
             throw new EVException("The exercise file is not valid, the file length is not correct ...");
         }
 
-        // get data bytes
-        int bytesInData = bytesInFile - 2;
-        int[] data = new int[bytesInData];
-        System.arraycopy(fileContent, 2, data, 0, bytesInData);
+        // get data bytes (they start after the file length)
+        int dataOffset = 2;
+        int bytesInData = bytesInFile - dataOffset;
 
         // process data
         int ii = 0;
         int sectionIx = 0;
         int sectionsInData = 0;
-        s = new int[1][1];
+        sectionOffsets = new int[1];
+        sectionLengths = new int[1];
 
         while (ii < bytesInData) {
             if (sectionIx == 0) {
                 // get first section
-                if (data[0] == 85) {
-                    sectionsInData = data[3];
+                if (fileContent.getUnsignedByte(dataOffset) == 85) {
+                    sectionsInData = fileContent.getUnsignedByte(dataOffset + 3);
 
-                    // alloc mem
-                    s = new int[sectionsInData + 1][];
+                    // alloc mem for section positions
+                    sectionOffsets = new int[sectionsInData + 1];
+                    sectionLengths = new int[sectionsInData + 1];
 
                     // ok, first section read, continue
                     sectionIx++;
@@ -118,18 +124,19 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
                 }
             } else {
                 // find new section
-                if (data[ii] == 85) {
+                if (fileContent.getUnsignedByte(dataOffset + ii) == 85) {
                     // check section number
-                    if (data[ii + 1] != sectionIx) {
+                    if (fileContent.getUnsignedByte(dataOffset + ii + 1) != sectionIx) {
                         throw new EVException("Wrong section index in file");
                     }
 
-                    // allocate memory for this section
-                    int sectionLength = data[ii + 2];
-                    s[sectionIx] = new int[sectionLength];
-
-                    // set data in sections array (s) 
-                    System.arraycopy(data, ii + 3, s[sectionIx], 0, sectionLength);
+                    // store the position of this section data (no copy needed)
+                    int sectionLength = fileContent.getUnsignedByte(dataOffset + ii + 2);
+                    if (dataOffset + ii + 3 + sectionLength > fileContent.getSize()) {
+                        throw new EVException("Section " + sectionIx + " exceeds the end of the file");
+                    }
+                    sectionOffsets[sectionIx] = dataOffset + ii + 3;
+                    sectionLengths[sectionIx] = sectionLength;
 
                     //System.out.format(">>> new section #%d(%d) found at %d with %d bytes\n", 
                     //        sectionIx, sectionsInData, ii, sectionLength);
@@ -145,7 +152,7 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
             if ((sectionIx - 1) != sectionsInData) {
                 throw new EVException("Could not find all sections");
             }
-            if (data[ii] != 7) {
+            if (fileContent.getUnsignedByte(dataOffset + ii) != 7) {
                 throw new EVException("Could not find no-more-sections byte in file");
             }
             // ok, all set
@@ -341,9 +348,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         int lapseccnt = (int) (((double) (numberOfMeas * lapSize) / 60) + .9999);
 
         // check section size
-        if (s[lapsec + lapseccnt - 1].length != (numberOfMeas * lapSize) % 60) {
+        if (sectionLengths[lapsec + lapseccnt - 1] != (numberOfMeas * lapSize) % 60) {
             throw new EVException(String.format("Lap-data section (%d) has wrong size (%d instead of %d)",
-                    lapsec + lapseccnt - 1, s[lapsec + lapseccnt - 1].length, (numberOfMeas * lapSize) % 60));
+                    lapsec + lapseccnt - 1, sectionLengths[lapsec + lapseccnt - 1], (numberOfMeas * lapSize) % 60));
         }
 
         // process all laps
@@ -403,13 +410,13 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
         int spdsec = 4 + (numberOfSamples - 1) / 60;
 
         // create sample list => process all recorded samples
+        ExerciseSamples samples = exercise.getSamples();
         for (int i = 0; i < numberOfSamples; i++) {
-            ExerciseSample exeSample = new ExerciseSample();
-            exeSample.setTimestamp(i * exercise.getRecordingInterval() * 1000L);
-            exercise.getSampleList().add(exeSample);
+            int sampleIndex = samples.addSample();
+            samples.setTimestamp(sampleIndex, i * exercise.getRecordingInterval() * 1000L);
 
             // get sample heartrate
-            exeSample.setHeartRate((short) sdata(hrsec, i));
+            samples.setHeartRate(sampleIndex, (short) sdata(hrsec, i));
 
             // get bicycle related data (if recorded)
             if (recMode.isSpeed()) {
@@ -417,9 +424,9 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
                 // get sample speed
                 float sampleSpeed = (float) (sdata(spdsec, i)) / 2f;
                 if (fMetricUnits) {
-                    exeSample.setSpeed(sampleSpeed);
+                    samples.setSpeed(sampleIndex, sampleSpeed);
                 } else {
-                    exeSample.setSpeed((float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
+                    samples.setSpeed(sampleIndex, (float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
                 }
             }
         }
@@ -431,10 +438,10 @@ public class PolarHsrRawParser extends AbstractExerciseParser {
             double distanceAccum = 0f;
 
             // process all recorded samples
-            for (ExerciseSample exeSample : exercise.getSampleList()) {
+            for (int i = 0; i < samples.getSize(); i++) {
                 // compute sample distance (it's not recorded)
-                exeSample.setDistance((int) distanceAccum);
-                distanceAccum += (exeSample.getSpeed() * exercise.getRecordingInterval()) / 3.6f;
+                samples.setDistance(i, (int) distanceAccum);
+                distanceAccum += (samples.getSpeed(i) * exercise.getRecordingInterval()) / 3.6f;
             }
         }
 
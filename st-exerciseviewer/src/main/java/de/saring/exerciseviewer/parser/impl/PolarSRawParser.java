@@ -7,7 +7,7 @@ import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.data.ExerciseAltitude;
 import de.saring.exerciseviewer.data.ExerciseCadence;
-import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSamples;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.ExerciseTemperature;
 import de.saring.exerciseviewer.data.HeartRateLimit;
@@ -17,6 +17,7 @@ import de.saring.exerciseviewer.data.LapSpeed;
 import de.saring.exerciseviewer.data.LapTemperature;
 import de.saring.exerciseviewer.data.RecordingMode;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
+import de.saring.exerciseviewer.parser.BinaryFileReader;
 import de.saring.exerciseviewer.parser.ExerciseParserInfo;
 import de.saring.util.unitcalc.ConvertUtils;
 
@@ -49,7 +50,7 @@ public class PolarSRawParser extends AbstractExerciseParser {
     /**
      * The binary data of the exercise file.
      */
-    private int[] fileContent;
+    private BinaryFileReader fileContent;
 
     @Override
     public ExerciseParserInfo getInfo() {
@@ -59,11 +60,11 @@ public class PolarSRawParser extends AbstractExerciseParser {
     @Override
     public EVExercise parseExercise(String filename) throws EVException {
         // read binary file content to array
-        fileContent = readFileToByteArray(filename);
+        fileContent = readBinaryFile(filename);
 
         // is the SRD file coming from an Polar S610 ?
         // => then we need on many places special handling, because the data is located on other places
-        boolean fS610 = (fileContent[34] == 0) && (fileContent[36] == 251);
+        boolean fS610 = (fileContent.getUnsignedByte(34) == 0) && (fileContent.getUnsignedByte(36) == 251);
 
         // create an PVExercise object from this data and set file type
         EVExercise exercise;
@@ -75,50 +76,50 @@ public class PolarSRawParser extends AbstractExerciseParser {
         exercise.setDeviceName("Polar S6xx/S7xx Series");
 
         // get bytes in file
-        int bytesInFile = (fileContent[1] * 0x100) + fileContent[0];
-        if (bytesInFile != fileContent.length) {
+        int bytesInFile = fileContent.getUnsignedShort(0);
+        if (bytesInFile != fileContent.getSize()) {
             throw new EVException("The exercise file is not valid, the file length is not correct ...");
         }
 
         // get exercise type (label)
         StringBuilder sbExerciseLabel = new StringBuilder();
         for (int i = 0; i < 7; i++) {
-            sbExerciseLabel.append(decodeChar(fileContent[i + 3]));
+            sbExerciseLabel.append(decodeChar(fileContent.getUnsignedByte(i + 3)));
         }
         exercise.setType(sbExerciseLabel.toString());
 
         // get exercise date
-        int dateSeconds = decodeBCD(fileContent[10]);
-        int dateMinutes = decodeBCD(fileContent[11]);
-        int dateHours = decodeBCD(fileContent[12] & 0x7f);
-        int dateDay = decodeBCD(fileContent[13] & 0x7f);
-        int dateYear = 2000 + decodeBCD(fileContent[14]);
-        int dateMonth = fileContent[15] & 0x0f;
+        int dateSeconds = decodeBCD(fileContent.getUnsignedByte(10));
+        int dateMinutes = decodeBCD(fileContent.getUnsignedByte(11));
+        int dateHours = decodeBCD(fileContent.getUnsignedByte(12) & 0x7f);
+        int dateDay = decodeBCD(fileContent.getUnsignedByte(13) & 0x7f);
+        int dateYear = 2000 + decodeBCD(fileContent.getUnsignedByte(14));
+        int dateMonth = fileContent.getUnsignedByte(15) & 0x0f;
 
         // when bit 7 of byte 12 is set, then the hour is in PM mode
-        if (dateHours < 12 && (fileContent[12] & 0x80) == 0x80) {
+        if (dateHours < 12 && (fileContent.getUnsignedByte(12) & 0x80) == 0x80) {
             dateHours += 12;
         }
 
         exercise.setDateTime(LocalDateTime.of(dateYear, dateMonth, dateDay, dateHours, dateMinutes, dateSeconds));
 
         // get duration
-        int durationTenthSeconds = (fileContent[15] >> 4);
-        int durationSeconds = decodeBCD(fileContent[16]);
-        int durationMinutes = decodeBCD(fileContent[17]);
-        int durationHours = decodeBCD(fileContent[18]);
+        int durationTenthSeconds = (fileContent.getUnsignedByte(15) >> 4);
+        int durationSeconds = decodeBCD(fileContent.getUnsignedByte(16));
+        int durationMinutes = decodeBCD(fileContent.getUnsignedByte(17));
+        int durationHours = decodeBCD(fileContent.getUnsignedByte(18));
         exercise.setDuration((durationHours * 60 * 60 * 10) + (durationMinutes * 60 * 10) + durationSeconds * 10 + durationTenthSeconds);
 
         // get heartrate data
-        exercise.setHeartRateAVG((short) fileContent[19]);
-        exercise.setHeartRateMax((short) fileContent[20]);
+        exercise.setHeartRateAVG((short) fileContent.getUnsignedByte(19));
+        exercise.setHeartRateMax((short) fileContent.getUnsignedByte(20));
 
         // get number of laps
-        int numberOfLaps = decodeBCD(fileContent[21]);
+        int numberOfLaps = decodeBCD(fileContent.getUnsignedByte(21));
 
         // get unit format from bit 1 of byte 25
         // => 0 = metric, 1 = english
-        boolean fMetricUnits = (fileContent[25] & 0x02) == 0x00;
+        boolean fMetricUnits = (fileContent.getUnsignedByte(25) & 0x02) == 0x00;
 
         // decode recording mode (heartrate is always recorded)
         // (not available on S610 files)
@@ -126,11 +127,11 @@ public class PolarSRawParser extends AbstractExerciseParser {
         recMode.setHeartRate(true);
 
         if (!fS610) {
-            boolean fBike2 = (fileContent[26] & 0x20) == 0x20;
-            boolean fBike1 = (fileContent[26] & 0x10) == 0x10;
-            recMode.setPower((fileContent[26] & 0x08) == 0x08);
-            recMode.setCadence((fileContent[26] & 0x04) == 0x04);
-            recMode.setAltitude((fileContent[26] & 0x02) == 0x02);
+            boolean fBike2 = (fileContent.getUnsignedByte(26) & 0x20) == 0x20;
+            boolean fBike1 = (fileContent.getUnsignedByte(26) & 0x10) == 0x10;
+            recMode.setPower((fileContent.getUnsignedByte(26) & 0x08) == 0x08);
+            recMode.setCadence((fileContent.getUnsignedByte(26) & 0x04) == 0x04);
+            recMode.setAltitude((fileContent.getUnsignedByte(26) & 0x02) == 0x02);
 
             if (!fBike1 && !fBike2) {
                 recMode.setSpeed(false);
@@ -148,7 +149,7 @@ public class PolarSRawParser extends AbstractExerciseParser {
         // get recording interval
         short recInterval = 0;
         int indexRecInt = getProperIndex(27, 26, fS610);
-        switch (fileContent[indexRecInt] & 15) {
+        switch (fileContent.getUnsignedByte(indexRecInt) & 15) {
             case 0:
                 recInterval = 5;
                 break;
@@ -159,13 +160,13 @@ public class PolarSRawParser extends AbstractExerciseParser {
                 recInterval = 60;
                 break;
             default:
-                throw new EVException("Recording interval '" + fileContent[indexRecInt] + "' not valid ...");
+                throw new EVException("Recording interval '" + fileContent.getUnsignedByte(indexRecInt) + "' not valid ...");
         }
         exercise.setRecordingInterval(recInterval);
 
         // does the heartrate ranges are specified by absolute or percentual values?
         // the bit 4 of byte 27 (or 26 for S610) is 0 for absolute and 1 for percentual ranges
-        boolean fHeartRateRangeAbsolute = (fileContent[indexRecInt] & 0x10) == 0;
+        boolean fHeartRateRangeAbsolute = (fileContent.getUnsignedByte(indexRecInt) & 0x10) == 0;
 
         // get the number of samples recorded.  floor of (seconds / hertz).
         // Watch seems to always record a last entry, even partial seconds: +1;
@@ -187,36 +188,36 @@ public class PolarSRawParser extends AbstractExerciseParser {
 
         // get energy (in kCal)
         int indexEnergyStart = getProperIndex(70, 69, fS610);
-        int energyPart1 = decodeBCD(fileContent[indexEnergyStart + 0]);
-        int energyPart2 = decodeBCD(fileContent[indexEnergyStart + 1]);
-        int energyPart3 = decodeBCD(fileContent[indexEnergyStart + 2]);
+        int energyPart1 = decodeBCD(fileContent.getUnsignedByte(indexEnergyStart + 0));
+        int energyPart2 = decodeBCD(fileContent.getUnsignedByte(indexEnergyStart + 1));
+        int energyPart3 = decodeBCD(fileContent.getUnsignedByte(indexEnergyStart + 2));
         exercise.setEnergy((energyPart1 + (energyPart2 * 100) + (energyPart3 * 10000)) / 10);
 
         // get total energy (in kCal)
         int indexTotalEnergyStart = getProperIndex(73, 72, fS610);
-        int energyTotalPart1 = decodeBCD(fileContent[indexTotalEnergyStart + 0]);
-        int energyTotalPart2 = decodeBCD(fileContent[indexTotalEnergyStart + 1]);
-        int energyTotalPart3 = decodeBCD(fileContent[indexTotalEnergyStart + 2]);
+        int energyTotalPart1 = decodeBCD(fileContent.getUnsignedByte(indexTotalEnergyStart + 0));
+        int energyTotalPart2 = decodeBCD(fileContent.getUnsignedByte(indexTotalEnergyStart + 1));
+        int energyTotalPart3 = decodeBCD(fileContent.getUnsignedByte(indexTotalEnergyStart + 2));
         exercise.setEnergyTotal(energyTotalPart1 + (energyTotalPart2 * 100) + (energyTotalPart3 * 10000));
 
         // get cumulative workout time
         int indexCumWorkoutStart = getProperIndex(76, 75, fS610);
-        int cumWorkoutPart1 = decodeBCD(fileContent[indexCumWorkoutStart + 0]);
-        int cumWorkoutPart2 = decodeBCD(fileContent[indexCumWorkoutStart + 1]);
-        int cumWorkoutPart3 = decodeBCD(fileContent[indexCumWorkoutStart + 2]);
+        int cumWorkoutPart1 = decodeBCD(fileContent.getUnsignedByte(indexCumWorkoutStart + 0));
+        int cumWorkoutPart2 = decodeBCD(fileContent.getUnsignedByte(indexCumWorkoutStart + 1));
+        int cumWorkoutPart3 = decodeBCD(fileContent.getUnsignedByte(indexCumWorkoutStart + 2));
         exercise.setSumExerciseTime(cumWorkoutPart3 + (cumWorkoutPart1 * 60) + (cumWorkoutPart2 * 60 * 100));
 
         if (!fS610) {
             // get cumulative ride time
-            int cumRidePart1 = decodeBCD(fileContent[79]);
-            int cumRidePart2 = decodeBCD(fileContent[80]);
-            int cumRidePart3 = decodeBCD(fileContent[81]);
+            int cumRidePart1 = decodeBCD(fileContent.getUnsignedByte(79));
+            int cumRidePart2 = decodeBCD(fileContent.getUnsignedByte(80));
+            int cumRidePart3 = decodeBCD(fileContent.getUnsignedByte(81));
             exercise.setSumRideTime(cumRidePart3 + (cumRidePart1 * 60) + (cumRidePart2 * 60 * 100));
 
             // get odometer
-            int odometerPart1 = decodeBCD(fileContent[82]);
-            int odometerPart2 = decodeBCD(fileContent[83]);
-            int odometerPart3 = decodeBCD(fileContent[84]);
+            int odometerPart1 = decodeBCD(fileContent.getUnsignedByte(82));
+            int odometerPart2 = decodeBCD(fileContent.getUnsignedByte(83));
+            int odometerPart3 = decodeBCD(fileContent.getUnsignedByte(84));
             int odometer = odometerPart1 + (odometerPart2 * 100) + (odometerPart3 * 10000);
             if (fMetricUnits) {
                 exercise.setOdometer(odometer);
@@ -229,22 +230,22 @@ public class PolarSRawParser extends AbstractExerciseParser {
         if (recMode.isSpeed()) {
 
             // get exercise distance (in 1/10th of km)
-            int distance = (fileContent[85] + (fileContent[86] << 8)) * 100;
+            int distance = fileContent.getUnsignedShort(85) * 100;
             if (!fMetricUnits) {
                 distance = ConvertUtils.convertMiles2Kilometer(distance);
             }
 
             // get AVG speed
-            int avgSpeedPart1 = fileContent[87];
-            int avgSpeedPart2 = (fileContent[88] & 0x0f);
+            int avgSpeedPart1 = fileContent.getUnsignedByte(87);
+            int avgSpeedPart2 = (fileContent.getUnsignedByte(88) & 0x0f);
             float avgSpeed = ((avgSpeedPart2 << 8) | avgSpeedPart1) / 16f;
             if (!fMetricUnits) {
                 avgSpeed = (float) ConvertUtils.convertMiles2Kilometer(avgSpeed);
             }
 
             // get max speed
-            int maxSpeedPart1 = fileContent[88] >> 4;
-            int maxSpeedPart2 = fileContent[89];
+            int maxSpeedPart1 = fileContent.getUnsignedByte(88) >> 4;
+            int maxSpeedPart2 = fileContent.getUnsignedByte(89);
             float maxSpeed = ((maxSpeedPart2 << 4) | maxSpeedPart1) / 16f;
             if (!fMetricUnits) {
                 maxSpeed = (float) ConvertUtils.convertMiles2Kilometer(maxSpeed);
@@ -255,17 +256,17 @@ public class PolarSRawParser extends AbstractExerciseParser {
 
         // get cadence (bicycle) data of exercise (if recorded)
         if (recMode.isCadence()) {
-            short cadenceAvg = (short) fileContent[90];
-            short cadenceMax = (short) fileContent[91];
+            short cadenceAvg = (short) fileContent.getUnsignedByte(90);
+            short cadenceMax = (short) fileContent.getUnsignedByte(91);
             exercise.setCadence(new ExerciseCadence(cadenceAvg, cadenceMax, null));
         }
 
         // get altitude data of exercise (if recorded)
         if (recMode.isAltitude()) {
-            short altitudeMin = decodeAltitude(fileContent[92], fileContent[93]);
-            short altitudeAvg = decodeAltitude(fileContent[94], fileContent[95]);
-            short altitudeMax = decodeAltitude(fileContent[96], fileContent[97]);
-            int ascent = fileContent[101] + (fileContent[102] << 8);
+            short altitudeMin = decodeAltitude(fileContent.getUnsignedByte(92), fileContent.getUnsignedByte(93));
+            short altitudeAvg = decodeAltitude(fileContent.getUnsignedByte(94), fileContent.getUnsignedByte(95));
+            short altitudeMax = decodeAltitude(fileContent.getUnsignedByte(96), fileContent.getUnsignedByte(97));
+            int ascent = fileContent.getUnsignedShort(101);
 
             if (!fMetricUnits) {
                 altitudeMin = (short) ConvertUtils.convertFeet2Meter(altitudeMin);
@@ -277,9 +278,9 @@ public class PolarSRawParser extends AbstractExerciseParser {
             exercise.setAltitude(new ExerciseAltitude(altitudeMin, altitudeAvg, altitudeMax, ascent, 0));
 
             // get temperature data of exercise (only available, when altitude recorded)
-            short temperatureMin = decodeTemperature(fileContent[98], fMetricUnits);
-            short temperatureAvg = decodeTemperature(fileContent[99], fMetricUnits);
-            short temperatureMax = decodeTemperature(fileContent[100], fMetricUnits);
+            short temperatureMin = decodeTemperature(fileContent.getUnsignedByte(98), fMetricUnits);
+            short temperatureAvg = decodeTemperature(fileContent.getUnsignedByte(99), fMetricUnits);
+            short temperatureMax = decodeTemperature(fileContent.getUnsignedByte(100), fMetricUnits);
             exercise.setTemperature(new ExerciseTemperature(temperatureMin, temperatureAvg, temperatureMax));
         }
 
@@ -322,30 +323,30 @@ public class PolarSRawParser extends AbstractExerciseParser {
             exercise.getLapList().add(lap);
 
             // get lap split time (in 1/10th seconds)
-            int bLapEndHour = fileContent[lapOffset + 2];
-            int bLapEndMinute = fileContent[lapOffset + 1] & 0x3f;
-            int bLapEndSecond = fileContent[lapOffset] & 0x3f;
-            int bLapEndTenthSecond = ((fileContent[lapOffset + 1] & 0xc0) >> 4) | ((fileContent[lapOffset] & 0xc0) >> 6);
+            int bLapEndHour = fileContent.getUnsignedByte(lapOffset + 2);
+            int bLapEndMinute = fileContent.getUnsignedByte(lapOffset + 1) & 0x3f;
+            int bLapEndSecond = fileContent.getUnsignedByte(lapOffset) & 0x3f;
+            int bLapEndTenthSecond = ((fileContent.getUnsignedByte(lapOffset + 1) & 0xc0) >> 4) | ((fileContent.getUnsignedByte(lapOffset) & 0xc0) >> 6);
             lap.setTimeSplit(bLapEndTenthSecond + (bLapEndSecond * 10) + (bLapEndMinute * 60 * 10) + (bLapEndHour * 60 * 60 * 10));
 
             // get heartrate data of lap
-            lap.setHeartRateSplit((short) (fileContent[lapOffset + 3]));
-            lap.setHeartRateAVG((short) (fileContent[lapOffset + 4]));
-            lap.setHeartRateMax((short) (fileContent[lapOffset + 5]));
+            lap.setHeartRateSplit((short) (fileContent.getUnsignedByte(lapOffset + 3)));
+            lap.setHeartRateAVG((short) (fileContent.getUnsignedByte(lapOffset + 4)));
+            lap.setHeartRateMax((short) (fileContent.getUnsignedByte(lapOffset + 5)));
             lapOffset += 6;
 
             // get altitude related data of lap (if recorded)
             if (recMode.isAltitude()) {
 
                 // get altitude at end of the lap (has on offset of 512)
-                short lapEndAltitude = (short) (fileContent[lapOffset] + (fileContent[lapOffset + 1] << 8) - 512);
+                short lapEndAltitude = (short) (fileContent.getUnsignedShort(lapOffset) - 512);
                 if (!fMetricUnits) {
                     // english units: multiples of 5 feets
                     lapEndAltitude = (short) ConvertUtils.convertFeet2Meter(lapEndAltitude * 5);
                 }
 
                 // get ascent of the lap
-                int lapAscent = (fileContent[lapOffset + 2] + (fileContent[lapOffset + 3] << 8));
+                int lapAscent = fileContent.getUnsignedShort(lapOffset + 2);
                 if (!fMetricUnits) {
                     lapAscent = ConvertUtils.convertFeet2Meter(lapAscent);
                 }
@@ -357,10 +358,10 @@ public class PolarSRawParser extends AbstractExerciseParser {
                 short lapTemperature;
                 if (fMetricUnits) {
                     // metric units: offset from -10 C
-                    lapTemperature = (short) (fileContent[lapOffset + 4] - 10);
+                    lapTemperature = (short) (fileContent.getUnsignedByte(lapOffset + 4) - 10);
                 } else {
                     // english units: offset from 14 F
-                    lapTemperature = ConvertUtils.convertFahrenheit2Celsius((short) (fileContent[lapOffset + 4] + 14));
+                    lapTemperature = ConvertUtils.convertFahrenheit2Celsius((short) (fileContent.getUnsignedByte(lapOffset + 4) + 14));
                 }
                 lap.setTemperature(new LapTemperature(lapTemperature));
 
@@ -373,7 +374,7 @@ public class PolarSRawParser extends AbstractExerciseParser {
                 // get cadence at end of the lap (if recorded)
                 Short lapCadence = null;
                 if (recMode.isCadence()) {
-                    lapCadence = (short) fileContent[lapOffset];
+                    lapCadence = (short) fileContent.getUnsignedByte(lapOffset);
                     lapOffset += 1;
                 }
 
@@ -383,13 +384,13 @@ public class PolarSRawParser extends AbstractExerciseParser {
                 }
 
                 // get lap distance (in 1/10th of km)
-                int lapDistance = (fileContent[lapOffset] + (fileContent[lapOffset + 1] << 8)) * 100;
+                int lapDistance = fileContent.getUnsignedShort(lapOffset) * 100;
                 if (!fMetricUnits) {
                     lapDistance = ConvertUtils.convertMiles2Kilometer(lapDistance);
                 }
 
                 // get lap speed
-                float lapEndSpeed = ((float) (fileContent[lapOffset + 2] + ((fileContent[lapOffset + 3] & 0xf0) << 4)) / 16);
+                float lapEndSpeed = ((float) (fileContent.getUnsignedByte(lapOffset + 2) + ((fileContent.getUnsignedByte(lapOffset + 3) & 0xf0) << 4)) / 16);
                 if (!fMetricUnits) {
                     lapEndSpeed = (float) ConvertUtils.convertMiles2Kilometer(lapEndSpeed);
                 }
@@ -406,28 +407,28 @@ public class PolarSRawParser extends AbstractExerciseParser {
         int sampleOffset = indexLapsStart + (numberOfLaps * lapSize);
 
         // create sample list
+        ExerciseSamples samples = exercise.getSamples();
+        int firstSampleIndex = samples.addSamples(numberOfSamples);
 
         // process all recorded samples
         for (int i = 0; i < numberOfSamples; i++) {
-            // store sample in list in reverse order (insert new samples at the list start)
-            int sampleIndex = numberOfSamples - i - 1;
-            ExerciseSample exeSample = new ExerciseSample();
-            exeSample.setTimestamp(sampleIndex * exercise.getRecordingInterval() * 1000L);
-            exercise.getSampleList().add(0, exeSample);
+            // store samples in reverse order (the first sample is most recent)
+            int sampleIndex = firstSampleIndex + numberOfSamples - i - 1;
+            samples.setTimestamp(sampleIndex, (numberOfSamples - i - 1) * exercise.getRecordingInterval() * 1000L);
 
             // get sample heartrate
-            exeSample.setHeartRate((short) fileContent[sampleOffset]);
+            samples.setHeartRate(sampleIndex, (short) fileContent.getUnsignedByte(sampleOffset));
             sampleOffset++;
 
             // get sample altitude (if recorded) - (has on offset of 512)
             if (recMode.isAltitude()) {
-                short sampleAltitude = (short) (fileContent[sampleOffset] + ((fileContent[sampleOffset + 1] & 0x1f) << 8) - 512);
+                short sampleAltitude = (short) (fileContent.getUnsignedByte(sampleOffset) + ((fileContent.getUnsignedByte(sampleOffset + 1) & 0x1f) << 8) - 512);
                 if (fMetricUnits) {
                     // metric units: meters without modification
-                    exeSample.setAltitude(sampleAltitude);
+                    samples.setAltitude(sampleIndex, sampleAltitude);
                 } else {
                     // english units: multiples of 5 feets
-                    exeSample.setAltitude((short) ConvertUtils.convertFeet2Meter(sampleAltitude * 5));
+                    samples.setAltitude(sampleIndex, (short) ConvertUtils.convertFeet2Meter(sampleAltitude * 5));
                 }
                 sampleOffset += 2;
             }
@@ -440,11 +441,11 @@ public class PolarSRawParser extends AbstractExerciseParser {
                 }
 
                 // get sample speed
-                float sampleSpeed = (float) (((fileContent[sampleOffset] & 0xe0) << 3) + fileContent[sampleOffset + 1]) / 16f;
+                float sampleSpeed = (float) (((fileContent.getUnsignedByte(sampleOffset) & 0xe0) << 3) + fileContent.getUnsignedByte(sampleOffset + 1)) / 16f;
                 if (fMetricUnits) {
-                    exeSample.setSpeed(sampleSpeed);
+                    samples.setSpeed(sampleIndex, sampleSpeed);
                 } else {
-                    exeSample.setSpeed((float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
+                    samples.setSpeed(sampleIndex, (float) ConvertUtils.convertMiles2Kilometer(sampleSpeed));
                 }
                 sampleOffset += 2;
 
@@ -455,7 +456,7 @@ public class PolarSRawParser extends AbstractExerciseParser {
 
                 // get sample cadence (if recorded)
                 if (recMode.isCadence()) {
-                    exeSample.setCadence((short) fileContent[sampleOffset]);
+                    samples.setCadence(sampleIndex, (short) fileContent.getUnsignedByte(sampleOffset));
                     sampleOffset++;
                 }
             }
@@ -468,10 +469,10 @@ public class PolarSRawParser extends AbstractExerciseParser {
             double distanceAccum = 0f;
 
             // process all recorded samples
-            for (ExerciseSample exeSample : exercise.getSampleList()) {
+            for (int i = 0; i < samples.getSize(); i++) {
                 // compute sample distance (it's not recorded)
-                exeSample.setDistance((int) distanceAccum);
-                distanceAccum += (exeSample.getSpeed() * recInterval) / 3.6f;
+                samples.setDistance(i, (int) distanceAccum);
+                distanceAccum += (samples.getSpeed(i) * recInterval) / 3.6f;
             }
         }
 
@@ -640,20 +641,20 @@ public class PolarSRawParser extends AbstractExerciseParser {
      * @return the filled HeartRateLimit object
      */
     private HeartRateLimit decodeHeartRateLimit(int offsetLimits, int offsetTimes) {
-        short lowerHeartRate = (short) fileContent[offsetLimits + 0];
-        short upperHeartRate = (short) fileContent[offsetLimits + 1];
+        short lowerHeartRate = (short) fileContent.getUnsignedByte(offsetLimits + 0);
+        short upperHeartRate = (short) fileContent.getUnsignedByte(offsetLimits + 1);
 
-        int hrLimitBelowSecs = decodeBCD(fileContent[offsetTimes + 0]);
-        hrLimitBelowSecs += decodeBCD(fileContent[offsetTimes + 1]) * 60;
-        hrLimitBelowSecs += decodeBCD(fileContent[offsetTimes + 2]) * 60 * 60;
+        int hrLimitBelowSecs = decodeBCD(fileContent.getUnsignedByte(offsetTimes + 0));
+        hrLimitBelowSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 1)) * 60;
+        hrLimitBelowSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 2)) * 60 * 60;
 
-        int hrLimitWithinSecs = decodeBCD(fileContent[offsetTimes + 3]);
-        hrLimitWithinSecs += decodeBCD(fileContent[offsetTimes + 4]) * 60;
-        hrLimitWithinSecs += decodeBCD(fileContent[offsetTimes + 5]) * 60 * 60;
+        int hrLimitWithinSecs = decodeBCD(fileContent.getUnsignedByte(offsetTimes + 3));
+        hrLimitWithinSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 4)) * 60;
+        hrLimitWithinSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 5)) * 60 * 60;
 
-        int hrLimitAboveSecs = decodeBCD(fileContent[offsetTimes + 6]);
-        hrLimitAboveSecs += decodeBCD(fileContent[offsetTimes + 7]) * 60;
-        hrLimitAboveSecs += decodeBCD(fileContent[offsetTimes + 8]) * 60 * 60;
+        int hrLimitAboveSecs = decodeBCD(fileContent.getUnsignedByte(offsetTimes + 6));
+        hrLimitAboveSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 7)) * 60;
+        hrLimitAboveSecs += decodeBCD(fileContent.getUnsignedByte(offsetTimes + 8)) * 60 * 60;
 
         return new HeartRateLimit(lowerHeartRate, upperHeartRate,
                 hrLimitBelowSecs, hrLimitWithinSecs, hrLimitAboveSecs, true);
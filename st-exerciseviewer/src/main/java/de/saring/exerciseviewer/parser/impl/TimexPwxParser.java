@@ -16,7 +16,7 @@ import org.w3c.dom.NodeList;
 import de.saring.exerciseviewer.core.EVException;
 import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.data.ExerciseAltitude;
-import de.saring.exerciseviewer.data.ExerciseSample;
+import de.saring.exerciseviewer.data.ExerciseSamples;
 import de.saring.exerciseviewer.data.ExerciseSpeed;
 import de.saring.exerciseviewer.data.HeartRateLimit;
 import de.saring.exerciseviewer.data.Lap;
@@ -625,7 +625,8 @@ public class TimexPwxParser extends AbstractExerciseParser {
         NodeList children = workoutNode.getChildNodes();
         NodeList sampleChildren = null;
         String childName;
-        ExerciseSample lastSample = new ExerciseSample(); // Stop the jitters... assumes no
+        ExerciseSamples samples = exercise.getSamples();
+        Short lastHeartRate = null; // Stop the jitters... assumes no
         Double latitude = 0.0, longitude = 0.0;
         double belowZone[] = {0, 0, 0, 0, 0, 0};
         double inZone[] = {0, 0, 0, 0, 0, 0};
@@ -634,8 +635,8 @@ public class TimexPwxParser extends AbstractExerciseParser {
         for (int i = 0; i < istop; i++) {
             childName = children.item(i).getNodeName();
             if (childName.equals("sample")) {
-                ExerciseSample sample = new ExerciseSample();
-                sample.setHeartRate((short) 0);
+                int sampleIndex = samples.addSample();
+                Short heartRate = 0;
                 sampleChildren = children.item(i).getChildNodes();
                 int jstop = sampleChildren.getLength();
                 for (int j = 0; j < jstop; j++) {
@@ -644,58 +645,60 @@ public class TimexPwxParser extends AbstractExerciseParser {
                         if (currentOffset != 0)
                             lastOffset = currentOffset;
                         currentOffset = Double.valueOf(sampleChildren.item(j).getTextContent());
-                        sample.setTimestamp((long) (1000 * currentOffset));
+                        samples.setTimestamp(sampleIndex, (long) (1000 * currentOffset));
                     } else if (childName.equals("hr")) {
-                        sample.setHeartRate(Short.valueOf(sampleChildren.item(j).getTextContent()));
+                        heartRate = Short.valueOf(sampleChildren.item(j).getTextContent());
                     } else if (childName.equals("spd")) {
-                        sample.setSpeed((float) 3.6 * Float.valueOf(sampleChildren.item(j).getTextContent()).floatValue());
+                        samples.setSpeed(sampleIndex, (float) 3.6 * Float.valueOf(sampleChildren.item(j).getTextContent()).floatValue());
                     } else if (childName.equals("pwr")) {
                         // Not implemented in ExerciseSample class
                     } else if (childName.equals("torq")) {
                         // Not implemented in ExerciseSample class
                     } else if (childName.equals("cad")) {
-                        sample.setCadence(Short.valueOf(sampleChildren.item(j).getTextContent()));
+                        samples.setCadence(sampleIndex, Short.valueOf(sampleChildren.item(j).getTextContent()));
                         exercise.getRecordingMode().setCadence(true);
                     } else if (childName.equals("dist")) {
                         double dist = Double.valueOf(sampleChildren.item(j).getTextContent());
-                        sample.setDistance((int) Math.round(dist));
+                        samples.setDistance(sampleIndex, (int) Math.round(dist));
                         distanceinsample = true;
                     } else if (childName.equals("lat")) {
                         latitude = Double.valueOf(sampleChildren.item(j).getTextContent());
                     } else if (childName.equals("lon")) {
                         longitude = Double.valueOf(sampleChildren.item(j).getTextContent());
                     } else if (childName.equals("alt")) {
-                        sample.setAltitude(Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
+                        samples.setAltitude(sampleIndex, Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
                     } else if (childName.equals("temp")) {
-                        sample.setTemperature(Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
+                        samples.setTemperature(sampleIndex, Float.valueOf(sampleChildren.item(j).getTextContent()).shortValue());
                     } else if (childName.equals("time")) {
                         // Not implemented in ExerciseSample
                     }
                 }
-                sample.setPosition(new Position(latitude, longitude));
+                samples.setPosition(sampleIndex, latitude, longitude);
+                Position position = new Position(latitude, longitude);
                 if (firstsample) {
-                    lastPosition = sample.getPosition();
+                    lastPosition = position;
                     firstsample = false;
                 }
                 if (!distanceinsample) {
-                    lastDistance += getDistanceFromPositions(lastPosition, sample.getPosition());
-                    sample.setDistance((int) lastDistance);
-                    lastPosition = sample.getPosition();
+                    lastDistance += getDistanceFromPositions(lastPosition, position);
+                    samples.setDistance(sampleIndex, (int) lastDistance);
+                    lastPosition = position;
                 }
                 // Eliminates the jitters of 0bpm samples... assumes that heart rate won't change instantiously by much and
                 // that there will only be the occasional missed heart beat.  Also fixes the laps not adding up.
-                if (sample.getHeartRate() == 0)
-                    sample.setHeartRate(lastSample.getHeartRate());
+                if (heartRate == 0)
+                    heartRate = lastHeartRate;
                 else
-                    lastSample.setHeartRate(sample.getHeartRate());
-                exercise.getSampleList().add(sample);
+                    lastHeartRate = heartRate;
+                if (heartRate != null)
+                    samples.setHeartRate(sampleIndex, heartRate);
 
                 // update Zone information
                 if (exercise.getHeartRateLimits() != null) {
                     for (int j = 0; j < 6; j++) {
-                        if (sample.getHeartRate() > exercise.getHeartRateLimits().get(j).getUpperHeartRate()) {
+                        if (heartRate > exercise.getHeartRateLimits().get(j).getUpperHeartRate()) {
                             aboveZone[j] += (currentOffset - lastOffset);
-                        } else if (sample.getHeartRate() < exercise.getHeartRateLimits().get(j).getLowerHeartRate()) {
+                        } else if (heartRate < exercise.getHeartRateLimits().get(j).getLowerHeartRate()) {
                             belowZone[j] += (currentOffset - lastOffset);
                         } else {
                             inZone[j] += (currentOffset - lastOffset);
@@ -719,7 +722,7 @@ public class TimexPwxParser extends AbstractExerciseParser {
 
         // some models (e.g. Timex Ironman Run Trainer) don't contain statistic date (avg, max, ...)
         // => compute the missing data   
-        if (!exercise.getSampleList().isEmpty()) {
+        if (!samples.isEmpty()) {
             computeHeartrateStatisticIfMissing(exercise);
             computeSpeedStatisticIfMissing(exercise);
             computeAltitudeStatisticIfMissing(exercise);
@@ -784,26 +787,29 @@ public class TimexPwxParser extends AbstractExerciseParser {
     private void computeHeartrateStatisticIfMissing(EVExercise exercise) {
         if (exercise.getHeartRateAVG() == null) {
             double sumHeartrate = 0;
+            ExerciseSamples samples = exercise.getSamples();
 
-            for (ExerciseSample sample : exercise.getSampleList()) {
-                sumHeartrate += sample.getHeartRate();
+            for (int i = 0; i < samples.getSize(); i++) {
+                sumHeartrate += samples.getHeartRate(i);
                 short maxExerciseHeartrate = exercise.getHeartRateMax() == null ? 0 : exercise.getHeartRateMax();
-                exercise.setHeartRateMax((short) Math.max(maxExerciseHeartrate, sample.getHeartRate()));
+                exercise.setHeartRateMax((short) Math.max(maxExerciseHeartrate, samples.getHeartRate(i)));
             }
-            exercise.setHeartRateAVG((short) Math.round(sumHeartrate / (double) exercise.getSampleList().size()));
+            exercise.setHeartRateAVG((short) Math.round(sumHeartrate / (double) samples.getSize()));
         }
     }
 
     private void computeSpeedStatisticIfMissing(EVExercise exercise) {
         if (exercise.getRecordingMode().isSpeed() && exercise.getSpeed() == null) {
 
-            float speedMax = (float) exercise.getSampleList().stream()
-                    .mapToDouble(sample -> sample.getSpeed() == null ? 0f : sample.getSpeed())
-                    .max()
-                    .orElse(0f);
+            ExerciseSamples samples = exercise.getSamples();
+            float speedMax = 0f;
+            for (int i = 0; i < samples.getSize(); i++) {
+                if (samples.hasSpeed(i)) {
+                    speedMax = Math.max(speedMax, samples.getSpeed(i));
+                }
+            }
 
-            ExerciseSample lastSample = exercise.getSampleList().get(exercise.getSampleList().size() - 1);
-            int distance = lastSample.getDistance();
+            int distance = samples.getDistance(samples.getSize() - 1);
             float speedAvg = (CalculationUtils.calculateAvgSpeed(distance / 1000f,
                     Math.round(exercise.getDuration() / 10f)));
 
@@ -819,19 +825,21 @@ public class TimexPwxParser extends AbstractExerciseParser {
             int ascent = 0;
             double sumAltitude = 0;
             short previousAltitude = Short.MAX_VALUE;
+            ExerciseSamples samples = exercise.getSamples();
 
-            for (ExerciseSample sample : exercise.getSampleList()) {
-                sumAltitude += sample.getAltitude();
-                altitudeMin = (short) Math.min(altitudeMin, sample.getAltitude());
-                altitudeMax = (short) Math.max(altitudeMax, sample.getAltitude());
+            for (int i = 0; i < samples.getSize(); i++) {
+                short altitude = samples.getAltitude(i);
+                sumAltitude += altitude;
+                altitudeMin = (short) Math.min(altitudeMin, altitude);
+                altitudeMax = (short) Math.max(altitudeMax, altitude);
 
-                if (previousAltitude < sample.getAltitude()) {
-                    ascent += sample.getAltitude() - previousAltitude;
+                if (previousAltitude < altitude) {
+                    ascent += altitude - previousAltitude;
                 }
-                previousAltitude = sample.getAltitude();
+                previousAltitude = altitude;
             }
 
-            short altitudeAvg = (short) Math.round(sumAltitude / (double) exercise.getSampleList().size());
+            short altitudeAvg = (short) Math.round(sumAltitude / (double) samples.getSize());
             exercise.setAltitude(new ExerciseAltitude(altitudeMin, altitudeAvg, altitudeMax, ascent, 0));
         }
     }
@@ -840,23 +848,28 @@ public class TimexPwxParser extends AbstractExerciseParser {
 
         // when all sample contain the distance of 0 then set them to null
         // (for some models the distance is available for the laps only)
-        boolean isDistanceInSamples = exercise.getSampleList().stream()
-                .anyMatch(sample -> sample.getDistance() != null && sample.getDistance() > 0);
+        ExerciseSamples samples = exercise.getSamples();
+        boolean isDistanceInSamples = false;
+        for (int i = 0; i < samples.getSize() && !isDistanceInSamples; i++) {
+            isDistanceInSamples = samples.hasDistance(i) && samples.getDistance(i) > 0;
+        }
         if (!isDistanceInSamples) {
-            exercise.getSampleList().stream().forEach(sample -> sample.setDistance(null));
+            samples.clear(ExerciseSamples.Channel.DISTANCE);
         }
 
         // sometimes the speed data is missing in some samples only
         // (the speed of a samples can be null although other samples have speed data)
         // => set the speed of 0 instead of null for those samples
-        boolean isSpeedInSamples = exercise.getSampleList().stream()
-                .anyMatch(sample -> sample.getSpeed() != null && sample.getSpeed() > 0f);
+        boolean isSpeedInSamples = false;
+        for (int i = 0; i < samples.getSize() && !isSpeedInSamples; i++) {
+            isSpeedInSamples = samples.hasSpeed(i) && samples.getSpeed(i) > 0f;
+        }
         if (isSpeedInSamples) {
-            exercise.getSampleList().stream().forEach(sample -> {
-                if (sample.getSpeed() == null) {
-                    sample.setSpeed(0f);
+            for (int i = 0; i < samples.getSize(); i++) {
+                if (!samples.hasSpeed(i)) {
+                    samples.setSpeed(i, 0f);
                 }
-            });
+            }
         }
     }
 }
@@ -25,7 +25,7 @@ import java.time.LocalDateTime
  * @property odometer  Odometer (cumulative ride distance) in km.
  * @property heartRateLimits List of heartrate limit data (can be more then one).
  * @property lapList List containing the data of all exercise laps.
- * @property sampleList List containing the data of all recorded exercise samples (for each interval).
+ * @property samples The data of all recorded exercise samples (for each interval) in a columnar format.
  *
  * @author Stefan Saring
  */
@@ -52,8 +52,17 @@ data class EVExercise(
 
     var heartRateLimits: MutableList<HeartRateLimit> = mutableListOf(),
     var lapList: MutableList<Lap> = mutableListOf(),
-    var sampleList: MutableList<ExerciseSample> = mutableListOf())
+    val samples: ExerciseSamples = ExerciseSamples())
 {
+    /**
+     * Read-only list of all recorded exercise samples, the ExerciseSample elements are created for each access
+     * (see ExerciseSamples.asSampleList()). The samples needs to be processed, displayed and modified by using the
+     * samples property, this list is meant for tests and for the access of single samples.
+     */
+    val sampleList: List<ExerciseSample>
+        get() = samples.asSampleList()
+
+
     /**
      * Secondary constructor for easier creation of instances from Java code, otherwise all attributes needs to get passed.
      *
@@ -88,24 +97,27 @@ data class EVExercise(
      */
     fun repairSamples() {
         // is all the required speed data available ?
-        if (this.speed == null || this.speed!!.distance == 0 || this.sampleList.isEmpty()
+        if (this.speed == null || this.speed!!.distance == 0 || this.samples.isEmpty()
                 || this.duration == null || this.recordingInterval == null) {
             return
         }
 
         // it's possible that there are not recorded samples for the whole exercise time
         // (e.g. connection problems) => in this case we can't repair the sample distances
-        if (this.sampleList.size < this.duration!! / 10 / this.recordingInterval!!.toInt()) {
+        if (this.samples.size < this.duration!! / 10 / this.recordingInterval!!.toInt()
+                || !this.samples.hasDistance(this.samples.size - 1)) {
             return
         }
 
         // calculate relation of exercise distance to last sample distance
-        val (_, _, _, _, _, distance) = this.sampleList[this.sampleList.size - 1]
-        val fRelation = distance!! / this.speed!!.distance.toDouble()
+        val distance = this.samples.getDistance(this.samples.size - 1)
+        val fRelation = distance / this.speed!!.distance.toDouble()
 
         // process all samples and recalculate the sample distance in relation to exercise distance
-        for (sample in this.sampleList) {
-            sample.distance = Math.round(sample.distance!! / fRelation).toInt()
+        for (index in 0 until this.samples.size) {
+            if (this.samples.hasDistance(index)) {
+                this.samples.setDistance(index, Math.round(this.samples.getDistance(index) / fRelation).toInt())
+            }
         }
     }
 
@@ -0,0 +1,257 @@
+package de.saring.exerciseviewer.data
+
+import java.util.BitSet
+
+/**
+ * This class contains all the recorded samples of an exercise in a columnar format. There is a primitive array
+ * for each sample attribute (channel) and a bitset which marks the samples containing a value for this channel,
+ * because all the attributes are optional. So there are no objects created for each sample, which needs much less
+ * memory for long exercises with many samples (e.g. multi-day recordings with 1 second interval).
+ *
+ * The samples are added by the parsers with addSample() or addSamples() and filled by the setters for the sample
+ * index. The getters return the primitive value of the sample, they must only be used when the sample contains a
+ * value for this channel (see the appropriate has...() methods).
+ *
+ * The samples can also be accessed as list of ExerciseSample objects (see asSampleList()), but the elements of this
+ * list are created for each access, so modifications of them will not be stored.
+ *
+ * See class ExerciseSample for the units of all sample attributes.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSamples {
+
+    /** Number of samples. */
+    var size = 0
+        private set
+
+    private var timestamps = LongArray(INITIAL_CAPACITY)
+    private var heartRates = ShortArray(INITIAL_CAPACITY)
+    private var altitudes = ShortArray(INITIAL_CAPACITY)
+    private var speeds = FloatArray(INITIAL_CAPACITY)
+    private var cadences = ShortArray(INITIAL_CAPACITY)
+    private var distances = IntArray(INITIAL_CAPACITY)
+    private var temperatures = ShortArray(INITIAL_CAPACITY)
+    private var latitudes = DoubleArray(INITIAL_CAPACITY)
+    private var longitudes = DoubleArray(INITIAL_CAPACITY)
+
+    /** The presence bitsets, indexed by the channel ordinal. */
+    private val presence = Array(Channel.values().size) { BitSet() }
+
+    /**
+     * This is the list of all sample channels.
+     */
+    enum class Channel {
+        TIMESTAMP,
+        HEART_RATE,
+        ALTITUDE,
+        SPEED,
+        CADENCE,
+        DISTANCE,
+        TEMPERATURE,
+        POSITION
+    }
+
+    /**
+     * Returns true when there are no samples.
+     */
+    fun isEmpty(): Boolean = size == 0
+
+    /**
+     * Appends a new sample without any values.
+     *
+     * @return the index of the new sample
+     */
+    fun addSample(): Int {
+        ensureCapacity(size + 1)
+        return size++
+    }
+
+    /**
+     * Appends the specified number of new samples without any values, e.g. when the sample count is known before
+     * the samples are parsed in a different order.
+     *
+     * @param count number of samples to add
+     * @return the index of the first new sample
+     */
+    fun addSamples(count: Int): Int {
+        ensureCapacity(size + count)
+        val firstIndex = size
+        size += count
+        return firstIndex
+    }
+
+    /**
+     * Appends a new sample with all the values of the specified ExerciseSample.
+     *
+     * @param sample the sample to add
+     * @return the index of the new sample
+     */
+    fun add(sample: ExerciseSample): Int {
+        val index = addSample()
+        sample.timestamp?.let { setTimestamp(index, it) }
+        sample.heartRate?.let { setHeartRate(index, it) }
+        sample.altitude?.let { setAltitude(index, it) }
+        sample.speed?.let { setSpeed(index, it) }
+        sample.cadence?.let { setCadence(index, it) }
+        sample.distance?.let { setDistance(index, it) }
+        sample.temperature?.let { setTemperature(index, it) }
+        sample.position?.let { setPosition(index, it.latitude, it.longitude) }
+        return index
+    }
+
+    /**
+     * Returns true when at least one sample contains a value for the specified channel.
+     *
+     * @param channel the sample channel
+     */
+    fun hasAny(channel: Channel): Boolean = !presence[channel.ordinal].isEmpty
+
+    /**
+     * Returns true when the specified sample contains a value for the channel.
+     *
+     * @param channel the sample channel
+     * @param index the sample index
+     */
+    fun has(channel: Channel, index: Int): Boolean {
+        checkIndex(index)
+        return presence[channel.ordinal].get(index)
+    }
+
+    /**
+     * Removes the values of the specified channel from all samples.
+     *
+     * @param channel the sample channel
+     */
+    fun clear(channel: Channel) {
+        presence[channel.ordinal].clear()
+    }
+
+    fun hasTimestamp(index: Int) = has(Channel.TIMESTAMP, index)
+    fun getTimestamp(index: Int) = timestamps[checkIndex(index)]
+    fun setTimestamp(index: Int, timestamp: Long) {
+        timestamps[mark(Channel.TIMESTAMP, index)] = timestamp
+    }
+
+    fun hasHeartRate(index: Int) = has(Channel.HEART_RATE, index)
+    fun getHeartRate(index: Int) = heartRates[checkIndex(index)]
+    fun setHeartRate(index: Int, heartRate: Short) {
+        heartRates[mark(Channel.HEART_RATE, index)] = heartRate
+    }
+
+    fun hasAltitude(index: Int) = has(Channel.ALTITUDE, index)
+    fun getAltitude(index: Int) = altitudes[checkIndex(index)]
+    fun setAltitude(index: Int, altitude: Short) {
+        altitudes[mark(Channel.ALTITUDE, index)] = altitude
+    }
+
+    fun hasSpeed(index: Int) = has(Channel.SPEED, index)
+    fun getSpeed(index: Int) = speeds[checkIndex(index)]
+    fun setSpeed(index: Int, speed: Float) {
+        speeds[mark(Channel.SPEED, index)] = speed
+    }
+
+    fun hasCadence(index: Int) = has(Channel.CADENCE, index)
+    fun getCadence(index: Int) = cadences[checkIndex(index)]
+    fun setCadence(index: Int, cadence: Short) {
+        cadences[mark(Channel.CADENCE, index)] = cadence
+    }
+
+    fun hasDistance(index: Int) = has(Channel.DISTANCE, index)
+    fun getDistance(index: Int) = distances[checkIndex(index)]
+    fun setDistance(index: Int, distance: Int) {
+        distances[mark(Channel.DISTANCE, index)] = distance
+    }
+
+    fun hasTemperature(index: Int) = has(Channel.TEMPERATURE, index)
+    fun getTemperature(index: Int) = temperatures[checkIndex(index)]
+    fun setTemperature(index: Int, temperature: Short) {
+        temperatures[mark(Channel.TEMPERATURE, index)] = temperature
+    }
+
+    fun hasPosition(index: Int) = has(Channel.POSITION, index)
+    fun getLatitude(index: Int) = latitudes[checkIndex(index)]
+    fun getLongitude(index: Int) = longitudes[checkIndex(index)]
+    fun setPosition(index: Int, latitude: Double, longitude: Double) {
+        mark(Channel.POSITION, index)
+        latitudes[index] = latitude
+        longitudes[index] = longitude
+    }
+
+    /**
+     * Returns the position of the specified sample as object (or null when not recorded).
+     *
+     * @param index the sample index
+     */
+    fun getPosition(index: Int): Position? =
+            if (hasPosition(index)) Position(latitudes[index], longitudes[index]) else null
+
+    /**
+     * Creates an ExerciseSample object with all the values of the specified sample.
+     *
+     * @param index the sample index
+     * @return the created ExerciseSample (modifications will not be stored)
+     */
+    fun getSample(index: Int) = ExerciseSample(
+            timestamp = if (hasTimestamp(index)) timestamps[index] else null,
+            heartRate = if (hasHeartRate(index)) heartRates[index] else null,
+            altitude = if (hasAltitude(index)) altitudes[index] else null,
+            speed = if (hasSpeed(index)) speeds[index] else null,
+            cadence = if (hasCadence(index)) cadences[index] else null,
+            distance = if (hasDistance(index)) distances[index] else null,
+            temperature = if (hasTemperature(index)) temperatures[index] else null,
+            position = getPosition(index))
+
+    /**
+     * Returns a read-only list view of all samples for existing callers, the ExerciseSample elements are created
+     * for each access. The columnar getters should be used instead for processing all samples.
+     */
+    fun asSampleList(): List<ExerciseSample> = object : AbstractList<ExerciseSample>() {
+        override val size: Int
+            get() = this@ExerciseSamples.size
+
+        override fun get(index: Int) = getSample(index)
+    }
+
+    /**
+     * Two ExerciseSamples are equal when they contain the same samples with the same values (as the sample
+     * lists before), so the EVExercise data class can compare its samples.
+     */
+    override fun equals(other: Any?): Boolean =
+            other is ExerciseSamples && asSampleList() == other.asSampleList()
+
+    override fun hashCode(): Int = asSampleList().hashCode()
+
+    override fun toString(): String = asSampleList().toString()
+
+    private fun checkIndex(index: Int): Int {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Sample index $index is out of bounds (size $size)!")
+        }
+        return index
+    }
+
+    private fun mark(channel: Channel, index: Int): Int {
+        presence[channel.ordinal].set(checkIndex(index))
+        return index
+    }
+
+    private fun ensureCapacity(capacity: Int) {
+        if (capacity > timestamps.size) {
+            val newCapacity = Math.max(capacity, timestamps.size + (timestamps.size shr 1))
+            timestamps = timestamps.copyOf(newCapacity)
+            heartRates = heartRates.copyOf(newCapacity)
+            altitudes = altitudes.copyOf(newCapacity)
+            speeds = speeds.copyOf(newCapacity)
+            cadences = cadences.copyOf(newCapacity)
+            distances = distances.copyOf(newCapacity)
+            temperatures = temperatures.copyOf(newCapacity)
+            latitudes = latitudes.copyOf(newCapacity)
+            longitudes = longitudes.copyOf(newCapacity)
+        }
+    }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 64
+    }
+}
@@ -150,7 +150,7 @@ class DiagramPanelController(
 
     private fun isDiagramDataAvailable(): Boolean {
         val recordingMode = document.exercise.recordingMode
-        return !document.exercise.sampleList.isEmpty() && (
+        return !document.exercise.samples.isEmpty() && (
                 recordingMode.isHeartRate || recordingMode.isAltitude || recordingMode.isSpeed ||
                         recordingMode.isCadence || recordingMode.isTemperature)
     }
@@ -223,9 +223,9 @@ class DiagramPanelController(
      */
     private fun computeAveragedFilterRange() {
         if (document.options.isDisplaySmoothedCharts) {
-            val sampleListLength = document.exercise.sampleList.size
+            val sampleCount = document.exercise.samples.size
             // results seem to be best when sample count is divided by 800 (tested with many exercises)
-            averagedRangeSteps = Math.max(1, Math.round(sampleListLength / 800f))
+            averagedRangeSteps = Math.max(1, Math.round(sampleCount / 800f))
         } else {
             averagedRangeSteps = 0
         }
@@ -254,24 +254,24 @@ class DiagramPanelController(
         }
 
         // fill data series with all recorded exercise samples
-        if (!exercise.sampleList.isEmpty()) {
-            for (index in 0 until exercise.sampleList.size) {
+        val samples = exercise.samples
+        if (!samples.isEmpty()) {
+            for (index in 0 until samples.size) {
 
-                val sample = exercise.sampleList[index]
                 val valueLeft = getConvertedSampleValue(axisTypeLeft, index)
                 val valueRight = getConvertedSampleValue(axisTypeRight, index)
 
                 if (fDomainAxisTime) {
                     // calculate current second
-                    sample.timestamp?.let { timestamp ->
-                        val timeSeconds = (timestamp / 1000).toInt()
+                    if (samples.hasTimestamp(index)) {
+                        val timeSeconds = (samples.getTimestamp(index) / 1000).toInt()
                         val second = createJFreeChartSecond(timeSeconds)
                         fillDataInTimeSeries(sLeft as TimeSeries, sRight as TimeSeries?, second, valueLeft, valueRight)
                     }
                 } else {
                     // get current distance of this sample
-                    sample.distance?.let { distance ->
-                        var fDistance = (distance / 1000f).toDouble()
+                    if (samples.hasDistance(index)) {
+                        var fDistance = (samples.getDistance(index) / 1000f).toDouble()
                         if (context.formatUtils.unitSystem != UnitSystem.METRIC) {
                             fDistance = ConvertUtils.convertKilometer2Miles(fDistance, false)
                         }
@@ -589,7 +589,7 @@ class DiagramPanelController(
             }
 
             val rangeLength = 2 * averagedRangeSteps + 1
-            val lastSampleIndex = document.exercise.sampleList.size - 1
+            val lastSampleIndex = document.exercise.samples.size - 1
 
             // create sum for all range values
             var valueSum = 0.0
@@ -610,19 +610,19 @@ class DiagramPanelController(
     }
 
     private fun getRawSampleValue(axisType: AxisType, sampleIndex: Int): Double? {
-        val sample = document.exercise.sampleList[sampleIndex]
+        val samples = document.exercise.samples
 
         when (axisType) {
             AxisType.HEARTRATE ->
-                return sample.heartRate?.toDouble()
+                return if (samples.hasHeartRate(sampleIndex)) samples.getHeartRate(sampleIndex).toDouble() else null
             AxisType.ALTITUDE ->
-                return sample.altitude?.toDouble()
+                return if (samples.hasAltitude(sampleIndex)) samples.getAltitude(sampleIndex).toDouble() else null
             AxisType.SPEED ->
-                return sample.speed?.toDouble()
+                return if (samples.hasSpeed(sampleIndex)) samples.getSpeed(sampleIndex).toDouble() else null
             AxisType.CADENCE ->
-                return sample.cadence?.toDouble()
+                return if (samples.hasCadence(sampleIndex)) samples.getCadence(sampleIndex).toDouble() else null
             AxisType.TEMPERATURE ->
-                return sample.temperature?.toDouble()
+                return if (samples.hasTemperature(sampleIndex)) samples.getTemperature(sampleIndex).toDouble() else null
             else ->
                 throw IllegalArgumentException("Unknown axis type: $axisType!")
         }
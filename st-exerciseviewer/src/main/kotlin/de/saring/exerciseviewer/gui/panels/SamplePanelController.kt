@@ -1,19 +1,22 @@
 package de.saring.exerciseviewer.gui.panels
 
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.gui.EVContext
 import de.saring.exerciseviewer.gui.EVDocument
 import de.saring.util.gui.javafx.FormattedNumberCellFactory
 import de.saring.util.unitcalc.TimeUtils
+import javafx.beans.property.ReadOnlyObjectWrapper
+import javafx.beans.value.ObservableValue
 import javafx.collections.FXCollections
 import javafx.fxml.FXML
 import javafx.scene.control.Label
 import javafx.scene.control.TableColumn
 import javafx.scene.control.TableView
-import javafx.scene.control.cell.PropertyValueFactory
+import javafx.util.Callback
 
 /**
  * Controller (MVC) class of the "Samples" panel, which displays all recorded samples of the exercise in a table.
+ * The table rows are the sample indices, the cell values are read from the columnar sample data, so no
+ * ExerciseSample objects need to be created for all samples.
  *
  * @constructor constructor for dependency injection
  * @param context the ExerciseViewer UI context
@@ -26,35 +29,36 @@ class SamplePanelController(
         document: EVDocument) : AbstractPanelController(context, document) {
 
     @FXML
-    private lateinit var tvSamples: TableView<ExerciseSample>
+    private lateinit var tvSamples: TableView<Int>
 
     @FXML
-    private lateinit var tcTime: TableColumn<ExerciseSample, Number>
+    private lateinit var tcTime: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcHeartrate: TableColumn<ExerciseSample, Number>
+    private lateinit var tcHeartrate: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcAltitude: TableColumn<ExerciseSample, Number>
+    private lateinit var tcAltitude: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcSpeed: TableColumn<ExerciseSample, Number>
+    private lateinit var tcSpeed: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcDistance: TableColumn<ExerciseSample, Number>
+    private lateinit var tcDistance: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcCadence: TableColumn<ExerciseSample, Number>
+    private lateinit var tcCadence: TableColumn<Int, Number>
     @FXML
-    private lateinit var tcTemperature: TableColumn<ExerciseSample, Number>
+    private lateinit var tcTemperature: TableColumn<Int, Number>
 
     override val fxmlFilename: String = "/fxml/panels/SamplePanel.fxml"
 
     override fun setupPanel() {
 
         // setup table columns
-        tcTime.cellValueFactory = PropertyValueFactory("timestamp")
-        tcHeartrate.cellValueFactory = PropertyValueFactory("heartRate")
-        tcAltitude.cellValueFactory = PropertyValueFactory("altitude")
-        tcSpeed.cellValueFactory = PropertyValueFactory("speed")
-        tcDistance.cellValueFactory = PropertyValueFactory("distance")
-        tcCadence.cellValueFactory = PropertyValueFactory("cadence")
-        tcTemperature.cellValueFactory = PropertyValueFactory("temperature")
+        val samples = document.exercise.samples
+        tcTime.cellValueFactory = sampleValueFactory(samples::hasTimestamp, samples::getTimestamp)
+        tcHeartrate.cellValueFactory = sampleValueFactory(samples::hasHeartRate, samples::getHeartRate)
+        tcAltitude.cellValueFactory = sampleValueFactory(samples::hasAltitude, samples::getAltitude)
+        tcSpeed.cellValueFactory = sampleValueFactory(samples::hasSpeed, samples::getSpeed)
+        tcDistance.cellValueFactory = sampleValueFactory(samples::hasDistance, samples::getDistance)
+        tcCadence.cellValueFactory = sampleValueFactory(samples::hasCadence, samples::getCadence)
+        tcTemperature.cellValueFactory = sampleValueFactory(samples::hasTemperature, samples::getTemperature)
 
         // setup custom number cell factories for all table columns
 
@@ -88,9 +92,18 @@ class SamplePanelController(
 
         // set table data
         tvSamples.placeholder = Label(context.resources.getString("pv.info.no_data_available"))
-        tvSamples.items = FXCollections.observableArrayList(document.exercise.sampleList)
+        tvSamples.items = FXCollections.observableArrayList((0 until samples.size).toList())
 
         // default sort is the time column
         tvSamples.sortOrder.add(tcTime)
     }
+
+    /**
+     * Creates the cell value factory for a sample attribute, the table rows are the sample indices.
+     * The value is null when the attribute was not recorded for the sample.
+     */
+    private fun sampleValueFactory(hasValue: (Int) -> Boolean, getValue: (Int) -> Number):
+            Callback<TableColumn.CellDataFeatures<Int, Number>, ObservableValue<Number>> = Callback {
+        ReadOnlyObjectWrapper(if (hasValue(it.value)) getValue(it.value) else null)
+    }
 }
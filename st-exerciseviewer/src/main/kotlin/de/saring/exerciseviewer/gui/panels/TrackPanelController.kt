@@ -1,7 +1,6 @@
 package de.saring.exerciseviewer.gui.panels
 
 import de.saring.exerciseviewer.data.EVExercise
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.gui.EVContext
 import de.saring.exerciseviewer.gui.EVDocument
 import de.saring.leafletmap.ColorMarker
@@ -175,24 +174,29 @@ class TrackPanelController(
         }
     }
 
-    private fun getConvertedDistanceForAltitudeGraph(sample: ExerciseSample): Double? {
-        return sample.distance?.let { sampleDistanceInMeters ->
-            val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
-            val sampleDistanceInCurrentUnit = if (isEnglishUnitSystem)
-                ConvertUtils.convertKilometer2Miles(sampleDistanceInMeters) else sampleDistanceInMeters
-            return sampleDistanceInCurrentUnit / 1000.0
+    private fun getConvertedDistanceForAltitudeGraph(sampleIndex: Int): Double? {
+        val samples = document.exercise.samples
+        if (!samples.hasDistance(sampleIndex)) {
+            return null
         }
+
+        val sampleDistanceInMeters = samples.getDistance(sampleIndex)
+        val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
+        val sampleDistanceInCurrentUnit = if (isEnglishUnitSystem)
+            ConvertUtils.convertKilometer2Miles(sampleDistanceInMeters) else sampleDistanceInMeters
+        return sampleDistanceInCurrentUnit / 1000.0
     }
 
     private fun createAltitudeXYSeries(): XYSeries {
         val isEnglishUnitSystem = document.options.unitSystem == UnitSystem.ENGLISH
         val sAltitude = XYSeries("altitude")
 
-        document.exercise.sampleList.forEach { sample ->
-            val altitudeInMeters = sample.altitude?.toInt() ?: 0
+        val samples = document.exercise.samples
+        for (sampleIndex in 0 until samples.size) {
+            val altitudeInMeters = if (samples.hasAltitude(sampleIndex)) samples.getAltitude(sampleIndex).toInt() else 0
             val altitudeInCurrentUnit = if (isEnglishUnitSystem)
                 ConvertUtils.convertMeter2Feet(altitudeInMeters) else altitudeInMeters
-            val distanceInCurrentUnit = getConvertedDistanceForAltitudeGraph(sample) ?: 0.0
+            val distanceInCurrentUnit = getConvertedDistanceForAltitudeGraph(sampleIndex) ?: 0.0
 
             sAltitude.add(distanceInCurrentUnit, altitudeInCurrentUnit)
         }
@@ -208,11 +212,11 @@ class TrackPanelController(
     }
 
     private fun movePositionMarker(positionIndex: Int) {
-        val samplePosition = document.exercise.sampleList[positionIndex].position
+        val samples = document.exercise.samples
 
         // some samples could have no position
-        samplePosition?.let {
-            val position = LatLong(it.latitude, it.longitude)
+        if (samples.hasPosition(positionIndex)) {
+            val position = LatLong(samples.getLatitude(positionIndex), samples.getLongitude(positionIndex))
 
             if (positionMarkerName == null) {
                 positionMarkerName = mapView!!.addMarker(position, "", ColorMarker.BLUE_MARKER, 0)
@@ -231,7 +235,7 @@ class TrackPanelController(
 
         // move the vertical position marker in the altitude graph to the new track position
         altitudeGraphMarker?.let { marker ->
-            getConvertedDistanceForAltitudeGraph(document.exercise.sampleList[positionIndex])?.let { distance ->
+            getConvertedDistanceForAltitudeGraph(positionIndex)?.let { distance ->
                 marker.value = distance
             }
         }
@@ -254,7 +258,7 @@ class TrackPanelController(
                     if (workerState == Worker.State.SUCCEEDED) {
                         showTrackAndLaps()
                         // enable position slider by setting max. sample count
-                        slPosition.max = (exercise.sampleList.size - 1).toDouble()
+                        slPosition.max = (exercise.samples.size - 1).toDouble()
                     } else if (throwable != null) {
                         logger.log(Level.SEVERE, "Failed to display map!", throwable)
                     }
@@ -287,11 +291,17 @@ class TrackPanelController(
         }
     }
 
-    private fun createSamplePositionList(exercise: EVExercise): List<LatLong> =
-            exercise.sampleList
-                    .filter { it.position != null }
-                    .map { LatLong(it.position!!.latitude, it.position!!.longitude) }
-                    .toList()
+    private fun createSamplePositionList(exercise: EVExercise): List<LatLong> {
+        val samples = exercise.samples
+        val samplePositions = ArrayList<LatLong>(samples.size)
+
+        for (i in 0 until samples.size) {
+            if (samples.hasPosition(i)) {
+                samplePositions.add(LatLong(samples.getLatitude(i), samples.getLongitude(i)))
+            }
+        }
+        return samplePositions
+    }
 
     private fun createLapPositionList(exercise: EVExercise): List<LatLong> {
         val lapPositions = mutableListOf<LatLong>()
@@ -321,29 +331,35 @@ class TrackPanelController(
     private fun createToolTipText(sampleIndex: Int): String {
 
         val exercise = document.exercise
-        val sample = exercise.sampleList[sampleIndex]
+        val samples = exercise.samples
         val formatUtils = context.formatUtils
 
         val sb = StringBuilder()
         appendToolTipLine(sb, "pv.track.tooltip.trackpoint", (sampleIndex + 1).toString())
 
-        sample.timestamp?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.time", TimeUtils.seconds2TimeString((it / 1000).toInt()))
+        if (samples.hasTimestamp(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.time",
+                    TimeUtils.seconds2TimeString((samples.getTimestamp(sampleIndex) / 1000).toInt()))
         }
-        sample.distance?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.distance", formatUtils.distanceToString((it / 1000f).toDouble(), 3))
+        if (samples.hasDistance(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.distance",
+                    formatUtils.distanceToString((samples.getDistance(sampleIndex) / 1000f).toDouble(), 3))
         }
-        sample.altitude?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.altitude", formatUtils.heightToString(it.toInt()))
+        if (samples.hasAltitude(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.altitude",
+                    formatUtils.heightToString(samples.getAltitude(sampleIndex).toInt()))
         }
-        sample.heartRate?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.heartrate", formatUtils.heartRateToString(it.toInt()))
+        if (samples.hasHeartRate(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.heartrate",
+                    formatUtils.heartRateToString(samples.getHeartRate(sampleIndex).toInt()))
         }
-        sample.speed?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.speed", formatUtils.speedToString(it, 2, document.speedMode))
+        if (samples.hasSpeed(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.speed",
+                    formatUtils.speedToString(samples.getSpeed(sampleIndex), 2, document.speedMode))
         }
-        sample.temperature?.let {
-            appendToolTipLine(sb, "pv.track.tooltip.temperature", formatUtils.temperatureToString(it))
+        if (samples.hasTemperature(sampleIndex)) {
+            appendToolTipLine(sb, "pv.track.tooltip.temperature",
+                    formatUtils.temperatureToString(samples.getTemperature(sampleIndex)))
         }
         return sb.toString()
     }
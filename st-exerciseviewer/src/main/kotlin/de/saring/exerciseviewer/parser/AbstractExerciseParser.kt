@@ -14,24 +14,15 @@ import java.io.File
 abstract class AbstractExerciseParser : ExerciseParser {
 
     /**
-     * Helper method for reading the specified binary exercise file into an Int array. The reason for integers is:
-     * byte values are -128 to 127, int values are converted to 0 to 255, this makes parsing much easier.
+     * Helper method for opening the specified binary exercise file. The returned reader provides unsigned accessors
+     * for the file content, without converting the whole content into an array of integers.
      *
      * @param filename filename of exercise file to read
-     * @return int buffer with the file content (one int for each byte)
+     * @return reader for the file content
      * @throws EVException thrown on read problems
      */
     @Throws(EVException::class)
-    protected fun readFileToByteArray(filename: String): IntArray {
-
-        try {
-            return File(filename).readBytes()
-                    .map { unsignedByteToInt(it) }
-                    .toIntArray()
-        } catch (e: Exception) {
-            throw EVException("Failed to read binary content from exercise file '$filename' ...", e)
-        }
-    }
+    protected fun readBinaryFile(filename: String): BinaryFileReader = BinaryFileReader.open(filename)
 
     /**
      * Helper method for reading the specified text-based exercise file into a list of strings, one for each line.
@@ -50,14 +41,6 @@ abstract class AbstractExerciseParser : ExerciseParser {
         }
     }
 
-    /**
-     * Converts the unsigned Byte value (0..255) to the appropriate Int value.
-     *
-     * @param value unsigned Byte value
-     * @return appropriate Int value
-     */
-    private fun unsignedByteToInt(value: Byte): Int = value.toInt().and(0xff)
-
     /**
      * Calculates the average speed for all laps of the specified exercise. This needs to be done for many models
      * because the average lap speed is not part of the recorded data.
@@ -0,0 +1,108 @@
+package de.saring.exerciseviewer.parser
+
+import de.saring.exerciseviewer.core.EVException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+
+/**
+ * Random access reader for the content of binary exercise files. The content is stored in a ByteBuffer, small files
+ * are read into the heap, large files are memory mapped. All values are read in little endian byte order and returned
+ * as unsigned values, this makes parsing much easier (byte values are -128 to 127, the returned values are 0 to 255).
+ *
+ * No objects are created for reading the values, so the parsers don't need to allocate anything beyond the parsed
+ * exercise data.
+ *
+ * @property size the size of the file content in bytes
+ *
+ * @author Stefan Saring
+ */
+class BinaryFileReader private constructor(private val buffer: ByteBuffer) {
+
+    val size: Int
+        get() = buffer.limit()
+
+    /**
+     * Returns the unsigned byte value (0..255) at the specified position.
+     *
+     * @param index byte position
+     * @return unsigned byte value
+     */
+    fun getUnsignedByte(index: Int): Int = buffer.get(index).toInt().and(0xff)
+
+    /**
+     * Returns the unsigned 16 bit value (little endian) starting at the specified position.
+     *
+     * @param index byte position of the low byte
+     * @return unsigned 16 bit value
+     */
+    fun getUnsignedShort(index: Int): Int = buffer.getShort(index).toInt().and(0xffff)
+
+    /**
+     * Returns the unsigned 32 bit value (little endian) starting at the specified position.
+     *
+     * @param index byte position of the lowest byte
+     * @return unsigned 32 bit value
+     */
+    fun getUnsignedInt(index: Int): Long = buffer.getInt(index).toLong().and(0xffffffffL)
+
+    /**
+     * Returns a reader for a copy of the specified content range. Like Arrays.copyOfRange() the copy is padded
+     * with zero bytes when the range exceeds the end of the content (e.g. for a truncated last record).
+     *
+     * @param from start position of the range (inclusive), must not be after the end of the content
+     * @param to end position of the range (exclusive)
+     * @return the reader for the copied range
+     */
+    fun copyOfRange(from: Int, to: Int): BinaryFileReader {
+        if (from < 0 || from > size || from > to) {
+            throw IndexOutOfBoundsException("Range $from..$to is not valid for content size $size!")
+        }
+
+        val content = ByteArray(to - from)
+        val source = buffer.duplicate()
+        source.position(from)
+        source.get(content, 0, Math.min(to, size) - from)
+        return BinaryFileReader(ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN))
+    }
+
+    companion object {
+
+        /** Files larger than this size in bytes will be memory mapped. */
+        private const val MEMORY_MAP_THRESHOLD = 1024 * 1024
+
+        /**
+         * Opens the specified binary exercise file for reading.
+         *
+         * @param filename filename of exercise file to read
+         * @return the reader for the file content
+         * @throws EVException thrown on read problems
+         */
+        @Throws(EVException::class)
+        fun open(filename: String): BinaryFileReader {
+
+            try {
+                RandomAccessFile(filename, "r").use { file ->
+                    val fileSize = file.length()
+                    if (fileSize > Int.MAX_VALUE) {
+                        throw EVException("The exercise file '$filename' is too large ...")
+                    }
+
+                    val buffer = if (fileSize > MEMORY_MAP_THRESHOLD) {
+                        file.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize)
+                    } else {
+                        val content = ByteArray(fileSize.toInt())
+                        file.readFully(content)
+                        ByteBuffer.wrap(content)
+                    }
+                    return BinaryFileReader(buffer.order(ByteOrder.LITTLE_ENDIAN))
+                }
+            } catch (e: EVException) {
+                throw e
+            } catch (e: Exception) {
+                throw EVException("Failed to read binary content from exercise file '$filename' ...", e)
+            }
+        }
+    }
+}
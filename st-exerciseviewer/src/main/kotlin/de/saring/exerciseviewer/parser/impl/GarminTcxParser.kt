@@ -4,34 +4,34 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
 import de.saring.exerciseviewer.data.ExerciseCadence
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
 import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.data.LapAltitude
 import de.saring.exerciseviewer.data.LapSpeed
-import de.saring.exerciseviewer.data.Position
 import de.saring.exerciseviewer.data.RecordingMode
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
+import java.io.BufferedInputStream
+import java.io.FileInputStream
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
 
 /**
  * ExerciseParser implementation for reading Garmin TCX v2 exercise files (XML-based). Documentation about the format
  * can be found at the Garmin website ( http://developer.garmin.com/schemas/tcx/v2/ ).
  *
+ * The file is parsed in a single pass by a StAX stream reader, no DOM is created. The laps and samples are created
+ * while reading, the lap durations and the summary data are computed on the fly.
+ *
  * @author Stefan Saring
  */
 class GarminTcxParser : AbstractExerciseParser() {
 
-    private val namespace = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2")
-    private val namespaceExt = Namespace.getNamespace("ext", "http://www.garmin.com/xmlschemas/ActivityExtension/v2")
-
     override
     val info = ExerciseParserInfo("Garmin TCX", listOf("tcx", "TCX"))
 
@@ -39,8 +39,14 @@ class GarminTcxParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            val document = SAXBuilder().build(filename)
-            return parseExerciseElement(document.rootElement)
+            BufferedInputStream(FileInputStream(filename)).use { input ->
+                val reader = XML_INPUT_FACTORY.createXMLStreamReader(input)
+                try {
+                    return TcxStreamReader(reader).readExercise()
+                } finally {
+                    reader.close()
+                }
+            }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the Garmin TCX exercise file '$filename'!", e)
@@ -48,320 +54,402 @@ class GarminTcxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified element (root element).
+     * Reader for the exercise data of a TCX file. It contains the parsing state, so a new instance is needed for
+     * each file. Only the first activity of the file will be read.
      *
-     * @param eExercise exercise DOM element
+     * @param reader the stream reader of the TCX file
      */
-    private fun parseExerciseElement(eExercise: Element): EVExercise {
-
-        // parse basic exercise data
-        val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_TCX)
-        exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
-        exercise.recordingMode = RecordingMode()
-        exercise.recordingMode.isSpeed = true
-        exercise.duration = 0
-        exercise.speed = ExerciseSpeed(0f, 0f, 0)
-        exercise.energy = 0
-
-        val eActivity = eExercise.getChild("Activities", namespace).getChild("Activity", namespace)
-        val exerciseDateTime = parseDateTime(eActivity.getChildText("Id", namespace))
-        exercise.dateTime = exerciseDateTime
-
-        var trackpointCount: Int = 0
-        var altitudeMetersTotal: Double = 0.0
-
-        var cadenceCount: Int = 0
-        var cadenceSum: Long = 0
-
-        var totalTimeGapBetweenLaps: Long = 0
-        var lastTrackpointTimestamp: Long = 0
-
-        // no summary data, everything is stored in laps
-        // parse each lap and create a ExerciseViewer Lap object
-        for (eLap in eActivity.getChildren("Lap", namespace)) {
-            val evLap = parseLapData(exercise, eLap)
-            exercise.lapList.add(evLap)
-
-            // compute the total time gap between all laps
-            if (lastTrackpointTimestamp > 0) {
-                val lapStart = parseDateTime(eLap.getAttributeValue("StartTime"))
-                val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
-                totalTimeGapBetweenLaps += lapStartMillis - lastTrackpointTimestamp
+    private class TcxStreamReader(private val reader: XMLStreamReader) {
+
+        private val exercise = EVExercise(EVExercise.ExerciseFileType.GARMIN_TCX)
+        private val samples = exercise.samples
+
+        /** Local names of all currently opened elements (leaf elements whose text has been read are not included). */
+        private val path = ArrayList<String>()
+
+        private var activityCount = 0
+        private var inActivity = false
+        private var exerciseDateTimeMillis = 0L
+
+        private var trackpointCount = 0
+        private var altitudeMetersTotal = 0.0
+        private var cadenceCount = 0
+        private var cadenceSum = 0L
+        private var totalTimeGapBetweenLaps = 0L
+        private var lastTrackpointTimestamp = 0L
+
+        // state of the current lap
+        private var evLap = Lap()
+        private var lapStartMillis = 0L
+        private var lapDistanceMeters = 0.0
+        private var lapTrackpointCount = 0
+        private var lapAltitude: Short? = null
+        private var lapAscentMeters = 0.0
+        private var previousTrackpointTimestamp = Long.MIN_VALUE
+        private var previousTrackpointDistanceMeters = Double.MIN_VALUE
+        private var previousTrackpointAltitudeMeters = Double.MIN_VALUE
+
+        // values of the current trackpoint, they are reset for each trackpoint
+        private var tpTime: String? = null
+        private var tpHasPosition = false
+        private var tpLatitude: Double? = null
+        private var tpLongitude: Double? = null
+        private var tpAltitudeMeters: Double? = null
+        private var tpDistanceMeters: Double? = null
+        private var tpHeartRate: Short? = null
+        private var tpCadence: Short? = null
+        private var tpRunCadence: Short? = null
+
+        fun readExercise(): EVExercise {
+
+            // basic exercise data, everything else is stored in laps
+            exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
+            exercise.recordingMode = RecordingMode()
+            exercise.recordingMode.isSpeed = true
+            exercise.duration = 0
+            exercise.speed = ExerciseSpeed(0f, 0f, 0)
+            exercise.energy = 0
+
+            while (reader.hasNext()) {
+                when (reader.next()) {
+                    XMLStreamConstants.START_ELEMENT -> startElement()
+                    XMLStreamConstants.END_ELEMENT -> endElement()
+                }
             }
 
-            var lapAltitude: Short? = null
-            var lapAscentMeters: Double = 0.0
-            var previousTrackpointTimestamp = Long.MIN_VALUE
-            var previousTrackpointDistanceMeters = Double.MIN_VALUE
-            var previousTrackpointAltitudeMeters = Double.MIN_VALUE
-            val exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
-
-            // parse all Track elements
-            for (eTrack in eLap.getChildren("Track", namespace)) {
-
-                // parse all Trackpoint elements (= ExerciseSamples)
-                for (eTrackpoint in eTrack.getChildren("Trackpoint", namespace)) {
-                    trackpointCount++
-
-                    val evSample = ExerciseSample()
-                    exercise.sampleList.add(evSample)
-
-                    // calculate sample timestamp (time gap between laps must be substracted here)
-                    val tpDateTime = parseDateTime(eTrackpoint.getChildText("Time", namespace))
-                    val tpMillis = Date310Utils.getMilliseconds(tpDateTime)
-                    lastTrackpointTimestamp = tpMillis
+            if (exercise.dateTime == null) {
+                throw EVException("The TCX file does not contain any activity!")
+            }
 
-                    evSample.timestamp = tpMillis - exerciseDateTimeMillis - totalTimeGapBetweenLaps
+            calculateAvgSpeed()
+            calculateAvgHeartrate()
+            calculateAvgAltitude()
+            return exercise
+        }
 
-                    parseTrackpointPositionData(exercise, evSample, eTrackpoint)
-                    parseTrackpointHeartRateData(exercise, evLap, evSample, eTrackpoint)
+        private fun startElement() {
+            val name = reader.localName
+            val parent = path.lastOrNull()
 
-                    // get distance data (some trackpoints might not have distance data!)
-                    val strDistanceMeters = eTrackpoint.getChildText("DistanceMeters", namespace)
-                    if (strDistanceMeters != null) {
-                        val tpDistanceMeters = strDistanceMeters.toDouble()
-                        evSample.distance = Math.round(tpDistanceMeters).toInt()
+            if (name == "Activity" && parent == "Activities") {
+                activityCount++
+                inActivity = activityCount == 1
+            }
 
-                        // calculate speed between current and previous trackpoint
-                        evSample.speed = 0f
-                        if (previousTrackpointTimestamp > Long.MIN_VALUE) {
-                            val tpTimestampDiff = tpMillis - previousTrackpointTimestamp
-                            // sometimes computed difference is < 0 => impossible, use 0 instead
-                            val tpDistanceDiff = Math.max(tpDistanceMeters - previousTrackpointDistanceMeters, 0.0)
+            if (!inActivity) {
+                path.add(name)
+                return
+            }
 
-                            evSample.speed = CalculationUtils.calculateAvgSpeed(
-                                    (tpDistanceDiff / 1000.0).toFloat(), Math.round(tpTimestampDiff / 1000.0).toInt())
+            when (parent) {
+                "Activity" -> when (name) {
+                    "Id" -> {
+                        val exerciseDateTime = parseDateTime(reader.elementText)
+                        exercise.dateTime = exerciseDateTime
+                        exerciseDateTimeMillis = Date310Utils.getMilliseconds(exerciseDateTime)
+                        return
+                    }
+                    "Lap" -> startLap()
+                }
+                "Lap" -> when (name) {
+                    "DistanceMeters" -> {
+                        lapDistanceMeters = reader.elementText.toDouble()
+                        exercise.speed!!.distance += Math.round(lapDistanceMeters).toInt()
+                        // stored maximum and average lap speed in XML are wrong, will be calculated
+                        evLap.speed = LapSpeed(0f, 0f, exercise.speed!!.distance)
+                        return
+                    }
+                    "Calories" -> {
+                        exercise.energy = exercise.energy!! + reader.elementText.toInt()
+                        return
+                    }
+                }
+                "Track" -> if (name == "Trackpoint") {
+                    startTrackpoint()
+                }
+                "Trackpoint" -> when (name) {
+                    "Time" -> {
+                        tpTime = reader.elementText
+                        return
+                    }
+                    "AltitudeMeters" -> {
+                        tpAltitudeMeters = reader.elementText.toDouble()
+                        return
+                    }
+                    "DistanceMeters" -> {
+                        tpDistanceMeters = reader.elementText.toDouble()
+                        return
+                    }
+                    "Cadence" -> {
+                        tpCadence = reader.elementText.toShort()
+                        return
+                    }
+                    "Position" -> tpHasPosition = true
+                }
+                "Position" -> when (name) {
+                    "LatitudeDegrees" -> {
+                        tpLatitude = reader.elementText.toDouble()
+                        return
+                    }
+                    "LongitudeDegrees" -> {
+                        tpLongitude = reader.elementText.toDouble()
+                        return
+                    }
+                }
+                else -> if (name == "Value") {
+                    when (parent) {
+                        "HeartRateBpm" -> {
+                            tpHeartRate = reader.elementText.toShort()
+                            return
+                        }
+                        "AverageHeartRateBpm" -> {
+                            evLap.heartRateAVG = reader.elementText.toShort()
+                            return
+                        }
+                        "MaximumHeartRateBpm" -> {
+                            val heartRateMax = reader.elementText.toShort()
+                            evLap.heartRateMax = heartRateMax
+                            exercise.heartRateMax = Math.max(heartRateMax.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
+                            return
                         }
-                        previousTrackpointTimestamp = tpMillis
-                        previousTrackpointDistanceMeters = tpDistanceMeters
-
-                        evLap.speed!!.speedEnd = evSample.speed ?: 0f
-                        exercise.speed!!.speedMax = Math.max(evSample.speed ?: 0f, exercise.speed!!.speedMax)
                     }
+                } else if (name == "RunCadence" && parent == "TPX" && reader.namespaceURI == NAMESPACE_EXT) {
+                    tpRunCadence = reader.elementText.toShort()
+                    return
+                } else if (name == "Name" && parent == "Creator" && path.size >= 2 && path[path.size - 2] == "Activity") {
+                    // parse device model name, it's always an Garmin
+                    exercise.deviceName = "Garmin ${reader.elementText}"
+                    return
+                }
+            }
 
-                    // get optional altitude data
-                    val strAltitudeMeters = eTrackpoint.getChildText("AltitudeMeters", namespace)
-                    if (strAltitudeMeters != null) {
-                        val tpAltitude = strAltitudeMeters.toDouble()
-                        evSample.altitude = Math.round(tpAltitude).toShort()
-                        altitudeMetersTotal += Math.round(tpAltitude)
-
-                        // create altitude objects for exercise and current lap if not done yet
-                        if (exercise.altitude == null) {
-                            exercise.recordingMode.isAltitude = true
-                            exercise.altitude = ExerciseAltitude(
-                                    altitudeMin = Short.MAX_VALUE,
-                                    altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount).toShort(),
-                                    altitudeMax = Short.MIN_VALUE,
-                                    ascent = 0,
-                                    descent = 0)
-                        }
+            path.add(name)
+        }
 
-                        lapAltitude = Math.round(tpAltitude).toShort()
+        private fun endElement() {
+            val name = path.removeAt(path.size - 1)
 
-                        exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
-                        exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
+            if (inActivity) {
+                when (name) {
+                    "Trackpoint" -> finishTrackpoint()
+                    "Lap" -> if (path.lastOrNull() == "Activity") finishLap()
+                    "Activity" -> inActivity = false
+                }
+            }
+        }
 
-                        // calculate lap ascent (need to use double precision here)
-                        if (previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
-                                tpAltitude > previousTrackpointAltitudeMeters) {
-                            val tpAscent = tpAltitude - previousTrackpointAltitudeMeters
-                            lapAscentMeters += tpAscent
-                        }
-                        previousTrackpointAltitudeMeters = tpAltitude
-                    }
+        private fun startLap() {
+            evLap = Lap()
+            exercise.lapList.add(evLap)
 
-                    // get optional cadence data
-                    val cadence = getCadenceOfTrackpoint(eTrackpoint)
-                    if (cadence != null) {
-                        evSample.cadence = cadence
-                        evLap.speed!!.cadence = evSample.cadence ?: 0
+            // compute the total time gap between all laps
+            lapStartMillis = Date310Utils.getMilliseconds(parseDateTime(reader.getAttributeValue(null, "StartTime")))
+            if (lastTrackpointTimestamp > 0) {
+                totalTimeGapBetweenLaps += lapStartMillis - lastTrackpointTimestamp
+            }
 
-                        // create cadence object for exercise if not done yet
-                        if (exercise.cadence == null) {
-                            exercise.cadence = ExerciseCadence(0, 0)
-                            exercise.recordingMode.isCadence = true
-                        }
+            lapDistanceMeters = 0.0
+            lapTrackpointCount = 0
+            lapAltitude = null
+            lapAscentMeters = 0.0
+            previousTrackpointTimestamp = Long.MIN_VALUE
+            previousTrackpointDistanceMeters = Double.MIN_VALUE
+            previousTrackpointAltitudeMeters = Double.MIN_VALUE
+        }
 
-                        // compute max and average cadence if present
-                        exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
-                        if (cadence > 0) {
-                            cadenceSum += cadence
-                            exercise.cadence!!.cadenceAvg = Math.round(cadenceSum / (++cadenceCount).toDouble()).toShort()
-                        }
-                    }
-                }
+        private fun finishLap() {
+            if (lapTrackpointCount == 0) {
+                throw EVException("The TCX file contains a lap without trackpoints!")
             }
 
+            // stored lap duration in XML is often wrong, it's the time of the last trackpoint minus the lap start time
+            val lapDurationSeconds = (lastTrackpointTimestamp - lapStartMillis) / 1000.0
+            exercise.duration = exercise.duration!! + Math.round(lapDurationSeconds * 10).toInt()
+            evLap.timeSplit = exercise.duration!!
+
+            // calculate average speed of lap
+            evLap.speed!!.speedAVG = CalculationUtils.calculateAvgSpeed(
+                    (lapDistanceMeters / 1000.0).toFloat(),
+                    Math.round(lapDurationSeconds).toInt())
+
             if (lapAltitude != null) {
-                evLap.altitude = LapAltitude(lapAltitude, Math.round(lapAscentMeters).toInt(), 0)
+                evLap.altitude = LapAltitude(lapAltitude!!, Math.round(lapAscentMeters).toInt(), 0)
             }
 
             // store position of last sample as lap split position
-            if (!exercise.sampleList.isEmpty()) {
-                evLap.positionSplit = exercise.sampleList.last().position
+            if (!samples.isEmpty()) {
+                evLap.positionSplit = samples.getPosition(samples.size - 1)
             }
         }
 
-        // parse device model name, it's always an Garmin
-        exercise.deviceName = "Garmin ${eActivity.getChild("Creator", namespace).getChildText("Name", namespace)}"
-
-        calculateAvgSpeed(exercise)
-        calculateAvgHeartrate(exercise)
-        calculateAvgAltitude(exercise, altitudeMetersTotal, trackpointCount)
+        private fun startTrackpoint() {
+            tpTime = null
+            tpHasPosition = false
+            tpLatitude = null
+            tpLongitude = null
+            tpAltitudeMeters = null
+            tpDistanceMeters = null
+            tpHeartRate = null
+            tpCadence = null
+            tpRunCadence = null
+        }
 
-        return exercise
-    }
+        private fun finishTrackpoint() {
+            trackpointCount++
+            lapTrackpointCount++
+            val sampleIndex = samples.addSample()
 
-    private fun parseLapData(exercise: EVExercise, lapElement: Element): Lap {
-        val evLap = Lap()
+            // calculate sample timestamp (time gap between laps must be substracted here)
+            val tpMillis = Date310Utils.getMilliseconds(parseDateTime(tpTime!!))
+            lastTrackpointTimestamp = tpMillis
+            samples.setTimestamp(sampleIndex, tpMillis - exerciseDateTimeMillis - totalTimeGapBetweenLaps)
 
-        // stored lap duration in XML is often wrong, needs to be calculated
-        val lapDurationSeconds = calculateLapDuration(lapElement)
-        val distanceMeters = lapElement.getChildText("DistanceMeters", namespace).toDouble()
-        exercise.duration = exercise.duration!! + Math.round(lapDurationSeconds * 10).toInt()
-        evLap.timeSplit = exercise.duration!!
-        exercise.speed!!.distance += Math.round(distanceMeters).toInt()
-        val lapSpeedDistance = exercise.speed!!.distance
-        exercise.energy = exercise.energy!! + lapElement.getChildText("Calories", namespace).toInt()
+            if (tpHasPosition) {
+                exercise.recordingMode.isLocation = true
+                samples.setPosition(sampleIndex, tpLatitude!!, tpLongitude!!)
+            }
 
-        // stored maximum lap speed in XML is wrong, will be calculated
+            tpHeartRate?.let { heartRate ->
+                samples.setHeartRate(sampleIndex, heartRate)
+                evLap.heartRateSplit = heartRate
+                exercise.recordingMode.isHeartRate = true
+            }
 
-        // calculate average speed of lap
-        val lapSpeedAVG = CalculationUtils.calculateAvgSpeed(
-                (distanceMeters / 1000.0).toFloat(),
-                Math.round(lapDurationSeconds).toInt())
+            // get distance data (some trackpoints might not have distance data!)
+            tpDistanceMeters?.let { distanceMeters ->
+                samples.setDistance(sampleIndex, Math.round(distanceMeters).toInt())
 
-        evLap.speed = LapSpeed(0f, lapSpeedAVG, lapSpeedDistance)
+                // calculate speed between current and previous trackpoint
+                var tpSpeed = 0f
+                if (previousTrackpointTimestamp > Long.MIN_VALUE) {
+                    val tpTimestampDiff = tpMillis - previousTrackpointTimestamp
+                    // sometimes computed difference is < 0 => impossible, use 0 instead
+                    val tpDistanceDiff = Math.max(distanceMeters - previousTrackpointDistanceMeters, 0.0)
 
-        // parse optional heartrate data of lap
-        parseLapHeartRateData(exercise, evLap, lapElement)
-        return evLap
-    }
+                    tpSpeed = CalculationUtils.calculateAvgSpeed(
+                            (tpDistanceDiff / 1000.0).toFloat(), Math.round(tpTimestampDiff / 1000.0).toInt())
+                }
+                previousTrackpointTimestamp = tpMillis
+                previousTrackpointDistanceMeters = distanceMeters
+                samples.setSpeed(sampleIndex, tpSpeed)
 
-    private fun parseLapHeartRateData(exercise: EVExercise, evLap: Lap, lapElement: Element) {
-        val eAverageHeartRateBpm = lapElement.getChild("AverageHeartRateBpm", namespace)
-        if (eAverageHeartRateBpm != null) {
-            evLap.heartRateAVG = eAverageHeartRateBpm.getChildText("Value", namespace).toShort()
-        }
+                evLap.speed!!.speedEnd = tpSpeed
+                exercise.speed!!.speedMax = Math.max(tpSpeed, exercise.speed!!.speedMax)
+            }
 
-        val eMaximumHeartRateBpm = lapElement.getChild("MaximumHeartRateBpm", namespace)
-        if (eMaximumHeartRateBpm != null) {
-            evLap.heartRateMax = eMaximumHeartRateBpm.getChildText("Value", namespace).toShort()
-            exercise.heartRateMax = Math.max(evLap.heartRateMax!!.toInt(), exercise.heartRateMax?.toInt() ?: 0).toShort()
-        }
-    }
+            // get optional altitude data
+            tpAltitudeMeters?.let { tpAltitude ->
+                samples.setAltitude(sampleIndex, Math.round(tpAltitude).toShort())
+                altitudeMetersTotal += Math.round(tpAltitude)
+
+                // create altitude objects for exercise and current lap if not done yet
+                if (exercise.altitude == null) {
+                    exercise.recordingMode.isAltitude = true
+                    exercise.altitude = ExerciseAltitude(
+                            altitudeMin = Short.MAX_VALUE,
+                            altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount).toShort(),
+                            altitudeMax = Short.MIN_VALUE,
+                            ascent = 0,
+                            descent = 0)
+                }
 
-    private fun parseTrackpointPositionData(exercise: EVExercise, evSample: ExerciseSample, tpElement: Element) {
-        val ePosition = tpElement.getChild("Position", namespace)
-        if (ePosition != null) {
-            exercise.recordingMode.isLocation = true
-            val latitude = ePosition.getChildText("LatitudeDegrees", namespace).toDouble()
-            val longitude = ePosition.getChildText("LongitudeDegrees", namespace).toDouble()
-            evSample.position = Position(latitude, longitude)
-        }
-    }
+                lapAltitude = Math.round(tpAltitude).toShort()
 
-    private fun parseTrackpointHeartRateData(evExercise: EVExercise, evLap: Lap, evSample: ExerciseSample, tpElement: Element) {
-        val eHeartRateBpm = tpElement.getChild("HeartRateBpm", namespace)
-        if (eHeartRateBpm != null) {
-            val heartRate = eHeartRateBpm.getChildText("Value", namespace).toShort()
-            evSample.heartRate = heartRate
-            evLap.heartRateSplit = heartRate
-            evExercise.recordingMode.isHeartRate = true
-        }
-    }
+                exercise.altitude!!.altitudeMin = Math.min(tpAltitude.toInt(), exercise.altitude!!.altitudeMin.toInt()).toShort()
+                exercise.altitude!!.altitudeMax = Math.max(tpAltitude.toInt(), exercise.altitude!!.altitudeMax.toInt()).toShort()
 
-    /**
-     * Calculates the duration of the specified lap in seconds:
-     * "Last TrackPoint of Lap".Time - Lap.StartTime
-     */
-    private fun calculateLapDuration(lapElement: Element): Double {
-        val lastTrack = lapElement.getChildren("Track", namespace).last()
-        var lastTrackpoint = lastTrack.getChildren("Trackpoint", namespace).last()
-
-        val lapStart = parseDateTime(lapElement.getAttributeValue("StartTime"))
-        val lastTp = parseDateTime(lastTrackpoint.getChildText("Time", namespace))
-        val lapStartMillis = Date310Utils.getMilliseconds(lapStart)
-        val lastTpMillis = Date310Utils.getMilliseconds(lastTp)
-        return (lastTpMillis - lapStartMillis) / 1000.0
-    }
+                // calculate lap ascent (need to use double precision here)
+                if (previousTrackpointAltitudeMeters > Double.MIN_VALUE &&
+                        tpAltitude > previousTrackpointAltitudeMeters) {
+                    val tpAscent = tpAltitude - previousTrackpointAltitudeMeters
+                    lapAscentMeters += tpAscent
+                }
+                previousTrackpointAltitudeMeters = tpAltitude
+            }
 
-    private fun calculateAvgSpeed(exercise: EVExercise) {
-        exercise.speed!!.speedAvg = CalculationUtils.calculateAvgSpeed(
-                exercise.speed!!.distance / 1000f, Math.round(exercise.duration!! / 10f))
-    }
+            // get optional cadence data, look first for the cycling cadence, then for the run cadence extension
+            val cadence = tpCadence ?: tpRunCadence
+            if (cadence != null) {
+                samples.setCadence(sampleIndex, cadence)
+                evLap.speed!!.cadence = cadence
 
-    /**
-     * Returns the optional cadence value if present. It looks first for the cycling cadence. If not found it looks for
-     * the run cadence extension.
-     *
-     * @param eTrackpoint element to check
-     * @return cadence or null
-     */
-    private fun getCadenceOfTrackpoint(eTrackpoint: Element): Short? {
+                // create cadence object for exercise if not done yet
+                if (exercise.cadence == null) {
+                    exercise.cadence = ExerciseCadence(0, 0)
+                    exercise.recordingMode.isCadence = true
+                }
 
-        val strCadence = eTrackpoint.getChildText("Cadence", namespace)
-        if (strCadence != null) {
-            return strCadence.toShort()
+                // compute max and average cadence if present
+                exercise.cadence!!.cadenceMax = Math.max(cadence.toInt(), exercise.cadence!!.cadenceMax.toInt()).toShort()
+                if (cadence > 0) {
+                    cadenceSum += cadence
+                    exercise.cadence!!.cadenceAvg = Math.round(cadenceSum / (++cadenceCount).toDouble()).toShort()
+                }
+            }
         }
 
-        val strRunCadence = eTrackpoint.getChild("Extensions", namespace)
-                ?.getChild("TPX", namespaceExt)
-                ?.getChildText("RunCadence", namespaceExt)
-        if (strRunCadence != null) {
-            return strRunCadence.toShort()
+        private fun calculateAvgSpeed() {
+            exercise.speed!!.speedAvg = CalculationUtils.calculateAvgSpeed(
+                    exercise.speed!!.distance / 1000f, Math.round(exercise.duration!! / 10f))
         }
 
-        return null
-    }
-
-    /**
-     * Calculates the average heartrate for the specified exercise (if available). It's computed
-     * as the average of all laps average heartrates. Laps without heartrate data will be ignored.
-     */
-    private fun calculateAvgHeartrate(exercise: EVExercise) {
-        var totalHeartRateSum: Long = 0
-        var previousLapTimeSplit: Int = 0
-        var totalHeartRateDuration: Int = 0
-
-        for (evLap in exercise.lapList) {
-            val lapDuration = evLap.timeSplit - previousLapTimeSplit
-            previousLapTimeSplit = evLap.timeSplit
-
-            if (evLap.heartRateAVG != null) {
-                totalHeartRateDuration += lapDuration
-                totalHeartRateSum += evLap.heartRateAVG!! * lapDuration
+        /**
+         * Calculates the average heartrate for the exercise (if available). It's computed as the average of all
+         * laps average heartrates. Laps without heartrate data will be ignored.
+         */
+        private fun calculateAvgHeartrate() {
+            var totalHeartRateSum: Long = 0
+            var previousLapTimeSplit: Int = 0
+            var totalHeartRateDuration: Int = 0
+
+            for (lap in exercise.lapList) {
+                val lapDuration = lap.timeSplit - previousLapTimeSplit
+                previousLapTimeSplit = lap.timeSplit
+
+                if (lap.heartRateAVG != null) {
+                    totalHeartRateDuration += lapDuration
+                    totalHeartRateSum += lap.heartRateAVG!! * lapDuration
+                }
             }
-        }
 
-        if (totalHeartRateSum > 0) {
-            exercise.heartRateAVG = Math.round(totalHeartRateSum / totalHeartRateDuration.toDouble()).toShort()
+            if (totalHeartRateSum > 0) {
+                exercise.heartRateAVG = Math.round(totalHeartRateSum / totalHeartRateDuration.toDouble()).toShort()
+            }
         }
-    }
 
-    private fun calculateAvgAltitude(exercise: EVExercise, altitudeMetersTotal: Double, trackpointCount: Int) {
-        // calculate average altitude and total ascent (if recorded)
-        if (exercise.altitude != null) {
-            exercise.altitude!!.altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount.toDouble()).toShort()
+        private fun calculateAvgAltitude() {
+            // calculate average altitude and total ascent (if recorded)
+            if (exercise.altitude != null) {
+                exercise.altitude!!.altitudeAvg = Math.round(altitudeMetersTotal / trackpointCount.toDouble()).toShort()
 
-            for (evLap in exercise.lapList) {
-                if (evLap.altitude != null) {
-                    exercise.altitude!!.ascent += evLap.altitude!!.ascent
+                for (lap in exercise.lapList) {
+                    if (lap.altitude != null) {
+                        exercise.altitude!!.ascent += lap.altitude!!.ascent
+                    }
                 }
             }
         }
+
+        /**
+         * Parses the date time in ISO format specified in the passed text and returns the appropriate LocalDateTime.
+         */
+        private fun parseDateTime(dateTimeText: String): LocalDateTime {
+            // remove the suffix 'Z' if contained in the passed text, can't be ignored by ISO_LOCAL_DATE_TIME
+            val dateTimeTextFixed = if (dateTimeText.endsWith('Z'))
+                dateTimeText.substring(0, dateTimeText.length - 1)
+            else
+                dateTimeText
+            return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        }
     }
 
-    /**
-     * Parses the date time in ISO format specified in the passed text and returns the appropriate LocalDateTime.
-     */
-    private fun parseDateTime(dateTimeText: String): LocalDateTime {
-        // remove the suffix 'Z' if contained in the passed text, can't be ignored by ISO_LOCAL_DATE_TIME
-        val dateTimeTextFixed = if (dateTimeText.endsWith('Z'))
-            dateTimeText.substring(0, dateTimeText.length - 1)
-        else
-            dateTimeText
-        return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+    companion object {
+        private const val NAMESPACE_EXT = "http://www.garmin.com/xmlschemas/ActivityExtension/v2"
+
+        /** Factory for the StAX readers, DTDs and external entities are not supported for security reasons. */
+        private val XML_INPUT_FACTORY = XMLInputFactory.newInstance().apply {
+            setProperty(XMLInputFactory.SUPPORT_DTD, false)
+            setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+        }
     }
 }
@@ -4,7 +4,6 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
 import de.saring.exerciseviewer.data.ExerciseCadence
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
 import de.saring.exerciseviewer.data.HeartRateLimit
 import de.saring.exerciseviewer.data.Lap
@@ -381,19 +380,19 @@ class PolarHRMParser : AbstractExerciseParser() {
         // get lines of 'HRData' block
         val lHRDataBlock = getBlockLines(fileContent, "HRData", true)
         val sampleCount = lHRDataBlock.size
+        val samples = exercise.samples
 
         // parse each exercise sample line
         for (i in 0..(sampleCount - 1)) {
             var tokenIndex = 0
-            val sample = ExerciseSample()
-            exercise.sampleList.add(sample)
-            sample.timestamp = i * exercise.recordingInterval!! * 1000L
+            val sampleIndex = samples.addSample()
+            samples.setTimestamp(sampleIndex, i * exercise.recordingInterval!! * 1000L)
 
             // split sample line into parts
             val currSampleSplitted = lHRDataBlock[i].split("\t")
 
             // 1. part is heartrate
-            sample.heartRate = currSampleSplitted[tokenIndex].toShort()
+            samples.setHeartRate(sampleIndex, currSampleSplitted[tokenIndex].toShort())
             tokenIndex++
 
             // next part can be speed, when recorded
@@ -404,13 +403,13 @@ class PolarHRMParser : AbstractExerciseParser() {
                     speedX10 = ConvertUtils.convertMiles2Kilometer(speedX10)
                 }
 
-                sample.speed = speedX10 / 10f
+                samples.setSpeed(sampleIndex, speedX10 / 10f)
                 tokenIndex++
             }
 
             // next part can be cadence, when recorded
             if (currSampleSplitted.size > tokenIndex && exercise.recordingMode.isCadence) {
-                sample.cadence = currSampleSplitted[tokenIndex].toShort()
+                samples.setCadence(sampleIndex, currSampleSplitted[tokenIndex].toShort())
                 tokenIndex++
             }
 
@@ -421,7 +420,7 @@ class PolarHRMParser : AbstractExerciseParser() {
                     altitude = ConvertUtils.convertFeet2Meter(altitude)
                 }
 
-                sample.altitude = altitude.toShort()
+                samples.setAltitude(sampleIndex, altitude.toShort())
             }
         }
 
@@ -432,9 +431,9 @@ class PolarHRMParser : AbstractExerciseParser() {
             var distanceAccum = 0.0
             exercise.speed!!.speedMax = 0f
 
-            for (sample in exercise.sampleList) {
-                val sampleSpeed = sample.speed ?: 0f
-                sample.distance = distanceAccum.toInt()
+            for (sampleIndex in 0 until samples.size) {
+                val sampleSpeed = if (samples.hasSpeed(sampleIndex)) samples.getSpeed(sampleIndex) else 0f
+                samples.setDistance(sampleIndex, distanceAccum.toInt())
                 distanceAccum += (sampleSpeed * exercise.recordingInterval!!) / 3.6
                 exercise.speed!!.speedMax = Math.max(sampleSpeed, exercise.speed!!.speedMax)
             }
@@ -444,21 +443,23 @@ class PolarHRMParser : AbstractExerciseParser() {
         var avgHeartrateSum = 0
         exercise.heartRateMax = 0
 
-        for (sample in exercise.sampleList) {
-            val sampleHeartRate = sample.heartRate ?: 0
+        for (sampleIndex in 0 until samples.size) {
+            val sampleHeartRate = samples.getHeartRate(sampleIndex)
             avgHeartrateSum += sampleHeartRate
             exercise.heartRateMax = maxShort(sampleHeartRate, exercise.heartRateMax ?: 0)
         }
 
         // calculate AVG heartrate
-        exercise.heartRateAVG = Math.round(avgHeartrateSum / exercise.sampleList.size.toDouble()).toShort()
+        exercise.heartRateAVG = Math.round(avgHeartrateSum / samples.size.toDouble()).toShort()
 
         // when altitude is recorded => search minimum altitude of exercise (is not in HRM file)
         if (exercise.recordingMode.isAltitude) {
             exercise.altitude!!.altitudeMin = Short.MAX_VALUE
 
-            for (sample in exercise.sampleList) {
-                exercise.altitude!!.altitudeMin = minShort(exercise.altitude!!.altitudeMin, sample.altitude ?: Short.MAX_VALUE)
+            for (sampleIndex in 0 until samples.size) {
+                if (samples.hasAltitude(sampleIndex)) {
+                    exercise.altitude!!.altitudeMin = minShort(exercise.altitude!!.altitudeMin, samples.getAltitude(sampleIndex))
+                }
             }
         }
 
@@ -471,13 +472,13 @@ class PolarHRMParser : AbstractExerciseParser() {
             var cadenceAvg: Short = 0
             var cadenceMax: Short = 0
 
-            for (sample in exercise.sampleList) {
-                sample.cadence?.let { sampleCadence ->
+            for (sampleIndex in 0 until samples.size) {
+                if (samples.hasCadence(sampleIndex)) {
+                    val sampleCadence = samples.getCadence(sampleIndex)
                     avgCadenceSum += sampleCadence
                     avgCadenceSamples++
+                    cadenceMax = maxShort(sampleCadence, cadenceMax)
                 }
-
-                cadenceMax = maxShort(sample.cadence ?: 0, cadenceMax)
             }
 
             if (avgCadenceSum > 0 && avgCadenceSamples > 0) {
@@ -2,7 +2,6 @@ package de.saring.exerciseviewer.parser.impl
 
 import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import java.io.File
@@ -52,9 +51,8 @@ class SmartsyncCSVParser : AbstractExerciseParser() {
         for (line in fileContent) {
             // most frequent element first
             if (line.startsWith(",")) {
-                val exeSample = ExerciseSample()
-                exeSample.heartRate = line.substring(1).toShort()
-                exercise.sampleList.add(exeSample)
+                val sampleIndex = exercise.samples.addSample()
+                exercise.samples.setHeartRate(sampleIndex, line.substring(1).toShort())
             } else if (line.startsWith("Name,")) {
                 // not supported in EVExercise
             } else if (line.startsWith("Description,")) {
@@ -84,20 +82,22 @@ class SmartsyncCSVParser : AbstractExerciseParser() {
 
         exercise.dateTime = LocalDateTime.of(exeYear, exeMonth, exeDay, exeHour, exeMinute, exeSecond)
 
-        exercise.duration = (exercise.sampleList.size - 1) * exercise.recordingInterval!! * 10
+        val samples = exercise.samples
+        exercise.duration = (samples.size - 1) * exercise.recordingInterval!! * 10
 
         // compute average/maximum heartrate of exercise (not in HRM file)
-        exercise.heartRateAVG = Math.round(exercise.sampleList
-                .map { it.heartRate ?: 0 }
-                .average()).toShort()
-
-        exercise.heartRateMax = exercise.sampleList
-                .map { it.heartRate ?: 0}
-                .max() ?: 0
+        var heartRateSum = 0
+        var heartRateMax: Short = 0
+        for (i in 0 until samples.size) {
+            heartRateSum += samples.getHeartRate(i)
+            heartRateMax = Math.max(heartRateMax.toInt(), samples.getHeartRate(i).toInt()).toShort()
+        }
+        exercise.heartRateAVG = Math.round(heartRateSum / samples.size.toDouble()).toShort()
+        exercise.heartRateMax = heartRateMax
 
         // compute timestamps for all recorded exercise samples
-        for (i in 0..exercise.sampleList.size - 1) {
-            exercise.sampleList[i].timestamp = i * exercise.recordingInterval!! * 1000L
+        for (i in 0 until samples.size) {
+            samples.setTimestamp(i, i * exercise.recordingInterval!! * 1000L)
         }
 
         // done :-)
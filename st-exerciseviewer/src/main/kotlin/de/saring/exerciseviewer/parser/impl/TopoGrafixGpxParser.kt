@@ -3,36 +3,35 @@ package de.saring.exerciseviewer.parser.impl
 import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
-import de.saring.exerciseviewer.data.Position
+import de.saring.exerciseviewer.data.ExerciseSamples
 import de.saring.exerciseviewer.data.RecordingMode
 import de.saring.exerciseviewer.parser.AbstractExerciseParser
 import de.saring.exerciseviewer.parser.ExerciseParserInfo
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
-import org.jdom2.Element
-import org.jdom2.Namespace
-import org.jdom2.input.SAXBuilder
+import java.io.BufferedInputStream
+import java.io.FileInputStream
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLStreamConstants
+import javax.xml.stream.XMLStreamReader
 import kotlin.math.roundToInt
 
 /**
  * ExerciseParser implementation for reading TopoGrafix GPX v1.1 exercise files (XML-based). Documentation about the
  * format can be found at the TopoGrafix website ( http://www.topografix.com/gpx.asp ).
  *
+ * The file is parsed in a single pass by a StAX stream reader, no DOM is created. The distance and speed of each
+ * trackpoint and the altitude, speed and heartrate summary are computed while reading, so the memory usage depends
+ * on the parsed samples only, also for GPX files with a huge number of trackpoints.
+ *
  * @author Stefan Saring
  * @author Alex Wulms
  */
 class TopoGrafixGpxParser : AbstractExerciseParser() {
 
-    private val degreeToRadianDivider: Double = 57.29577951
-    private val earthRadiosInMeter: Double = 6371000.0
-
-    private val namespace = Namespace.getNamespace("http://www.topografix.com/GPX/1/1")
-    private val namespaceExt = Namespace.getNamespace("http://www.garmin.com/xmlschemas/TrackPointExtension/v1")
-
     override
     val info = ExerciseParserInfo("TopoGrafix GPX", listOf("gpx", "GPX"))
 
@@ -40,8 +39,14 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     fun parseExercise(filename: String): EVExercise {
 
         try {
-            val document = SAXBuilder().build(filename)
-            return parseExerciseElement(document.rootElement)
+            BufferedInputStream(FileInputStream(filename)).use { input ->
+                val reader = XML_INPUT_FACTORY.createXMLStreamReader(input)
+                try {
+                    return GpxStreamReader(reader).readExercise()
+                } finally {
+                    reader.close()
+                }
+            }
         }
         catch (e: Exception) {
             throw EVException("Failed to read the TopoGrafix GPX exercise file '$filename'!", e)
@@ -49,259 +54,288 @@ class TopoGrafixGpxParser : AbstractExerciseParser() {
     }
 
     /**
-     * Parses the exercise data from the specified gpx (root) element.
+     * Reader for the exercise data of a GPX file. It contains the parsing state, so a new instance is needed for
+     * each file. All trackpoints in all tracks and track segments are stored in the exercise samples.
+     *
+     * @param reader the stream reader of the GPX file
      */
-    private fun parseExerciseElement(eGpx: Element): EVExercise {
-
-        val exercise = createExercise(eGpx)
-        exercise.sampleList = parseSampleTrackpoints(eGpx, exercise)
-        calculateDistanceAndSpeedPerPoint(exercise)
-        exercise.speed = null;
-        if (exercise.recordingMode.isAltitude) {
-            calculateAltitudeSummary(exercise)
-        }
-        if (exercise.dateTime != null) {
-            calculateDuration(exercise)
-        }
-        if (exercise.recordingMode.isSpeed) {
-            calculateSpeedSummary(exercise)
-        }
-        if (exercise.recordingMode.isHeartRate) {
-            calculateHeartRateSummary(exercise)
-        }
-
-        return exercise
-    }
-
-    /**
-     * Creates the EVExercise with basic exercise data.
-     */
-    private fun createExercise(eGpx: Element): EVExercise {
-
-        val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
-        exercise.deviceName = "Garmin GPX"
-        exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
-        exercise.recordingMode = RecordingMode()
-        exercise.recordingMode.isLocation = true
-
-        // get dateTime and time (optional)
-        val strTime = eGpx.getChild("metadata")?.getChildText("time")
-        if (strTime != null) {
-            exercise.dateTime = parseDateTime(strTime)
-        }
+    private class GpxStreamReader(private val reader: XMLStreamReader) {
+
+        private val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
+        private val samples = exercise.samples
+
+        /** Local names of all currently opened elements (leaf elements whose text has been read are not included). */
+        private val path = ArrayList<String>()
+
+        // values of the current trackpoint, they are reset for each trackpoint
+        private var tpLatitude = 0.0
+        private var tpLongitude = 0.0
+        private var tpElevation: String? = null
+        private var tpTime: String? = null
+        private var tpHeartRateGarmin: String? = null
+        private var tpHeartRateHolux: String? = null
+
+        // values of the previous sample, needed for the distance and speed calculation
+        private var prevLatitude = 0.0
+        private var prevLongitude = 0.0
+        private var prevTimestamp: Long? = null
+        private var prevAltitude = Short.MAX_VALUE
+
+        private var totalDistanceInMeter = 0.0
+        private var lastTimestamp = 0L
+        private var speedMax = 0f
+
+        private var altitudeMin = Int.MAX_VALUE
+        private var altitudeMax = Int.MIN_VALUE
+        private var altitudeSum = 0L
+        private var altitudeCount = 0
+        private var ascent = 0
+
+        private var heartRateSum = 0L
+        private var heartRateCount = 0
+        private var heartRateMax = Short.MIN_VALUE
+
+        fun readExercise(): EVExercise {
+
+            exercise.deviceName = "Garmin GPX"
+            exercise.recordingInterval = EVExercise.DYNAMIC_RECORDING_INTERVAL
+            exercise.recordingMode = RecordingMode()
+            exercise.recordingMode.isLocation = true
+
+            while (reader.hasNext()) {
+                when (reader.next()) {
+                    XMLStreamConstants.START_ELEMENT -> startElement()
+                    XMLStreamConstants.END_ELEMENT -> endElement()
+                }
+            }
 
-        return exercise
-    }
+            // speed and distance data in samples will be 0 if no timestamps were available => remove them
+            if (!exercise.recordingMode.isSpeed) {
+                samples.clear(ExerciseSamples.Channel.SPEED)
+                samples.clear(ExerciseSamples.Channel.DISTANCE)
+            }
 
-    /**
-     * Parses all trackpoints in all tracks and track segments under the "gpx" element and returns the exercise samples.
-     */
-    private fun parseSampleTrackpoints(eGpx: Element, exercise: EVExercise): MutableList<ExerciseSample> {
-        val samples = mutableListOf<ExerciseSample>()
+            if (exercise.recordingMode.isAltitude) {
+                storeAltitudeSummary()
+            }
+            if (exercise.dateTime != null && lastTimestamp > 0) {
+                exercise.duration = (lastTimestamp / 100).toInt()
+            }
+            if (exercise.recordingMode.isSpeed) {
+                storeSpeedSummary()
+            }
+            if (heartRateCount > 0) {
+                exercise.heartRateAVG = (heartRateSum / heartRateCount.toDouble()).roundToInt().toShort()
+                exercise.heartRateMax = heartRateMax
+            }
 
-        for (eTrk in eGpx.getChildren("trk", namespace)) {
-            for (eTrkSeg in eTrk.getChildren("trkseg", namespace)) {
-                for (eTrkPt in eTrkSeg.getChildren("trkpt", namespace)) {
+            return exercise
+        }
 
-                    val sample = ExerciseSample()
-                    samples.add(sample)
+        private fun startElement() {
+            val name = reader.localName
+            val namespace = reader.namespaceURI
+            val parent = path.lastOrNull()
 
-                    // get position
-                    sample.position = Position(eTrkPt.getAttributeValue("lat").toDouble(), eTrkPt.getAttributeValue("lon").toDouble())
+            if (namespace.isNullOrEmpty() && name == "time" && parent == "metadata" && path.size == 2) {
+                // get dateTime and time (optional), the metadata time is only used when it has no namespace
+                // (as always done before), so the exercise time of GPX 1.1 files is the first trackpoint time
+                exercise.dateTime = parseDateTime(reader.elementText)
+                return
+            }
 
-                    // get altitude (optional)
-                    val strElevation = eTrkPt.getChildText("ele", namespace)
-                    if (strElevation != null) {
-                        exercise.recordingMode.isAltitude = true
-                        sample.altitude = Math.round(strElevation.toDouble()).toShort()
+            if (namespace == NAMESPACE) {
+                when {
+                    name == "trkpt" && parent == "trkseg" && path.size == 3 -> {
+                        tpLatitude = reader.getAttributeValue(null, "lat").toDouble()
+                        tpLongitude = reader.getAttributeValue(null, "lon").toDouble()
+                        tpElevation = null
+                        tpTime = null
+                        tpHeartRateGarmin = null
+                        tpHeartRateHolux = null
                     }
-
-                    // get timestamp and calculate sample time offset (optional)
-                    val strTime = eTrkPt.getChildText("time", namespace)
-                    if (strTime != null) {
-                        val timestampSample = parseDateTime(strTime)
-
-                        // store first timestamp as exercise start time when missing
-                        // or when exercise timestamp larger then (first) track time stamp
-                        // (In some GPX files track metadata is missing, while in some other
-                        //  GPX file, the time stamp in the meta data is the time the track
-                        //  was saved -thus after the exercise- and not the time the track
-                        //  was started)
-                        if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
-                            exercise.dateTime = timestampSample
-                        }
-                        sample.timestamp = Date310Utils.getMilliseconds(timestampSample) -
-                                Date310Utils.getMilliseconds(exercise.dateTime!!)
+                    parent == "trkpt" && name == "ele" -> {
+                        tpElevation = reader.elementText
+                        return
                     }
-
-                    // try to get heartrate in Garmin Oregon format if present
-                    var strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChild("TrackPointExtension", namespaceExt)?.getChildText("hr", namespaceExt)
-                    // if not present, try to get heartrate in Holux FunTrek 130 pro format if present
-                    if (strHeartrate == null) {
-                        strHeartrate = eTrkPt.getChild("extensions", namespace)?.getChildText("bpm", namespace)
+                    parent == "trkpt" && name == "time" -> {
+                        tpTime = reader.elementText
+                        return
                     }
-
-                    if (strHeartrate != null) {
-                        exercise.recordingMode.isHeartRate = true
-                        sample.heartRate = strHeartrate.toShort()
+                    // heartrate in Holux FunTrek 130 pro format
+                    parent == "extensions" && name == "bpm" && isInTrackpoint(2) -> {
+                        tpHeartRateHolux = reader.elementText
+                        return
                     }
                 }
+            } else if (namespace == NAMESPACE_EXT && name == "hr" && parent == "TrackPointExtension" &&
+                    isInTrackpoint(3)) {
+                // heartrate in Garmin Oregon format
+                tpHeartRateGarmin = reader.elementText
+                return
+            }
+
+            path.add(name)
+        }
+
+        private fun endElement() {
+            val name = path.removeAt(path.size - 1)
+            if (name == "trkpt" && path.size == 3 && path[2] == "trkseg") {
+                storeTrackpoint()
             }
         }
 
-        return samples
-    }
+        /**
+         * Returns true when the parent of the current element is located inside the extensions element of a
+         * trackpoint, with the specified number of levels between the trackpoint and the current element.
+         */
+        private fun isInTrackpoint(depth: Int): Boolean =
+                path.size == 3 + depth && path[3] == "trkpt" && path[4] == "extensions"
+
+        /**
+         * Stores the data of the current trackpoint in a new sample and updates the summary values.
+         */
+        private fun storeTrackpoint() {
+            val sampleIndex = samples.addSample()
+            samples.setPosition(sampleIndex, tpLatitude, tpLongitude)
+
+            // get altitude (optional)
+            tpElevation?.let {
+                exercise.recordingMode.isAltitude = true
+                val sampleAltitude = Math.round(it.toDouble()).toShort()
+                samples.setAltitude(sampleIndex, sampleAltitude)
+
+                altitudeMin = Math.min(sampleAltitude.toInt(), altitudeMin)
+                altitudeMax = Math.max(sampleAltitude.toInt(), altitudeMax)
+                altitudeSum += sampleAltitude
+                altitudeCount++
+                if (prevAltitude < sampleAltitude) {
+                    ascent += sampleAltitude - prevAltitude
+                }
+                prevAltitude = sampleAltitude
+            }
 
-    /**
-     * Calculates the distance and speed for each sample point, based on the GPS coordinates and timestamp.
-     * Speed and distance tags do not seem to be part of GPX standard. Some GPS devices do log for example the speed
-     * but they don't indicate the unit used, like km/h our mile/hour and as such, those speed data are useless anyway.
-     */
-    private fun calculateDistanceAndSpeedPerPoint(exercise: EVExercise) {
-        var totalDistanceInMeter = 0.0
-        var prevPosition: Position? = null
-        var prevTimestamp: Long? = null
+            // get timestamp and calculate sample time offset (optional)
+            tpTime?.let {
+                val timestampSample = parseDateTime(it)
+
+                // store first timestamp as exercise start time when missing
+                // or when exercise timestamp larger then (first) track time stamp
+                // (In some GPX files track metadata is missing, while in some other
+                //  GPX file, the time stamp in the meta data is the time the track
+                //  was saved -thus after the exercise- and not the time the track
+                //  was started)
+                if (exercise.dateTime == null || exercise.dateTime!!.isAfter(timestampSample)) {
+                    exercise.dateTime = timestampSample
+                }
+                samples.setTimestamp(sampleIndex, Date310Utils.getMilliseconds(timestampSample) -
+                        Date310Utils.getMilliseconds(exercise.dateTime!!))
+            }
+            val timestamp = if (samples.hasTimestamp(sampleIndex)) samples.getTimestamp(sampleIndex) else 0L
 
-        for (sample in exercise.sampleList) {
+            // use the heartrate in Garmin Oregon format, if not present the Holux FunTrek 130 pro format
+            (tpHeartRateGarmin ?: tpHeartRateHolux)?.let {
+                exercise.recordingMode.isHeartRate = true
+                val sampleHeartRate = it.toShort()
+                samples.setHeartRate(sampleIndex, sampleHeartRate)
+
+                heartRateSum += sampleHeartRate
+                heartRateCount++
+                heartRateMax = Math.max(sampleHeartRate.toInt(), heartRateMax.toInt()).toShort()
+            }
+
+            calculateDistanceAndSpeed(sampleIndex, timestamp)
+
+            prevLatitude = tpLatitude
+            prevLongitude = tpLongitude
+            prevTimestamp = if (samples.hasTimestamp(sampleIndex)) timestamp else null
+            lastTimestamp = timestamp
+        }
+
+        /**
+         * Calculates the distance and speed for the specified sample, based on the GPS coordinates and timestamp of
+         * the previous sample. Speed and distance tags do not seem to be part of GPX standard. Some GPS devices do log
+         * for example the speed but they don't indicate the unit used, like km/h our mile/hour and as such, those
+         * speed data are useless anyway.
+         */
+        private fun calculateDistanceAndSpeed(sampleIndex: Int, timestamp: Long) {
             var distanceInMeter = 0.0
-            if (prevPosition != null) {
+            if (sampleIndex > 0) {
                 // Calculate distance based on GPS coordinates, using haversine formula
-                val dLat = (sample.position!!.latitude - prevPosition.latitude) / degreeToRadianDivider
-                val dLon = (sample.position!!.longitude - prevPosition.longitude) / degreeToRadianDivider
-                val prevLat = prevPosition.latitude / degreeToRadianDivider
-                val currLat = sample.position!!.latitude / degreeToRadianDivider
+                val dLat = (tpLatitude - prevLatitude) / DEGREE_TO_RADIAN_DIVIDER
+                val dLon = (tpLongitude - prevLongitude) / DEGREE_TO_RADIAN_DIVIDER
+                val prevLat = prevLatitude / DEGREE_TO_RADIAN_DIVIDER
+                val currLat = tpLatitude / DEGREE_TO_RADIAN_DIVIDER
                 val a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
                         Math.sin(dLon / 2) * Math.sin(dLon / 2) * Math.cos(prevLat) * Math.cos(currLat)
-                distanceInMeter = earthRadiosInMeter * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a))
-                totalDistanceInMeter += distanceInMeter;
+                distanceInMeter = EARTH_RADIUS_IN_METER * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a))
+                totalDistanceInMeter += distanceInMeter
             }
-            sample.distance = Math.round(totalDistanceInMeter).toInt()
-            prevPosition = sample.position
+            samples.setDistance(sampleIndex, Math.round(totalDistanceInMeter).toInt())
 
+            var speed = 0f
             if (prevTimestamp != null) {
                 // Calculate speed. Don't use CalculateUtils.calculateAvgSpeed, because
                 // that one gives 'infinity' when rounded time-difference is 0
                 // (e.g. when two timestamps are less then 500 milliseconds apart)
                 // Note that timestamps are in milliseconds
                 // Note that speed is in km/h
-                val deltaTime = sample.timestamp!! - prevTimestamp
+                val deltaTime = timestamp - prevTimestamp!!
                 // Note that deltaTime can be 0, either when GPX file contains two
                 // consecutive points with same timestamp or when it does not contain
                 // any timestamps at all. In both cases, speed will be set to 0 for
                 // the sample
                 if (deltaTime != 0L) {
                     exercise.recordingMode.isSpeed = true
-                    sample.speed = (3600 * distanceInMeter / deltaTime).toFloat()
-                } else {
-                    sample.speed = 0f
+                    speed = (3600 * distanceInMeter / deltaTime).toFloat()
                 }
-            } else {
-                // First sample point; speed not known yet. Assume person did not start
-                // the training yet and is standing still
-                sample.speed = 0f
-            }
-            prevTimestamp = sample.timestamp
-        }
-
-        // speed and distance data in samples will be 0 if no timestamps were available => set them to null
-        if (!exercise.recordingMode.isSpeed) {
-            exercise.sampleList.forEach {
-                it.speed = null
-                it.distance = null
-            }
-        }
-    }
-
-    /**
-     * Calculates the min, avg and max altitude and the ascent of the exercise.
-     */
-    private fun calculateAltitudeSummary(exercise: EVExercise) {
-
-        var altitudeMin = Int.MAX_VALUE
-        var altitudeMax = Int.MIN_VALUE
-        var ascent = 0
-        var altitudeSum = 0L
-
-        val samplesWithAltitude = exercise.sampleList.filter { it.altitude != null }.toList()
-        var previousAltitude:Short = samplesWithAltitude[0].altitude!!
-
-        for (sample in samplesWithAltitude) {
-            val sampleAltitude = sample.altitude!!
-
-            altitudeMin = Math.min(sampleAltitude.toInt(), altitudeMin)
-            altitudeMax = Math.max(sampleAltitude.toInt(), altitudeMax)
-            altitudeSum += sample.altitude!!
-
-            if (previousAltitude < sampleAltitude) {
-                ascent += sampleAltitude - previousAltitude
             }
-            previousAltitude = sampleAltitude
+            // for the first sample point the speed is not known yet, assume person
+            // did not start the training yet and is standing still
+            samples.setSpeed(sampleIndex, speed)
+            speedMax = Math.max(speed, speedMax)
         }
 
-        exercise.altitude = ExerciseAltitude(
-                altitudeMin = altitudeMin.toShort(),
-                altitudeAvg = Math.round(altitudeSum / samplesWithAltitude.size.toDouble()).toShort(),
-                altitudeMax = altitudeMax.toShort(),
-                ascent = ascent,
-                descent = 0)
-    }
-
-    /**
-     * Calculates the exercise duration (only when samples contain timestamps).
-     */
-    private fun calculateDuration(exercise: EVExercise) {
-        val sampleCount = exercise.sampleList.size
-
-        if (sampleCount > 0) {
-            val lastSampleTimestamp = exercise.sampleList[sampleCount - 1].timestamp!!
-            if (lastSampleTimestamp > 0) {
-                exercise.duration = (lastSampleTimestamp / 100).toInt()
-            }
+        private fun storeAltitudeSummary() {
+            exercise.altitude = ExerciseAltitude(
+                    altitudeMin = altitudeMin.toShort(),
+                    altitudeAvg = Math.round(altitudeSum / altitudeCount.toDouble()).toShort(),
+                    altitudeMax = altitudeMax.toShort(),
+                    ascent = ascent,
+                    descent = 0)
         }
-    }
-
-    /**
-     * Calculates the speed summary (only when samples contain timestamps, from which speed is derived).
-     */
-    private fun calculateSpeedSummary(exercise: EVExercise) {
-        if (!exercise.sampleList.isEmpty()) {
 
-            val speedMax = exercise.sampleList
-                    .map { it.speed!! }
-                    .max()!!
-
-            val lastSample = exercise.sampleList[exercise.sampleList.size - 1]
-            val distance = lastSample.distance!!
+        private fun storeSpeedSummary() {
+            val distance = Math.round(totalDistanceInMeter).toInt()
             val speedAvg = CalculationUtils.calculateAvgSpeed(
-                    distance / 1000f, Math.round(lastSample.timestamp!! / 1000f))
-
+                    distance / 1000f, Math.round(lastTimestamp / 1000f))
             exercise.speed = ExerciseSpeed(speedAvg, speedMax, distance)
         }
+
+        /**
+         * Parses the date time in ISO format specified in the passed text and returns the appropriate LocalDateTime.
+         */
+        private fun parseDateTime(dateTimeText: String): LocalDateTime {
+            // remove the suffix 'Z' if contained in the passed text, can't be ignored by ISO_LOCAL_DATE_TIME
+            val dateTimeTextFixed = if (dateTimeText.endsWith('Z'))
+                dateTimeText.substring(0, dateTimeText.length - 1)
+            else
+                dateTimeText
+            return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        }
     }
 
-    /**
-     * Calculates heart rate summary data of the exercise (only when samples contain heart rate data).
-     */
-    private fun calculateHeartRateSummary(exercise: EVExercise) {
+    companion object {
+        private const val DEGREE_TO_RADIAN_DIVIDER = 57.29577951
+        private const val EARTH_RADIUS_IN_METER = 6371000.0
 
-        val sampleHeartrates:List<Short> = exercise.sampleList
-                .mapNotNull { it.heartRate }
+        private const val NAMESPACE = "http://www.topografix.com/GPX/1/1"
+        private const val NAMESPACE_EXT = "http://www.garmin.com/xmlschemas/TrackPointExtension/v1"
 
-        if (!sampleHeartrates.isEmpty()) {
-            exercise.heartRateAVG = sampleHeartrates.average().roundToInt().toShort()
-            exercise.heartRateMax = sampleHeartrates.max()
+        /** Factory for the StAX readers, DTDs and external entities are not supported for security reasons. */
+        private val XML_INPUT_FACTORY = XMLInputFactory.newInstance().apply {
+            setProperty(XMLInputFactory.SUPPORT_DTD, false)
+            setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
         }
     }
-
-    /**
-     * Parses the date time in ISO format specified in the passed text and returns the appropriate LocalDateTime.
-     */
-    private fun parseDateTime(dateTimeText: String): LocalDateTime {
-        // remove the suffix 'Z' if contained in the passed text, can't be ignored by ISO_LOCAL_DATE_TIME
-        val dateTimeTextFixed = if (dateTimeText.endsWith('Z'))
-            dateTimeText.substring(0, dateTimeText.length - 1)
-        else
-            dateTimeText
-        return LocalDateTime.parse(dateTimeTextFixed, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-    }
 }
@@ -7,14 +7,12 @@ import de.saring.exerciseviewer.core.EVException
 import de.saring.exerciseviewer.data.EVExercise
 import de.saring.exerciseviewer.data.ExerciseAltitude
 import de.saring.exerciseviewer.data.ExerciseCadence
-import de.saring.exerciseviewer.data.ExerciseSample
 import de.saring.exerciseviewer.data.ExerciseSpeed
 import de.saring.exerciseviewer.data.ExerciseTemperature
 import de.saring.exerciseviewer.data.Lap
 import de.saring.exerciseviewer.data.LapAltitude
 import de.saring.exerciseviewer.data.LapSpeed
 import de.saring.exerciseviewer.data.LapTemperature
-import de.saring.exerciseviewer.data.Position
 import de.saring.util.Date310Utils
 import de.saring.util.unitcalc.CalculationUtils
 import de.saring.util.unitcalc.ConvertUtils
@@ -35,9 +33,9 @@ internal class FitMessageListener : MesgListener {
      */
     private val lFitLaps = LinkedList<FitLap>()
     /**
-     * List of created exercise samples (collected in a LinkedList and not in EVExercise array, much faster).
+     * The exercise samples, they are stored directly in the columns of the exercise.
      */
-    private val lSamples = LinkedList<ExerciseSample>()
+    private val samples = exercise.samples
     /**
      * Flag for availability of temperature data.
      */
@@ -150,40 +148,39 @@ internal class FitMessageListener : MesgListener {
      */
     private fun readRecordMessage(mesg: RecordMesg) {
 
-        val sample = ExerciseSample()
-        lSamples.add(sample)
+        val sampleIndex = samples.addSample()
 
         // sample timestamp must be the offset from start time, will be corrected later
         // (in some cases the timestamp is missing and will be read from the next Length message)
-        mesg.timestamp?.let { sample.timestamp = it.date.time }
+        mesg.timestamp?.let { samples.setTimestamp(sampleIndex, it.date.time) }
 
         mesg.heartRate?.let {
-            sample.heartRate = it
+            samples.setHeartRate(sampleIndex, it)
             exercise.recordingMode.isHeartRate = true
         }
 
-        mesg.distance?.let { sample.distance = Math.round(it) }
-        mesg.cadence?.let { sample.cadence = it }
+        mesg.distance?.let { samples.setDistance(sampleIndex, Math.round(it)) }
+        mesg.cadence?.let { samples.setCadence(sampleIndex, it) }
 
         // on newer high-end Garmin devices (e.g. Fenix 6 or 5X) the speed and altitude is stored in the
         // enhancedSpeed or enhancedAltitude attributes => get it from there
         val mesgSpeed: Float? = if (mesg.enhancedSpeed != null) mesg.enhancedSpeed else mesg.speed
         mesgSpeed?.let {
-            sample.speed = ConvertUtils.convertMeterPerSecond2KilometerPerHour(it)
+            samples.setSpeed(sampleIndex, ConvertUtils.convertMeterPerSecond2KilometerPerHour(it))
         }
 
         val mesgAltitude: Float? = if (mesg.enhancedAltitude != null) mesg.enhancedAltitude else mesg.altitude
         mesgAltitude?.let {
-            sample.altitude = Math.round(it).toShort()
+            samples.setAltitude(sampleIndex, Math.round(it).toShort())
         }
 
         mesg.temperature?.let {
             temperatureAvailable = true
-            sample.temperature = it.toShort()
+            samples.setTemperature(sampleIndex, it.toShort())
         }
 
         if (mesg.positionLat != null && mesg.positionLong != null) {
-            sample.position = Position(
+            samples.setPosition(sampleIndex,
                     ConvertUtils.convertSemicircle2Degree(mesg.positionLat!!),
                     ConvertUtils.convertSemicircle2Degree(mesg.positionLong!!))
         }
@@ -199,14 +196,13 @@ internal class FitMessageListener : MesgListener {
      */
     private fun readLengthMessage(mesg: LengthMesg) {
         // swimming exercises of Garmin Forerunner 645 don't contain any samples
-        if (lSamples.isNotEmpty()) {
+        if (!samples.isEmpty()) {
 
             val startTimestamp = mesg.startTime.date.time
             val totalElapsedTime = Math.round(mesg.totalElapsedTime.toDouble() * 1000.0)
             val endTimestamp = startTimestamp + totalElapsedTime
 
-            val lastSample = lSamples[lSamples.size - 1]
-            lastSample.timestamp = endTimestamp
+            samples.setTimestamp(samples.size - 1, endTimestamp)
         }
     }
 
@@ -257,7 +253,7 @@ internal class FitMessageListener : MesgListener {
         storeLaps()
 
         calculateMissingAverageSpeed()
-        if (!exercise.sampleList.isEmpty()) {
+        if (!samples.isEmpty()) {
             calculateAltitudeSummary()
             calculateTemperatureSummary()
             calculateMissingMaxSpeed()
@@ -269,15 +265,15 @@ internal class FitMessageListener : MesgListener {
     }
 
     /**
-     * Stores the sample data in the exercise. It also fixes the timestamps in all ExerciseSamples, it must be the
-     * offset from the start time.
+     * Fixes the timestamps in all exercise samples, it must be the offset from the start time.
      */
     private fun storeSamples() {
         val startTime = Date310Utils.getMilliseconds(exercise.dateTime!!)
-        for (sample in lSamples) {
-            sample.timestamp?.let { sample.timestamp = it - startTime }
+        for (i in 0 until samples.size) {
+            if (samples.hasTimestamp(i)) {
+                samples.setTimestamp(i, samples.getTimestamp(i) - startTime)
+            }
         }
-        exercise.sampleList.addAll(lSamples)
     }
 
     /**
@@ -289,6 +285,7 @@ internal class FitMessageListener : MesgListener {
         // convert FitLap to Lap objects
         val lLaps = LinkedList<Lap>()
         val startTime = Date310Utils.getMilliseconds(exercise.dateTime!!)
+        val timestampedSamples = getTimestampedSampleIndices()
 
         for (fitLap in lFitLaps) {
             val lap = fitLap.lap
@@ -299,27 +296,27 @@ internal class FitMessageListener : MesgListener {
             lap.timeSplit = ((lapSplitDateTimeMillis - startTime) / 100).toInt()
 
             // get all the missing lap data from the sample at lap end time
-            val sampleAtLapEnd = getExerciseSampleForLapEnd(lap)
-            if (sampleAtLapEnd != null) {
-                lap.heartRateSplit = sampleAtLapEnd.heartRate
+            val sampleAtLapEnd = getSampleIndexForLapEnd(lap, timestampedSamples)
+            if (sampleAtLapEnd >= 0) {
+                lap.heartRateSplit = if (samples.hasHeartRate(sampleAtLapEnd)) samples.getHeartRate(sampleAtLapEnd) else null
 
                 lap.speed?.let { lapSpeed ->
                     // fix lap distance, it must be the distance from exercise start (FIT stores from Lap start)
                     lapDistanceSum += lapSpeed.distance
                     lapSpeed.distance = lapDistanceSum
 
-                    lapSpeed.speedEnd = sampleAtLapEnd.speed ?: 0f
-                    lapSpeed.cadence = sampleAtLapEnd.cadence
+                    lapSpeed.speedEnd = if (samples.hasSpeed(sampleAtLapEnd)) samples.getSpeed(sampleAtLapEnd) else 0f
+                    lapSpeed.cadence = if (samples.hasCadence(sampleAtLapEnd)) samples.getCadence(sampleAtLapEnd) else null
                 }
 
                 lap.altitude?.let {
-                    if (sampleAtLapEnd.altitude != null) {
-                        lap.altitude = it.copy(altitude = sampleAtLapEnd.altitude as Short, ascent = lap.altitude!!.ascent)
+                    if (samples.hasAltitude(sampleAtLapEnd)) {
+                        lap.altitude = it.copy(altitude = samples.getAltitude(sampleAtLapEnd), ascent = lap.altitude!!.ascent)
                     }
                 }
 
-                if (temperatureAvailable) {
-                    sampleAtLapEnd.temperature?.let { lap.temperature = LapTemperature(it) }
+                if (temperatureAvailable && samples.hasTemperature(sampleAtLapEnd)) {
+                    lap.temperature = LapTemperature(samples.getTemperature(sampleAtLapEnd))
                 }
             }
         }
@@ -328,26 +325,83 @@ internal class FitMessageListener : MesgListener {
     }
 
     /**
-     * Returns the closest ExerciseSample for the lap end time.
+     * Returns the indices of all samples containing a timestamp, sorted by the timestamp. The samples are
+     * recorded in time order usually, so sorting is only needed for exercise files with inconsistent timestamps.
+     * Samples with the same timestamp keep their order.
+     *
+     * @return the sample indices
+     */
+    private fun getTimestampedSampleIndices(): IntArray {
+        val indices = IntArray(samples.size)
+        var count = 0
+        var sorted = true
+        for (i in 0 until samples.size) {
+            if (samples.hasTimestamp(i)) {
+                if (count > 0 && samples.getTimestamp(indices[count - 1]) > samples.getTimestamp(i)) {
+                    sorted = false
+                }
+                indices[count++] = i
+            }
+        }
+
+        val timestampedSamples = indices.copyOf(count)
+        return if (sorted) timestampedSamples
+        else timestampedSamples.sortedBy { samples.getTimestamp(it) }.toIntArray()
+    }
+
+    /**
+     * Returns the index of the closest sample for the lap end time (binary search on the timestamp sorted
+     * samples). When two samples have the same time distance, the first recorded sample is returned.
      *
      * @param lap the lap for search
-     * @return the closest ExerciseSample
+     * @param timestampedSamples the indices of all samples containing a timestamp, sorted by timestamp
+     * @return the index of the closest sample or -1 when there are no samples with timestamps
      */
-    private fun getExerciseSampleForLapEnd(lap: Lap): ExerciseSample? {
+    private fun getSampleIndexForLapEnd(lap: Lap, timestampedSamples: IntArray): Int {
+        if (timestampedSamples.isEmpty()) {
+            return -1
+        }
+
+        // the first sample at or after the lap end is the closest one, unless the sample before is closer
         val lapSplitTimestamp = lap.timeSplit * 100L
-        var closestSample: ExerciseSample? = null
-        var closestTimeDistance = java.lang.Long.MAX_VALUE
-
-        for (sample in exercise.sampleList) {
-            sample.timestamp?.let {
-                val timeDistance = Math.abs(it - lapSplitTimestamp)
-                if (timeDistance < closestTimeDistance) {
-                    closestTimeDistance = timeDistance
-                    closestSample = sample
-                }
+        val next = findFirstTimestampedSample(timestampedSamples, lapSplitTimestamp)
+        if (next == 0) {
+            return timestampedSamples[0]
+        }
+
+        // there can be multiple samples with the previous timestamp, the first of them is the closest one
+        val previousTimestamp = samples.getTimestamp(timestampedSamples[next - 1])
+        val previous = timestampedSamples[findFirstTimestampedSample(timestampedSamples, previousTimestamp)]
+        if (next == timestampedSamples.size) {
+            return previous
+        }
+
+        val previousTimeDistance = lapSplitTimestamp - previousTimestamp
+        val nextTimeDistance = samples.getTimestamp(timestampedSamples[next]) - lapSplitTimestamp
+        return when {
+            previousTimeDistance < nextTimeDistance -> previous
+            previousTimeDistance > nextTimeDistance -> timestampedSamples[next]
+            else -> Math.min(previous, timestampedSamples[next])
+        }
+    }
+
+    /**
+     * Returns the position of the first sample in the sorted array of timestamped samples, which has a timestamp
+     * greater or equal to the specified timestamp (binary search). Returns the array size when there is no such
+     * sample.
+     */
+    private fun findFirstTimestampedSample(timestampedSamples: IntArray, timestamp: Long): Int {
+        var low = 0
+        var high = timestampedSamples.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (samples.getTimestamp(timestampedSamples[middle]) < timestamp) {
+                low = middle + 1
+            } else {
+                high = middle
             }
         }
-        return closestSample
+        return low
     }
 
     /**
@@ -360,8 +414,8 @@ internal class FitMessageListener : MesgListener {
             var altMax = Short.MIN_VALUE
             var altitudeSum = 0
 
-            for (sample in exercise.sampleList) {
-                val sampleAltitude = sample.altitude ?: 0
+            for (i in 0 until samples.size) {
+                val sampleAltitude: Short = if (samples.hasAltitude(i)) samples.getAltitude(i) else 0
                 altMin = Math.min(sampleAltitude.toInt(), altMin.toInt()).toShort()
                 altMax = Math.max(sampleAltitude.toInt(), altMax.toInt()).toShort()
                 altitudeSum += sampleAltitude.toInt()
@@ -369,7 +423,7 @@ internal class FitMessageListener : MesgListener {
 
             exerciseAltitude.altitudeMin = altMin
             exerciseAltitude.altitudeMax = altMax
-            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / exercise.sampleList.size.toDouble()).toShort()
+            exerciseAltitude.altitudeAvg = Math.round(altitudeSum / samples.size.toDouble()).toShort()
         }
     }
 
@@ -385,9 +439,10 @@ internal class FitMessageListener : MesgListener {
             var temperatureSum = 0
             var temperatureCount = 0
 
-            for (sample in exercise.sampleList) {
+            for (i in 0 until samples.size) {
                 // it's possible that just a few samples contain no temperature (e.g. for Edge 800)
-                sample.temperature?.let {sampleTemperature ->
+                if (samples.hasTemperature(i)) {
+                    val sampleTemperature = samples.getTemperature(i)
                     tempMin = Math.min(sampleTemperature.toInt(), tempMin.toInt()).toShort()
                     tempMax = Math.max(sampleTemperature.toInt(), tempMax.toInt()).toShort()
                     temperatureSum += sampleTemperature.toInt()
@@ -432,10 +487,13 @@ internal class FitMessageListener : MesgListener {
         exercise.speed?.let { exerciseSpeed ->
             if (exerciseSpeed.speedMax < 0.01) {
 
-                exercise.sampleList
-                        .map { it.speed ?: 0f }
-                        .max()
-                        ?.let { exerciseSpeed.speedMax = it }
+                var speedMax = 0f
+                for (i in 0 until samples.size) {
+                    if (samples.hasSpeed(i)) {
+                        speedMax = Math.max(samples.getSpeed(i), speedMax)
+                    }
+                }
+                exerciseSpeed.speedMax = speedMax
             }
         }
     }
@@ -446,11 +504,15 @@ internal class FitMessageListener : MesgListener {
     private fun calculateMissingHeartRateAVG() {
         if (exercise.heartRateAVG == null) {
 
-            exercise.sampleList
-                    .filter { it.heartRate != null }
-                    .map { it.heartRate ?: 0 }
-                    .average()
-                    .let { exercise.heartRateAVG = Math.round(it).toShort() }
+            var heartRateSum = 0L
+            var heartRateCount = 0
+            for (i in 0 until samples.size) {
+                if (samples.hasHeartRate(i)) {
+                    heartRateSum += samples.getHeartRate(i)
+                    heartRateCount++
+                }
+            }
+            exercise.heartRateAVG = Math.round(heartRateSum / heartRateCount.toDouble()).toShort()
         }
     }
 
@@ -460,10 +522,13 @@ internal class FitMessageListener : MesgListener {
     private fun calculateMissingHeartRateMax() {
         if (exercise.heartRateMax == null) {
 
-            exercise.sampleList
-                    .map { it.heartRate ?: 0 }
-                    .max()
-                    ?.let { exercise.heartRateMax = it }
+            var heartRateMax: Short = 0
+            for (i in 0 until samples.size) {
+                if (samples.hasHeartRate(i)) {
+                    heartRateMax = Math.max(samples.getHeartRate(i).toInt(), heartRateMax.toInt()).toShort()
+                }
+            }
+            exercise.heartRateMax = heartRateMax
         }
     }
 }
@@ -5,8 +5,14 @@ import de.saring.exerciseviewer.data.EVExercise;
 import de.saring.exerciseviewer.parser.AbstractExerciseParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -103,6 +109,28 @@ public class HAC4TURParserTest {
         assertEquals(100 * 20 * 1000L, exercise.getSampleList().get(100).getTimestamp().longValue());
     }
 
+    /**
+     * This method tests the parsing of a file with a truncated last sample, the missing bytes of the
+     * sample must be read as zero (the file end is missing the last 8 sample bytes).
+     */
+    @Test
+    public void testParseExerciseWithTruncatedLastSample(@TempDir Path tempDir) throws EVException, IOException {
+        byte[] content = Files.readAllBytes(Paths.get("misc/testdata/hac4/pailheres.tur"));
+        Path truncatedFile = tempDir.resolve("truncated.tur");
+        Files.write(truncatedFile, Arrays.copyOf(content, content.length - 11));
+
+        EVExercise exercise = parser.parseExercise("misc/testdata/hac4/pailheres.tur");
+        EVExercise truncatedExercise = parser.parseExercise(truncatedFile.toString());
+
+        int lastIndex = exercise.getSamples().getSize() - 1;
+        assertEquals(exercise.getSamples().getSize(), truncatedExercise.getSamples().getSize());
+        assertEquals(exercise.getSampleList().get(lastIndex).getTimestamp(),
+                truncatedExercise.getSampleList().get(lastIndex).getTimestamp());
+        assertEquals(exercise.getSampleList().get(lastIndex).getDistance(),
+                truncatedExercise.getSampleList().get(lastIndex).getDistance());
+        assertEquals((short) 0, truncatedExercise.getSampleList().get(lastIndex).getAltitude().shortValue());
+    }
+
     /**
      * This method test the parser by using a HAC5 cycling exercise file.
      */
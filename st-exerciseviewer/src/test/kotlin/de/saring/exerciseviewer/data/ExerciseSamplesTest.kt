@@ -0,0 +1,88 @@
+package de.saring.exerciseviewer.data
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+/**
+ * This class contains all unit tests for the ExerciseSamples class.
+ *
+ * @author Stefan Saring
+ */
+class ExerciseSamplesTest {
+
+    /**
+     * Tests the storage of many samples with optional values and the ExerciseSample list view.
+     */
+    @Test
+    fun testAddAndGetSamples() {
+        val samples = ExerciseSamples()
+        assertTrue(samples.isEmpty())
+
+        for (i in 0 until 1000) {
+            val index = samples.addSample()
+            assertEquals(i, index)
+            samples.setTimestamp(index, i * 1000L)
+            samples.setHeartRate(index, (100 + i % 50).toShort())
+            if (i % 2 == 0) {
+                samples.setPosition(index, 51.0 + i / 1000.0, 13.0)
+            }
+        }
+
+        assertEquals(1000, samples.size)
+        assertTrue(samples.hasAny(ExerciseSamples.Channel.HEART_RATE))
+        assertFalse(samples.hasAny(ExerciseSamples.Channel.SPEED))
+        assertEquals(999000L, samples.getTimestamp(999))
+        assertEquals(148.toShort(), samples.getHeartRate(998))
+        assertTrue(samples.hasPosition(998))
+        assertFalse(samples.hasPosition(999))
+        assertEquals(Position(51.998, 13.0), samples.getPosition(998))
+        assertNull(samples.getPosition(999))
+
+        val sampleList = samples.asSampleList()
+        assertEquals(1000, sampleList.size)
+        assertEquals(ExerciseSample(timestamp = 999000L, heartRate = 149), sampleList[999])
+
+        samples.clear(ExerciseSamples.Channel.HEART_RATE)
+        assertFalse(samples.hasHeartRate(0))
+        assertNull(sampleList[0].heartRate)
+
+        assertThrows(IndexOutOfBoundsException::class.java) { samples.getTimestamp(1000) }
+    }
+
+    /**
+     * Tests the adding of multiple samples at once, which are filled in reverse order.
+     */
+    @Test
+    fun testAddSamplesInReverseOrder() {
+        val samples = ExerciseSamples()
+        samples.addSample()
+        val firstIndex = samples.addSamples(3)
+
+        assertEquals(1, firstIndex)
+        assertEquals(4, samples.size)
+        for (i in 2 downTo 0) {
+            samples.setDistance(firstIndex + i, i * 10)
+        }
+        assertFalse(samples.hasDistance(0))
+        assertEquals(20, samples.getDistance(3))
+    }
+
+    /**
+     * Tests that the samples are part of the EVExercise data class, so copies contain the samples and
+     * the exercises are compared including their sample values.
+     */
+    @Test
+    fun testSamplesInExerciseDataClass() {
+        val exercise = EVExercise(EVExercise.ExerciseFileType.GPX)
+        exercise.samples.add(ExerciseSample(timestamp = 1000L, heartRate = 120))
+
+        val copy = exercise.copy()
+        assertEquals(1, copy.samples.size)
+        assertEquals(exercise, copy)
+
+        val other = EVExercise(EVExercise.ExerciseFileType.GPX)
+        other.samples.add(ExerciseSample(timestamp = 1000L, heartRate = 121))
+        assertNotEquals(exercise, other)
+        assertNotEquals(exercise.hashCode(), other.hashCode())
+    }
+}
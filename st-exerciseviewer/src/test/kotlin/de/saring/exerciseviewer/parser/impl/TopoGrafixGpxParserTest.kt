@@ -6,7 +6,10 @@ import de.saring.exerciseviewer.parser.ExerciseParser
 
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
 
+import java.nio.file.Files
+import java.nio.file.Path
 import java.time.LocalDateTime
 
 /**
@@ -230,6 +233,30 @@ class TopoGrafixGpxParserTest {
         assertEquals(165.toShort(), exercise.sampleList[178].heartRate)
     }
 
+    /**
+     * This test parses a GPX 1.1 file with a metadata time before the first trackpoint. The metadata time
+     * (in GPX namespace) must not be used, the exercise time is the time of the first trackpoint.
+     */
+    @Test
+    fun testGpxMetadataTimeBeforeTrack(@TempDir tempDir: Path) {
+        val gpxFile = tempDir.resolve("metadata-time.gpx")
+        Files.writeString(gpxFile, """<?xml version="1.0" encoding="UTF-8"?>
+            <gpx version="1.1" creator="Test" xmlns="http://www.topografix.com/GPX/1/1">
+              <metadata><time>2020-05-01T08:00:00Z</time></metadata>
+              <trk><trkseg>
+                <trkpt lat="51.0" lon="14.0"><time>2020-05-01T10:00:00Z</time></trkpt>
+                <trkpt lat="51.001" lon="14.0"><time>2020-05-01T10:00:10Z</time></trkpt>
+              </trkseg></trk>
+            </gpx>""")
+
+        val exercise = parser.parseExercise(gpxFile.toString())
+
+        assertEquals(LocalDateTime.of(2020, 5, 1, 10, 0, 0), exercise.dateTime)
+        assertEquals(2, exercise.sampleList.size)
+        assertEquals(0L, exercise.sampleList[0].timestamp)
+        assertEquals(10_000L, exercise.sampleList[1].timestamp)
+    }
+
     /**
      * This test parses a GPX file, which contains just the track (location) data.
      */
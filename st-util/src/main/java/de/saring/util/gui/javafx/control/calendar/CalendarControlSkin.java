@@ -2,7 +2,6 @@ package de.saring.util.gui.javafx.control.calendar;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.stream.Stream;
 
 import javafx.event.EventHandler;
@@ -193,12 +192,17 @@ public class CalendarControlSkin extends SkinBase<CalendarControl> implements Ca
     }
 
     /**
-     * Updates the content of the calendar component (all header, day and summary cells).
+     * Updates the content of the calendar component (all header, day and summary cells). The data of all
+     * displayed days and weeks is requested from the data provider in one step.
      */
     private void updateContent() {
+        final CalendarDataProvider dataProvider = getSkinnable().getCalendarDataProvider();
+        final CalendarRangeData rangeData = dataProvider == null ? null : dataProvider.getCalendarDataForDateRange( //
+                getSkinnable().getFirstDisplayedDay(), CalendarControl.GRID_DAYS_ROW_COUNT);
+
         updateHeaderCells();
-        updateDayCells();
-        updateSummaryCells();
+        updateDayCells(rangeData);
+        updateSummaryCells(rangeData);
     }
 
     /**
@@ -223,8 +227,10 @@ public class CalendarControlSkin extends SkinBase<CalendarControl> implements Ca
 
     /**
      * Updates the content of all day cells for the displayed month and year.
+     *
+     * @param rangeData calendar data of all displayed days (null when there is no data provider)
      */
-    private void updateDayCells() {
+    private void updateDayCells(final CalendarRangeData rangeData) {
         LocalDate currentCellDate = getSkinnable().getFirstDisplayedDay();
         final int displayedMonth = getSkinnable().displayedDateProperty().get().getMonth();
 
@@ -232,10 +238,8 @@ public class CalendarControlSkin extends SkinBase<CalendarControl> implements Ca
             final boolean dateOfDisplayedMonth = currentCellDate.getMonthValue() == displayedMonth;
             dayCells[i].setDate(currentCellDate, dateOfDisplayedMonth);
 
-            final CalendarDataProvider dataProvider = getSkinnable().getCalendarDataProvider();
-            if (dataProvider != null) {
-                final List<CalendarEntry> entries = dataProvider.getCalendarEntriesForDate(currentCellDate);
-                dayCells[i].setEntries(entries);
+            if (rangeData != null) {
+                dayCells[i].setEntries(rangeData.getEntriesForDate(currentCellDate));
             }
 
             currentCellDate = currentCellDate.plus(1, ChronoUnit.DAYS);
@@ -244,22 +248,21 @@ public class CalendarControlSkin extends SkinBase<CalendarControl> implements Ca
 
     /**
      * Updates the content of all summary cells for the displayed weeks.
+     *
+     * @param rangeData calendar data of all displayed weeks (null when there is no data provider)
      */
-    private void updateSummaryCells() {
+    private void updateSummaryCells(final CalendarRangeData rangeData) {
 
         for (int row = 0; row < summaryCells.length; row++) {
             final LocalDate dateWeekStart = dayCells[row * 7].getDate();
-            final LocalDate dateWeekEnd = dayCells[row * 7 + 6].getDate();
 
             final int weekNr = Date310Utils.getWeekNumber(dateWeekStart, //
                     getSkinnable().displayedDateProperty().get().isWeekStartsSunday());
             summaryCells[row].setNumber(weekNr);
 
-            // get and update summary entries for date range
-            final CalendarDataProvider dataProvider = getSkinnable().getCalendarDataProvider();
-            if (dataProvider != null) {
-                final List<String> summaryLines = dataProvider.getSummaryForDateRange(dateWeekStart, dateWeekEnd);
-                summaryCells[row].setEntries(summaryLines);
+            // update summary entries for the week
+            if (rangeData != null) {
+                summaryCells[row].setEntries(rangeData.getSummaryForWeek(row));
             }
         }
     }
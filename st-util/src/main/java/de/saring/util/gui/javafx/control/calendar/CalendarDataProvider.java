@@ -29,5 +29,30 @@ public interface CalendarDataProvider {
      * @return list of strings per summary line (not null, can be empty)
      */
     List<String> getSummaryForDateRange(LocalDate dateStart, LocalDate dateEnd);
-}
 
+    /**
+     * Returns the calendar entries of all days and the summaries of all weeks in the specified date range. The date
+     * range starts with the first day of a week and contains complete weeks only (e.g. all displayed weeks of a
+     * month).<br/>
+     * The default implementation calls the methods for a single date and date range for each day and week,
+     * implementations should override it for providing all the data in one step.
+     *
+     * @param dateStart start of date range (first day of a week)
+     * @param weekCount number of weeks in the date range
+     * @return the calendar data of the date range
+     */
+    default CalendarRangeData getCalendarDataForDateRange(final LocalDate dateStart, final int weekCount) {
+        final CalendarRangeData rangeData = new CalendarRangeData(dateStart, weekCount);
+
+        for (int week = 0; week < weekCount; week++) {
+            final LocalDate dateWeekStart = dateStart.plusWeeks(week);
+            rangeData.setSummaryForWeek(week, getSummaryForDateRange(dateWeekStart, dateWeekStart.plusDays(6)));
+
+            for (int day = 0; day < 7; day++) {
+                final LocalDate date = dateWeekStart.plusDays(day);
+                rangeData.getEntriesForDate(date).addAll(getCalendarEntriesForDate(date));
+            }
+        }
+        return rangeData;
+    }
+}
@@ -0,0 +1,101 @@
+package de.saring.util.gui.javafx.control.calendar;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data object which contains the calendar entries of all days and the summaries of all weeks in a date range
+ * (e.g. all the displayed weeks of a month). The date range always starts with the first day of a week and
+ * contains complete weeks only.
+ *
+ * @author Stefan Saring
+ */
+public class CalendarRangeData {
+
+    private final LocalDate dateStart;
+    private final List<List<CalendarEntry>> dayEntries;
+    private final List<List<String>> weekSummaries;
+
+    /**
+     * C'tor, creates the data object with empty entry and summary lists for all days and weeks.
+     *
+     * @param dateStart first day of the date range (first day of a week)
+     * @param weekCount number of weeks in the date range
+     */
+    public CalendarRangeData(final LocalDate dateStart, final int weekCount) {
+        this.dateStart = dateStart;
+        this.dayEntries = new ArrayList<>(weekCount * 7);
+        this.weekSummaries = new ArrayList<>(weekCount);
+
+        for (int i = 0; i < weekCount * 7; i++) {
+            dayEntries.add(new ArrayList<>());
+        }
+        for (int i = 0; i < weekCount; i++) {
+            weekSummaries.add(Collections.emptyList());
+        }
+    }
+
+    /**
+     * @return first day of the date range
+     */
+    public LocalDate getDateStart() {
+        return dateStart;
+    }
+
+    /**
+     * @return last day of the date range
+     */
+    public LocalDate getDateEnd() {
+        return dateStart.plusDays(dayEntries.size() - 1);
+    }
+
+    /**
+     * @return number of weeks in the date range
+     */
+    public int getWeekCount() {
+        return weekSummaries.size();
+    }
+
+    /**
+     * Returns the modifiable list of calendar entries for the specified date.
+     *
+     * @param date date inside the date range
+     * @return list of CalendarEntry objects (not null, can be empty)
+     */
+    public List<CalendarEntry> getEntriesForDate(final LocalDate date) {
+        return dayEntries.get(getDayIndex(date));
+    }
+
+    /**
+     * Returns the index of the specified date in the date range (0 for the first day).
+     *
+     * @param date date inside the date range
+     * @return index of the day
+     */
+    public int getDayIndex(final LocalDate date) {
+        return (int) ChronoUnit.DAYS.between(dateStart, date);
+    }
+
+    /**
+     * Returns the summary lines of the specified week.
+     *
+     * @param weekIndex index of the week in the date range (0 for the first week)
+     * @return list of strings per summary line (not null, can be empty)
+     */
+    public List<String> getSummaryForWeek(final int weekIndex) {
+        return weekSummaries.get(weekIndex);
+    }
+
+    /**
+     * Sets the summary lines of the specified week.
+     *
+     * @param weekIndex index of the week in the date range (0 for the first week)
+     * @param summaryLines list of strings per summary line (not null, can be empty)
+     */
+    public void setSummaryForWeek(final int weekIndex, final List<String> summaryLines) {
+        weekSummaries.set(weekIndex, summaryLines);
+    }
+}
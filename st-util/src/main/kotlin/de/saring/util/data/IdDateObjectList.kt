@@ -1,7 +1,8 @@
 package de.saring.util.data
 
 import java.time.LocalDate
-import java.util.stream.Collectors
+import java.time.LocalDateTime
+import java.time.LocalTime
 
 /**
  * This list extends IdObjectList and contains unique instances of IdDateObject subclasses. It and will also never
@@ -16,24 +17,19 @@ open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
     /**
      * Stores the specified IdDateObject object in the list. It will be inserted into the correct list position, so that
      * all IdDateObject's are sorted ascending by date. When there's already an IdDateObject object with the same ID
-     * then the old IdDateObject will be removed from list before.
+     * then the old IdDateObject will be removed from list before. The list positions are found by binary search.
      *
      * @param t IdDateObject instance to store
      */
     override fun set(t: T) {
 
         // remove the object in the list if it's already stored (same ID)
-        idObjects.remove(t)
+        removeFromIndex(t.id)?.let { idObjects.removeAt(indexOfStored(it)) }
+        addToIndex(t)
 
         try {
-            // insert the object by date order (or add it to the end)
-            for (i in 0 until idObjects.size) {
-                if (t.dateTime.isBefore(idObjects[i].dateTime)) {
-                    idObjects.add(i, t)
-                    return
-                }
-            }
-            idObjects.add(t)
+            // insert the object by date order, behind all objects with the same date
+            idObjects.add(indexOfFirstAfter(t.dateTime, false), t)
         } finally {
             notifyAllListChangelisteners(t)
         }
@@ -50,13 +46,27 @@ open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
         idObjects.clear()
         idObjects.addAll(entries)
         idObjects.sortBy { it.dateTime }
+        rebuildIndex()
 
         notifyAllListChangelisteners(null)
     }
 
     /**
-     * Returns all IdDateObject entries of this list for which their datetime is in the specified date range.
+     * Appends all IdDateObjects of the passed list to the end of this list, the registered ChangeListeners will not be
+     * notified. There are no checks for performance reasons, so the passed entries must be sorted ascending by date,
+     * must not be before the last entry of this list and must not contain any IDs which are already in use.
+     * This is useful for the fast creation of lists from already sorted data, e.g. when filtering.
      *
+     * @param entries sorted list of IdDateObjects to append
+     */
+    protected fun addAllSorted(entries: List<T>) {
+        idObjects.addAll(entries)
+        entries.forEach { addToIndex(it) }
+    }
+
+    /**
+     * Returns all IdDateObject entries of this list for which their datetime is in the specified date range.
+     * The range boundaries are found by binary search, so just the matching entries will be processed.
      *
      * @param dStart start date of the time range (inclusive)
      * @param dEnd end date of the time range (inclusive)
@@ -68,8 +78,52 @@ open class IdDateObjectList<T : IdDateObject> : IdObjectList<T>() {
             throw IllegalArgumentException("Start date is after end date!")
         }
 
-        return stream()
-                .filter { !it.dateTime.toLocalDate().isBefore(dStart) && !it.dateTime.toLocalDate().isAfter(dEnd) }
-                .collect(Collectors.toList())
+        val indexStart = indexOfFirstAfter(dStart.atStartOfDay(), true)
+        val indexEnd = indexOfFirstAfter(LocalDateTime.of(dEnd, LocalTime.MAX), false)
+        return ArrayList(idObjects.subList(indexStart, maxOf(indexStart, indexEnd)))
+    }
+
+    /**
+     * Returns the index of the first object in the list with a datetime after the specified datetime or with the
+     * same datetime, when includeEqual is true. Returns the list size when there is no such object.
+     *
+     * @param dateTime datetime to search for
+     * @param includeEqual true when objects with the same datetime are also searched
+     * @return the found index
+     */
+    private fun indexOfFirstAfter(dateTime: LocalDateTime, includeEqual: Boolean): Int {
+        var low = 0
+        var high = idObjects.size
+
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            val comparison = idObjects[mid].dateTime.compareTo(dateTime)
+            if (comparison < 0 || (comparison == 0 && !includeEqual)) {
+                low = mid + 1
+            } else {
+                high = mid
+            }
+        }
+        return low
+    }
+
+    /**
+     * Returns the list index of the specified object instance, which must be stored in the list. The list is sorted,
+     * so the index is found by binary search.
+     *
+     * @param stored the stored object
+     * @return the list index
+     */
+    override fun indexOfStored(stored: T): Int {
+        var index = indexOfFirstAfter(stored.dateTime, true)
+        while (index < idObjects.size && idObjects[index].dateTime == stored.dateTime) {
+            if (idObjects[index] === stored) {
+                return index
+            }
+            index++
+        }
+
+        // the datetime of the stored object has been modified in the meantime => it needs to be searched
+        return idObjects.indexOf(stored)
     }
 }
@@ -1,6 +1,5 @@
 package de.saring.util.data
 
-import java.util.stream.Collectors
 import java.util.stream.Stream
 
 /**
@@ -17,30 +16,52 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
 
     /**
      * Generic list of subclasses of IdObject. Only subclasses can directly access this list.
+     * Subclasses must use the index methods below when adding or removing objects, so the ID index keeps in sync.
      */
     protected val idObjects = mutableListOf<T>()
 
+    /**
+     * Index of all contained IdObjects by their ID, for fast lookups.
+     */
+    private val idObjectIndex = HashMap<Int, T>()
+
+    /**
+     * Index of the list positions of all contained IdObjects by their ID. It's created on demand and discarded on
+     * each change which moves objects to other positions.
+     */
+    private var idObjectPositions: HashMap<Int, Int>? = null
+
+    /**
+     * Lowest ID which might be unused. All IDs below are always in use, so the search for a new ID starts here.
+     */
+    private var newIdCandidate = 1
+
+    /**
+     * Counter of all list content changes, it's increased on each change before the listeners get notified.
+     */
+    var modificationCount = 0L
+        private set
+
     /**
      * List of listeners which will be notified on each list content change.
      */
     private val listChangeListeners = mutableListOf<IdObjectListChangeListener>()
 
     /**
-     * This method returns an unique ID, which is not in use yet.
+     * List of listeners which will be notified on each removal of an object.
+     */
+    private val removeListeners = mutableListOf<IdObjectListRemoveListener>()
+
+    /**
+     * This method returns an unique ID, which is not in use yet. It's always the lowest unused ID.
      *
      * @return a new unused ID
      */
     fun getNewId(): Int {
-
-        val hsIDsInUse = stream()
-                .map { it.id }
-                .collect(Collectors.toSet())
-
-        var newID = 1
-        while (hsIDsInUse.contains(newID)) {
-            newID++
+        while (idObjectIndex.containsKey(newIdCandidate)) {
+            newIdCandidate++
         }
-        return newID
+        return newIdCandidate
     }
 
     /**
@@ -49,12 +70,7 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param id ID of IdObject
      * @return the IdObject object or null
      */
-    fun getByID(id: Int): T? {
-        return stream()
-                .filter { o -> o.id == id }
-                .findFirst()
-                .orElse(null)
-    }
+    fun getByID(id: Int): T? = idObjectIndex[id]
 
     /**
      * Returns the IdObject at the specified index. Throws an  IndexOutOfBoundsException when the index is not valid.
@@ -70,7 +86,7 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the object to lookup in the list
      * @return the index of the object or -1
      */
-    fun indexOf(t: T): Int = idObjects.indexOf(t)
+    fun indexOf(t: T): Int = idObjectIndex[t.id]?.takeIf { it == t }?.let { indexOfStored(it) } ?: -1
 
     /**
      * Checks whether the specified object is contained in list.
@@ -78,7 +94,7 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param t the object to lookup in the list
      * @return true if the list contains the specified object
      */
-    fun contains(t: T): Boolean = idObjects.contains(t)
+    fun contains(t: T): Boolean = idObjectIndex[t.id] == t
 
     /**
      * Stores the specified IdObject in the list. If there is already an IDObject with that ID then the old object will
@@ -89,14 +105,16 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
     open fun set(t: T) {
 
         try {
-            val index = idObjects.indexOf(t)
-            if (index >= 0) {
+            val oldObject = idObjectIndex[t.id]
+            if (oldObject != null) {
                 // replace old IdObject if there is one with the ID of the new one
-                this.idObjects[index] = t
+                this.idObjects[indexOfStored(oldObject)] = t
             } else {
                 // the object has a new ID => add to end of list
                 this.idObjects.add(t)
+                idObjectPositions?.put(t.id, idObjects.size - 1)
             }
+            addToIndex(t)
         } finally {
             notifyAllListChangelisteners(t)
         }
@@ -112,6 +130,7 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
 
         idObjects.clear()
         idObjects.addAll(entries)
+        rebuildIndex()
         notifyAllListChangelisteners(null)
     }
 
@@ -126,10 +145,13 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
 
         val idObject = getByID(id)
         if (idObject != null) {
-            removed = this.idObjects.remove(idObject)
+            this.idObjects.removeAt(indexOfStored(idObject))
+            removeFromIndex(id)
+            removed = true
         }
 
         if (removed) {
+            removeListeners.forEach { it.objectRemoved(idObject!!) }
             notifyAllListChangelisteners(null)
         }
         return removed
@@ -166,6 +188,34 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
         listChangeListeners.add(listener)
     }
 
+    /**
+     * Removes the specified IdObjectListChangeListener from the list of listeners.
+     *
+     * @param listener the IdObjectListChangeListener to remove
+     */
+    fun removeListChangeListener(listener: IdObjectListChangeListener) {
+        listChangeListeners.remove(listener)
+    }
+
+    /**
+     * Adds the specified IdObjectListRemoveListener to the list of listeners which will be notified on each
+     * removal of an object.
+     *
+     * @param listener the IdObjectListRemoveListener to add
+     */
+    fun addRemoveListener(listener: IdObjectListRemoveListener) {
+        removeListeners.add(listener)
+    }
+
+    /**
+     * Removes the specified IdObjectListRemoveListener from the list of listeners.
+     *
+     * @param listener the IdObjectListRemoveListener to remove
+     */
+    fun removeRemoveListener(listener: IdObjectListRemoveListener) {
+        removeListeners.remove(listener)
+    }
+
     /**
      * Returns a string representation of this object.
      *
@@ -179,6 +229,60 @@ open class IdObjectList<T : IdObject> : Iterable<T> {
      * @param changedObject the added / changed object (or null when removed or all objects changed)
      */
     protected fun notifyAllListChangelisteners(changedObject: IdObject?) {
+        modificationCount++
         listChangeListeners.forEach { it.listChanged(changedObject) }
     }
+
+    /**
+     * Adds the specified IdObject to the ID index, an already indexed object with the same ID will be replaced.
+     * Must be called by subclasses after adding an object to idObjects.
+     *
+     * @param t the added IdObject
+     */
+    protected fun addToIndex(t: T) {
+        idObjectIndex[t.id] = t
+    }
+
+    /**
+     * Removes the IdObject with the specified ID from the ID index. Must be called by subclasses after removing an
+     * object from idObjects.
+     *
+     * @param id ID of the removed IdObject
+     * @return the removed IdObject or null when not indexed
+     */
+    protected fun removeFromIndex(id: Int): T? {
+        val removed = idObjectIndex.remove(id)
+        idObjectPositions = null
+        if (removed != null && id in 1 until newIdCandidate) {
+            newIdCandidate = id
+        }
+        return removed
+    }
+
+    /**
+     * Rebuilds the ID index for the current content of idObjects. Must be called by subclasses after replacing the
+     * complete content.
+     */
+    protected fun rebuildIndex() {
+        idObjectIndex.clear()
+        idObjects.forEach { idObjectIndex[it.id] = it }
+        idObjectPositions = null
+        newIdCandidate = 1
+    }
+
+    /**
+     * Returns the list index of the specified object instance, which must be stored in the list. The index is looked
+     * up in the position index, which gets created when needed. Subclasses which insert objects at other positions
+     * than the end of idObjects must override this method.
+     *
+     * @param stored the stored object
+     * @return the list index
+     */
+    protected open fun indexOfStored(stored: T): Int {
+        val positions = idObjectPositions ?: HashMap<Int, Int>(idObjects.size * 2).also { positions ->
+            idObjects.forEachIndexed { index, idObject -> positions[idObject.id] = index }
+            idObjectPositions = positions
+        }
+        return positions.getValue(stored.id)
+    }
 }
@@ -0,0 +1,19 @@
+package de.saring.util.data
+
+/**
+ * Listener interface for observing the removal of objects from the IdObjectList. The IdObjectListChangeListener
+ * does not provide the removed object, so listeners which need to update their state for the removed object only
+ * can use this interface in addition.
+ *
+ * @author Stefan Saring
+ */
+interface IdObjectListRemoveListener {
+
+    /**
+     * This method will be called when an object has been removed from the list. It's called before the
+     * IdObjectListChangeListeners get notified about this change.
+     *
+     * @param removedObject the removed object
+     */
+    fun objectRemoved(removedObject: IdObject)
+}
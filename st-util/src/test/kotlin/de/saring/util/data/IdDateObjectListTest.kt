@@ -48,6 +48,7 @@ class IdDateObjectListTest {
         list.set(DateNameObject(3, LocalDateTime.of(2009, 2, 7, 11, 40, 0), "three-new"))
         assertEquals(list.size(), 3)
         assertEquals("three-new", list.getAt(2).name)
+        assertEquals("three-new", list.getByID(3)?.name)
         checkDateOrder()
     }
 
@@ -113,6 +114,25 @@ class IdDateObjectListTest {
         assertEquals("one", lFound[0].name)
     }
 
+    /**
+     * Test of getEntriesInDateRange(): must find the entries at the start of the first day and at the end of the
+     * last day of the date range.
+     */
+    @Test
+    fun testGetEntriesInDateRangeDayBoundaries() {
+        list.set(DateNameObject(4, LocalDateTime.of(2009, 2, 5, 0, 0, 0), "four"))
+        list.set(DateNameObject(5, LocalDateTime.of(2009, 2, 6, 23, 59, 59), "five"))
+        list.set(DateNameObject(6, LocalDateTime.of(2009, 2, 4, 23, 59, 59), "six"))
+
+        val lFound = list.getEntriesInDateRange(
+                LocalDate.of(2009, 2, 5), LocalDate.of(2009, 2, 6))
+
+        assertEquals(3, lFound.size)
+        assertEquals("four", lFound[0].name)
+        assertEquals("one", lFound[1].name)
+        assertEquals("five", lFound[2].name)
+    }
+
     /**
      * Test of getEntriesInDateRange(): must fail when the begin date ist after end date.
      */
@@ -3,6 +3,7 @@ package de.saring.util.data
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import org.mockito.Mockito.inOrder
 import org.mockito.Mockito.mock
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.verifyZeroInteractions
@@ -85,6 +86,38 @@ class IdObjectListChangeListenerTest {
         verify(listenerMock).listChanged(null)
     }
 
+    /**
+     * Test: Remove listener must be called with the removed object before the change listener gets notified.
+     */
+    @Test
+    fun testRemoveWithRemoveListener() {
+        val removedObject = idObjectList.getByID(2)!!
+        val removeListenerMock = mock(IdObjectListRemoveListener::class.java)
+        idObjectList.addRemoveListener(removeListenerMock)
+
+        assertTrue(idObjectList.removeByID(2))
+
+        val inOrder = inOrder(removeListenerMock, listenerMock)
+        inOrder.verify(removeListenerMock).objectRemoved(removedObject)
+        inOrder.verify(listenerMock).listChanged(null)
+    }
+
+    /**
+     * Test: Removed listeners must not be called anymore.
+     */
+    @Test
+    fun testRemovedListeners() {
+        val removeListenerMock = mock(IdObjectListRemoveListener::class.java)
+        idObjectList.addRemoveListener(removeListenerMock)
+        idObjectList.removeRemoveListener(removeListenerMock)
+        idObjectList.removeListChangeListener(listenerMock)
+
+        assertTrue(idObjectList.removeByID(2))
+
+        verifyZeroInteractions(removeListenerMock)
+        verifyZeroInteractions(listenerMock)
+    }
+
     /**
      * Test: Listener must not be called when removing an object with an unknown
      * ID.
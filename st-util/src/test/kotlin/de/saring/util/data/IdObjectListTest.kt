@@ -81,6 +81,24 @@ class IdObjectListTest {
         assertEquals("zwei", list.getByID(2)?.name)
     }
 
+    /**
+     * Test of set method set() of class IdObjectList. Replaced elements must keep their list position, also after
+     * elements have been removed and added.
+     */
+    @Test
+    fun setAfterRemoveByID() {
+
+        list.set(NameObject(2, "zwei"))
+        assertTrue(list.removeByID(1))
+        list.set(NameObject(4, "four"))
+
+        list.set(NameObject(3, "drei"))
+        list.set(NameObject(4, "vier"))
+        assertEquals(listOf("zwei", "drei", "vier"), list.map { it.name })
+        assertEquals(2, list.indexOf(NameObject(4, "vier")))
+        assertEquals(-1, list.indexOf(NameObject(1, "one")))
+    }
+
     /**
      * Test of method clearAndAddAll(). The previous list content must be removed, the
      * list must contain only the new entries.
@@ -133,6 +151,35 @@ class IdObjectListTest {
         assertEquals(2, list.getNewId())
     }
 
+    /**
+     * Test of getNewID method after the list content has been replaced by clearAndAddAll().
+     */
+    @Test
+    fun getNewIDAfterClearAndAddAll() {
+
+        list.clearAndAddAll(listOf(NameObject(2, "two"), NameObject(3, "three")))
+        assertEquals(1, list.getNewId())
+
+        list.set(NameObject(1, "one"))
+        assertEquals(4, list.getNewId())
+        assertEquals("one", list.getByID(1)?.name)
+        assertNull(list.getByID(5))
+    }
+
+    /**
+     * Test of the modification count, it must be increased on each list content change only.
+     */
+    @Test
+    fun modificationCount() {
+        val countBefore = list.modificationCount
+
+        list.set(NameObject(4, "four"))
+        list.removeByID(4)
+        list.removeByID(4)
+        list.getByID(1)
+        assertEquals(countBefore + 2, list.modificationCount)
+    }
+
     /**
      * Subclass of abstract class IdObject for testing.
      */